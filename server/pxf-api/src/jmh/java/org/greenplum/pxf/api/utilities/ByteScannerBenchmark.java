@@ -0,0 +1,101 @@
+package org.greenplum.pxf.api.utilities;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Splits a 1 MB chunk into lines with {@link ByteScanner} and with the byte
+ * loop it replaced. Run with {@code ./gradlew :pxf-api:jmh}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ByteScannerBenchmark {
+
+    private static final byte LF = '\n';
+
+    @Param({"20", "100", "1000"})
+    public int lineLength;
+
+    private byte[] chunk;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(1);
+        chunk = new byte[1024 * 1024];
+        for (int i = 0; i < chunk.length; i++) {
+            chunk[i] = (byte) ('a' + random.nextInt(26));
+        }
+        for (int i = lineLength; i < chunk.length; i += lineLength + 1) {
+            chunk[i] = LF;
+        }
+    }
+
+    @Benchmark
+    public int byteLoop() {
+        int lines = 0;
+        int position = 0;
+        while ((position = indexOfLoop(chunk, LF, position)) >= 0) {
+            lines++;
+            position++;
+        }
+        return lines;
+    }
+
+    @Benchmark
+    public int byteScanner() {
+        int lines = 0;
+        int position = 0;
+        while ((position = ByteScanner.indexOf(chunk, LF, position)) >= 0) {
+            lines++;
+            position++;
+        }
+        return lines;
+    }
+
+    /*
+     * The line feed search ChunkReader.readLine used before ByteScanner.
+     */
+    private static int indexOfLoop(byte[] data, byte value, int from) {
+        for (int i = from; i < data.length; i++) {
+            if (data[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,44 @@
+package org.greenplum.pxf.api;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks an accessor whose rows can be read ahead of the resolver.
+ * <p>
+ * The rows returned by {@link org.greenplum.pxf.api.model.Accessor#readNextObject()}
+ * must not be modified or reused by subsequent calls, so that several rows
+ * can be buffered before they are resolved. Accessors that recycle their key
+ * or data objects (like Hadoop record readers do) must not be annotated.
+ * <p>
+ * The annotation is not inherited: a subclass of an annotated accessor is
+ * read ahead only if it is annotated itself, since it may share state between
+ * the rows it returns.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface ReadAhead {
+}
@@ -0,0 +1,43 @@
+package org.greenplum.pxf.api;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+import org.greenplum.pxf.api.io.ColumnBatch;
+
+/**
+ * Interface that defines deserialization of a batch of records into column
+ * vectors. The batch is serialized by the bridge straight from the vectors,
+ * without creating a {@link OneField} per value.
+ */
+public interface ReadColumnarResolver {
+
+    /**
+     * Returns the rows of the accessor's batch. The resolver may reuse the
+     * same {@link ColumnBatch} for every call, it is serialized before the
+     * next call.
+     *
+     * @param batch unresolved batch
+     * @return column batch, or null if the batch has no rows
+     * @throws Exception if the batch cannot be resolved
+     */
+    ColumnBatch getColumnBatch(OneRow batch) throws Exception;
+
+}
@@ -0,0 +1,167 @@
+package org.greenplum.pxf.api.io;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.greenplum.pxf.api.utilities.ColumnDescriptor;
+
+import java.util.List;
+
+/**
+ * A batch of rows stored column by column, one {@link ColumnVector} per
+ * column of the table.
+ * <p>
+ * A resolver fills the first {@link #getSize()} rows of the vectors. It can
+ * then filter rows out without moving data by setting a selection vector,
+ * which lists the indexes of the rows to return in ascending order.
+ */
+public class ColumnBatch {
+
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    private final ColumnVector[] columns;
+    private final int capacity;
+    private final int[] selected;
+    private int size;
+    private int selectedSize;
+    private boolean selectionInUse;
+
+    /**
+     * Constructs a batch with a vector of the given capacity per column.
+     *
+     * @param types    the types of the columns
+     * @param capacity the maximum number of rows in the batch
+     */
+    public ColumnBatch(DataType[] types, int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Batch capacity must be a positive integer");
+        }
+        this.capacity = capacity;
+        this.columns = new ColumnVector[types.length];
+        for (int i = 0; i < types.length; i++) {
+            columns[i] = new ColumnVector(types[i], capacity);
+        }
+        this.selected = new int[capacity];
+    }
+
+    /**
+     * Constructs a batch of the default capacity for the columns of a table.
+     *
+     * @param tupleDescription the columns of the table
+     */
+    public ColumnBatch(List<ColumnDescriptor> tupleDescription) {
+        this(getTypes(tupleDescription), DEFAULT_CAPACITY);
+    }
+
+    public ColumnVector getColumn(int index) {
+        return columns[index];
+    }
+
+    public int getColumnCount() {
+        return columns.length;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * @return the number of rows filled in the vectors
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Sets the number of rows filled in the vectors.
+     *
+     * @param size the number of rows
+     */
+    public void setSize(int size) {
+        if (size < 0 || size > capacity) {
+            throw new IllegalArgumentException("Batch size " + size + " is out of range [0, " + capacity + "]");
+        }
+        this.size = size;
+    }
+
+    /**
+     * Returns the selection vector, to be filled in place before calling
+     * {@link #setSelectedSize(int)}.
+     *
+     * @return the selection vector
+     */
+    public int[] getSelected() {
+        return selected;
+    }
+
+    /**
+     * Enables the selection vector, only its first selectedSize rows are
+     * returned.
+     *
+     * @param selectedSize the number of selected rows
+     */
+    public void setSelectedSize(int selectedSize) {
+        if (selectedSize < 0 || selectedSize > size) {
+            throw new IllegalArgumentException("Selected size " + selectedSize + " is out of range [0, " + size + "]");
+        }
+        this.selectedSize = selectedSize;
+        this.selectionInUse = true;
+    }
+
+    public boolean isSelectionInUse() {
+        return selectionInUse;
+    }
+
+    /**
+     * @return the number of rows to return
+     */
+    public int getRowCount() {
+        return selectionInUse ? selectedSize : size;
+    }
+
+    /**
+     * Returns the index in the vectors of the i-th row to return.
+     *
+     * @param i the position of the row, less than {@link #getRowCount()}
+     * @return the row index
+     */
+    public int getRow(int i) {
+        return selectionInUse ? selected[i] : i;
+    }
+
+    /**
+     * Empties the batch and its vectors, and disables the selection vector.
+     */
+    public void reset() {
+        size = 0;
+        selectedSize = 0;
+        selectionInUse = false;
+        for (ColumnVector column : columns) {
+            column.reset();
+        }
+    }
+
+    private static DataType[] getTypes(List<ColumnDescriptor> tupleDescription) {
+        DataType[] types = new DataType[tupleDescription.size()];
+        for (int i = 0; i < types.length; i++) {
+            types[i] = DataType.get(tupleDescription.get(i).columnTypeCode());
+        }
+        return types;
+    }
+}
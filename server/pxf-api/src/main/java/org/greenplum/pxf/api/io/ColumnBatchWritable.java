@@ -0,0 +1,278 @@
+package org.greenplum.pxf.api.io;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Serializes the rows of a {@link ColumnBatch} straight from its vectors,
+ * without building an intermediate object per row or per value.
+ * <p>
+ * In binary mode every row is written as a GPDBWritable record, byte for byte
+ * the same as {@link GPDBWritable} would write it. In text mode every row is
+ * written as a line of delimited text, in the escaped format of the COPY TEXT
+ * format. The whole batch is written to the output in a single call.
+ */
+public class ColumnBatchWritable implements Writable {
+
+    private static final byte[] NULL_TEXT = {'\\', 'N'};
+    private static final byte[] TRUE_TEXT = {'t'};
+    private static final byte[] FALSE_TEXT = {'f'};
+    private static final byte[] HEX_DIGITS = "0123456789abcdef".getBytes();
+
+    private final boolean binary;
+    private final byte delimiter;
+    private final RecordBuffer buffer = new RecordBuffer();
+    private final int alignmentOfEightBytes = GPDBWritable.getEightByteAlignment();
+    private ColumnBatch batch;
+    private GPDBWritable.DBType[] colDbType;
+    private byte[] colEnumType;
+
+    /**
+     * Constructs a writable serializing batches as GPDBWritable records.
+     */
+    public ColumnBatchWritable() {
+        this.binary = true;
+        this.delimiter = 0;
+    }
+
+    /**
+     * Constructs a writable serializing batches as lines of text.
+     *
+     * @param delimiter the ASCII column delimiter
+     */
+    public ColumnBatchWritable(char delimiter) {
+        if (delimiter > 0x7F || delimiter == '\\' || delimiter == '\n' || delimiter == '\r') {
+            throw new IllegalArgumentException("Invalid delimiter " + (int) delimiter);
+        }
+        this.binary = false;
+        this.delimiter = (byte) delimiter;
+    }
+
+    /**
+     * Sets the batch to serialize on the next call to {@link #write(DataOutput)}.
+     *
+     * @param batch the batch
+     */
+    public void setBatch(ColumnBatch batch) {
+        if (binary && (colDbType == null || colDbType.length != batch.getColumnCount())) {
+            int numCol = batch.getColumnCount();
+            colDbType = new GPDBWritable.DBType[numCol];
+            colEnumType = new byte[numCol];
+            for (int i = 0; i < numCol; i++) {
+                colDbType[i] = GPDBWritable.getDBType(batch.getColumn(i).getType().getOID());
+                colEnumType[i] = (byte) colDbType[i].ordinal();
+            }
+        }
+        this.batch = batch;
+    }
+
+    @Override
+    public void write(DataOutput out) throws IOException {
+        if (batch == null) {
+            throw new IOException("ColumnBatchWritable was not set");
+        }
+        buffer.reset();
+        int rowCount = batch.getRowCount();
+        for (int i = 0; i < rowCount; i++) {
+            if (binary) {
+                writeRecord(batch.getRow(i));
+            } else {
+                writeLine(batch.getRow(i));
+            }
+        }
+        out.write(buffer.bytes, 0, buffer.position);
+    }
+
+    /**
+     * @throws UnsupportedOperationException this function is not supported
+     */
+    @Override
+    public void readFields(DataInput in) {
+        throw new UnsupportedOperationException(
+                "ColumnBatchWritable.readFields() is not implemented");
+    }
+
+    /**
+     * Appends the row as a GPDBWritable record. Offsets used for alignment
+     * are relative to the beginning of the record.
+     */
+    private void writeRecord(int row) {
+        RecordBuffer buffer = this.buffer;
+        int numCol = colDbType.length;
+        int recordStart = buffer.position;
+
+        /* Placeholder for the length of the record, patched at the end */
+        buffer.putInt(0);
+        buffer.putShort(GPDBWritable.VERSION);
+        /* Error flag */
+        buffer.putByte(0);
+        buffer.putShort(numCol);
+        buffer.putBytes(colEnumType, 0, numCol);
+
+        int nullBytesOffset = buffer.position;
+        buffer.putPadding(GPDBWritable.getNullByteArraySize(numCol));
+        for (int i = 0; i < numCol; i++) {
+            if (batch.getColumn(i).isNull(row)) {
+                buffer.bytes[nullBytesOffset + (i >> 3)] |= (byte) (0x80 >>> (i & 7));
+            }
+        }
+
+        for (int i = 0; i < numCol; i++) {
+            ColumnVector column = batch.getColumn(i);
+            if (column.isNull(row)) {
+                continue;
+            }
+
+            GPDBWritable.DBType coldbtype = colDbType[i];
+            pad(recordStart, coldbtype.getAlignment());
+
+            switch (coldbtype) {
+                case BIGINT:
+                    buffer.putLong(column.getLong(row));
+                    break;
+                case BOOLEAN:
+                    buffer.putByte(column.getBoolean(row) ? 1 : 0);
+                    break;
+                case FLOAT8:
+                    buffer.putLong(Double.doubleToLongBits(column.getDouble(row)));
+                    break;
+                case INTEGER:
+                    buffer.putInt((int) column.getLong(row));
+                    break;
+                case REAL:
+                    buffer.putInt(Float.floatToIntBits((float) column.getDouble(row)));
+                    break;
+                case SMALLINT:
+                    buffer.putShort((int) column.getLong(row));
+                    break;
+                case BYTEA:
+                    buffer.putInt(column.getLength(row));
+                    buffer.putBytes(column.getBytes(), column.getStart(row), column.getLength(row));
+                    break;
+                /* Text is written null terminated, the length includes the terminator */
+                default:
+                    buffer.putInt(column.getLength(row) + 1);
+                    buffer.putBytes(column.getBytes(), column.getStart(row), column.getLength(row));
+                    buffer.putByte(0);
+                    break;
+            }
+        }
+
+        pad(recordStart, 8);
+        buffer.putInt(recordStart, buffer.position - recordStart);
+    }
+
+    private void pad(int recordStart, int align) {
+        int offset = buffer.position - recordStart;
+        buffer.putPadding(GPDBWritable.roundUpAlignment(offset, align, alignmentOfEightBytes) - offset);
+    }
+
+    /**
+     * Appends the row as a line of delimited text.
+     */
+    private void writeLine(int row) {
+        RecordBuffer buffer = this.buffer;
+        int numCol = batch.getColumnCount();
+        for (int i = 0; i < numCol; i++) {
+            if (i > 0) {
+                buffer.putByte(delimiter);
+            }
+            ColumnVector column = batch.getColumn(i);
+            if (column.isNull(row)) {
+                buffer.putBytes(NULL_TEXT, 0, NULL_TEXT.length);
+                continue;
+            }
+            switch (column.getType()) {
+                case BOOLEAN:
+                    byte[] value = column.getBoolean(row) ? TRUE_TEXT : FALSE_TEXT;
+                    buffer.putBytes(value, 0, value.length);
+                    break;
+                case SMALLINT:
+                case INTEGER:
+                case BIGINT:
+                    putAscii(Long.toString(column.getLong(row)));
+                    break;
+                case REAL:
+                    putAscii(Float.toString((float) column.getDouble(row)));
+                    break;
+                case FLOAT8:
+                    putAscii(Double.toString(column.getDouble(row)));
+                    break;
+                case BYTEA:
+                    putHex(column.getBytes(), column.getStart(row), column.getLength(row));
+                    break;
+                default:
+                    putEscaped(column.getBytes(), column.getStart(row), column.getLength(row));
+                    break;
+            }
+        }
+        buffer.putByte('\n');
+    }
+
+    private void putAscii(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            buffer.putByte(value.charAt(i));
+        }
+    }
+
+    /**
+     * Appends bytea in hex format. The backslash of the \x prefix is escaped.
+     */
+    private void putHex(byte[] bytes, int start, int length) {
+        buffer.putByte('\\');
+        buffer.putByte('\\');
+        buffer.putByte('x');
+        for (int i = start; i < start + length; i++) {
+            buffer.putByte(HEX_DIGITS[(bytes[i] >> 4) & 0x0F]);
+            buffer.putByte(HEX_DIGITS[bytes[i] & 0x0F]);
+        }
+    }
+
+    /**
+     * Appends UTF-8 text, escaping backslashes, line breaks and the
+     * delimiter. Multi-byte UTF-8 sequences never contain ASCII bytes, so
+     * they are copied as is.
+     */
+    private void putEscaped(byte[] bytes, int start, int length) {
+        int end = start + length;
+        int from = start;
+        for (int i = start; i < end; i++) {
+            byte b = bytes[i];
+            byte escaped;
+            if (b == '\\' || b == delimiter) {
+                escaped = b;
+            } else if (b == '\n') {
+                escaped = 'n';
+            } else if (b == '\r') {
+                escaped = 'r';
+            } else {
+                continue;
+            }
+            buffer.putBytes(bytes, from, i - from);
+            buffer.putByte('\\');
+            buffer.putByte(escaped);
+            from = i + 1;
+        }
+        buffer.putBytes(bytes, from, end - from);
+    }
+}
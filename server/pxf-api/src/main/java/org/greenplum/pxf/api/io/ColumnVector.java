@@ -0,0 +1,228 @@
+package org.greenplum.pxf.api.io;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Values of one column for a batch of rows, stored in primitive arrays.
+ * <p>
+ * Boolean and integral columns are stored as longs, real and float8 columns
+ * as doubles. All the other types are stored as bytes: the raw value for
+ * bytea columns, the UTF-8 encoded text representation otherwise. The
+ * values of a bytes column share one growable buffer. Nulls are tracked in a
+ * bitmap, the value of a null row is undefined.
+ */
+public class ColumnVector {
+
+    private static final int INITIAL_BYTES_PER_VALUE = 16;
+
+    private final DataType type;
+    private final int capacity;
+    private final long[] nulls;
+    private boolean hasNulls;
+
+    private long[] longValues;
+    private double[] doubleValues;
+    private byte[] bytes;
+    private int[] start;
+    private int[] length;
+    private int bytesUsed;
+
+    /**
+     * Constructs a vector for the given type.
+     *
+     * @param type     the type of the column
+     * @param capacity the maximum number of rows
+     */
+    public ColumnVector(DataType type, int capacity) {
+        this.type = type;
+        this.capacity = capacity;
+        this.nulls = new long[(capacity + 63) >>> 6];
+        switch (type) {
+            case BOOLEAN:
+            case SMALLINT:
+            case INTEGER:
+            case BIGINT:
+                longValues = new long[capacity];
+                break;
+            case REAL:
+            case FLOAT8:
+                doubleValues = new double[capacity];
+                break;
+            default:
+                bytes = new byte[capacity * INITIAL_BYTES_PER_VALUE];
+                start = new int[capacity];
+                length = new int[capacity];
+        }
+    }
+
+    public DataType getType() {
+        return type;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Clears the nulls and the bytes of the vector, so it can be refilled.
+     */
+    public void reset() {
+        if (hasNulls) {
+            Arrays.fill(nulls, 0);
+            hasNulls = false;
+        }
+        bytesUsed = 0;
+    }
+
+    public void setNull(int row) {
+        nulls[row >>> 6] |= 1L << row;
+        hasNulls = true;
+    }
+
+    public boolean isNull(int row) {
+        return hasNulls && (nulls[row >>> 6] & (1L << row)) != 0;
+    }
+
+    /**
+     * @return true if any row of the vector was set to null
+     */
+    public boolean hasNulls() {
+        return hasNulls;
+    }
+
+    /**
+     * Sets the value of a boolean column.
+     */
+    public void setBoolean(int row, boolean value) {
+        longValues[row] = value ? 1 : 0;
+    }
+
+    public boolean getBoolean(int row) {
+        return longValues[row] != 0;
+    }
+
+    /**
+     * Sets the value of a smallint, integer or bigint column.
+     */
+    public void setLong(int row, long value) {
+        longValues[row] = value;
+    }
+
+    public long getLong(int row) {
+        return longValues[row];
+    }
+
+    /**
+     * Sets the value of a real or float8 column.
+     */
+    public void setDouble(int row, double value) {
+        doubleValues[row] = value;
+    }
+
+    public double getDouble(int row) {
+        return doubleValues[row];
+    }
+
+    /**
+     * Sets the value of a bytes column by copying the given bytes into the
+     * vector's buffer.
+     *
+     * @param row    the row index
+     * @param value  the source array
+     * @param offset the offset of the value in the source array
+     * @param len    the length of the value
+     */
+    public void setBytes(int row, byte[] value, int offset, int len) {
+        if (bytesUsed + len > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, bytesUsed + len));
+        }
+        System.arraycopy(value, offset, bytes, bytesUsed, len);
+        start[row] = bytesUsed;
+        length[row] = len;
+        bytesUsed += len;
+    }
+
+    /**
+     * Sets the value of a text column to the UTF-8 encoding of the string.
+     */
+    public void setString(int row, String value) {
+        byte[] encoded = value.getBytes(StandardCharsets.UTF_8);
+        setBytes(row, encoded, 0, encoded.length);
+    }
+
+    /**
+     * @return the buffer holding the values of a bytes column
+     */
+    public byte[] getBytes() {
+        return bytes;
+    }
+
+    /**
+     * @return the offset of the row's value in {@link #getBytes()}
+     */
+    public int getStart(int row) {
+        return start[row];
+    }
+
+    /**
+     * @return the length of the row's value in {@link #getBytes()}
+     */
+    public int getLength(int row) {
+        return length[row];
+    }
+
+    public String getString(int row) {
+        return new String(bytes, start[row], length[row], StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns the value of a row boxed in the object a resolver would put in
+     * a field of the column's type.
+     *
+     * @param row the row index
+     * @return the value, or null for a null row
+     */
+    public Object getValue(int row) {
+        if (isNull(row)) {
+            return null;
+        }
+        switch (type) {
+            case BOOLEAN:
+                return getBoolean(row);
+            case SMALLINT:
+                return (short) getLong(row);
+            case INTEGER:
+                return (int) getLong(row);
+            case BIGINT:
+                return getLong(row);
+            case REAL:
+                return (float) getDouble(row);
+            case FLOAT8:
+                return getDouble(row);
+            case BYTEA:
+                return Arrays.copyOfRange(bytes, start[row], start[row] + length[row]);
+            default:
+                return getString(row);
+        }
+    }
+}
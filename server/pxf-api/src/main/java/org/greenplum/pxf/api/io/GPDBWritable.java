@@ -53,7 +53,7 @@ public class GPDBWritable implements Writable {
     /*
      * Enum of the Database type
      */
-    private enum DBType {
+    enum DBType {
         BIGINT(8, 8),
         BOOLEAN(1, 1),
         FLOAT8(8, 8),
@@ -89,7 +89,7 @@ public class GPDBWritable implements Writable {
      * Constants
      */
     private static final int PREV_VERSION = 1;
-    private static final int VERSION = 2; /* for backward compatibility */
+    static final int VERSION = 2; /* for backward compatibility */
     private static final String CHARSET = "UTF-8";
 
     /*
@@ -101,6 +101,14 @@ public class GPDBWritable implements Writable {
     private byte errorFlag = 0;
     private int pktlen = EOF;
 
+    /*
+     * Serialization state, computed on the first write and shared by
+     * the records created from the same template record.
+     */
+    private DBType[] colDbType;
+    private byte[] colEnumType;
+    private RecordBuffer recordBuffer;
+
     public int[] getColType() {
         return colType;
     }
@@ -133,6 +141,27 @@ public class GPDBWritable implements Writable {
         colValue = new Object[columnType.length];
     }
 
+    /**
+     * Constructor to build an empty db record with the schema of another
+     * record. The new record shares the serialization state (column types
+     * and the reusable record buffer) of the template, so that the schema
+     * is processed only once. Records sharing a template must be written
+     * by a single thread.
+     *
+     * @param template the record to take the schema from
+     */
+    public GPDBWritable(GPDBWritable template) {
+        if (template.colDbType == null) {
+            template.initializeSerialization();
+        }
+        alignmentOfEightBytes = template.alignmentOfEightBytes;
+        colType = template.colType;
+        colDbType = template.colDbType;
+        colEnumType = template.colEnumType;
+        recordBuffer = template.recordBuffer;
+        colValue = new Object[colType.length];
+    }
+
     /**
      * Constructor to build a db record from a serialized form.
      *
@@ -204,6 +233,7 @@ public class GPDBWritable implements Writable {
 
 		/* Extract Column Type */
         colType = new int[colCnt];
+        colDbType = null;
         DBType[] coldbtype = new DBType[colCnt];
         for (int i = 0; i < colCnt; i++) {
             int enumType = (in.readByte());
@@ -329,177 +359,139 @@ public class GPDBWritable implements Writable {
 
     @Override
     public void write(DataOutput out) throws IOException {
+        if (colDbType == null) {
+            initializeSerialization();
+        }
         int numCol = colType.length;
-        boolean[] nullBits = new boolean[numCol];
-        int[] colLength = new int[numCol];
-        byte[] enumType = new byte[numCol];
-        int[] padLength = new int[numCol];
-        byte[] padbytes = new byte[8];
+        RecordBuffer buffer = recordBuffer;
+        buffer.reset();
 
         /*
-         * Compute the total payload and header length
+         * Construct the packet header
          * header = total length (4 byte), Version (2 byte), Error (1 byte), #col (2 byte)
-         * col type array = #col * 1 byte
-         * null bit array = ceil(#col/8)
+         * The total length is only known at the end and is written last.
          */
-        int datlen = 4 + 2 + 1 + 2;
-        datlen += numCol;
-        datlen += getNullByteArraySize(numCol);
+        buffer.putInt(0);
+        buffer.putShort(VERSION);
+        buffer.putByte(errorFlag);
+        buffer.putShort(numCol);
 
+        /* Write col type */
+        buffer.putBytes(colEnumType, 0, numCol);
+
+        /* Nullness */
+        int nullBytesOffset = buffer.position;
+        buffer.putPadding(getNullByteArraySize(numCol));
         for (int i = 0; i < numCol; i++) {
-            /* Get the enum type */
-            DBType coldbtype;
-            switch (DataType.get(colType[i])) {
+            if (colValue[i] == null) {
+                buffer.bytes[nullBytesOffset + (i >> 3)] |= (byte) (0x80 >>> (i & 7));
+            }
+        }
+
+        /* Column Value */
+        for (int i = 0; i < numCol; i++) {
+            Object value = colValue[i];
+            if (value == null) {
+                continue;
+            }
+
+            /* Pad the alignment byte first */
+            DBType coldbtype = colDbType[i];
+            buffer.putPadding(roundUpAlignment(buffer.position, coldbtype.getAlignment()) - buffer.position);
+
+            /* Now, write the actual column value */
+            switch (coldbtype) {
                 case BIGINT:
-                    coldbtype = DBType.BIGINT;
+                    buffer.putLong((Long) value);
                     break;
                 case BOOLEAN:
-                    coldbtype = DBType.BOOLEAN;
+                    buffer.putByte((Boolean) value ? 1 : 0);
                     break;
                 case FLOAT8:
-                    coldbtype = DBType.FLOAT8;
+                    buffer.putLong(Double.doubleToLongBits((Double) value));
                     break;
                 case INTEGER:
-                    coldbtype = DBType.INTEGER;
+                    buffer.putInt((Integer) value);
                     break;
                 case REAL:
-                    coldbtype = DBType.REAL;
+                    buffer.putInt(Float.floatToIntBits((Float) value));
                     break;
                 case SMALLINT:
-                    coldbtype = DBType.SMALLINT;
+                    buffer.putShort((Short) value);
                     break;
-                case BYTEA:
-                    coldbtype = DBType.BYTEA;
-                    break;
-                default:
-                    coldbtype = DBType.TEXT;
-            }
-            enumType[i] = (byte) (coldbtype.ordinal());
 
-			/* Get the actual value, and set the null bit */
-            if (colValue[i] == null) {
-                nullBits[i] = true;
-                colLength[i] = 0;
-            } else {
-                nullBits[i] = false;
-
-				/*
-                 * For fixed length type, we get the fixed length.
-				 * For var len binary format, the length is in the col value.
-				 * For text format, we must convert encoding first.
-				 */
-                if (!coldbtype.isVarLength()) {
-                    colLength[i] = coldbtype.getTypeLength();
-                } else if (!isTextForm(colType[i])) {
-                    colLength[i] = ((byte[]) colValue[i]).length;
-                } else {
-                    colLength[i] = ((String) colValue[i]).getBytes(CHARSET).length;
+                /* For BYTEA format, add 4byte length header at the beginning  */
+                case BYTEA: {
+                    byte[] data = (byte[]) value;
+                    buffer.putInt(data.length);
+                    buffer.putBytes(data, 0, data.length);
+                    break;
                 }
 
-				/* calculate and add the type alignment padding */
-                padLength[i] = roundUpAlignment(datlen, coldbtype.getAlignment()) - datlen;
-                datlen += padLength[i];
-
-				/* for variable length type, we add a 4 byte length header */
-                if (coldbtype.isVarLength()) {
-                    datlen += 4;
-                }
+                /* For text format, add 4byte length header. string is already '\0' terminated */
+                default:
+                    buffer.putString((String) value);
+                    break;
             }
-            datlen += colLength[i];
         }
 
-		/*
-		 * Add the final alignment padding for the next record
-		 */
-        int endpadding = roundUpAlignment(datlen, 8) - datlen;
-        datlen += endpadding;
+        /* Add the final alignment padding for the next record */
+        buffer.putPadding(roundUpAlignment(buffer.position, 8) - buffer.position);
 
-		/* Construct the packet header */
-        out.writeInt(datlen);
-        out.writeShort(VERSION);
-        out.writeByte(errorFlag);
-        out.writeShort(numCol);
+        buffer.putInt(0, buffer.position);
+        out.write(buffer.bytes, 0, buffer.position);
+    }
 
-		/* Write col type */
+    /**
+     * Computes the GPDBWritable type of each column. The types are computed
+     * once per schema, instead of once per column of each written record.
+     */
+    private void initializeSerialization() {
+        int numCol = colType.length;
+        colDbType = new DBType[numCol];
+        colEnumType = new byte[numCol];
         for (int i = 0; i < numCol; i++) {
-            out.writeByte(enumType[i]);
+            DBType coldbtype = getDBType(colType[i]);
+            colDbType[i] = coldbtype;
+            colEnumType[i] = (byte) coldbtype.ordinal();
         }
-
-		/* Nullness */
-        byte[] nullBytes = boolArrayToByteArray(nullBits);
-        out.write(nullBytes);
-
-		/* Column Value */
-        for (int i = 0; i < numCol; i++) {
-            if (!nullBits[i]) {
-				/* Pad the alignment byte first */
-                if (padLength[i] > 0) {
-                    out.write(padbytes, 0, padLength[i]);
-                }
-
-				/* Now, write the actual column value */
-                switch (DataType.get(colType[i])) {
-                    case BIGINT:
-                        out.writeLong(((Long) colValue[i]));
-                        break;
-                    case BOOLEAN:
-                        out.writeBoolean(((Boolean) colValue[i]));
-                        break;
-                    case FLOAT8:
-                        out.writeDouble(((Double) colValue[i]));
-                        break;
-                    case INTEGER:
-                        out.writeInt(((Integer) colValue[i]));
-                        break;
-                    case REAL:
-                        out.writeFloat(((Float) colValue[i]));
-                        break;
-                    case SMALLINT:
-                        out.writeShort(((Short) colValue[i]));
-                        break;
-
-					/* For BYTEA format, add 4byte length header at the beginning  */
-                    case BYTEA:
-                        out.writeInt(colLength[i]);
-                        out.write((byte[]) colValue[i]);
-                        break;
-
-					/* For text format, add 4byte length header. string is already '\0' terminated */
-                    default: {
-                        out.writeInt(colLength[i]);
-                        byte[] data = ((String) colValue[i]).getBytes(CHARSET);
-                        out.write(data);
-                        break;
-                    }
-                }
-            }
+        if (recordBuffer == null) {
+            recordBuffer = new RecordBuffer();
         }
-
-		/* End padding */
-        out.write(padbytes, 0, endpadding);
     }
 
     /**
-     * Private helper to convert boolean array to byte array
-     */
-    private static byte[] boolArrayToByteArray(boolean[] data) {
-        int len = data.length;
-        byte[] byts = new byte[getNullByteArraySize(len)];
-
-        for (int i = 0, j = 0, k = 7; i < data.length; i++) {
-            byts[j] |= (data[i] ? 1 : 0) << k--;
-            if (k < 0) {
-                j++;
-                k = 7;
-            }
+     * Returns the GPDBWritable type a column of the given type is serialized as.
+     * Types that are not binary are serialized as text.
+     *
+     * @param oid the type OID of the column
+     * @return the GPDBWritable type
+     */
+    static DBType getDBType(int oid) {
+        switch (DataType.get(oid)) {
+            case BIGINT:
+                return DBType.BIGINT;
+            case BOOLEAN:
+                return DBType.BOOLEAN;
+            case FLOAT8:
+                return DBType.FLOAT8;
+            case INTEGER:
+                return DBType.INTEGER;
+            case REAL:
+                return DBType.REAL;
+            case SMALLINT:
+                return DBType.SMALLINT;
+            case BYTEA:
+                return DBType.BYTEA;
+            default:
+                return DBType.TEXT;
         }
-        return byts;
     }
 
     /**
-     * Private helper to determine the size of the null byte array
+     * Helper to determine the size of the null byte array
      */
-    private static int getNullByteArraySize(int colCnt) {
+    static int getNullByteArraySize(int colCnt) {
         return (colCnt / 8) + (colCnt % 8 != 0 ? 1 : 0);
     }
 
@@ -522,6 +514,14 @@ public class GPDBWritable implements Writable {
      * Private helper to round up alignment for the given length
      */
     private int roundUpAlignment(int len, int align) {
+        return roundUpAlignment(len, align, alignmentOfEightBytes);
+    }
+
+    /**
+     * Helper to round up alignment for the given length, given the alignment
+     * of eight byte types
+     */
+    static int roundUpAlignment(int len, int align, int alignmentOfEightBytes) {
         int commonAlignment = align;
         if (commonAlignment == 8) {
             commonAlignment = alignmentOfEightBytes;
@@ -856,11 +856,16 @@ public class GPDBWritable implements Writable {
      * the C code uses (see gphdfs/src/protocol_formatter/common.c).
      */
     private void initializeEightByteAlignment() {
+        alignmentOfEightBytes = getEightByteAlignment();
+    }
+
+    /**
+     * Returns the alignment of eight byte types, 8 unless set by the
+     * greenplum.alignment system property.
+     */
+    static int getEightByteAlignment() {
         String alignment = System.getProperty("greenplum.alignment");
-        if (alignment == null) {
-            return;
-        }
-        alignmentOfEightBytes = Integer.parseInt(alignment);
+        return alignment == null ? 8 : Integer.parseInt(alignment);
     }
 
     /**
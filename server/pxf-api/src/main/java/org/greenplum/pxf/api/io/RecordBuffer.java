@@ -0,0 +1,126 @@
+package org.greenplum.pxf.api.io;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.Arrays;
+
+/**
+ * Growable byte buffer records are serialized into before being written
+ * to the output in a single call. Text values are encoded to UTF-8
+ * directly into the buffer.
+ */
+final class RecordBuffer {
+
+    private static final int INITIAL_SIZE = 1024;
+
+    byte[] bytes = new byte[INITIAL_SIZE];
+    int position;
+
+    void reset() {
+        position = 0;
+    }
+
+    void putByte(int value) {
+        ensureCapacity(1);
+        bytes[position++] = (byte) value;
+    }
+
+    void putShort(int value) {
+        ensureCapacity(2);
+        bytes[position++] = (byte) (value >>> 8);
+        bytes[position++] = (byte) value;
+    }
+
+    void putInt(int value) {
+        ensureCapacity(4);
+        putInt(position, value);
+        position += 4;
+    }
+
+    void putInt(int offset, int value) {
+        bytes[offset] = (byte) (value >>> 24);
+        bytes[offset + 1] = (byte) (value >>> 16);
+        bytes[offset + 2] = (byte) (value >>> 8);
+        bytes[offset + 3] = (byte) value;
+    }
+
+    void putLong(long value) {
+        ensureCapacity(8);
+        putInt(position, (int) (value >>> 32));
+        putInt(position + 4, (int) value);
+        position += 8;
+    }
+
+    void putBytes(byte[] value, int offset, int length) {
+        ensureCapacity(length);
+        System.arraycopy(value, offset, bytes, position, length);
+        position += length;
+    }
+
+    void putPadding(int length) {
+        ensureCapacity(length);
+        for (int i = 0; i < length; i++) {
+            bytes[position++] = 0;
+        }
+    }
+
+    /**
+     * Writes a 4 byte length header followed by the UTF-8 encoding of the
+     * string. Unpaired surrogates are replaced by '?', as
+     * {@link String#getBytes(String)} does.
+     */
+    void putString(String value) {
+        int length = value.length();
+        ensureCapacity(4 + length * 3);
+        int start = position;
+        int pos = start + 4;
+        byte[] buf = bytes;
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                buf[pos++] = (byte) c;
+            } else if (c < 0x800) {
+                buf[pos++] = (byte) (0xC0 | (c >> 6));
+                buf[pos++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                buf[pos++] = (byte) (0xF0 | (codePoint >> 18));
+                buf[pos++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                buf[pos++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                buf[pos++] = (byte) (0x80 | (codePoint & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                buf[pos++] = (byte) '?';
+            } else {
+                buf[pos++] = (byte) (0xE0 | (c >> 12));
+                buf[pos++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                buf[pos++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        putInt(start, pos - start - 4);
+        position = pos;
+    }
+
+    private void ensureCapacity(int length) {
+        if (position + length > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, position + length));
+        }
+    }
+}
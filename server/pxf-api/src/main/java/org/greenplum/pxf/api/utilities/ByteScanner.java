@@ -0,0 +1,94 @@
+package org.greenplum.pxf.api.utilities;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Finds line feeds and delimiters in byte arrays eight bytes at a time.
+ * <p>
+ * Each step reads a little-endian long and tests all its bytes at once: after
+ * XOR-ing the word with the value repeated in every byte, a matching byte is
+ * zero, and {@code (w - 0x01..01) & ~w & 0x80..80} sets the high bit of the
+ * lowest zero byte. Higher bits may be set by the borrow of that subtraction,
+ * the lowest one is always exact.
+ */
+public final class ByteScanner {
+
+    /**
+     * Ranges shorter than this are scanned a byte at a time.
+     */
+    static final int MIN_WORD_SCAN = 2 * Long.BYTES;
+
+    private static final long ONES = 0x0101010101010101L;
+    private static final long HIGH_BITS = 0x8080808080808080L;
+
+    private ByteScanner() {
+    }
+
+    /**
+     * Returns the index of the first occurrence of a byte in an array.
+     *
+     * @param data  the array to search
+     * @param value the byte to find
+     * @param from  the index to start from, inclusive
+     * @return the index of the byte, or -1 if it is not found
+     */
+    public static int indexOf(byte[] data, byte value, int from) {
+        return indexOf(data, value, from, data.length);
+    }
+
+    /**
+     * Returns the index of the first occurrence of a byte in a range of an
+     * array.
+     *
+     * @param data  the array to search
+     * @param value the byte to find
+     * @param from  the index to start from, inclusive
+     * @param to    the index to stop at, exclusive
+     * @return the index of the byte, or -1 if it is not found
+     * @throws IndexOutOfBoundsException if the range is outside the array
+     */
+    public static int indexOf(byte[] data, byte value, int from, int to) {
+        if (from < 0 || to > data.length) {
+            throw new IndexOutOfBoundsException("range [" + from + ", " + to + ") is outside of an array of " + data.length);
+        }
+        int i = from;
+        if (to - i >= MIN_WORD_SCAN) {
+            // heap buffers read longs with a single load from Java 9 on
+            ByteBuffer words = ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN);
+            long pattern = ONES * (value & 0xFF);
+            for (int last = to - Long.BYTES; i <= last; i += Long.BYTES) {
+                long word = words.getLong(i) ^ pattern;
+                long found = (word - ONES) & ~word & HIGH_BITS;
+                if (found != 0) {
+                    return i + (Long.numberOfTrailingZeros(found) >>> 3);
+                }
+            }
+        }
+        for (; i < to; i++) {
+            if (data[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
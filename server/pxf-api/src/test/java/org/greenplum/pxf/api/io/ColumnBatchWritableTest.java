@@ -0,0 +1,124 @@
+package org.greenplum.pxf.api.io;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class ColumnBatchWritableTest {
+
+    private static final DataType[] TYPES = {DataType.BOOLEAN, DataType.SMALLINT, DataType.INTEGER,
+            DataType.BIGINT, DataType.REAL, DataType.FLOAT8, DataType.BYTEA, DataType.TEXT, DataType.NUMERIC};
+
+    @Test
+    public void binaryOutputMatchesGPDBWritable() throws Exception {
+        ColumnBatch batch = buildBatch();
+        ColumnBatchWritable writable = new ColumnBatchWritable();
+        writable.setBatch(batch);
+
+        int[] schema = new int[TYPES.length];
+        for (int i = 0; i < TYPES.length; i++) {
+            schema[i] = TYPES[i].getOID();
+        }
+        GPDBWritable first = new GPDBWritable(schema);
+        first.setBoolean(0, true);
+        first.setShort(1, (short) -3);
+        first.setInt(2, 42);
+        first.setLong(3, Long.MAX_VALUE);
+        first.setFloat(4, 1.5f);
+        first.setDouble(5, -2.25);
+        first.setBytes(6, new byte[]{1, 2, 3});
+        first.setString(7, "caf\u00e9");
+        first.setString(8, "3.14");
+        GPDBWritable second = new GPDBWritable(schema);
+        second.setInt(2, 7);
+        second.setString(7, "");
+
+        assertArrayEquals(concat(serialize(first), serialize(second)), serialize(writable));
+    }
+
+    @Test
+    public void textOutputIsEscaped() throws Exception {
+        ColumnBatch batch = buildBatch();
+        ColumnBatchWritable writable = new ColumnBatchWritable('|');
+        writable.setBatch(batch);
+
+        String expected = "t|-3|42|9223372036854775807|1.5|-2.25|\\\\x010203|caf\u00e9|3.14\n" +
+                "\\N|\\N|7|\\N|\\N|\\N|\\N||\\N\n";
+        assertEquals(expected, new String(serialize(writable), StandardCharsets.UTF_8));
+
+        batch.getColumn(7).setString(1, "a|b\\c\nd");
+        assertEquals("\\N|\\N|7|\\N|\\N|\\N|\\N|a\\|b\\\\c\\nd|\\N\n",
+                new String(serialize(writable), StandardCharsets.UTF_8).split("\n", 2)[1]);
+    }
+
+    @Test
+    public void onlySelectedRowsAreWritten() throws Exception {
+        ColumnBatch batch = buildBatch();
+        batch.getSelected()[0] = 1;
+        batch.setSelectedSize(1);
+        ColumnBatchWritable writable = new ColumnBatchWritable(',');
+        writable.setBatch(batch);
+
+        assertEquals("\\N,\\N,7,\\N,\\N,\\N,\\N,,\\N\n", new String(serialize(writable), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void resetClearsNulls() {
+        ColumnBatch batch = buildBatch();
+        batch.reset();
+
+        assertEquals(0, batch.getRowCount());
+        assertFalse(batch.getColumn(0).isNull(1));
+        assertFalse(batch.isSelectionInUse());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidDelimiter() {
+        new ColumnBatchWritable('\n');
+    }
+
+    /*
+     * helpers functions
+     */
+    private ColumnBatch buildBatch() {
+        ColumnBatch batch = new ColumnBatch(TYPES, 2);
+        batch.getColumn(0).setBoolean(0, true);
+        batch.getColumn(1).setLong(0, -3);
+        batch.getColumn(2).setLong(0, 42);
+        batch.getColumn(3).setLong(0, Long.MAX_VALUE);
+        batch.getColumn(4).setDouble(0, 1.5f);
+        batch.getColumn(5).setDouble(0, -2.25);
+        batch.getColumn(6).setBytes(0, new byte[]{0, 1, 2, 3}, 1, 3);
+        batch.getColumn(7).setString(0, "caf\u00e9");
+        batch.getColumn(8).setString(0, "3.14");
+
+        for (int i = 0; i < TYPES.length; i++) {
+            if (i != 2 && i != 7) {
+                batch.getColumn(i).setNull(1);
+            }
+        }
+        batch.getColumn(2).setLong(1, 7);
+        batch.getColumn(7).setString(1, "");
+        batch.setSize(2);
+        return batch;
+    }
+
+    private byte[] serialize(Writable writable) throws Exception {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        writable.write(new DataOutputStream(bos));
+        return bos.toByteArray();
+    }
+
+    private byte[] concat(byte[] first, byte[] second) {
+        byte[] result = new byte[first.length + second.length];
+        System.arraycopy(first, 0, result, 0, first.length);
+        System.arraycopy(second, 0, result, first.length, second.length);
+        return result;
+    }
+}
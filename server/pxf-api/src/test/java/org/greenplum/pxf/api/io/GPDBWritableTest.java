@@ -31,10 +31,16 @@ import org.powermock.core.classloader.annotations.SuppressStaticInitializationFo
 import org.powermock.modules.junit4.PowerMockRunner;
 import org.powermock.reflect.Whitebox;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.EOFException;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.assertEquals;
 import static org.mockito.Mockito.mock;
@@ -176,10 +182,76 @@ public class GPDBWritableTest {
 
     }
 
+    /*
+     * Test the write method: written records are read back
+     */
+    @Test
+    public void testWriteReadFields() throws Exception {
+        int[] schema = {DataType.BIGINT.getOID(), DataType.BOOLEAN.getOID(), DataType.FLOAT8.getOID(),
+                DataType.INTEGER.getOID(), DataType.REAL.getOID(), DataType.SMALLINT.getOID(),
+                DataType.BYTEA.getOID(), DataType.TEXT.getOID(), DataType.NUMERIC.getOID(),
+                DataType.VARCHAR.getOID()};
+        GPDBWritable writable = new GPDBWritable(schema);
+        writable.setLong(0, 123456789012L);
+        writable.setBoolean(1, true);
+        writable.setDouble(2, 2.5);
+        writable.setInt(3, 42);
+        writable.setFloat(4, 1.5f);
+        writable.setShort(5, (short) 7);
+        writable.setBytes(6, new byte[]{1, 2, 3});
+        writable.setString(7, "h\u00e9llo \u4e16\u754c \ud83d\ude00");
+        writable.setString(8, "3.14");
+        writable.setString(9, null);
+
+        GPDBWritable result = roundTrip(writable);
+
+        assertEquals(Long.valueOf(123456789012L), result.getLong(0));
+        assertEquals(Boolean.TRUE, result.getBoolean(1));
+        assertEquals(Double.valueOf(2.5), result.getDouble(2));
+        assertEquals(Integer.valueOf(42), result.getInt(3));
+        assertEquals(Float.valueOf(1.5f), result.getFloat(4));
+        assertEquals(Short.valueOf((short) 7), result.getShort(5));
+        assertArrayEquals(new byte[]{1, 2, 3}, result.getBytes(6));
+        assertEquals("h\u00e9llo \u4e16\u754c \ud83d\ude00", result.getString(7));
+        assertEquals("3.14", result.getString(8));
+        assertNull(result.getString(9));
+    }
+
+    /*
+     * Test the write method: records created from a template share its schema
+     */
+    @Test
+    public void testWriteFromTemplate() throws Exception {
+        int[] schema = {DataType.INTEGER.getOID(), DataType.TEXT.getOID()};
+        GPDBWritable first = new GPDBWritable(schema);
+        first.setInt(0, 1);
+        first.setString(1, "first");
+
+        GPDBWritable second = new GPDBWritable(first);
+        second.setInt(0, 2);
+        second.setString(1, "a longer second value");
+
+        GPDBWritable firstResult = roundTrip(first);
+        GPDBWritable secondResult = roundTrip(second);
+
+        assertArrayEquals(schema, second.getColType());
+        assertEquals(Integer.valueOf(1), firstResult.getInt(0));
+        assertEquals("first", firstResult.getString(1));
+        assertEquals(Integer.valueOf(2), secondResult.getInt(0));
+        assertEquals("a longer second value", secondResult.getString(1));
+    }
 
     /*
      * helpers functions
      */
+    private GPDBWritable roundTrip(GPDBWritable writable) throws Exception {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        writable.write(new DataOutputStream(bos));
+        GPDBWritable result = new GPDBWritable();
+        result.readFields(new DataInputStream(new ByteArrayInputStream(bos.toByteArray())));
+        return result;
+    }
+
     private GPDBWritable buildGPDBWritable()
             throws Exception {
         return new GPDBWritable();
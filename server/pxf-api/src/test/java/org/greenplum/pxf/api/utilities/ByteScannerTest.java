@@ -0,0 +1,78 @@
+package org.greenplum.pxf.api.utilities;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class ByteScannerTest {
+
+    @Test
+    public void findsFirstOccurrence() {
+        byte[] data = "first line\nsecond line\n".getBytes();
+
+        assertEquals(10, ByteScanner.indexOf(data, (byte) '\n', 0));
+        assertEquals(10, ByteScanner.indexOf(data, (byte) '\n', 10));
+        assertEquals(22, ByteScanner.indexOf(data, (byte) '\n', 11));
+        assertEquals(-1, ByteScanner.indexOf(data, (byte) '\n', 23));
+        assertEquals(-1, ByteScanner.indexOf(data, (byte) '\n', 11, 22));
+        assertEquals(-1, ByteScanner.indexOf(data, (byte) '|', 0));
+    }
+
+    @Test
+    public void findsEveryPositionInAWord() {
+        for (int length = 0; length < 3 * Long.BYTES; length++) {
+            for (int position = 0; position < length; position++) {
+                byte[] data = new byte[length];
+                data[position] = ',';
+                assertEquals(position, ByteScanner.indexOf(data, (byte) ',', 0));
+                assertEquals(-1, ByteScanner.indexOf(data, (byte) ',', position + 1));
+            }
+        }
+    }
+
+    @Test
+    public void findsBytesWithHighBitSet() {
+        byte[] data = new byte[40];
+        data[17] = (byte) 0x81;
+        data[20] = (byte) 0xFF;
+        data[33] = (byte) 0x80;
+
+        assertEquals(17, ByteScanner.indexOf(data, (byte) 0x81, 0));
+        assertEquals(20, ByteScanner.indexOf(data, (byte) 0xFF, 0));
+        assertEquals(33, ByteScanner.indexOf(data, (byte) 0x80, 0));
+        assertEquals(0, ByteScanner.indexOf(data, (byte) 0, 0));
+        assertEquals(18, ByteScanner.indexOf(data, (byte) 0, 17));
+    }
+
+    @Test
+    public void matchesByteLoop() {
+        Random random = new Random(7);
+        byte[] data = new byte[1000];
+        for (int i = 0; i < data.length; i++) {
+            // a small alphabet, so that neighbours of a match often differ by one
+            data[i] = (byte) random.nextInt(4);
+        }
+        for (int n = 0; n < 10000; n++) {
+            int from = random.nextInt(data.length);
+            int to = from + random.nextInt(data.length - from + 1);
+            byte value = (byte) random.nextInt(5);
+            assertEquals(indexOfLoop(data, value, from, to), ByteScanner.indexOf(data, value, from, to));
+        }
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void rangeOutsideArray() {
+        ByteScanner.indexOf(new byte[10], (byte) '\n', 0, 11);
+    }
+
+    private static int indexOfLoop(byte[] data, byte value, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (data[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
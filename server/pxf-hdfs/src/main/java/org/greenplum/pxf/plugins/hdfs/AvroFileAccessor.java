@@ -37,6 +37,7 @@ import org.apache.hadoop.mapred.FileSplit;
 import org.apache.hadoop.mapred.InputSplit;
 import org.apache.hadoop.mapred.JobConf;
 import org.greenplum.pxf.api.OneRow;
+import org.greenplum.pxf.api.ReadAhead;
 import org.greenplum.pxf.api.model.RequestContext;
 
 import java.io.IOException;
@@ -44,6 +45,7 @@ import java.io.IOException;
 /**
  * A PXF Accessor for reading Avro File records
  */
+@ReadAhead
 public class AvroFileAccessor extends HdfsSplittableDataAccessor {
     private AvroWrapper<GenericRecord> avroWrapper;
 
@@ -23,19 +23,40 @@ package org.greenplum.pxf.plugins.hdfs;
 import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.EnumSet;
 import java.util.LinkedList;
 import java.util.List;
 
+import org.apache.hadoop.fs.ByteBufferReadable;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.ReadOption;
+import org.apache.hadoop.io.ByteBufferPool;
+import org.apache.hadoop.io.ElasticByteBufferPool;
 import org.apache.hadoop.io.Writable;
+import org.greenplum.pxf.api.utilities.ByteScanner;
 
 /**
  * A class that provides a line reader from an input stream. Lines are
  * terminated by '\n' (LF) EOF also terminates an otherwise unterminated line.
+ * <p>
+ * Chunks of HDFS files are read with the enhanced byte buffer access of
+ * {@link FSDataInputStream}: short-circuit local reads map the block file,
+ * or read it into pooled direct buffers, and the bytes are copied once into
+ * the chunk. Blocks are mapped only when they are cached by HDFS, or when
+ * the pxf.service.hdfs.zerocopy.skip.checksums system property is true.
  */
 public class ChunkReader implements Closeable {
     public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+    static final String PROPERTY_KEY_SKIP_CHECKSUMS = "pxf.service.hdfs.zerocopy.skip.checksums";
+    private static final ByteBufferPool BUFFER_POOL = new ElasticByteBufferPool();
+    private static final EnumSet<ReadOption> READ_OPTIONS = Boolean.getBoolean(PROPERTY_KEY_SKIP_CHECKSUMS) ?
+            EnumSet.of(ReadOption.SKIP_CHECKSUMS) : EnumSet.noneOf(ReadOption.class);
     private int bufferSize = DEFAULT_BUFFER_SIZE;
     private InputStream in;
+    // the HDFS stream read with byte buffers, null for other streams
+    private FSDataInputStream byteBufferIn;
     private byte[] buffer;
     // the number of bytes of real data in the buffer
     private int bufferLength = 0;
@@ -51,6 +72,10 @@ public class ChunkReader implements Closeable {
     public ChunkReader(InputStream in) {
         this.in = in;
         this.buffer = new byte[this.bufferSize];
+        if (in instanceof FSDataInputStream
+                && ((FSDataInputStream) in).getWrappedStream() instanceof ByteBufferReadable) {
+            this.byteBufferIn = (FSDataInputStream) in;
+        }
     }
 
     /**
@@ -88,6 +113,9 @@ public class ChunkReader implements Closeable {
     public int readChunk(Writable str, int maxBytesToConsume) throws IOException
            {
         ChunkWritable cw = (ChunkWritable) str;
+        if (byteBufferIn != null) {
+            return readChunkFromByteBuffers(cw, maxBytesToConsume);
+        }
         List<Node> list = new LinkedList<Node>();
 
         long bytesConsumed = 0;
@@ -129,6 +157,40 @@ public class ChunkReader implements Closeable {
         return (int) bytesConsumed;
     }
 
+    /*
+     * Reads a chunk of maxBytesToConsume bytes, or up to the end of the file,
+     * with the enhanced byte buffer access of the HDFS stream.
+     */
+    private int readChunkFromByteBuffers(ChunkWritable cw, int maxBytesToConsume) throws IOException {
+        // the bytes left in the buffer by readLine come first
+        int bytesConsumed = bufferLength - bufferPosn;
+        byte[] chunk = new byte[Math.max(maxBytesToConsume, bytesConsumed)];
+        System.arraycopy(buffer, bufferPosn, chunk, 0, bytesConsumed);
+        bufferLength = bufferPosn = 0;
+
+        while (bytesConsumed < maxBytesToConsume) {
+            ByteBuffer byteBuffer = byteBufferIn.read(BUFFER_POOL, maxBytesToConsume - bytesConsumed, READ_OPTIONS);
+            if (byteBuffer == null) {
+                break; // EOF
+            }
+            try {
+                int length = byteBuffer.remaining();
+                if (length == 0) {
+                    break;
+                }
+                byteBuffer.get(chunk, bytesConsumed, length);
+                bytesConsumed += length;
+            } finally {
+                byteBufferIn.releaseBuffer(byteBuffer);
+            }
+        }
+
+        if (bytesConsumed > 0) {
+            cw.box = (bytesConsumed == chunk.length) ? chunk : Arrays.copyOf(chunk, bytesConsumed);
+        }
+        return bytesConsumed;
+    }
+
     /**
      * Reads a line terminated by LF.
      *
@@ -158,14 +220,13 @@ public class ChunkReader implements Closeable {
                 }
             }
 
-            for (; bufferPosn < bufferLength; ++bufferPosn) { // search for
-                                                              // newline
-                if (buffer[bufferPosn] == LF) {
-                    newLine = true;
-                    ++bufferPosn; // at next invocation proceed from following
-                                  // byte
-                    break;
-                }
+            int lfPosn = ByteScanner.indexOf(buffer, LF, bufferPosn, bufferLength);
+            if (lfPosn >= 0) {
+                newLine = true;
+                bufferPosn = lfPosn + 1; // at next invocation proceed from
+                                         // following byte
+            } else {
+                bufferPosn = bufferLength;
             }
 
             int readLength = bufferPosn - startPosn;
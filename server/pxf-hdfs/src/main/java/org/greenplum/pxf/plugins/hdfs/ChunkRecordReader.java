@@ -42,6 +42,7 @@ import org.apache.hadoop.io.compress.SplitCompressionInputStream;
 import org.apache.hadoop.io.compress.SplittableCompressionCodec;
 import org.apache.hadoop.mapred.FileSplit;
 import org.apache.hadoop.mapred.RecordReader;
+import org.greenplum.pxf.plugins.hdfs.utilities.ReadAheadInputStream;
 
 /**
  * ChunkRecordReader is designed for fast reading of a file split. The idea is
@@ -59,7 +60,6 @@ public class ChunkRecordReader implements
     private long start;
     private long pos;
     private long end;
-    private long fileLength;
     private ChunkReader in;
     private FSDataInputStream fileIn;
     private final Seekable filePosition;
@@ -67,6 +67,9 @@ public class ChunkRecordReader implements
     private CompressionCodec codec;
     private Decompressor decompressor;
     private static final int CHUNK_SIZE = 1024 * 1024;
+    private static final byte LF = '\n';
+    // the last byte read, the last line of the file is ended if it is not a line feed
+    private byte lastByte = LF;
 
     /**
      * Translates the FSDataInputStream into a DFSInputStream.
@@ -108,7 +111,6 @@ public class ChunkRecordReader implements
         // openForWrite the file and seek to the start of the split
         final FileSystem fs = file.getFileSystem(job);
         fileIn = fs.open(file, ChunkReader.DEFAULT_BUFFER_SIZE);
-        fileLength = getInputStream().getFileLength();
         if (isCompressedInput()) {
             decompressor = CodecPool.getDecompressor(codec);
             if (codec instanceof SplittableCompressionCodec) {
@@ -120,8 +122,10 @@ public class ChunkRecordReader implements
                 end = cIn.getAdjustedEnd();
                 filePosition = cIn; // take pos from compressed stream
             } else {
-                in = new ChunkReader(codec.createInputStream(fileIn,
-                        decompressor));
+                // decompress in another thread than the one splitting lines
+                in = new ChunkReader(new ReadAheadInputStream(
+                        codec.createInputStream(fileIn, decompressor),
+                        "pxf-decompress-" + file.getName()));
                 filePosition = fileIn;
             }
         } else {
@@ -209,19 +213,7 @@ public class ChunkRecordReader implements
             }
 
             pos += newSize;
-
-            if (pos == fileLength) { /*
-                                      * in case text file last character is not
-                                      * a linefeed
-                                      */
-                if (value.box[value.box.length - 1] != '\n') {
-                    int newLen = value.box.length + 1;
-                    byte[] tmp = new byte[newLen];
-                    System.arraycopy(value.box, 0, tmp, 0, newLen - 1);
-                    tmp[newLen - 1] = '\n';
-                    value.box = tmp;
-                }
-            }
+            lastByte = value.box[value.box.length - 1];
 
             return true;
         }
@@ -229,6 +221,17 @@ public class ChunkRecordReader implements
          * if we got here, either newSize was 0 or curPos is bigger than end
          */
 
+        if (lastByte != LF) {
+            /*
+             * in case the last line of the file does not end with a line
+             * feed, pos cannot tell the end of compressed files
+             */
+            key.set(pos);
+            value.box = new byte[]{LF};
+            lastByte = LF;
+            pos++;
+            return true;
+        }
         return false;
     }
 
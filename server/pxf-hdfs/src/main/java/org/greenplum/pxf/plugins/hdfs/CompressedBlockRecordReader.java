@@ -0,0 +1,256 @@
+package org.greenplum.pxf.plugins.hdfs;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.compress.CodecPool;
+import org.apache.hadoop.io.compress.CompressionCodec;
+import org.apache.hadoop.io.compress.CompressionInputStream;
+import org.apache.hadoop.io.compress.Decompressor;
+import org.apache.hadoop.mapred.FileSplit;
+import org.apache.hadoop.mapred.RecordReader;
+import org.greenplum.pxf.plugins.hdfs.utilities.CompressedBlockIndex;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * CompressedBlockRecordReader reads the lines of a file split of a compressed
+ * file with a {@link CompressedBlockIndex}, in chunks like
+ * {@link ChunkRecordReader}.
+ * <p>
+ * A split decompresses the blocks starting inside it. Like the lines of
+ * uncompressed splits, it skips the first line unless it is the first split,
+ * and reads the blocks of the next split up to the end of their first line.
+ */
+public class CompressedBlockRecordReader implements
+        RecordReader<LongWritable, ChunkWritable> {
+    private static final Log LOG = LogFactory.getLog(CompressedBlockRecordReader.class.getName());
+
+    private static final int CHUNK_SIZE = 1024 * 1024;
+    private static final byte LF = '\n';
+
+    private final CompressionCodec codec;
+    private final CompressedBlockIndex index;
+    private final FSDataInputStream fileIn;
+    private Decompressor decompressor;
+    private ChunkReader in;
+    // the first block of the next split, the block count for the last split
+    private final int nextBlock;
+    private long pos = 0;
+    private byte lastByte = LF;
+    private boolean blocksRead = false;
+    private boolean done = false;
+
+    /**
+     * Constructs a CompressedBlockRecordReader instance.
+     *
+     * @param job   the job configuration
+     * @param split contains the file name, begin byte of the split and the
+     *              bytes length
+     * @param codec the codec of the file
+     * @param index the block index of the file
+     * @throws IOException if an I/O error occurs when accessing the file or
+     *                     creating input stream to read from it
+     */
+    public CompressedBlockRecordReader(Configuration job, FileSplit split, CompressionCodec codec,
+                                       CompressedBlockIndex index) throws IOException {
+        this.codec = codec;
+        this.index = index;
+        long start = split.getStart();
+        int firstBlock = index.findBlock(start);
+        nextBlock = index.findBlock(start + split.getLength());
+
+        final Path file = split.getPath();
+        fileIn = file.getFileSystem(job).open(file, ChunkReader.DEFAULT_BUFFER_SIZE);
+        if (firstBlock >= nextBlock) {
+            // no block starts in the split
+            done = true;
+            return;
+        }
+        decompressor = CodecPool.getDecompressor(codec);
+        long blocksEnd = (nextBlock < index.getBlockCount()) ? index.getOffset(nextBlock) : Long.MAX_VALUE;
+        in = new ChunkReader(openBlocks(firstBlock, blocksEnd));
+
+        if (start != 0) {
+            ChunkWritable firstLine = new ChunkWritable();
+            pos = in.readLine(firstLine, Integer.MAX_VALUE);
+            if (pos == 0 || firstLine.box[firstLine.box.length - 1] != LF) {
+                // the first line ends in the next split
+                done = true;
+            }
+        }
+        LOG.debug("Reading blocks " + firstBlock + " to " + nextBlock + " of " + file);
+    }
+
+    /**
+     * Used by the client of this class to create the 'key' output parameter for
+     * next() method.
+     *
+     * @return an instance of LongWritable
+     */
+    @Override
+    public LongWritable createKey() {
+        return new LongWritable();
+    }
+
+    /**
+     * Used by the client of this class to create the 'value' output parameter
+     * for next() method.
+     *
+     * @return an instance of ChunkWritable
+     */
+    @Override
+    public ChunkWritable createValue() {
+        return new ChunkWritable();
+    }
+
+    /**
+     * Fetches the next data chunk of the split.
+     *
+     * @param key   output parameter, the decompressed offset of the chunk
+     * @param value output parameter, the chunk
+     * @return false when the end of the split was reached
+     * @throws IOException if an I/O error occurred while reading
+     */
+    @Override
+    public synchronized boolean next(LongWritable key, ChunkWritable value)
+            throws IOException {
+        if (done) {
+            return false;
+        }
+        key.set(pos);
+        if (!blocksRead) {
+            int size = in.readChunk(value, CHUNK_SIZE);
+            if (size > 0) {
+                pos += size;
+                lastByte = value.box[size - 1];
+                return true;
+            }
+            blocksRead = true;
+        }
+        done = true;
+
+        if (nextBlock < index.getBlockCount()) {
+            // the last line ends at the first line feed of the next split
+            ChunkReader nextIn = new ChunkReader(openBlocks(nextBlock, Long.MAX_VALUE));
+            int size = nextIn.readLine(value, Integer.MAX_VALUE);
+            if (size > 0) {
+                pos += size;
+                appendLineFeed(value);
+                return true;
+            }
+        } else if (lastByte != LF) {
+            // in case the last line of the file does not end with a line feed
+            value.box = new byte[]{LF};
+            pos++;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Gets the progress within the split.
+     */
+    @Override
+    public synchronized float getProgress() throws IOException {
+        return done ? 1.0f : 0.0f;
+    }
+
+    /**
+     * Returns the position of the unread tail of the split
+     *
+     * @return pos - the decompressed offset of the next chunk
+     */
+    @Override
+    public synchronized long getPos() throws IOException {
+        return pos;
+    }
+
+    /**
+     * Closes the input stream.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            fileIn.close();
+        } finally {
+            if (decompressor != null) {
+                CodecPool.returnDecompressor(decompressor);
+                decompressor = null;
+            }
+        }
+    }
+
+    /*
+     * Opens a decompressed stream starting at a block, and ending at the given
+     * offset of the file. The stream is created at the beginning of the file,
+     * the codec may read a file header, before it is moved to the block.
+     */
+    private InputStream openBlocks(int block, long end) throws IOException {
+        fileIn.seek(0);
+        decompressor.reset();
+        CompressionInputStream stream = codec.createInputStream(new BoundedInputStream(fileIn, end), decompressor);
+        fileIn.seek(index.getOffset(block));
+        stream.resetState();
+        return stream;
+    }
+
+    private static void appendLineFeed(ChunkWritable value) {
+        if (value.box[value.box.length - 1] != LF) {
+            byte[] tmp = new byte[value.box.length + 1];
+            System.arraycopy(value.box, 0, tmp, 0, value.box.length);
+            tmp[value.box.length] = LF;
+            value.box = tmp;
+        }
+    }
+
+    /*
+     * Reads a file up to an offset. Closing the stream leaves the file open.
+     */
+    private static class BoundedInputStream extends InputStream {
+        private final FSDataInputStream in;
+        private final long end;
+
+        BoundedInputStream(FSDataInputStream in, long end) {
+            this.in = in;
+            this.end = end;
+        }
+
+        @Override
+        public int read() throws IOException {
+            return (in.getPos() < end) ? in.read() : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            long remaining = end - in.getPos();
+            if (remaining <= 0) {
+                return -1;
+            }
+            return in.read(b, off, (int) Math.min(len, remaining));
+        }
+    }
+}
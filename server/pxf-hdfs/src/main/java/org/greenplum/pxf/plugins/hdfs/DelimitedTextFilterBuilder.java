@@ -0,0 +1,276 @@
+package org.greenplum.pxf.plugins.hdfs;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.greenplum.pxf.api.FilterParser;
+import org.greenplum.pxf.api.io.DataType;
+import org.greenplum.pxf.api.model.RequestContext;
+
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Uses the filter parser code to build a predicate on the values of the
+ * columns of a parsed line. The predicate is used by
+ * {@link DelimitedTextResolver} to drop lines before they are sent to
+ * Greenplum.
+ * <p>
+ * Greenplum applies the query's filter to the returned rows, so the predicate
+ * may keep rows that do not match. It must never drop rows that match. Parts
+ * of the filter that cannot be evaluated safely are left out: an AND keeps
+ * its evaluated side, an OR or NOT with an unevaluated operand is dropped.
+ * Only equality is evaluated for text, since the database orders strings by
+ * its collation. A comparison with a null value is false, which keeps the
+ * negations of comparisons safe: the database drops such rows anyway.
+ */
+public class DelimitedTextFilterBuilder implements FilterParser.FilterBuilder {
+
+    private final RequestContext context;
+    // the columns whose values the predicate reads
+    private final BitSet columns = new BitSet();
+    // predicates that match more rows than the filter they were built from
+    private final Set<Predicate<Object[]>> inexact = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    /**
+     * Constructs a DelimitedTextFilterBuilder.
+     *
+     * @param context the request context
+     */
+    public DelimitedTextFilterBuilder(RequestContext context) {
+        this.context = context;
+    }
+
+    /**
+     * Translates a filter string into a predicate on the values of the
+     * columns, indexed by column.
+     *
+     * @param filterString the string representation of the filter
+     * @return the predicate, or null if no part of the filter can be
+     * evaluated
+     * @throws Exception if parsing the filter failed
+     */
+    @SuppressWarnings("unchecked")
+    public Predicate<Object[]> getRowPredicate(String filterString) throws Exception {
+        if (filterString == null) {
+            return null;
+        }
+        FilterParser parser = new FilterParser(this);
+        Object result = parser.parse(filterString.getBytes(FilterParser.DEFAULT_CHARSET));
+        return (result instanceof Predicate) ? (Predicate<Object[]>) result : null;
+    }
+
+    /**
+     * @return the columns whose values are read by the predicate
+     */
+    public BitSet getColumns() {
+        return columns;
+    }
+
+    @Override
+    public Object build(FilterParser.Operation operation, Object left, Object right) {
+        if (!(left instanceof FilterParser.ColumnIndex) || !(right instanceof FilterParser.Constant)) {
+            return null;
+        }
+        return buildPredicate(operation, ((FilterParser.ColumnIndex) left).index(),
+                ((FilterParser.Constant) right).constant());
+    }
+
+    @Override
+    public Object build(FilterParser.Operation operation, Object operand) {
+        if (!(operand instanceof FilterParser.ColumnIndex)) {
+            return null;
+        }
+        if (operation != FilterParser.Operation.HDOP_IS_NULL && operation != FilterParser.Operation.HDOP_IS_NOT_NULL) {
+            return null;
+        }
+        return buildPredicate(operation, ((FilterParser.ColumnIndex) operand).index(), null);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Object build(FilterParser.LogicalOperation operation, Object left, Object right) {
+        Predicate<Object[]> leftPredicate = (Predicate<Object[]>) left;
+        Predicate<Object[]> rightPredicate = (Predicate<Object[]>) right;
+        Predicate<Object[]> result;
+        switch (operation) {
+            case HDOP_AND:
+                if (leftPredicate == null || rightPredicate == null) {
+                    result = leftPredicate == null ? rightPredicate : leftPredicate;
+                    if (result != null) {
+                        inexact.add(result);
+                    }
+                    return result;
+                }
+                result = leftPredicate.and(rightPredicate);
+                break;
+            case HDOP_OR:
+                if (leftPredicate == null || rightPredicate == null) {
+                    return null;
+                }
+                result = leftPredicate.or(rightPredicate);
+                break;
+            default:
+                return null;
+        }
+        if (inexact.contains(leftPredicate) || inexact.contains(rightPredicate)) {
+            inexact.add(result);
+        }
+        return result;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Object build(FilterParser.LogicalOperation operation, Object filter) {
+        Predicate<Object[]> predicate = (Predicate<Object[]>) filter;
+        // the negation of a predicate matching too many rows would drop rows
+        if (operation != FilterParser.LogicalOperation.HDOP_NOT || predicate == null || inexact.contains(predicate)) {
+            return null;
+        }
+        return predicate.negate();
+    }
+
+    /**
+     * Builds the predicate of a simple operation, or returns null if the
+     * column or the constant cannot be evaluated.
+     */
+    private Predicate<Object[]> buildPredicate(FilterParser.Operation operation, int index, Object constant) {
+        if (index >= context.getColumns()) {
+            return null;
+        }
+        DataType type = DataType.get(context.getColumn(index).columnTypeCode());
+        Predicate<Object[]> result;
+        if (operation == FilterParser.Operation.HDOP_IN) {
+            result = buildIn(type, index, constant);
+        } else {
+            result = buildTypedPredicate(operation, type, index, constant);
+        }
+        if (result != null) {
+            columns.set(index);
+        }
+        return result;
+    }
+
+    private Predicate<Object[]> buildIn(DataType type, int index, Object constant) {
+        if (!(constant instanceof List)) {
+            return null;
+        }
+        Predicate<Object[]> result = null;
+        for (Object value : (List<?>) constant) {
+            Predicate<Object[]> predicate = buildTypedPredicate(FilterParser.Operation.HDOP_EQ, type, index, value);
+            if (predicate == null) {
+                return null;
+            }
+            result = (result == null) ? predicate : result.or(predicate);
+        }
+        return result;
+    }
+
+    private Predicate<Object[]> buildTypedPredicate(FilterParser.Operation operation, DataType type, int index,
+                                                    Object constant) {
+        switch (operation) {
+            case HDOP_IS_NULL:
+                return values -> values[index] == null;
+            case HDOP_IS_NOT_NULL:
+                return values -> values[index] != null;
+            case HDOP_LIKE:
+                return null;
+            default:
+                break;
+        }
+        switch (type) {
+            case SMALLINT:
+            case INTEGER:
+            case BIGINT: {
+                if (!(constant instanceof Integer || constant instanceof Long)) {
+                    return null;
+                }
+                long value = ((Number) constant).longValue();
+                return compare(operation, index, v -> Long.compare(((Number) v).longValue(), value));
+            }
+            case REAL:
+            case FLOAT8: {
+                if (!(constant instanceof Number)) {
+                    return null;
+                }
+                double value = ((Number) constant).doubleValue();
+                // like the database, NaN equals NaN and is larger than any number
+                return compare(operation, index, v -> {
+                    double d = ((Number) v).doubleValue();
+                    return d == value ? 0 : Double.compare(d, value);
+                });
+            }
+            case TEXT:
+            case VARCHAR:
+                if (!(constant instanceof String)) {
+                    return null;
+                }
+                return equality(operation, index, constant);
+            case BOOLEAN:
+                if (!(constant instanceof Boolean)) {
+                    return null;
+                }
+                return equality(operation, index, constant);
+            default:
+                // char values are blank padded, numeric and dates are not parsed
+                return null;
+        }
+    }
+
+    private static Predicate<Object[]> compare(FilterParser.Operation operation, int index, Comparison comparison) {
+        switch (operation) {
+            case HDOP_LT:
+                return values -> values[index] != null && comparison.compare(values[index]) < 0;
+            case HDOP_GT:
+                return values -> values[index] != null && comparison.compare(values[index]) > 0;
+            case HDOP_LE:
+                return values -> values[index] != null && comparison.compare(values[index]) <= 0;
+            case HDOP_GE:
+                return values -> values[index] != null && comparison.compare(values[index]) >= 0;
+            case HDOP_EQ:
+                return values -> values[index] != null && comparison.compare(values[index]) == 0;
+            case HDOP_NE:
+                return values -> values[index] != null && comparison.compare(values[index]) != 0;
+            default:
+                return null;
+        }
+    }
+
+    private static Predicate<Object[]> equality(FilterParser.Operation operation, int index, Object constant) {
+        switch (operation) {
+            case HDOP_EQ:
+                return values -> constant.equals(values[index]);
+            case HDOP_NE:
+                return values -> values[index] != null && !constant.equals(values[index]);
+            default:
+                return null;
+        }
+    }
+
+    /*
+     * Compares the non-null value of a column with a constant.
+     */
+    private interface Comparison {
+        int compare(Object value);
+    }
+}
@@ -0,0 +1,415 @@
+package org.greenplum.pxf.plugins.hdfs;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.commons.codec.DecoderException;
+import org.apache.commons.codec.binary.Hex;
+import org.apache.hadoop.io.Text;
+import org.greenplum.pxf.api.OneField;
+import org.greenplum.pxf.api.OneRow;
+import org.greenplum.pxf.api.ReadVectorizedResolver;
+import org.greenplum.pxf.api.io.DataType;
+import org.greenplum.pxf.api.model.BasePlugin;
+import org.greenplum.pxf.api.model.OutputFormat;
+import org.greenplum.pxf.api.model.RequestContext;
+import org.greenplum.pxf.api.model.Resolver;
+import org.greenplum.pxf.api.utilities.ByteScanner;
+import org.greenplum.pxf.api.utilities.ColumnDescriptor;
+import org.greenplum.pxf.plugins.hdfs.utilities.DelimitedLineParser;
+import org.greenplum.pxf.plugins.hdfs.utilities.HdfsUtilities;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Parses delimited text lines in PXF, instead of passing them to Greenplum
+ * like {@link StringPassResolver}. The FORMAT option tells the format of the
+ * lines, which Greenplum does not send:
+ * <ul>
+ * <li>CSV, the default: lines are split into fields with the DELIMITER
+ * (default ,), QUOTE (default ") and ESCAPE (default the quote) options, and
+ * quoted values may hold line feeds. The NULL option defaults to the empty
+ * string.</li>
+ * <li>TEXT: lines are split at every DELIMITER (default tab), there are no
+ * quotes. The NULL option defaults to \N.</li>
+ * </ul>
+ * <p>
+ * Lines not matching the filter of the query are dropped. For tables with
+ * the custom pxfwritable_import format, the projected columns are converted
+ * to their types and the other ones are null. For tables with the TEXT or
+ * CSV format, FORMAT must be the format of the table, and the lines are sent
+ * with the fields of columns that are not projected replaced by the null
+ * value, which must be the table's null string.
+ * <p>
+ * The lines come from {@link LineBreakAccessor}, in chunks that may end in the
+ * middle of a line. The rest of the line is taken from the next chunk, and
+ * the readers send a last line feed when the last line of a file has none.
+ * Files whose quoted values hold line feeds are split at record boundaries by
+ * {@link SplittableQuotedLineBreakAccessor}.
+ */
+public class DelimitedTextResolver extends BasePlugin implements Resolver, ReadVectorizedResolver {
+
+    static final String NULL_OPTION = "NULL";
+    static final String FORMAT_OPTION = "FORMAT";
+    private static final byte LF = '\n';
+    private static final byte CR = '\r';
+    private static final byte TAB = '\t';
+
+    private DelimitedLineParser parser;
+    private byte delimiter;
+    private byte quote;
+    private byte escape;
+    private byte[] nullValue;
+    private boolean textOutput;
+    private Predicate<Object[]> filter;
+    // the types of the columns, and the columns converted to values
+    private DataType[] types;
+    private boolean[] projected;
+    private boolean[] converted;
+    private boolean allProjected;
+    private Object[] values;
+    // the beginning of a line continued in the next chunk, and its quote state
+    private byte[] partialLine;
+    private boolean quoted;
+    private boolean escaped;
+
+    @Override
+    public void initialize(RequestContext requestContext) {
+        super.initialize(requestContext);
+
+        boolean textFormat = isTextFormat();
+        if (textFormat) {
+            // lines hold no line feed, so the fields are never quoted
+            quote = LF;
+            escape = LF;
+        } else {
+            quote = HdfsUtilities.getByteOption(context, SplittableQuotedLineBreakAccessor.QUOTE_OPTION, (byte) '"');
+            escape = HdfsUtilities.getByteOption(context, SplittableQuotedLineBreakAccessor.ESCAPE_OPTION, quote);
+        }
+        delimiter = HdfsUtilities.getByteOption(context, RequestContext.DELIMITER_KEY, textFormat ? TAB : (byte) ',');
+        nullValue = context.getOption(NULL_OPTION, textFormat ? "\\N" : "").getBytes(StandardCharsets.UTF_8);
+        parser = new DelimitedLineParser(delimiter, quote, escape, nullValue);
+        textOutput = context.getOutputFormat() == OutputFormat.TEXT;
+
+        int columnCount = context.getColumns();
+        types = new DataType[columnCount];
+        projected = new boolean[columnCount];
+        converted = new boolean[columnCount];
+        values = new Object[columnCount];
+        allProjected = true;
+        for (int i = 0; i < columnCount; i++) {
+            ColumnDescriptor column = context.getColumn(i);
+            types[i] = DataType.get(column.columnTypeCode());
+            projected[i] = column.isProjected();
+            allProjected &= projected[i];
+            // text output passes the fields as they are
+            converted[i] = projected[i] && !textOutput;
+        }
+
+        BitSet filterColumns = buildFilter();
+        for (int i = filterColumns.nextSetBit(0); i >= 0 && i < columnCount; i = filterColumns.nextSetBit(i + 1)) {
+            converted[i] = true;
+        }
+    }
+
+    /**
+     * Returns the fields of the lines of a row. For the TEXT output format, a
+     * single field holds the lines to send.
+     *
+     * @param row the chunk of lines, or a single line
+     * @return the fields
+     * @throws UnsupportedOperationException if the row holds more than one
+     *                                       line for the binary output format,
+     *                                       use {@link #getFieldsForBatch}
+     */
+    @Override
+    public List<OneField> getFields(OneRow row) {
+        List<List<OneField>> records = getFieldsForBatch(row);
+        if (textOutput) {
+            return records.isEmpty() ? Collections.singletonList(new OneField(DataType.BYTEA.getOID(), new byte[0]))
+                    : records.get(0);
+        }
+        if (records.size() > 1) {
+            throw new UnsupportedOperationException("A chunk of lines is resolved with getFieldsForBatch");
+        }
+        return records.isEmpty() ? Collections.emptyList() : records.get(0);
+    }
+
+    /**
+     * Returns the fields of the lines of a row matching the filter. For the
+     * TEXT output format, a single record holds the lines to send.
+     *
+     * @param row the chunk of lines, or a single line
+     * @return the records
+     * @throws IllegalArgumentException if a line cannot be parsed
+     */
+    @Override
+    public List<List<OneField>> getFieldsForBatch(OneRow row) {
+        Object data = row.getData();
+        byte[] bytes;
+        int length;
+        if (data instanceof ChunkWritable) {
+            bytes = ((ChunkWritable) data).box;
+            length = bytes.length;
+        } else {
+            // a line without its line feed, from LineRecordReader
+            if (data instanceof Text) {
+                bytes = ((Text) data).getBytes();
+                length = ((Text) data).getLength();
+            } else {
+                bytes = data.toString().getBytes(StandardCharsets.UTF_8);
+                length = bytes.length;
+            }
+            bytes = Arrays.copyOf(bytes, length + 1);
+            bytes[length++] = LF;
+        }
+
+        List<List<OneField>> records = new ArrayList<>();
+        ByteArrayOutputStream text = textOutput ? new ByteArrayOutputStream(length) : null;
+        int start = 0;
+        if (partialLine != null) {
+            int end = findLineEnd(bytes, 0, length);
+            byte[] line = Arrays.copyOf(partialLine, partialLine.length + (end < 0 ? length : end + 1));
+            System.arraycopy(bytes, 0, line, partialLine.length, line.length - partialLine.length);
+            if (end < 0) {
+                partialLine = line;
+                return records;
+            }
+            partialLine = null;
+            resolveLine(line, 0, line.length - 1, records, text);
+            start = end + 1;
+        }
+        int end;
+        while ((end = findLineEnd(bytes, start, length)) >= 0) {
+            resolveLine(bytes, start, end, records, text);
+            start = end + 1;
+        }
+        if (start < length) {
+            partialLine = Arrays.copyOfRange(bytes, start, length);
+        }
+
+        if (textOutput && text.size() > 0) {
+            records.add(Collections.singletonList(new OneField(DataType.BYTEA.getOID(), text.toByteArray())));
+        }
+        return records;
+    }
+
+    /**
+     * Constructs a row from the fields of a record. Writing is not supported.
+     *
+     * @param record list of {@link OneField}
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public OneRow setFields(List<OneField> record) {
+        throw new UnsupportedOperationException("Writing is not supported by " + getClass().getSimpleName());
+    }
+
+    /*
+     * Returns whether the FORMAT option is TEXT rather than CSV.
+     */
+    private boolean isTextFormat() {
+        String format = context.getOption(FORMAT_OPTION, "CSV");
+        if (format.equalsIgnoreCase("TEXT")) {
+            return true;
+        }
+        if (format.equalsIgnoreCase("CSV")) {
+            return false;
+        }
+        throw new IllegalArgumentException(String.format(
+                "Invalid %s value. Must be TEXT or CSV (got %s)", FORMAT_OPTION, format));
+    }
+
+    /*
+     * Returns the offset of the next line feed that is not quoted, or -1 if
+     * the line continues in the next chunk. The quote state of the line is
+     * kept until its end is found.
+     */
+    private int findLineEnd(byte[] bytes, int start, int length) {
+        if (!quoted) {
+            int end = ByteScanner.indexOf(bytes, LF, start, length);
+            if (end >= 0 && ByteScanner.indexOf(bytes, quote, start, end) < 0) {
+                return end;
+            }
+        }
+        for (int i = start; i < length; i++) {
+            byte b = bytes[i];
+            if (escaped) {
+                escaped = false;
+            } else if (quoted && b == escape && escape != quote) {
+                escaped = true;
+            } else if (b == quote) {
+                quoted = !quoted;
+            } else if (b == LF && !quoted) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /*
+     * Builds the predicate of the filter, and returns the columns it reads.
+     */
+    private BitSet buildFilter() {
+        if (!context.hasFilter()) {
+            return new BitSet();
+        }
+        try {
+            DelimitedTextFilterBuilder filterBuilder = new DelimitedTextFilterBuilder(context);
+            filter = filterBuilder.getRowPredicate(context.getFilterString());
+            if (filter != null) {
+                LOG.debug("Filtering lines on columns {} for filter {}", filterBuilder.getColumns(), context.getFilterString());
+            }
+            return (filter == null) ? new BitSet() : filterBuilder.getColumns();
+        } catch (Exception e) {
+            LOG.warn("Unable to filter lines with {}: {}", context.getFilterString(), e.getMessage());
+            filter = null;
+            return new BitSet();
+        }
+    }
+
+    /*
+     * Parses a line, and adds it to the records or to the text output if it
+     * matches the filter.
+     */
+    private void resolveLine(byte[] data, int start, int end, List<List<OneField>> records,
+                             ByteArrayOutputStream text) {
+        int lineEnd = (end > start && data[end - 1] == CR) ? end - 1 : end;
+        int fieldCount = parser.parse(data, start, lineEnd);
+        if (fieldCount != types.length) {
+            throw new IllegalArgumentException(String.format("Line has %d fields but the table has %d columns: %s",
+                    fieldCount, types.length, new String(data, start, lineEnd - start, StandardCharsets.UTF_8)));
+        }
+        for (int i = 0; i < fieldCount; i++) {
+            values[i] = converted[i] ? toValue(i) : null;
+        }
+        if (filter != null && !filter.test(values)) {
+            return;
+        }
+
+        if (text == null) {
+            List<OneField> record = new ArrayList<>(fieldCount);
+            for (int i = 0; i < fieldCount; i++) {
+                record.add(new OneField(getFieldType(i), projected[i] ? values[i] : null));
+            }
+            records.add(record);
+        } else if (allProjected) {
+            text.write(data, start, end - start + 1);
+        } else {
+            for (int i = 0; i < fieldCount; i++) {
+                if (i > 0) {
+                    text.write(delimiter);
+                }
+                if (projected[i]) {
+                    text.write(data, parser.getRawStart(i), parser.getRawEnd(i) - parser.getRawStart(i));
+                } else {
+                    text.write(nullValue, 0, nullValue.length);
+                }
+            }
+            text.write(LF);
+        }
+    }
+
+    /*
+     * Converts a field to the value of its column. Types without a Java
+     * value in GPDBWritable are kept as text.
+     */
+    private Object toValue(int field) {
+        if (parser.isNull(field)) {
+            return null;
+        }
+        String value = parser.getString(field);
+        try {
+            switch (types[field]) {
+                case SMALLINT:
+                    return Short.parseShort(value.trim());
+                case INTEGER:
+                    return Integer.parseInt(value.trim());
+                case BIGINT:
+                    return Long.parseLong(value.trim());
+                case REAL:
+                    return Float.parseFloat(value);
+                case FLOAT8:
+                    return Double.parseDouble(value);
+                case BOOLEAN:
+                    return parseBoolean(value);
+                case BYTEA:
+                    return value.startsWith("\\x") ? Hex.decodeHex(value.substring(2).toCharArray())
+                            : value.getBytes(StandardCharsets.UTF_8);
+                default:
+                    return value;
+            }
+        } catch (IllegalArgumentException | DecoderException e) {
+            throw new IllegalArgumentException(String.format("Invalid %s value for column %s: %s",
+                    types[field].name().toLowerCase(), context.getColumn(field).columnName(), value), e);
+        }
+    }
+
+    private int getFieldType(int field) {
+        switch (types[field]) {
+            case SMALLINT:
+            case INTEGER:
+            case BIGINT:
+            case REAL:
+            case FLOAT8:
+            case BOOLEAN:
+            case BYTEA:
+            case TEXT:
+            case VARCHAR:
+            case BPCHAR:
+            case NUMERIC:
+            case DATE:
+            case TIMESTAMP:
+                return types[field].getOID();
+            default:
+                return DataType.TEXT.getOID();
+        }
+    }
+
+    /*
+     * Parses a boolean like the database does.
+     */
+    private static Boolean parseBoolean(String value) {
+        switch (value.trim().toLowerCase()) {
+            case "t":
+            case "true":
+            case "y":
+            case "yes":
+            case "on":
+            case "1":
+                return Boolean.TRUE;
+            case "f":
+            case "false":
+            case "n":
+            case "no":
+            case "off":
+            case "0":
+                return Boolean.FALSE;
+            default:
+                throw new IllegalArgumentException("invalid boolean " + value);
+        }
+    }
+}
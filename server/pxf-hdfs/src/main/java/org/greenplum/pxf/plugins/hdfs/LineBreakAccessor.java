@@ -24,6 +24,7 @@ import org.apache.hadoop.fs.FSDataOutputStream;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.io.compress.CompressionCodec;
+import org.apache.hadoop.io.compress.CompressionCodecFactory;
 import org.apache.hadoop.mapred.FileSplit;
 import org.apache.hadoop.mapred.InputSplit;
 import org.apache.hadoop.mapred.JobConf;
@@ -31,6 +32,7 @@ import org.apache.hadoop.mapred.LineRecordReader;
 import org.apache.hadoop.mapred.TextInputFormat;
 import org.greenplum.pxf.api.OneRow;
 import org.greenplum.pxf.api.model.RequestContext;
+import org.greenplum.pxf.plugins.hdfs.utilities.CompressedBlockIndex;
 import org.greenplum.pxf.plugins.hdfs.utilities.HdfsUtilities;
 
 import java.io.DataOutputStream;
@@ -63,6 +65,13 @@ public class LineBreakAccessor extends HdfsSplittableDataAccessor {
     protected Object getReader(JobConf jobConf, InputSplit split)
             throws IOException {
 
+        FileSplit fileSplit = (FileSplit) split;
+        CompressionCodec codec = new CompressionCodecFactory(jobConf).getCodec(fileSplit.getPath());
+        CompressedBlockIndex index = CompressedBlockIndex.read(
+                fileSplit.getPath().getFileSystem(jobConf), fileSplit.getPath(), codec);
+        if (index != null) {
+            return new CompressedBlockRecordReader(jobConf, fileSplit, codec, index);
+        }
         return (hcfsType == HcfsType.HDFS) ?
                 new ChunkRecordReader(jobConf, (FileSplit) split) :
                 new LineRecordReader(jobConf, (FileSplit) split);
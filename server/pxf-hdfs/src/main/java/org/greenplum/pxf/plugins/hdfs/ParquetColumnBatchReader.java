@@ -0,0 +1,280 @@
+package org.greenplum.pxf.plugins.hdfs;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.parquet.column.ColumnReader;
+import org.apache.parquet.column.Dictionary;
+import org.apache.parquet.column.impl.ColumnReadStoreImpl;
+import org.apache.parquet.column.page.PageReadStore;
+import org.apache.parquet.io.api.Binary;
+import org.apache.parquet.io.api.Converter;
+import org.apache.parquet.io.api.GroupConverter;
+import org.apache.parquet.io.api.PrimitiveConverter;
+import org.apache.parquet.schema.MessageType;
+import org.apache.parquet.schema.PrimitiveType;
+import org.apache.parquet.schema.Type;
+import org.greenplum.pxf.api.UnsupportedTypeException;
+import org.greenplum.pxf.api.io.ColumnBatch;
+import org.greenplum.pxf.api.io.ColumnVector;
+import org.greenplum.pxf.api.io.DataType;
+import org.greenplum.pxf.api.utilities.ColumnDescriptor;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Decodes the pages of a Parquet row group straight into the column vectors
+ * of a {@link ColumnBatch}, one column at a time, without materializing
+ * records.
+ * <p>
+ * Binary, decimal and INT96 values of dictionary encoded pages are converted
+ * once per dictionary entry, not once per value. Only top level primitive
+ * columns that are not repeated are supported.
+ */
+class ParquetColumnBatchReader {
+
+    private final MessageType schema;
+    private final String createdBy;
+    private final ColumnBatch batch;
+    // index of the batch column for every field of the schema
+    private final int[] batchColumns;
+    private final boolean[] isFieldColumn;
+    private final ValueConverter[] converters;
+    private ColumnReader[] readers;
+
+    /**
+     * Constructs a reader for the projected columns of a table.
+     *
+     * @param tupleDescription the columns of the table
+     * @param schema           the schema of the columns read from the file
+     * @param createdBy        the writer of the file, from the file metadata
+     * @param capacity         the maximum number of rows of a batch
+     */
+    ParquetColumnBatchReader(List<ColumnDescriptor> tupleDescription, MessageType schema, String createdBy, int capacity) {
+        this.schema = schema;
+        this.createdBy = createdBy;
+
+        for (Type type : schema.getFields()) {
+            if (!type.isPrimitive() || type.getRepetition() == Type.Repetition.REPEATED) {
+                throw new UnsupportedTypeException("Column " + type.getName()
+                        + " is not supported by the vectorized Parquet reader, only primitive columns are supported");
+            }
+        }
+
+        // map the columns of the table to the fields of the schema, the same
+        // way ParquetResolver does
+        int fieldCount = schema.getFieldCount();
+        int columnCount = tupleDescription.isEmpty() ? fieldCount : tupleDescription.size();
+        boolean positional = tupleDescription.isEmpty() || fieldCount == tupleDescription.size();
+        batchColumns = new int[fieldCount];
+        isFieldColumn = new boolean[columnCount];
+        DataType[] types = new DataType[columnCount];
+        int fieldIndex = 0;
+        for (int i = 0; i < columnCount; i++) {
+            boolean isField = positional ? i < fieldCount :
+                    tupleDescription.get(i).isProjected() && fieldIndex < fieldCount;
+            if (isField) {
+                Type type = schema.getType(fieldIndex);
+                types[i] = ParquetTypeConverter.from(type.asPrimitiveType()).getDataType(type);
+                batchColumns[fieldIndex++] = i;
+                isFieldColumn[i] = true;
+            } else {
+                types[i] = DataType.get(tupleDescription.get(i).columnTypeCode());
+            }
+        }
+
+        batch = new ColumnBatch(types, capacity);
+        converters = new ValueConverter[fieldCount];
+        for (int i = 0; i < fieldCount; i++) {
+            converters[i] = new ValueConverter(schema.getType(i).asPrimitiveType(), batch.getColumn(batchColumns[i]));
+        }
+    }
+
+    /**
+     * Sets the row group to read the next batches from.
+     *
+     * @param rowGroup the pages of the row group
+     */
+    void setRowGroup(PageReadStore rowGroup) {
+        ColumnReadStoreImpl store = new ColumnReadStoreImpl(rowGroup, new BatchConverter(), schema, createdBy);
+        readers = new ColumnReader[converters.length];
+        for (int i = 0; i < readers.length; i++) {
+            readers[i] = store.getColumnReader(schema.getColumns().get(i));
+        }
+    }
+
+    /**
+     * Decodes the next rows of the current row group.
+     *
+     * @param rowCount the number of rows to decode, at most the capacity of
+     *                 the batch
+     * @return the batch holding the rows, reused by the next call
+     */
+    ColumnBatch readBatch(int rowCount) {
+        batch.reset();
+        for (int i = 0; i < isFieldColumn.length; i++) {
+            if (!isFieldColumn[i]) {
+                ColumnVector vector = batch.getColumn(i);
+                for (int row = 0; row < rowCount; row++) {
+                    vector.setNull(row);
+                }
+            }
+        }
+
+        for (int i = 0; i < readers.length; i++) {
+            ColumnReader reader = readers[i];
+            ValueConverter converter = converters[i];
+            ColumnVector vector = converter.vector;
+            int maxDefinitionLevel = reader.getDescriptor().getMaxDefinitionLevel();
+            for (int row = 0; row < rowCount; row++) {
+                if (reader.getCurrentDefinitionLevel() < maxDefinitionLevel) {
+                    vector.setNull(row);
+                } else {
+                    converter.row = row;
+                    reader.writeCurrentValueToConverter();
+                }
+                reader.consume();
+            }
+        }
+        batch.setSize(rowCount);
+        return batch;
+    }
+
+    /**
+     * Root converter handing out the converter of each column.
+     */
+    private class BatchConverter extends GroupConverter {
+        @Override
+        public Converter getConverter(int fieldIndex) {
+            return converters[fieldIndex];
+        }
+
+        @Override
+        public void start() {
+        }
+
+        @Override
+        public void end() {
+        }
+    }
+
+    /**
+     * Writes the values of a column into its vector, at the current row.
+     */
+    private static class ValueConverter extends PrimitiveConverter {
+
+        private final PrimitiveType type;
+        private final ColumnVector vector;
+        private final boolean convertsBinary;
+        private int row;
+        private Dictionary dictionary;
+        private byte[][] dictionaryValues;
+
+        ValueConverter(PrimitiveType type, ColumnVector vector) {
+            this.type = type;
+            this.vector = vector;
+            PrimitiveType.PrimitiveTypeName typeName = type.getPrimitiveTypeName();
+            this.convertsBinary = typeName == PrimitiveType.PrimitiveTypeName.BINARY
+                    || typeName == PrimitiveType.PrimitiveTypeName.FIXED_LEN_BYTE_ARRAY
+                    || typeName == PrimitiveType.PrimitiveTypeName.INT96;
+        }
+
+        @Override
+        public boolean hasDictionarySupport() {
+            return convertsBinary;
+        }
+
+        @Override
+        public void setDictionary(Dictionary dictionary) {
+            this.dictionary = dictionary;
+            this.dictionaryValues = new byte[dictionary.getMaxId() + 1][];
+        }
+
+        @Override
+        public void addValueFromDictionary(int dictionaryId) {
+            byte[] value = dictionaryValues[dictionaryId];
+            if (value == null) {
+                value = toBytes(dictionary.decodeToBinary(dictionaryId));
+                dictionaryValues[dictionaryId] = value;
+            }
+            vector.setBytes(row, value, 0, value.length);
+        }
+
+        @Override
+        public void addBinary(Binary value) {
+            if (type.getPrimitiveTypeName() == PrimitiveType.PrimitiveTypeName.BINARY) {
+                ByteBuffer buffer = value.toByteBuffer();
+                if (buffer.hasArray()) {
+                    vector.setBytes(row, buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+                    return;
+                }
+            }
+            byte[] bytes = toBytes(value);
+            vector.setBytes(row, bytes, 0, bytes.length);
+        }
+
+        @Override
+        public void addBoolean(boolean value) {
+            vector.setBoolean(row, value);
+        }
+
+        @Override
+        public void addInt(int value) {
+            vector.setLong(row, value);
+        }
+
+        @Override
+        public void addLong(long value) {
+            vector.setLong(row, value);
+        }
+
+        @Override
+        public void addFloat(float value) {
+            vector.setDouble(row, value);
+        }
+
+        @Override
+        public void addDouble(double value) {
+            vector.setDouble(row, value);
+        }
+
+        /**
+         * Converts a binary value to the bytes stored in the vector: the raw
+         * bytes of binary columns, the text of decimals and INT96 timestamps,
+         * formatted like ParquetResolver formats them.
+         */
+        private byte[] toBytes(Binary value) {
+            switch (type.getPrimitiveTypeName()) {
+                case FIXED_LEN_BYTE_ARRAY:
+                    int scale = type.getDecimalMetadata().getScale();
+                    return new BigDecimal(new BigInteger(value.getBytes()), scale).toString()
+                            .getBytes(StandardCharsets.UTF_8);
+                case INT96:
+                    return ParquetTypeConverter.bytesToTimestamp(value.getBytes()).toString()
+                            .getBytes(StandardCharsets.UTF_8);
+                default:
+                    return value.getBytes();
+            }
+        }
+    }
+}
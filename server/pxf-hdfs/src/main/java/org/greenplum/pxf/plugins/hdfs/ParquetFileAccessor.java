@@ -19,17 +19,22 @@ package org.greenplum.pxf.plugins.hdfs;
  * under the License.
  */
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import org.apache.commons.io.IOUtils;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.mapred.FileSplit;
+import org.apache.hadoop.security.UserGroupInformation;
 import org.apache.parquet.column.ParquetProperties.WriterVersion;
 import org.apache.parquet.column.page.PageReadStore;
 import org.apache.parquet.example.data.Group;
 import org.apache.parquet.example.data.simple.convert.GroupRecordConverter;
+import org.apache.parquet.filter2.compat.FilterCompat;
+import org.apache.parquet.filter2.predicate.FilterPredicate;
 import org.apache.parquet.format.converter.ParquetMetadataConverter;
 import org.apache.parquet.format.converter.ParquetMetadataConverter.MetadataFilter;
 import org.apache.parquet.hadoop.ParquetFileReader;
+import org.apache.parquet.hadoop.ParquetInputFormat;
 import org.apache.parquet.hadoop.ParquetWriter;
 import org.apache.parquet.hadoop.example.GroupWriteSupport;
 import org.apache.parquet.hadoop.metadata.CompressionCodecName;
@@ -45,9 +50,9 @@ import org.apache.parquet.schema.PrimitiveType;
 import org.apache.parquet.schema.PrimitiveType.PrimitiveTypeName;
 import org.apache.parquet.schema.Type;
 import org.greenplum.pxf.api.OneRow;
+import org.greenplum.pxf.api.ReadAhead;
 import org.greenplum.pxf.api.UnsupportedTypeException;
 import org.greenplum.pxf.api.io.DataType;
-import org.greenplum.pxf.api.model.Accessor;
 import org.greenplum.pxf.api.model.BasePlugin;
 import org.greenplum.pxf.api.utilities.ColumnDescriptor;
 import org.greenplum.pxf.plugins.hdfs.utilities.HdfsUtilities;
@@ -55,14 +60,21 @@ import org.greenplum.pxf.plugins.hdfs.utilities.HdfsUtilities;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
+import java.security.PrivilegedExceptionAction;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Parquet file accessor.
  * Unit of operation is record.
  */
-public class ParquetFileAccessor extends BasePlugin implements Accessor {
+@ReadAhead
+public class ParquetFileAccessor extends BasePlugin {
 
     private static final int DECIMAL_SCALE = 18;
     private static final int DECIMAL_PRECISION = 38;
@@ -71,24 +83,45 @@ public class ParquetFileAccessor extends BasePlugin implements Accessor {
     private static final int DEFAULT_ROWGROUP_SIZE = 8 * 1024 * 1024;
     private static final int DEFAULT_DICTIONARY_PAGE_SIZE = 512 * 1024;
     private static final WriterVersion DEFAULT_PARQUET_VERSION = WriterVersion.PARQUET_1_0;
-
-    private MessageType schema;
-    private ParquetFileReader fileReader;
+    private static final int FILE_SIZE_CHECK_INTERVAL = 1000;
+    private static final String ROWGROUP_SIZE_OPTION = "ROWGROUP_SIZE";
+    private static final String PAGE_SIZE_OPTION = "PAGE_SIZE";
+    private static final String DICTIONARY_PAGE_SIZE_OPTION = "DICTIONARY_PAGE_SIZE";
+    private static final String ENABLE_DICTIONARY_OPTION = "ENABLE_DICTIONARY";
+    private static final String FILE_SIZE_OPTION = "FILE_SIZE";
+    private static final String PARQUET_VERSION_OPTION = "PARQUET_VERSION";
+
+    // closes full files while the next file is written
+    private static final ExecutorService CLOSE_EXECUTOR = Executors.newCachedThreadPool(
+            new ThreadFactoryBuilder().setNameFormat("pxf-parquet-close-%d").setDaemon(true).build());
+
+    protected MessageType schema;
+    protected ParquetFileReader fileReader;
     private MessageColumnIO columnIO;
     private CompressionCodecName codecName;
     private ParquetWriter<Group> parquetWriter;
+    private Future<Void> pendingClose;
     private RecordReader<Group> recordReader;
+    private FilterCompat.Filter recordFilter;
     private GroupRecordConverter groupRecordConverter;
     private GroupWriteSupport groupWriteSupport;
     private FileSystem fs;
     private Path file;
     private String filePrefix;
     private int fileIndex;
-    private long rowsRead;
+    private int rowGroupSize;
+    private int pageSize;
+    private int dictionaryPageSize;
+    private boolean enableDictionary;
+    private int fileSize;
+    private WriterVersion parquetVersion;
+    private long bytesWritten;
+    private long closeWaitNanos;
+    protected long rowsRead;
     private long rowsWritten;
     private long totalRowsRead;
     private long totalRowsWritten;
-    private long rowsInRowGroup;
+    protected long rowsInRowGroup;
     private long rowGroupsReadCount;
 
     /**
@@ -104,16 +137,28 @@ public class ParquetFileAccessor extends BasePlugin implements Accessor {
         // Create reader for a given split, read a range in file
         MetadataFilter filter = ParquetMetadataConverter.range(
                 fileSplit.getStart(), fileSplit.getStart() + fileSplit.getLength());
+        // skip row groups using the dictionaries as well as the statistics
+        configuration.setBoolean(ParquetInputFormat.DICTIONARY_FILTERING_ENABLED, true);
         fileReader = new ParquetFileReader(configuration, file, filter);
         try {
             ParquetMetadata metadata = fileReader.getFooter();
-            schema = metadata.getFileMetaData().getSchema();
-            columnIO = new ColumnIOFactory().getColumnIO(schema);
+            MessageType fileSchema = metadata.getFileMetaData().getSchema();
+            // only read and decode the column chunks of the projected columns
+            schema = getReadSchema(fileSchema, context.getTupleDescription());
+            fileReader.setRequestedSchema(schema);
+            columnIO = new ColumnIOFactory().getColumnIO(schema, fileSchema);
             groupRecordConverter = new GroupRecordConverter(schema);
+
+            int rowGroupCount = fileReader.getRowGroups().size();
+            recordFilter = getRecordFilter(fileSchema);
+            if (recordFilter != FilterCompat.NOOP) {
+                fileReader.filterRowGroups(recordFilter);
+            }
             if (LOG.isDebugEnabled()) {
-                LOG.debug("Reading file {} with {} records in {} rowgroups",
+                LOG.debug("Reading file {} with {} records in {} of {} rowgroups, {} of {} columns projected",
                         file.getName(), fileReader.getRecordCount(),
-                        fileReader.getRowGroups().size());
+                        fileReader.getRowGroups().size(), rowGroupCount,
+                        schema.getFieldCount(), fileSchema.getFieldCount());
             }
         } catch (Exception e) {
             fileReader.close();
@@ -132,30 +177,98 @@ public class ParquetFileAccessor extends BasePlugin implements Accessor {
     @Override
     public OneRow readNextObject() throws IOException {
 
-        if (rowsRead == rowsInRowGroup && !readNextRowGroup())
-            return null;
-        Group group = recordReader.read();
-        rowsRead++;
+        Group group = null;
+        // the record reader returns null for the records skipped by the filter
+        while (group == null) {
+            if (rowsRead == rowsInRowGroup && !readNextRowGroup())
+                return null;
+            group = recordReader.read();
+            rowsRead++;
+        }
         return new OneRow(null, group);
     }
 
+    /**
+     * Translates the filter of the request into a Parquet filter. Filtering
+     * is an optimization, the filter is not pushed down if the translation
+     * fails.
+     *
+     * @param fileSchema the schema of the file
+     * @return the filter, or {@link FilterCompat#NOOP} if there is none
+     */
+    private FilterCompat.Filter getRecordFilter(MessageType fileSchema) {
+        if (!context.hasFilter()) {
+            return FilterCompat.NOOP;
+        }
+        try {
+            ParquetFilterBuilder filterBuilder = new ParquetFilterBuilder(context, fileSchema, schema);
+            FilterPredicate predicate = filterBuilder.getFilterPredicate(context.getFilterString());
+            LOG.debug("Parquet filter predicate {} for filter {}", predicate, context.getFilterString());
+            return predicate == null ? FilterCompat.NOOP : FilterCompat.get(predicate);
+        } catch (Exception e) {
+            LOG.warn("Unable to push down filter {}: {}", context.getFilterString(), e.getMessage());
+            return FilterCompat.NOOP;
+        }
+    }
+
+    /**
+     * Returns the schema of the columns to read from the file: the fields of
+     * the file schema at the index of the projected columns. The file schema
+     * is returned when all the columns are projected.
+     *
+     * @param fileSchema       the schema of the file
+     * @param tupleDescription the columns of the table
+     * @return the schema of the columns to read
+     */
+    static MessageType getReadSchema(MessageType fileSchema, List<ColumnDescriptor> tupleDescription) {
+        List<Type> projectedFields = new ArrayList<>();
+        for (ColumnDescriptor column : tupleDescription) {
+            if (!column.isProjected()) {
+                continue;
+            }
+            if (column.columnIndex() < fileSchema.getFieldCount()) {
+                projectedFields.add(fileSchema.getType(column.columnIndex()));
+            }
+        }
+        if (projectedFields.size() == tupleDescription.size()) {
+            return fileSchema;
+        }
+        return new MessageType(fileSchema.getName(), projectedFields);
+    }
+
     private boolean readNextRowGroup() throws IOException {
 
+        PageReadStore currentRowGroup = readRowGroup();
+        if (currentRowGroup == null) {
+            return false;
+        }
+        recordReader = columnIO.getRecordReader(currentRowGroup, groupRecordConverter, recordFilter);
+        return true;
+    }
+
+    /**
+     * Reads the pages of the projected columns of the next row group, and
+     * resets the count of rows read from the row group.
+     *
+     * @return the pages of the row group, or null when the split is exhausted
+     * @throws IOException if unable to read
+     */
+    protected PageReadStore readRowGroup() throws IOException {
+
         PageReadStore currentRowGroup = fileReader.readNextRowGroup();
         if (currentRowGroup == null) {
             LOG.debug("All rowgroups have been exhausted for {}", file.getName());
-            return false;
+            return null;
         }
 
         rowGroupsReadCount++;
         totalRowsRead += rowsRead;
         // Reset rows read
         rowsRead = 0;
-        recordReader = columnIO.getRecordReader(currentRowGroup, groupRecordConverter);
         rowsInRowGroup = currentRowGroup.getRowCount();
 
         LOG.debug("Reading {} rows (rowgroup {})", rowsInRowGroup, rowGroupsReadCount);
-        return true;
+        return currentRowGroup;
     }
 
     private CompressionCodecName getCodec(String name) {
@@ -204,6 +317,15 @@ public class ParquetFileAccessor extends BasePlugin implements Accessor {
         filePrefix = hcfsType.getDataUri(configuration, context);
         String compressCodec = context.getOption("COMPRESSION_CODEC");
         codecName = getCodec(compressCodec);
+        rowGroupSize = getIntOption(ROWGROUP_SIZE_OPTION, DEFAULT_ROWGROUP_SIZE);
+        pageSize = getIntOption(PAGE_SIZE_OPTION, DEFAULT_PAGE_SIZE);
+        dictionaryPageSize = getIntOption(DICTIONARY_PAGE_SIZE_OPTION, DEFAULT_DICTIONARY_PAGE_SIZE);
+        enableDictionary = !"false".equalsIgnoreCase(context.getOption(ENABLE_DICTIONARY_OPTION));
+        fileSize = getIntOption(FILE_SIZE_OPTION, DEFAULT_FILE_SIZE);
+        parquetVersion = getParquetVersion(context.getOption(PARQUET_VERSION_OPTION));
+        LOG.debug("Parquet options: rowgroup size {}, page size {}, dictionary page size {}, dictionary {}, " +
+                        "file size {}, version {}", rowGroupSize, pageSize, dictionaryPageSize,
+                enableDictionary ? "enabled" : "disabled", fileSize, parquetVersion);
 
         // Read schema file, if given
         String schemaFile = context.getOption("SCHEMA");
@@ -233,8 +355,8 @@ public class ParquetFileAccessor extends BasePlugin implements Accessor {
         parquetWriter.write((Group) onerow.getData());
         rowsWritten++;
         // Check for the output file size every 1000 rows
-        if (rowsWritten % 1000 == 0 && parquetWriter.getDataSize() > DEFAULT_FILE_SIZE) {
-            parquetWriter.close();
+        if (rowsWritten % FILE_SIZE_CHECK_INTERVAL == 0 && parquetWriter.getDataSize() > fileSize) {
+            closeInBackground();
             totalRowsWritten += rowsWritten;
             // Reset rows written
             rowsWritten = 0;
@@ -252,11 +374,71 @@ public class ParquetFileAccessor extends BasePlugin implements Accessor {
     @Override
     public void closeForWrite() throws IOException {
 
-        if (parquetWriter != null) {
-            parquetWriter.close();
-            totalRowsWritten += rowsWritten;
+        try {
+            waitForPendingClose();
+        } finally {
+            if (parquetWriter != null) {
+                bytesWritten += parquetWriter.getDataSize();
+                parquetWriter.close();
+                totalRowsWritten += rowsWritten;
+            }
         }
         LOG.debug("Wrote a TOTAL of {} rows", totalRowsWritten);
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("Wrote {} files with {} bytes for {}, waited {} ms for files to close",
+                    fileIndex + 1, bytesWritten, filePrefix, TimeUnit.NANOSECONDS.toMillis(closeWaitNanos));
+        }
+    }
+
+    /**
+     * Closes the current file on a background thread, so that writing the
+     * next file overlaps with flushing the last row group of this one. At
+     * most one file is closed at a time, which bounds the memory held by
+     * the buffered row groups to two writers.
+     *
+     * @throws IOException if closing the previous file failed
+     */
+    private void closeInBackground() throws IOException {
+        waitForPendingClose();
+        final ParquetWriter<Group> writer = parquetWriter;
+        final Path closedFile = file;
+        final UserGroupInformation ugi = UserGroupInformation.getCurrentUser();
+        bytesWritten += writer.getDataSize();
+        parquetWriter = null;
+        pendingClose = CLOSE_EXECUTOR.submit(() -> ugi.doAs((PrivilegedExceptionAction<Void>) () -> {
+            long start = System.nanoTime();
+            writer.close();
+            LOG.debug("Closed file {} in {} ms", closedFile,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            return null;
+        }));
+    }
+
+    /**
+     * Waits for the file being closed in the background, if any.
+     *
+     * @throws IOException if closing the file failed
+     */
+    private void waitForPendingClose() throws IOException {
+        if (pendingClose == null) {
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            pendingClose.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while closing a Parquet file", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException(cause);
+        } finally {
+            pendingClose = null;
+            closeWaitNanos += System.nanoTime() - start;
+        }
     }
 
     private void createParquetWriter() throws IOException {
@@ -270,8 +452,48 @@ public class ParquetFileAccessor extends BasePlugin implements Accessor {
 
         //noinspection deprecation
         parquetWriter = new ParquetWriter<>(file, groupWriteSupport, codecName,
-                DEFAULT_ROWGROUP_SIZE, DEFAULT_PAGE_SIZE, DEFAULT_DICTIONARY_PAGE_SIZE,
-                true, false, DEFAULT_PARQUET_VERSION, configuration);
+                rowGroupSize, pageSize, dictionaryPageSize,
+                enableDictionary, false, parquetVersion, configuration);
+    }
+
+    /**
+     * Returns the value of a size option, or the given default if the option
+     * is not set.
+     *
+     * @param name         the name of the option
+     * @param defaultValue the default value
+     * @return the value of the option
+     * @throws IllegalArgumentException if the value is not a positive integer
+     */
+    protected int getIntOption(String name, int defaultValue) {
+        String value = context.getOption(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            int result = Integer.parseInt(value.trim());
+            if (result > 0) {
+                return result;
+            }
+        } catch (NumberFormatException e) {
+            // fall through
+        }
+        throw new IllegalArgumentException(String.format(
+                "Wrong value '%s'. %s must be a positive integer", value, name));
+    }
+
+    private WriterVersion getParquetVersion(String version) {
+        if (version == null) {
+            return DEFAULT_PARQUET_VERSION;
+        }
+        for (WriterVersion writerVersion : WriterVersion.values()) {
+            if (writerVersion.getShortName().equalsIgnoreCase(version.trim())
+                    || writerVersion.name().equalsIgnoreCase(version.trim())) {
+                return writerVersion;
+            }
+        }
+        throw new IllegalArgumentException(String.format(
+                "Wrong value '%s'. %s must be one of v1 or v2", version, PARQUET_VERSION_OPTION));
     }
 
     /**
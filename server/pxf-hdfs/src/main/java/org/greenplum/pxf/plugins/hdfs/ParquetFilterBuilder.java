@@ -0,0 +1,318 @@
+package org.greenplum.pxf.plugins.hdfs;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.parquet.filter2.predicate.FilterApi;
+import org.apache.parquet.filter2.predicate.FilterPredicate;
+import org.apache.parquet.filter2.predicate.Operators.Column;
+import org.apache.parquet.filter2.predicate.Operators.SupportsEqNotEq;
+import org.apache.parquet.filter2.predicate.Operators.SupportsLtGt;
+import org.apache.parquet.io.api.Binary;
+import org.apache.parquet.schema.MessageType;
+import org.apache.parquet.schema.OriginalType;
+import org.apache.parquet.schema.PrimitiveType;
+import org.apache.parquet.schema.Type;
+import org.greenplum.pxf.api.FilterParser;
+import org.greenplum.pxf.api.io.DataType;
+import org.greenplum.pxf.api.model.RequestContext;
+import org.greenplum.pxf.api.utilities.ColumnDescriptor;
+
+import java.sql.Date;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Uses the filter parser code to build a Parquet {@link FilterPredicate} from
+ * the filter string. The predicate is used by {@link ParquetFileAccessor} to
+ * skip row groups based on their statistics and dictionaries, and to skip
+ * records inside the Parquet reader.
+ * <p>
+ * Greenplum applies the query's filter to the returned rows, so the predicate
+ * may keep rows that do not match. It must never drop rows that match. Parts
+ * of the filter that cannot be translated safely are left out: an AND keeps
+ * its translated side, an OR or NOT with an untranslated operand is dropped.
+ * Only equality is pushed down for text, since Parquet orders strings by
+ * bytes and not by the database collation.
+ */
+public class ParquetFilterBuilder implements FilterParser.FilterBuilder {
+
+    private final RequestContext context;
+    private final MessageType fileSchema;
+    private final MessageType readSchema;
+    // predicates that match more rows than the filter they were built from
+    private final Set<FilterPredicate> inexact = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    /**
+     * Constructs a ParquetFilterBuilder.
+     *
+     * @param context    the request context
+     * @param fileSchema the schema of the file
+     * @param readSchema the schema of the columns read from the file
+     */
+    public ParquetFilterBuilder(RequestContext context, MessageType fileSchema, MessageType readSchema) {
+        this.context = context;
+        this.fileSchema = fileSchema;
+        this.readSchema = readSchema;
+    }
+
+    /**
+     * Translates a filter string into a Parquet predicate.
+     *
+     * @param filterString the string representation of the filter
+     * @return the predicate, or null if no part of the filter can be pushed
+     * down
+     * @throws Exception if parsing the filter failed
+     */
+    public FilterPredicate getFilterPredicate(String filterString) throws Exception {
+        if (filterString == null) {
+            return null;
+        }
+        FilterParser parser = new FilterParser(this);
+        Object result = parser.parse(filterString.getBytes(FilterParser.DEFAULT_CHARSET));
+        return (result instanceof FilterPredicate) ? (FilterPredicate) result : null;
+    }
+
+    @Override
+    public Object build(FilterParser.Operation operation, Object left, Object right) {
+        if (!(left instanceof FilterParser.ColumnIndex) || !(right instanceof FilterParser.Constant)) {
+            return null;
+        }
+        return buildPredicate(operation, (FilterParser.ColumnIndex) left,
+                ((FilterParser.Constant) right).constant());
+    }
+
+    @Override
+    public Object build(FilterParser.Operation operation, Object operand) {
+        if (!(operand instanceof FilterParser.ColumnIndex)) {
+            return null;
+        }
+        if (operation != FilterParser.Operation.HDOP_IS_NULL && operation != FilterParser.Operation.HDOP_IS_NOT_NULL) {
+            return null;
+        }
+        return buildPredicate(operation, (FilterParser.ColumnIndex) operand, null);
+    }
+
+    @Override
+    public Object build(FilterParser.LogicalOperation operation, Object left, Object right) {
+        FilterPredicate leftPredicate = (FilterPredicate) left;
+        FilterPredicate rightPredicate = (FilterPredicate) right;
+        FilterPredicate result;
+        switch (operation) {
+            case HDOP_AND:
+                if (leftPredicate == null || rightPredicate == null) {
+                    result = leftPredicate == null ? rightPredicate : leftPredicate;
+                    if (result != null) {
+                        inexact.add(result);
+                    }
+                    return result;
+                }
+                result = FilterApi.and(leftPredicate, rightPredicate);
+                break;
+            case HDOP_OR:
+                if (leftPredicate == null || rightPredicate == null) {
+                    return null;
+                }
+                result = FilterApi.or(leftPredicate, rightPredicate);
+                break;
+            default:
+                return null;
+        }
+        if (inexact.contains(leftPredicate) || inexact.contains(rightPredicate)) {
+            inexact.add(result);
+        }
+        return result;
+    }
+
+    @Override
+    public Object build(FilterParser.LogicalOperation operation, Object filter) {
+        FilterPredicate predicate = (FilterPredicate) filter;
+        // the negation of a predicate matching too many rows would drop rows
+        if (operation != FilterParser.LogicalOperation.HDOP_NOT || predicate == null || inexact.contains(predicate)) {
+            return null;
+        }
+        return FilterApi.not(predicate);
+    }
+
+    /**
+     * Builds the predicate of a simple operation, or returns null if the
+     * column or the constant cannot be pushed down.
+     */
+    private FilterPredicate buildPredicate(FilterParser.Operation operation, FilterParser.ColumnIndex columnIndex,
+                                           Object constant) {
+        int index = columnIndex.index();
+        if (index >= fileSchema.getFieldCount() || index >= context.getColumns()) {
+            return null;
+        }
+        Type type = fileSchema.getType(index);
+        ColumnDescriptor column = context.getColumn(index);
+        if (!type.isPrimitive() || type.getRepetition() == Type.Repetition.REPEATED
+                || !readSchema.containsField(type.getName()) || type.getName().contains(".")) {
+            return null;
+        }
+        // char values are blank padded by the database but not in the file
+        if (DataType.get(column.columnTypeCode()) == DataType.BPCHAR) {
+            return null;
+        }
+
+        if (operation == FilterParser.Operation.HDOP_IN) {
+            if (!(constant instanceof List)) {
+                return null;
+            }
+            FilterPredicate result = null;
+            for (Object value : (List<?>) constant) {
+                FilterPredicate predicate = buildTypedPredicate(FilterParser.Operation.HDOP_EQ, type.asPrimitiveType(), value);
+                if (predicate == null) {
+                    return null;
+                }
+                result = (result == null) ? predicate : FilterApi.or(result, predicate);
+            }
+            return result;
+        }
+        return buildTypedPredicate(operation, type.asPrimitiveType(), constant);
+    }
+
+    private FilterPredicate buildTypedPredicate(FilterParser.Operation operation, PrimitiveType type, Object constant) {
+        if (operation == FilterParser.Operation.HDOP_IS_NULL || operation == FilterParser.Operation.HDOP_IS_NOT_NULL) {
+            return buildNullCheck(operation, type);
+        }
+        String name = type.getName();
+        OriginalType originalType = type.getOriginalType();
+        switch (type.getPrimitiveTypeName()) {
+            case INT32: {
+                Integer value = null;
+                if (originalType == OriginalType.DATE) {
+                    value = toEpochDay(constant);
+                } else if (originalType == null || originalType == OriginalType.INT_8
+                        || originalType == OriginalType.INT_16 || originalType == OriginalType.INT_32) {
+                    value = toInteger(constant);
+                }
+                return value == null ? null : compare(operation, FilterApi.intColumn(name), value);
+            }
+            case INT64: {
+                Long value = (originalType == null || originalType == OriginalType.INT_64) ? toLong(constant) : null;
+                return value == null ? null : compare(operation, FilterApi.longColumn(name), value);
+            }
+            case DOUBLE: {
+                Double value = toDouble(constant);
+                return value == null ? null : compare(operation, FilterApi.doubleColumn(name), value);
+            }
+            case FLOAT: {
+                Float value = (constant instanceof Float) ? (Float) constant : null;
+                return value == null ? null : compare(operation, FilterApi.floatColumn(name), value);
+            }
+            case BOOLEAN:
+                if (!(constant instanceof Boolean)) {
+                    return null;
+                }
+                return equality(operation, FilterApi.booleanColumn(name), (Boolean) constant);
+            case BINARY:
+                if (originalType != OriginalType.UTF8 || !(constant instanceof String)) {
+                    return null;
+                }
+                return equality(operation, FilterApi.binaryColumn(name), Binary.fromString((String) constant));
+            default:
+                // INT96 timestamps and fixed length decimals are not pushed down
+                return null;
+        }
+    }
+
+    private FilterPredicate buildNullCheck(FilterParser.Operation operation, PrimitiveType type) {
+        String name = type.getName();
+        switch (type.getPrimitiveTypeName()) {
+            case INT32:
+                return equality(operation, FilterApi.intColumn(name), null);
+            case INT64:
+                return equality(operation, FilterApi.longColumn(name), null);
+            case DOUBLE:
+                return equality(operation, FilterApi.doubleColumn(name), null);
+            case FLOAT:
+                return equality(operation, FilterApi.floatColumn(name), null);
+            case BOOLEAN:
+                return equality(operation, FilterApi.booleanColumn(name), null);
+            case BINARY:
+                return equality(operation, FilterApi.binaryColumn(name), null);
+            default:
+                return null;
+        }
+    }
+
+    private static <T extends Comparable<T>, C extends Column<T> & SupportsLtGt> FilterPredicate compare(
+            FilterParser.Operation operation, C column, T value) {
+        switch (operation) {
+            case HDOP_LT:
+                return FilterApi.lt(column, value);
+            case HDOP_GT:
+                return FilterApi.gt(column, value);
+            case HDOP_LE:
+                return FilterApi.ltEq(column, value);
+            case HDOP_GE:
+                return FilterApi.gtEq(column, value);
+            default:
+                return equality(operation, column, value);
+        }
+    }
+
+    private static <T extends Comparable<T>, C extends Column<T> & SupportsEqNotEq> FilterPredicate equality(
+            FilterParser.Operation operation, C column, T value) {
+        switch (operation) {
+            case HDOP_EQ:
+            case HDOP_IS_NULL:
+                return FilterApi.eq(column, value);
+            case HDOP_NE:
+            case HDOP_IS_NOT_NULL:
+                return FilterApi.notEq(column, value);
+            default:
+                return null;
+        }
+    }
+
+    private static Integer toInteger(Object constant) {
+        if (constant instanceof Integer) {
+            return (Integer) constant;
+        }
+        if (constant instanceof Long && (Long) constant == ((Long) constant).intValue()) {
+            return ((Long) constant).intValue();
+        }
+        return null;
+    }
+
+    private static Long toLong(Object constant) {
+        if (constant instanceof Integer || constant instanceof Long) {
+            return ((Number) constant).longValue();
+        }
+        return null;
+    }
+
+    private static Double toDouble(Object constant) {
+        if (constant instanceof Double || constant instanceof Float || constant instanceof Integer) {
+            return ((Number) constant).doubleValue();
+        }
+        return null;
+    }
+
+    private static Integer toEpochDay(Object constant) {
+        if (constant instanceof Date) {
+            return (int) ((Date) constant).toLocalDate().toEpochDay();
+        }
+        return null;
+    }
+}
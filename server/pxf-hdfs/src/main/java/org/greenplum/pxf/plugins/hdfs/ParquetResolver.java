@@ -32,6 +32,7 @@ import org.greenplum.pxf.api.OneRow;
 import org.greenplum.pxf.api.io.DataType;
 import org.greenplum.pxf.api.model.BasePlugin;
 import org.greenplum.pxf.api.model.Resolver;
+import org.greenplum.pxf.api.utilities.ColumnDescriptor;
 
 import java.io.IOException;
 import java.math.BigDecimal;
@@ -57,19 +58,36 @@ public class ParquetResolver extends BasePlugin implements Resolver {
         validateSchema();
         Group group = (Group) row.getData();
         List<OneField> output = new LinkedList<>();
+        List<ColumnDescriptor> tupleDescription = context.getTupleDescription();
 
-        for (int columnIndex = 0; columnIndex < schema.getFieldCount(); columnIndex++) {
+        if (schema.getFieldCount() == tupleDescription.size() || tupleDescription.isEmpty()) {
+            for (int columnIndex = 0; columnIndex < schema.getFieldCount(); columnIndex++) {
+                output.add(resolveField(group, columnIndex));
+            }
+            return output;
+        }
 
-            Type type = schema.getType(columnIndex);
-            if (schema.getType(columnIndex).isPrimitive()) {
-                output.add(resolvePrimitive(group, columnIndex, type, 0));
+        // the accessor only read the projected columns, the group holds
+        // them in the order of the table. Non-projected columns are null.
+        int columnIndex = 0;
+        for (ColumnDescriptor column : tupleDescription) {
+            if (column.isProjected() && columnIndex < schema.getFieldCount()) {
+                output.add(resolveField(group, columnIndex++));
             } else {
-                throw new UnsupportedOperationException("Parquet complex type support is not yet available.");
+                output.add(new OneField(column.columnTypeCode(), null));
             }
         }
         return output;
     }
 
+    private OneField resolveField(Group group, int columnIndex) {
+        Type type = schema.getType(columnIndex);
+        if (!type.isPrimitive()) {
+            throw new UnsupportedOperationException("Parquet complex type support is not yet available.");
+        }
+        return resolvePrimitive(group, columnIndex, type, 0);
+    }
+
     /**
      * Constructs and sets the fields of a {@link OneRow}.
      *
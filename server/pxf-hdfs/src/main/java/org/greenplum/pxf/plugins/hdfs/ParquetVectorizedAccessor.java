@@ -0,0 +1,86 @@
+package org.greenplum.pxf.plugins.hdfs;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.parquet.column.page.PageReadStore;
+import org.greenplum.pxf.api.OneRow;
+import org.greenplum.pxf.api.io.ColumnBatch;
+
+import java.io.IOException;
+
+/**
+ * Parquet file accessor reading batches of rows.
+ * Unit of operation is a batch of up to BATCH_SIZE rows of a row group.
+ * <p>
+ * The rows are not decoded by the accessor. Every {@link OneRow} holds the
+ * number of rows of the batch as key and the {@link ParquetColumnBatchReader}
+ * decoding the current row group as data, to be used by
+ * {@link ParquetVectorizedResolver}. Batches must therefore be resolved in the
+ * order they are read, and the accessor is not annotated with
+ * {@link org.greenplum.pxf.api.ReadAhead} like its parent is. Row
+ * groups are still skipped using the filter, but the filter is not applied to
+ * individual rows.
+ */
+public class ParquetVectorizedAccessor extends ParquetFileAccessor {
+
+    private static final String BATCH_SIZE_OPTION = "BATCH_SIZE";
+
+    private ParquetColumnBatchReader batchReader;
+    private int batchSize;
+
+    /**
+     * Opens the resource for read.
+     *
+     * @throws IOException if opening the resource failed
+     */
+    @Override
+    public boolean openForRead() throws IOException {
+        super.openForRead();
+        batchSize = getIntOption(BATCH_SIZE_OPTION, ColumnBatch.DEFAULT_CAPACITY);
+        try {
+            String createdBy = fileReader.getFooter().getFileMetaData().getCreatedBy();
+            batchReader = new ParquetColumnBatchReader(context.getTupleDescription(), schema, createdBy, batchSize);
+        } catch (RuntimeException e) {
+            fileReader.close();
+            throw e;
+        }
+        return true;
+    }
+
+    /**
+     * Reads the next batch of rows.
+     *
+     * @return one batch or null when split is already exhausted
+     * @throws IOException if unable to read
+     */
+    @Override
+    public OneRow readNextObject() throws IOException {
+        while (rowsRead == rowsInRowGroup) {
+            PageReadStore rowGroup = readRowGroup();
+            if (rowGroup == null) {
+                return null;
+            }
+            batchReader.setRowGroup(rowGroup);
+        }
+        int rowCount = (int) Math.min(batchSize, rowsInRowGroup - rowsRead);
+        rowsRead += rowCount;
+        return new OneRow(rowCount, batchReader);
+    }
+}
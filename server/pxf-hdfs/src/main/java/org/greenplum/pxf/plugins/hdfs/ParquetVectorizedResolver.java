@@ -0,0 +1,63 @@
+package org.greenplum.pxf.plugins.hdfs;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.greenplum.pxf.api.OneField;
+import org.greenplum.pxf.api.OneRow;
+import org.greenplum.pxf.api.ReadColumnarResolver;
+import org.greenplum.pxf.api.io.ColumnBatch;
+
+import java.util.List;
+
+/**
+ * Parquet resolver decoding the batches read by
+ * {@link ParquetVectorizedAccessor} into column vectors. Only top level
+ * columns of primitive types are supported. Writes are resolved one row at a
+ * time by {@link ParquetResolver}.
+ * <p>
+ * Batches cannot be resolved one row at a time, the bridges sampling or
+ * reading the rows call {@link #getColumnBatch(OneRow)}.
+ */
+public class ParquetVectorizedResolver extends ParquetResolver implements ReadColumnarResolver {
+
+    /**
+     * Always fails, the rows of a batch are resolved by
+     * {@link #getColumnBatch(OneRow)}.
+     *
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public List<OneField> getFields(OneRow row) {
+        throw new UnsupportedOperationException(
+                "ParquetVectorizedResolver resolves batches of rows, use getColumnBatch instead of getFields");
+    }
+
+    /**
+     * Decodes the rows of the batch.
+     *
+     * @param batch the batch read by {@link ParquetVectorizedAccessor}
+     * @return the column vectors of the rows, reused by the next call
+     */
+    @Override
+    public ColumnBatch getColumnBatch(OneRow batch) {
+        ParquetColumnBatchReader batchReader = (ParquetColumnBatchReader) batch.getData();
+        return batchReader.readBatch((Integer) batch.getKey());
+    }
+}
@@ -0,0 +1,540 @@
+package org.greenplum.pxf.plugins.hdfs;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.compress.CodecPool;
+import org.apache.hadoop.io.compress.CompressionCodec;
+import org.apache.hadoop.io.compress.CompressionCodecFactory;
+import org.apache.hadoop.io.compress.Decompressor;
+import org.apache.hadoop.mapred.FileSplit;
+import org.apache.hadoop.mapred.RecordReader;
+import org.greenplum.pxf.plugins.hdfs.utilities.ReadAheadInputStream;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * QuotedChunkRecordReader reads the records of a file split in chunks, like
+ * {@link ChunkRecordReader}, for files whose records may contain line feeds
+ * inside quoted values, such as CSV files. Records end with a line feed that
+ * is not quoted, and every chunk ends with a record.
+ * <p>
+ * A split reads the records starting after its start anchor, up to and
+ * including the record containing its end anchor. Whether an offset is quoted
+ * is not known without reading the file from its beginning, so it is guessed
+ * from the bytes following it: a quote preceded by a byte other than a
+ * delimiter, a line break or a quote closes a quoted value, a quote preceded
+ * by an odd number of escapes is inside one, and a quote followed by a byte
+ * other than a delimiter, a line break or a quote opens one. The number of
+ * quotes before the first such quote gives the state at the offset. If there
+ * is no quote within SCAN_LIMIT bytes, the offset is assumed not quoted. If
+ * there are quotes, but none of them tells, or if the offset follows an
+ * escape, the state is ambiguous.
+ * <p>
+ * The anchor of an offset is the first offset at or after it, among the start
+ * of the file and the multiples of ANCHOR_INTERVAL, whose state is not
+ * ambiguous. The readers of two consecutive splits find the same anchor
+ * between them, so the records following an ambiguous split start are read
+ * sequentially by the previous split. The reader of the previous split knows
+ * the state at the anchor, it fails if the guess is wrong, instead of letting
+ * records be read twice or missed.
+ * <p>
+ * Compressed files, and files read with splittable set to false, are read
+ * whole by the first split.
+ */
+public class QuotedChunkRecordReader implements
+        RecordReader<LongWritable, ChunkWritable> {
+    private static final Log LOG = LogFactory.getLog(QuotedChunkRecordReader.class.getName());
+
+    static final int CHUNK_SIZE = 1024 * 1024;
+    static final int SCAN_LIMIT = 4 * 1024 * 1024;
+    static final int ANCHOR_INTERVAL = 1024 * 1024;
+    private static final byte LF = '\n';
+    private static final byte CR = '\r';
+
+    private final byte quote;
+    private final byte escape;
+    private final byte delimiter;
+    private final long anchorInterval;
+    private final long start;
+    // the end anchor, and its guessed quote state
+    private final long end;
+    private boolean quotedAtEndGuess;
+    private final FSDataInputStream fileIn;
+    private final InputStream in;
+    private Decompressor decompressor;
+
+    private byte[] buffer = new byte[2 * CHUNK_SIZE];
+    private int bufferLength = 0;
+    // file offset of the first byte of the buffer, always a record start
+    private long bufferStart;
+    // next byte of the buffer to scan, and the quote state before it
+    private int scanPos = 0;
+    private boolean quoted = false;
+    private boolean escaped = false;
+    // the quote state at the split end, once the scan passed it
+    private Boolean quotedAtEnd;
+    private boolean done = false;
+
+    /**
+     * Constructs a QuotedChunkRecordReader instance.
+     *
+     * @param job        the job configuration
+     * @param split      contains the file name, begin byte of the split and
+     *                   the bytes length
+     * @param quote      the quote character
+     * @param escape     the character escaping quotes inside quoted values,
+     *                   the quote itself when quotes are doubled
+     * @param delimiter  the field delimiter
+     * @param splittable false to read the whole file in the first split
+     * @throws IOException if an I/O error occurs when accessing the file or
+     *                     creating input stream to read from it
+     */
+    public QuotedChunkRecordReader(Configuration job, FileSplit split, byte quote,
+                                   byte escape, byte delimiter, boolean splittable)
+            throws IOException {
+        this(job, split, quote, escape, delimiter, splittable, ANCHOR_INTERVAL);
+    }
+
+    QuotedChunkRecordReader(Configuration job, FileSplit split, byte quote, byte escape,
+                            byte delimiter, boolean splittable, long anchorInterval)
+            throws IOException {
+        this.quote = quote;
+        this.escape = escape;
+        this.delimiter = delimiter;
+        this.anchorInterval = anchorInterval;
+        start = split.getStart();
+        final Path file = split.getPath();
+        final CompressionCodec codec = new CompressionCodecFactory(job).getCodec(file);
+
+        final FileSystem fs = file.getFileSystem(job);
+        fileIn = fs.open(file, ChunkReader.DEFAULT_BUFFER_SIZE);
+        if (codec != null || !splittable) {
+            end = Long.MAX_VALUE;
+            bufferStart = 0;
+            done = (start != 0);
+            if (codec != null && !done) {
+                decompressor = CodecPool.getDecompressor(codec);
+                in = new ReadAheadInputStream(codec.createInputStream(fileIn, decompressor),
+                        "pxf-decompress-" + file.getName());
+            } else {
+                in = fileIn;
+            }
+            return;
+        }
+
+        in = fileIn;
+        Anchor endAnchor = findAnchor(start + split.getLength());
+        end = endAnchor.offset;
+        quotedAtEndGuess = endAnchor.quoted;
+        Anchor startAnchor = findAnchor(start);
+        bufferStart = startAnchor.offset;
+        if (startAnchor.offset >= end) {
+            // the records of the split are read by a previous split
+            done = true;
+        } else if (startAnchor.offset != 0) {
+            fileIn.seek(startAnchor.offset);
+            quoted = startAnchor.quoted;
+            skipFirstRecord();
+        }
+    }
+
+    /**
+     * Used by the client of this class to create the 'key' output parameter for
+     * next() method.
+     *
+     * @return an instance of LongWritable
+     */
+    @Override
+    public LongWritable createKey() {
+        return new LongWritable();
+    }
+
+    /**
+     * Used by the client of this class to create the 'value' output parameter
+     * for next() method.
+     *
+     * @return an instance of ChunkWritable
+     */
+    @Override
+    public ChunkWritable createValue() {
+        return new ChunkWritable();
+    }
+
+    /**
+     * Fetches the next chunk of records from the file split. A chunk holds
+     * whole records, of CHUNK_SIZE bytes or more unless it is the last chunk
+     * of the split.
+     *
+     * @param key   output parameter, the number of the start byte of the chunk
+     * @param value output parameter, the chunk
+     * @return false when the end of the split was reached
+     * @throws IOException if an I/O error occurred while reading, or the split
+     *                     start of the next split was guessed wrong
+     */
+    @Override
+    public synchronized boolean next(LongWritable key, ChunkWritable value)
+            throws IOException {
+        if (done) {
+            return false;
+        }
+        int chunkEnd = 0;
+        while (true) {
+            int recordEnd = scanRecordEnd();
+            if (recordEnd >= 0) {
+                chunkEnd = recordEnd;
+                if (bufferStart + recordEnd > end) {
+                    // the next record belongs to the next split
+                    done = true;
+                    checkNextSplit();
+                    break;
+                }
+                if (chunkEnd >= CHUNK_SIZE) {
+                    break;
+                }
+            } else if (chunkEnd > 0 && bufferLength == buffer.length) {
+                // the records read so far make room for the next ones
+                break;
+            } else if (!fill()) {
+                done = true;
+                checkNextSplit();
+                chunkEnd = bufferLength;
+                break;
+            }
+        }
+        if (chunkEnd == 0) {
+            return false;
+        }
+
+        key.set(bufferStart);
+        if (buffer[chunkEnd - 1] == LF) {
+            value.box = Arrays.copyOf(buffer, chunkEnd);
+        } else {
+            // in case the last record of the file does not end with a line feed
+            value.box = Arrays.copyOf(buffer, chunkEnd + 1);
+            value.box[chunkEnd] = LF;
+        }
+        discard(chunkEnd);
+        return true;
+    }
+
+    /**
+     * Gets the progress within the split.
+     */
+    @Override
+    public synchronized float getProgress() throws IOException {
+        if (done) {
+            return 1.0f;
+        }
+        if (end == Long.MAX_VALUE || start == end) {
+            return 0.0f;
+        }
+        return Math.min(1.0f, (bufferStart - start) / (float) (end - start));
+    }
+
+    /**
+     * Returns the position of the unread tail of the file
+     *
+     * @return the start byte of the next chunk
+     */
+    @Override
+    public synchronized long getPos() throws IOException {
+        return bufferStart;
+    }
+
+    /**
+     * Closes the input stream.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            in.close();
+        } finally {
+            if (decompressor != null) {
+                CodecPool.returnDecompressor(decompressor);
+                decompressor = null;
+            }
+        }
+    }
+
+    /**
+     * Guesses whether the given offset of the file is inside a quoted value,
+     * from the quotes following it.
+     *
+     * @param offset the offset in the file
+     * @return true if the offset is guessed to be quoted, null if the quotes
+     * following it are ambiguous
+     * @throws IOException if an I/O error occurred while reading
+     */
+    Boolean isQuotedAt(long offset) throws IOException {
+        byte[] window = new byte[ChunkReader.DEFAULT_BUFFER_SIZE];
+        if (escape != quote && offset > 0 && fileIn.read(offset - 1, window, 0, 1) == 1 && window[0] == escape) {
+            // the first byte may be escaped
+            return null;
+        }
+        QuoteGuess guess = new QuoteGuess(quote, escape, delimiter);
+        long position = offset;
+        while (position - offset < SCAN_LIMIT) {
+            int read = fileIn.read(position, window, 0, window.length);
+            if (read <= 0) {
+                // the end of the file is not quoted
+                return guess.atEnd();
+            }
+            Boolean result = guess.update(window, read);
+            if (result != null || guess.isAmbiguous()) {
+                return result;
+            }
+            position += read;
+        }
+        return guess.atLimit();
+    }
+
+    /*
+     * Returns the first offset at or after the given one, among the start of
+     * the file and the multiples of the anchor interval, whose quote state is
+     * not ambiguous.
+     */
+    private Anchor findAnchor(long offset) throws IOException {
+        if (offset == 0) {
+            return new Anchor(0, false);
+        }
+        long anchor = (offset + anchorInterval - 1) / anchorInterval * anchorInterval;
+        while (true) {
+            Boolean quotedAtAnchor = isQuotedAt(anchor);
+            if (quotedAtAnchor != null) {
+                return new Anchor(anchor, quotedAtAnchor);
+            }
+            LOG.debug("The quotes after offset " + anchor + " are ambiguous, the records after it are read " +
+                    "with the previous ones");
+            anchor += anchorInterval;
+        }
+    }
+
+    /*
+     * Compares the quote state at the end anchor, if the scan passed it, with
+     * the guess of the next split. A wrong guess would make the next split
+     * read a wrong set of records.
+     */
+    private void checkNextSplit() throws IOException {
+        if (quotedAtEnd == null) {
+            return;
+        }
+        if (quotedAtEndGuess != quotedAtEnd) {
+            throw new IOException("Failed to find the first record after offset " + end +
+                    ": the quotes that follow it are not valid CSV. Set SPLITTABLE=false to read the file " +
+                    "without splitting it");
+        }
+    }
+
+    /*
+     * Drops the bytes up to the first record starting after the split start.
+     */
+    private void skipFirstRecord() throws IOException {
+        while (true) {
+            int recordEnd = scanRecordEnd();
+            if (recordEnd >= 0) {
+                if (bufferStart + recordEnd > end) {
+                    // no record starts in the split
+                    done = true;
+                    checkNextSplit();
+                } else {
+                    discard(recordEnd);
+                }
+                return;
+            }
+            if (!fill()) {
+                done = true;
+                checkNextSplit();
+                return;
+            }
+        }
+    }
+
+    /*
+     * Scans the buffer from scanPos, and returns the position after the next
+     * line feed outside quotes, or -1 if the buffer has no more records.
+     */
+    private int scanRecordEnd() {
+        for (; scanPos < bufferLength; scanPos++) {
+            if (quotedAtEnd == null && bufferStart + scanPos == end) {
+                quotedAtEnd = quoted;
+            }
+            byte b = buffer[scanPos];
+            if (escaped) {
+                escaped = false;
+            } else if (quoted && b == escape && escape != quote) {
+                escaped = true;
+            } else if (b == quote) {
+                quoted = !quoted;
+            } else if (b == LF && !quoted) {
+                return ++scanPos;
+            }
+        }
+        return -1;
+    }
+
+    /*
+     * Reads more bytes after the buffered ones, doubling the buffer if a
+     * record is larger than it. Returns false at the end of the file.
+     */
+    private boolean fill() throws IOException {
+        if (bufferLength == buffer.length) {
+            buffer = Arrays.copyOf(buffer, buffer.length * 2);
+        }
+        int read = in.read(buffer, bufferLength, buffer.length - bufferLength);
+        if (read <= 0) {
+            return false;
+        }
+        bufferLength += read;
+        return true;
+    }
+
+    private void discard(int count) {
+        System.arraycopy(buffer, count, buffer, 0, bufferLength - count);
+        bufferLength -= count;
+        scanPos -= count;
+        bufferStart += count;
+    }
+
+    /*
+     * An offset of the file at which a split starts or ends.
+     */
+    private static class Anchor {
+        private final long offset;
+        private final boolean quoted;
+
+        Anchor(long offset, boolean quoted) {
+            this.offset = offset;
+            this.quoted = quoted;
+        }
+    }
+
+    /**
+     * Guesses the quote state at the start of a sequence of bytes, from the
+     * first quote that can only open a quoted value, or that can only be
+     * inside one.
+     */
+    static class QuoteGuess {
+        private final byte quote;
+        private final byte escape;
+        private final byte delimiter;
+        private int quotes = 0;
+        private int previous = -1;
+        // the escapes right before the current byte, and whether they start the sequence
+        private int escapes = 0;
+        private boolean escapesAtStart = false;
+        private boolean ambiguous = false;
+
+        QuoteGuess(byte quote, byte escape, byte delimiter) {
+            this.quote = quote;
+            this.escape = escape;
+            this.delimiter = delimiter;
+        }
+
+        /**
+         * Scans the next bytes of the sequence.
+         *
+         * @param bytes  the bytes
+         * @param length the number of bytes to scan
+         * @return whether the start of the sequence is quoted, or null if the
+         * bytes scanned so far do not tell
+         */
+        Boolean update(byte[] bytes, int length) {
+            if (ambiguous) {
+                return null;
+            }
+            for (int i = 0; i < length; i++) {
+                byte b = bytes[i];
+                if (previous == quote && b != quote && !isSeparator(b)) {
+                    // the previous quote opens a value, the state before it is not quoted
+                    return (quotes - 1) % 2 == 1;
+                }
+                if (b == quote) {
+                    if (escapes % 2 == 1) {
+                        if (escapesAtStart) {
+                            // the first escape may be escaped itself
+                            ambiguous = true;
+                            return null;
+                        }
+                        // an escaped quote, the state before it is quoted
+                        return quotes % 2 == 0;
+                    }
+                    if (previous >= 0 && previous != quote && !isSeparator((byte) previous)) {
+                        // this quote closes a value, the state before it is quoted
+                        return quotes % 2 == 0;
+                    }
+                    quotes++;
+                }
+                if (b == escape && escape != quote) {
+                    if (escapes == 0) {
+                        escapesAtStart = previous < 0;
+                    }
+                    escapes++;
+                } else {
+                    escapes = 0;
+                }
+                previous = b;
+            }
+            return null;
+        }
+
+        /**
+         * @return true if no quote tells the state at the start of the
+         * sequence, and the quotes scanned cannot be paired
+         */
+        boolean isAmbiguous() {
+            return ambiguous;
+        }
+
+        /**
+         * Guesses the state once the end of the file was scanned, which is
+         * not quoted.
+         *
+         * @return whether the start of the sequence is quoted, or null if it
+         * is ambiguous
+         */
+        Boolean atEnd() {
+            return ambiguous ? null : quotes % 2 == 1;
+        }
+
+        /**
+         * Guesses the state once the scan limit was reached. Without quotes,
+         * the start of the sequence is assumed not quoted, since a quoted
+         * value would be longer than the scanned bytes.
+         *
+         * @return false if no quote was scanned, null otherwise
+         */
+        Boolean atLimit() {
+            return (ambiguous || quotes > 0) ? null : Boolean.FALSE;
+        }
+
+        private boolean isSeparator(byte b) {
+            return b == delimiter || b == LF || b == CR;
+        }
+    }
+}
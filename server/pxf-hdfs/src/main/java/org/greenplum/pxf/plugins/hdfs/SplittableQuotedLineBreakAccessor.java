@@ -0,0 +1,113 @@
+package org.greenplum.pxf.plugins.hdfs;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.hadoop.mapred.FileSplit;
+import org.apache.hadoop.mapred.InputSplit;
+import org.apache.hadoop.mapred.JobConf;
+import org.apache.hadoop.mapred.TextInputFormat;
+import org.greenplum.pxf.api.OneRow;
+import org.greenplum.pxf.api.model.RequestContext;
+import org.greenplum.pxf.plugins.hdfs.utilities.HdfsUtilities;
+
+import java.io.IOException;
+
+/**
+ * A PXF Accessor for reading \n delimited files with quoted field delimiter,
+ * line delimiter, and quotes. Unlike {@link QuotedLineBreakAccessor}, the
+ * files are split, and every split is read by a
+ * {@link QuotedChunkRecordReader} in chunks of records. It is used by the
+ * *:text:multi:splittable profiles, the *:text:multi profiles keep reading
+ * every file sequentially.
+ * <p>
+ * The QUOTE (default "), ESCAPE (default the quote) and DELIMITER (default ,)
+ * options describe the records. When the quotes following a split start do not
+ * tell whether it is quoted, the records following it are read by the previous
+ * split. SPLITTABLE=false reads every file in a single fragment, for files
+ * whose quotes are not valid CSV.
+ */
+public class SplittableQuotedLineBreakAccessor extends HdfsSplittableDataAccessor {
+
+    static final String QUOTE_OPTION = "QUOTE";
+    static final String ESCAPE_OPTION = "ESCAPE";
+    static final String SPLITTABLE_OPTION = "SPLITTABLE";
+
+    private byte quote;
+    private byte escape;
+    private byte delimiter;
+    private boolean splittable;
+
+    /**
+     * Constructs a SplittableQuotedLineBreakAccessor.
+     */
+    public SplittableQuotedLineBreakAccessor() {
+        super(new TextInputFormat());
+    }
+
+    @Override
+    public void initialize(RequestContext requestContext) {
+        super.initialize(requestContext);
+        ((TextInputFormat) inputFormat).configure(jobConf);
+
+        quote = HdfsUtilities.getByteOption(context, QUOTE_OPTION, (byte) '"');
+        escape = HdfsUtilities.getByteOption(context, ESCAPE_OPTION, quote);
+        delimiter = HdfsUtilities.getByteOption(context, RequestContext.DELIMITER_KEY, (byte) ',');
+        splittable = !"false".equalsIgnoreCase(context.getOption(SPLITTABLE_OPTION));
+    }
+
+    @Override
+    protected Object getReader(JobConf jobConf, InputSplit split)
+            throws IOException {
+        return new QuotedChunkRecordReader(jobConf, (FileSplit) split, quote, escape, delimiter, splittable);
+    }
+
+    /**
+     * Opens the resource for write.
+     *
+     * @return true if the resource is successfully opened
+     * @throws Exception if opening the resource failed
+     */
+    @Override
+    public boolean openForWrite() throws Exception {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Writes the next object.
+     *
+     * @param onerow the object to be written
+     * @return true if the write succeeded
+     * @throws Exception writing to the resource failed
+     */
+    @Override
+    public boolean writeNextObject(OneRow onerow) throws Exception {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Closes the resource for write.
+     *
+     * @throws Exception if closing the resource failed
+     */
+    @Override
+    public void closeForWrite() throws Exception {
+        throw new UnsupportedOperationException();
+    }
+}
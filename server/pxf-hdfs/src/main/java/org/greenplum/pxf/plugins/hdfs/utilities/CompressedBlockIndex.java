@@ -0,0 +1,193 @@
+package org.greenplum.pxf.plugins.hdfs.utilities;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.compress.CompressionCodec;
+import org.apache.hadoop.io.compress.SplittableCompressionCodec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * The offsets of the blocks of a compressed file that can be decompressed
+ * independently of each other, so that the file can be split on block
+ * boundaries:
+ * <ul>
+ * <li>LZO files indexed by hadoop-lzo, whose &lt;file&gt;.index lists the
+ * offsets of the blocks as 8 byte big-endian numbers,</li>
+ * <li>zstd files in the seekable format, whose last frame is a skippable
+ * frame holding the compressed and decompressed size of every frame.</li>
+ * </ul>
+ * A compression codec for the file must be configured in
+ * io.compression.codecs.
+ */
+public class CompressedBlockIndex {
+
+    private static final Logger LOG = LoggerFactory.getLogger(CompressedBlockIndex.class);
+
+    public static final String LZO_INDEX_SUFFIX = ".index";
+    static final String LZO_EXTENSION = ".lzo";
+    static final String ZSTD_EXTENSION = ".zst";
+    static final int ZSTD_SKIPPABLE_MAGIC = 0x184D2A5E;
+    static final int ZSTD_SEEKABLE_MAGIC = 0x8F92EAB1;
+    static final int ZSTD_SKIPPABLE_HEADER_SIZE = 8;
+    static final int ZSTD_SEEK_TABLE_FOOTER_SIZE = 9;
+
+    private final long[] offsets;
+
+    CompressedBlockIndex(long[] offsets) {
+        this.offsets = offsets;
+    }
+
+    /**
+     * Reads the block index of a file compressed by a codec that is not
+     * splittable.
+     *
+     * @param fs    the file system of the file
+     * @param path  the file
+     * @param codec the codec of the file, null if the file is not compressed
+     * @return the index, or null if the file has none
+     * @throws IOException if the index could not be read
+     */
+    public static CompressedBlockIndex read(FileSystem fs, Path path, CompressionCodec codec) throws IOException {
+        if (codec == null || codec instanceof SplittableCompressionCodec) {
+            return null;
+        }
+        String extension = codec.getDefaultExtension();
+        if (LZO_EXTENSION.equals(extension)) {
+            return readLzoIndex(fs, path);
+        }
+        if (ZSTD_EXTENSION.equals(extension)) {
+            return readZstdSeekTable(fs, path);
+        }
+        return null;
+    }
+
+    /**
+     * @return the number of blocks
+     */
+    public int getBlockCount() {
+        return offsets.length;
+    }
+
+    /**
+     * @param block the block number
+     * @return the offset of the block in the file
+     */
+    public long getOffset(int block) {
+        return offsets[block];
+    }
+
+    /**
+     * Finds the first block starting at or after an offset.
+     *
+     * @param offset the offset in the file
+     * @return the block number, the block count if no block starts after the
+     * offset
+     */
+    public int findBlock(long offset) {
+        int block = Arrays.binarySearch(offsets, offset);
+        return (block >= 0) ? block : -block - 1;
+    }
+
+    private static CompressedBlockIndex readLzoIndex(FileSystem fs, Path path) throws IOException {
+        Path indexPath = path.suffix(LZO_INDEX_SUFFIX);
+        FileStatus status;
+        try {
+            status = fs.getFileStatus(indexPath);
+        } catch (FileNotFoundException e) {
+            return null;
+        }
+        long[] offsets = new long[(int) (status.getLen() / 8)];
+        try (FSDataInputStream in = fs.open(indexPath)) {
+            for (int i = 0; i < offsets.length; i++) {
+                offsets[i] = in.readLong();
+            }
+        }
+        if (offsets.length == 0) {
+            return null;
+        }
+        LOG.debug("Read {} blocks from the index of {}", offsets.length, path);
+        return new CompressedBlockIndex(offsets);
+    }
+
+    private static CompressedBlockIndex readZstdSeekTable(FileSystem fs, Path path) throws IOException {
+        long length = fs.getFileStatus(path).getLen();
+        if (length < ZSTD_SKIPPABLE_HEADER_SIZE + ZSTD_SEEK_TABLE_FOOTER_SIZE) {
+            return null;
+        }
+        try (FSDataInputStream in = fs.open(path)) {
+            byte[] footer = new byte[ZSTD_SEEK_TABLE_FOOTER_SIZE];
+            in.readFully(length - footer.length, footer);
+            return parseZstdSeekTable(in, length, footer);
+        }
+    }
+
+    /*
+     * Parses the seek table of a seekable zstd file from its footer: the
+     * number of frames (4 bytes), a descriptor (1 byte, bit 7 set if the
+     * entries have checksums) and the seekable magic number (4 bytes). Every
+     * entry holds the compressed size (4 bytes), the decompressed size (4
+     * bytes) and optionally the checksum (4 bytes) of a frame.
+     */
+    static CompressedBlockIndex parseZstdSeekTable(FSDataInputStream in, long length, byte[] footer)
+            throws IOException {
+        ByteBuffer footerBuffer = ByteBuffer.wrap(footer).order(ByteOrder.LITTLE_ENDIAN);
+        long frames = footerBuffer.getInt(0) & 0xFFFFFFFFL;
+        boolean checksums = (footer[4] & 0x80) != 0;
+        if (footerBuffer.getInt(5) != ZSTD_SEEKABLE_MAGIC || frames == 0) {
+            return null;
+        }
+
+        int entrySize = checksums ? 12 : 8;
+        long frameSize = frames * entrySize + ZSTD_SEEK_TABLE_FOOTER_SIZE;
+        long tableStart = length - frameSize - ZSTD_SKIPPABLE_HEADER_SIZE;
+        if (tableStart < 0) {
+            return null;
+        }
+        byte[] table = new byte[(int) (frameSize - ZSTD_SEEK_TABLE_FOOTER_SIZE) + ZSTD_SKIPPABLE_HEADER_SIZE];
+        in.readFully(tableStart, table);
+        ByteBuffer tableBuffer = ByteBuffer.wrap(table).order(ByteOrder.LITTLE_ENDIAN);
+        if (tableBuffer.getInt(0) != ZSTD_SKIPPABLE_MAGIC || (tableBuffer.getInt(4) & 0xFFFFFFFFL) != frameSize) {
+            return null;
+        }
+
+        long[] offsets = new long[(int) frames];
+        long offset = 0;
+        for (int i = 0; i < offsets.length; i++) {
+            offsets[i] = offset;
+            offset += tableBuffer.getInt(ZSTD_SKIPPABLE_HEADER_SIZE + i * entrySize) & 0xFFFFFFFFL;
+        }
+        if (offset != tableStart) {
+            // the frames do not fill the file up to the seek table
+            return null;
+        }
+        return new CompressedBlockIndex(offsets);
+    }
+}
@@ -0,0 +1,222 @@
+package org.greenplum.pxf.plugins.hdfs.utilities;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.greenplum.pxf.api.utilities.ByteScanner;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Splits lines of delimited text into fields, the way Greenplum reads the CSV
+ * format. A field starting with the quote is quoted up to the next quote
+ * that is not escaped, and can hold delimiters. Inside quotes, the escape
+ * followed by a quote or by the escape stands for that character; with the
+ * default escape, a doubled quote is a quote. An unquoted field equal to the
+ * null value is null.
+ * <p>
+ * The parser keeps the offsets of the fields of the last line, it is not
+ * thread safe.
+ */
+public class DelimitedLineParser {
+
+    private static final int INITIAL_FIELD_COUNT = 16;
+
+    private final byte delimiter;
+    private final byte quote;
+    private final byte escape;
+    private final byte[] nullValue;
+
+    private byte[] data;
+    private int fieldCount;
+    // the field values, without their quotes
+    private int[] starts = new int[INITIAL_FIELD_COUNT];
+    private int[] ends = new int[INITIAL_FIELD_COUNT];
+    private boolean[] quoted = new boolean[INITIAL_FIELD_COUNT];
+
+    /**
+     * Constructs a DelimitedLineParser.
+     *
+     * @param delimiter the field delimiter
+     * @param quote     the quote
+     * @param escape    the escape of quotes inside quoted fields
+     * @param nullValue the text of null fields
+     */
+    public DelimitedLineParser(byte delimiter, byte quote, byte escape, byte[] nullValue) {
+        this.delimiter = delimiter;
+        this.quote = quote;
+        this.escape = escape;
+        this.nullValue = nullValue;
+    }
+
+    /**
+     * Splits a line into fields.
+     *
+     * @param data  the array holding the line
+     * @param start the offset of the line
+     * @param end   the offset of the end of the line, without the line feed
+     * @return the number of fields of the line
+     * @throws IllegalArgumentException if a quoted field is not terminated,
+     *                                  or is followed by other characters
+     *                                  than a delimiter
+     */
+    public int parse(byte[] data, int start, int end) {
+        this.data = data;
+        fieldCount = 0;
+        int position = start;
+        while (true) {
+            if (fieldCount == starts.length) {
+                grow();
+            }
+            if (position < end && data[position] == quote) {
+                int closing = findClosingQuote(data, position + 1, end);
+                if (closing < 0) {
+                    throw new IllegalArgumentException("Unterminated quoted field in line: " + lineToString(start, end));
+                }
+                addField(position + 1, closing, true);
+                position = closing + 1;
+                if (position == end) {
+                    return fieldCount;
+                }
+                if (data[position] != delimiter) {
+                    throw new IllegalArgumentException("Quoted field is not followed by a delimiter in line: "
+                            + lineToString(start, end));
+                }
+            } else {
+                int next = ByteScanner.indexOf(data, delimiter, position, end);
+                if (next < 0) {
+                    addField(position, end, false);
+                    return fieldCount;
+                }
+                addField(position, next, false);
+                position = next;
+            }
+            position++; // skip the delimiter
+        }
+    }
+
+    /**
+     * @return the number of fields of the last line
+     */
+    public int getFieldCount() {
+        return fieldCount;
+    }
+
+    /**
+     * Returns whether a field is null.
+     *
+     * @param field the index of the field
+     * @return true if the field is unquoted and equal to the null value
+     */
+    public boolean isNull(int field) {
+        if (quoted[field] || ends[field] - starts[field] != nullValue.length) {
+            return false;
+        }
+        for (int i = 0; i < nullValue.length; i++) {
+            if (data[starts[field] + i] != nullValue[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the value of a field, without its quotes and escapes.
+     *
+     * @param field the index of the field
+     * @return the UTF-8 decoded value
+     */
+    public String getString(int field) {
+        int start = starts[field];
+        int end = ends[field];
+        if (!quoted[field] || ByteScanner.indexOf(data, escape, start, end) < 0) {
+            return new String(data, start, end - start, StandardCharsets.UTF_8);
+        }
+        byte[] value = new byte[end - start];
+        int length = 0;
+        for (int i = start; i < end; i++) {
+            if (data[i] == escape && i + 1 < end && (data[i + 1] == quote || data[i + 1] == escape)) {
+                i++;
+            }
+            value[length++] = data[i];
+        }
+        return new String(value, 0, length, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @param field the index of the field
+     * @return the offset of the field in the line, including its quote
+     */
+    public int getRawStart(int field) {
+        return quoted[field] ? starts[field] - 1 : starts[field];
+    }
+
+    /**
+     * @param field the index of the field
+     * @return the offset of the end of the field, including its quote
+     */
+    public int getRawEnd(int field) {
+        return quoted[field] ? ends[field] + 1 : ends[field];
+    }
+
+    /*
+     * Returns the offset of the quote ending a quoted field, or -1 if the
+     * line ends first.
+     */
+    private int findClosingQuote(byte[] data, int position, int end) {
+        if (escape == quote) {
+            // quotes are doubled inside quoted fields
+            while ((position = ByteScanner.indexOf(data, quote, position, end)) >= 0) {
+                if (position + 1 == end || data[position + 1] != quote) {
+                    return position;
+                }
+                position += 2;
+            }
+            return -1;
+        }
+        for (; position < end; position++) {
+            if (data[position] == escape && position + 1 < end
+                    && (data[position + 1] == quote || data[position + 1] == escape)) {
+                position++;
+            } else if (data[position] == quote) {
+                return position;
+            }
+        }
+        return -1;
+    }
+
+    private void addField(int start, int end, boolean isQuoted) {
+        starts[fieldCount] = start;
+        ends[fieldCount] = end;
+        quoted[fieldCount] = isQuoted;
+        fieldCount++;
+    }
+
+    private void grow() {
+        int size = starts.length * 2;
+        starts = Arrays.copyOf(starts, size);
+        ends = Arrays.copyOf(ends, size);
+        quoted = Arrays.copyOf(quoted, size);
+    }
+
+    private String lineToString(int start, int end) {
+        return new String(data, start, end - start, StandardCharsets.UTF_8);
+    }
+}
@@ -48,6 +48,8 @@ public class HdfsUtilities {
 
     private static Logger LOG = LoggerFactory.getLogger(HdfsUtilities.class);
 
+    static final String PROPERTY_KEY_BZIP2_THREAD_SAFE_READS = "pxf.service.hdfs.bzip2.threadsafe.reads";
+
     /*
      * Helper routine to get a compression codec class
      */
@@ -111,7 +113,10 @@ public class HdfsUtilities {
     }
 
     /**
-     * Checks if requests should be handle in a single thread or not.
+     * Checks if requests should be handle in a single thread or not. Reads of
+     * bzip2 files are handled in a single thread unless the
+     * pxf.service.hdfs.bzip2.threadsafe.reads system property is true, which
+     * is safe with the decompressor of Hadoop 2.5 and later.
      *
      * @param config    the configuration parameters object
      * @param dataDir   hdfs path to the data source
@@ -120,6 +125,9 @@ public class HdfsUtilities {
      */
     public static boolean isThreadSafe(Configuration config, String dataDir, String compCodec) {
 
+        if (compCodec == null && Boolean.getBoolean(PROPERTY_KEY_BZIP2_THREAD_SAFE_READS)) {
+            return true;
+        }
         Class<? extends CompressionCodec> codecClass = (compCodec != null) ?
                 HdfsUtilities.getCodecClass(config, compCodec) :
                 HdfsUtilities.getCodecClassByPath(config, dataDir);
@@ -127,6 +135,33 @@ public class HdfsUtilities {
         return (codecClass == null || !BZip2Codec.class.isAssignableFrom(codecClass));
     }
 
+    /**
+     * Reads a request option holding a single ASCII character, or a
+     * hexadecimal sequence such as \x01.
+     *
+     * @param context      the request context
+     * @param name         the name of the option
+     * @param defaultValue the value when the option is not set
+     * @return the byte of the option
+     * @throws IllegalArgumentException if the value is not a single ASCII
+     *                                  character or a hexadecimal sequence
+     */
+    public static byte getByteOption(RequestContext context, String name, byte defaultValue) {
+        String value = context.getOption(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        if (value.length() == 4 && value.startsWith("\\x")) {
+            return (byte) Integer.parseInt(value.substring(2), 16);
+        }
+        if (value.length() != 1 || value.charAt(0) > 127) {
+            throw new IllegalArgumentException(String.format(
+                    "Invalid %s value. Must be a single ASCII character, or a hexadecimal sequence (got %s)",
+                    name, value));
+        }
+        return (byte) value.charAt(0);
+    }
+
     /**
      * Prepares byte serialization of a file split information (start, length,
      * hosts) using {@link ObjectOutputStream}.
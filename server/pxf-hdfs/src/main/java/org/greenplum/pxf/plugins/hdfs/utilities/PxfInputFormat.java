@@ -20,6 +20,7 @@ package org.greenplum.pxf.plugins.hdfs.utilities;
  */
 
 
+import org.apache.hadoop.fs.FileStatus;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.io.compress.CompressionCodecFactory;
@@ -28,8 +29,12 @@ import org.apache.hadoop.mapred.InputSplit;
 import org.apache.hadoop.mapred.JobConf;
 import org.apache.hadoop.mapred.RecordReader;
 import org.apache.hadoop.mapred.Reporter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * PxfInputFormat is not intended to read a specific format, hence it implements
@@ -40,6 +45,8 @@ import java.io.IOException;
  */
 public class PxfInputFormat extends FileInputFormat {
 
+    private static final Logger LOG = LoggerFactory.getLogger(PxfInputFormat.class);
+
     @Override
     public RecordReader getRecordReader(InputSplit split,
                                         JobConf conf,
@@ -48,11 +55,36 @@ public class PxfInputFormat extends FileInputFormat {
     }
 
     /*
-     * Return true if this file can be split.
+     * Return true if this file can be split: it is not compressed, or
+     * compressed by a splittable codec, or has a compressed block index.
      */
     @Override
     protected boolean isSplitable(FileSystem fs, Path filename) {
-        return HdfsUtilities.isSplittableCodec(new CompressionCodecFactory(fs.getConf()), filename);
+        CompressionCodecFactory factory = new CompressionCodecFactory(fs.getConf());
+        if (HdfsUtilities.isSplittableCodec(factory, filename)) {
+            return true;
+        }
+        try {
+            return CompressedBlockIndex.read(fs, filename, factory.getCodec(filename)) != null;
+        } catch (IOException e) {
+            LOG.warn("Failed to read the block index of {}, the file is not split: {}", filename, e.getMessage());
+            return false;
+        }
+    }
+
+    /*
+     * Lists the files of the input paths, except the indexes of LZO files.
+     */
+    @Override
+    protected FileStatus[] listStatus(JobConf job) throws IOException {
+        FileStatus[] files = super.listStatus(job);
+        List<FileStatus> result = new ArrayList<>(files.length);
+        for (FileStatus file : files) {
+            if (!file.getPath().getName().endsWith(".lzo" + CompressedBlockIndex.LZO_INDEX_SUFFIX)) {
+                result.add(file);
+            }
+        }
+        return result.toArray(new FileStatus[0]);
     }
 
 }
@@ -0,0 +1,192 @@
+package org.greenplum.pxf.plugins.hdfs.utilities;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Reads an input stream in a separate thread, a few blocks ahead of the
+ * reader. Reading a compressed file that cannot be split this way
+ * decompresses it on one core, and splits the lines on another.
+ * <p>
+ * The stream is not thread safe, it is read by a single reader.
+ */
+public class ReadAheadInputStream extends InputStream {
+
+    static final int BLOCK_SIZE = 1024 * 1024;
+    static final int BLOCK_COUNT = 4;
+    private static final Block EOF = new Block(new byte[0]);
+
+    private final InputStream in;
+    private final BlockingQueue<Block> filled = new ArrayBlockingQueue<>(BLOCK_COUNT);
+    private final BlockingQueue<Block> free = new ArrayBlockingQueue<>(BLOCK_COUNT);
+    private final Thread thread;
+    private volatile Throwable error;
+    private volatile boolean closed;
+
+    private Block current;
+    private int position;
+    private boolean eof;
+
+    /**
+     * Starts reading a stream ahead.
+     *
+     * @param in   the stream
+     * @param name the name of the reading thread
+     */
+    public ReadAheadInputStream(InputStream in, String name) {
+        this.in = in;
+        for (int i = 0; i < BLOCK_COUNT; i++) {
+            free.add(new Block(new byte[BLOCK_SIZE]));
+        }
+        thread = new Thread(this::readAhead, name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!nextBlock()) {
+            return -1;
+        }
+        return current.data[position++] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (!nextBlock()) {
+            return -1;
+        }
+        int n = Math.min(len, current.length - position);
+        System.arraycopy(current.data, position, b, off, n);
+        position += n;
+        return n;
+    }
+
+    @Override
+    public int available() {
+        return (current == null) ? 0 : current.length - position;
+    }
+
+    /**
+     * Stops the reading thread and closes the stream.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        thread.interrupt();
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            in.close();
+        }
+    }
+
+    /*
+     * Takes the next block read ahead, returning the current one to the
+     * reading thread once it is read.
+     */
+    private boolean nextBlock() throws IOException {
+        if (current != null && position < current.length) {
+            return true;
+        }
+        if (eof) {
+            return false;
+        }
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+        if (current != null) {
+            free.add(current);
+        }
+        try {
+            current = filled.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for data");
+        }
+        position = 0;
+        if (current == EOF) {
+            current = null;
+            eof = true;
+            if (error != null) {
+                throw new IOException("Failed to read the stream: " + error.getMessage(), error);
+            }
+            return false;
+        }
+        return true;
+    }
+
+    private void readAhead() {
+        try {
+            while (!closed) {
+                Block block = free.take();
+                block.length = 0;
+                int n = 0;
+                while (block.length < block.data.length
+                        && (n = in.read(block.data, block.length, block.data.length - block.length)) >= 0) {
+                    block.length += n;
+                }
+                if (block.length > 0) {
+                    filled.put(block);
+                }
+                if (n < 0) {
+                    break;
+                }
+            }
+        } catch (InterruptedException e) {
+            // closed by the reader
+        } catch (Throwable t) {
+            // errors of codecs too, the reader would otherwise wait forever
+            if (!closed) {
+                error = t;
+            }
+        } finally {
+            if (!closed) {
+                try {
+                    filled.put(EOF);
+                } catch (InterruptedException e) {
+                    // closed by the reader
+                }
+            }
+        }
+    }
+
+    private static class Block {
+        private final byte[] data;
+        private int length;
+
+        Block(byte[] data) {
+            this.data = data;
+        }
+    }
+}
@@ -20,6 +20,8 @@ package org.greenplum.pxf.plugins.hdfs;
  */
 
 
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.io.ByteBufferPool;
 import org.apache.hadoop.io.Writable;
 import org.apache.hadoop.hdfs.DFSInputStream;
 
@@ -32,7 +34,11 @@ import org.mockito.invocation.*;
 import org.powermock.core.classloader.annotations.PrepareForTest;
 import org.powermock.modules.junit4.PowerMockRunner;
 
+import java.nio.ByteBuffer;
+import java.util.EnumSet;
+
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
 import static org.junit.Assert.*;
 import static org.mockito.Mockito.*;
 
@@ -122,18 +128,27 @@ public class ChunkReaderTest {
 		assertEquals("OneLine\nTwoLine\n", new String(out.box) );
     }
 
-}
-
-
-
-
-
-
-
-
-
-
-
+	/*
+	 * Read a chunk from an HDFS stream with byte buffers
+	 */
+    @Test
+    public void readChunkFromByteBuffers() throws Exception {
+		FSDataInputStream fsStream = mock(FSDataInputStream.class);
+		when(fsStream.getWrappedStream()).thenReturn(mockStream);
+		ByteBuffer first = ByteBuffer.wrap("OneLine\nTwo".getBytes());
+		ByteBuffer second = ByteBuffer.wrap("Line\n".getBytes());
+		when(fsStream.read(any(ByteBufferPool.class), anyInt(), any(EnumSet.class)))
+				.thenReturn(first, second, null);
+		reader = new ChunkReader(fsStream);
 
+		ChunkWritable out = new ChunkWritable();
+		assertEquals("OneLine\nTwoLine\n".length(), reader.readChunk(out, 1024));
+		assertEquals("OneLine\nTwoLine\n", new String(out.box));
+		verify(fsStream).releaseBuffer(first);
+		verify(fsStream).releaseBuffer(second);
+		verify(fsStream, never()).read((byte[]) any());
 
+		assertEquals(0, reader.readChunk(out, 1024));
+    }
 
+}
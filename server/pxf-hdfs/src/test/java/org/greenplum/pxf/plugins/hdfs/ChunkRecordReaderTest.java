@@ -0,0 +1,73 @@
+package org.greenplum.pxf.plugins.hdfs;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.mapred.FileSplit;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class ChunkRecordReaderTest {
+
+    private static final String LINES = "1,a\n2,b\n3,c";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void endsTheLastLineOfThePlainFile() throws IOException {
+        File file = write("lines.csv", LINES + "\n", false);
+        assertEquals(LINES + "\n", read(file, 0, file.length()));
+
+        file = write("unterminated.csv", LINES, false);
+        assertEquals(LINES + "\n", read(file, 0, file.length()));
+        assertEquals(LINES + "\n", read(file, 0, 5, file.length()));
+    }
+
+    @Test
+    public void endsTheLastLineOfTheCompressedFile() throws IOException {
+        File file = write("lines.csv.gz", LINES + "\n", true);
+        assertEquals(LINES + "\n", read(file, 0, file.length()));
+
+        file = write("unterminated.csv.gz", LINES, true);
+        assertEquals(LINES + "\n", read(file, 0, file.length()));
+    }
+
+    private File write(String name, String data, boolean gzip) throws IOException {
+        File file = folder.newFile(name);
+        try (OutputStream out = gzip ? new GZIPOutputStream(new FileOutputStream(file)) : new FileOutputStream(file)) {
+            out.write(data.getBytes(StandardCharsets.UTF_8));
+        }
+        return file;
+    }
+
+    private static String read(File file, long... cuts) throws IOException {
+        StringBuilder result = new StringBuilder();
+        for (int i = 0; i < cuts.length - 1; i++) {
+            FileSplit split = new FileSplit(new Path(file.toURI()), cuts[i], cuts[i + 1] - cuts[i], (String[]) null);
+            ChunkRecordReader reader = new ChunkRecordReader(new Configuration(), split);
+            try {
+                LongWritable key = reader.createKey();
+                ChunkWritable value = reader.createValue();
+                while (reader.next(key, value)) {
+                    assertFalse(value.box.length == 0);
+                    result.append(new String(value.box, StandardCharsets.UTF_8));
+                }
+            } finally {
+                reader.close();
+            }
+        }
+        return result.toString();
+    }
+}
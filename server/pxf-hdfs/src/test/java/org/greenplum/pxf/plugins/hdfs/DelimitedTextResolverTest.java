@@ -0,0 +1,254 @@
+package org.greenplum.pxf.plugins.hdfs;
+
+import org.apache.hadoop.io.Text;
+import org.greenplum.pxf.api.OneField;
+import org.greenplum.pxf.api.OneRow;
+import org.greenplum.pxf.api.io.DataType;
+import org.greenplum.pxf.api.model.OutputFormat;
+import org.greenplum.pxf.api.model.RequestContext;
+import org.greenplum.pxf.api.utilities.ColumnDescriptor;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class DelimitedTextResolverTest {
+
+    private static final DataType[] TYPES = {DataType.INTEGER, DataType.TEXT, DataType.FLOAT8, DataType.BOOLEAN};
+
+    private RequestContext context;
+
+    @Before
+    public void setup() {
+        context = new RequestContext();
+        context.setOutputFormat(OutputFormat.GPDBWritable);
+    }
+
+    @Test
+    public void resolvesTypedValues() {
+        DelimitedTextResolver resolver = buildResolver(true, true, true, true);
+
+        List<List<OneField>> records = resolver.getFieldsForBatch(chunk("1,foo,1.5,t\r\n2,,-2,false\n"));
+
+        assertEquals(2, records.size());
+        assertRecord(records.get(0), 1, "foo", 1.5, true);
+        assertRecord(records.get(1), 2, null, -2.0, false);
+    }
+
+    @Test
+    public void completesLinesFromTheNextChunk() {
+        DelimitedTextResolver resolver = buildResolver(true, true, true, true);
+
+        List<List<OneField>> records = resolver.getFieldsForBatch(chunk("1,foo,1.5,t\n2,\"a,"));
+        assertEquals(1, records.size());
+        assertEquals(0, resolver.getFieldsForBatch(chunk("b")).size());
+        records = resolver.getFieldsForBatch(chunk("c\",2.5,f\n3,x,0,t\n"));
+
+        assertEquals(2, records.size());
+        assertRecord(records.get(0), 2, "a,bc", 2.5, false);
+        assertRecord(records.get(1), 3, "x", 0.0, true);
+    }
+
+    @Test
+    public void resolvesUnterminatedLastLineOfTheSplit() {
+        DelimitedTextResolver resolver = buildResolver(true, true, true, true);
+
+        List<List<OneField>> records = resolver.getFieldsForBatch(chunk("1,foo,1.5,t\n2,bar,"));
+        assertEquals(1, records.size());
+        assertEquals(0, resolver.getFieldsForBatch(chunk("2.5,f")).size());
+        // the reader ends the last line of the file with a chunk holding a line feed
+        records = resolver.getFieldsForBatch(chunk("\n"));
+
+        assertEquals(1, records.size());
+        assertRecord(records.get(0), 2, "bar", 2.5, false);
+    }
+
+    @Test
+    public void quotedValuesHoldLineFeeds() {
+        DelimitedTextResolver resolver = buildResolver(true, true, true, true);
+
+        List<List<OneField>> records = resolver.getFieldsForBatch(chunk("1,\"a\nb\",1.5,t\n2,\"c\n"));
+        assertEquals(1, records.size());
+        assertRecord(records.get(0), 1, "a\nb", 1.5, true);
+        assertEquals(0, resolver.getFieldsForBatch(chunk("d\n")).size());
+        records = resolver.getFieldsForBatch(chunk("e\",2.5,f\n"));
+
+        assertEquals(1, records.size());
+        assertRecord(records.get(0), 2, "c\nd\ne", 2.5, false);
+    }
+
+    @Test
+    public void textFormatHasNoQuotes() {
+        context.addOption("FORMAT", "text");
+        DelimitedTextResolver resolver = buildResolver(true, true, true, true);
+
+        List<List<OneField>> records = resolver.getFieldsForBatch(chunk("1\t\"foo\t1.5\tt\n\\N\t\\N\t2\tf\n"));
+
+        assertEquals(2, records.size());
+        assertRecord(records.get(0), 1, "\"foo", 1.5, true);
+        assertRecord(records.get(1), null, null, 2.0, false);
+    }
+
+    @Test
+    public void textOutputWritesTheNullOfTheTextFormat() {
+        context.setOutputFormat(OutputFormat.TEXT);
+        context.addOption("FORMAT", "TEXT");
+        DelimitedTextResolver resolver = buildResolver(true, false, true, true);
+
+        List<OneField> record = resolver.getFields(chunk("1\tfoo\t1.5\tt\n"));
+
+        assertEquals("1\t\\N\t1.5\tt\n", new String((byte[]) record.get(0).val, StandardCharsets.UTF_8));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidFormat() {
+        context.addOption("FORMAT", "parquet");
+        buildResolver(true, true, true, true);
+    }
+
+    @Test
+    public void resolvesLinesWithoutLineFeed() {
+        DelimitedTextResolver resolver = buildResolver(true, true, true, true);
+
+        List<OneField> record = resolver.getFields(new OneRow(null, new Text("4,bar,0.5,f")));
+
+        assertRecord(record, 4, "bar", 0.5, false);
+    }
+
+    @Test
+    public void columnsNotProjectedAreNull() {
+        DelimitedTextResolver resolver = buildResolver(true, false, false, true);
+
+        List<List<OneField>> records = resolver.getFieldsForBatch(chunk("1,foo,1.5,t\n"));
+
+        assertRecord(records.get(0), 1, null, null, true);
+        assertEquals(DataType.TEXT.getOID(), records.get(0).get(1).type);
+    }
+
+    @Test
+    public void dropsLinesNotMatchingTheFilter() {
+        // a > 1 AND b = 'foo', b is not projected
+        setFilter("a0c23s1d1o2a1c25s3dfooo5l0");
+        DelimitedTextResolver resolver = buildResolver(true, false, true, true);
+
+        List<List<OneField>> records = resolver.getFieldsForBatch(chunk("1,foo,1,t\n2,foo,2,t\n3,bar,3,t\n4,,4,t\n"));
+
+        assertEquals(1, records.size());
+        assertRecord(records.get(0), 2, null, 2.0, true);
+    }
+
+    @Test
+    public void keepsLinesForFiltersThatCannotBeEvaluated() {
+        // NOT (a > 1 AND b < 'foo'), text is not compared by collation
+        setFilter("a0c23s1d1o2a1c25s3dfooo1l0l2");
+        DelimitedTextResolver resolver = buildResolver(true, true, true, true);
+
+        List<List<OneField>> records = resolver.getFieldsForBatch(chunk("1,foo,1,t\n2,foo,2,t\n"));
+
+        assertEquals(2, records.size());
+    }
+
+    @Test
+    public void comparisonsWithNullAreFalse() {
+        // NOT (a <> 1), the line with a null a is kept, the database drops it
+        setFilter("a0c23s1d1o6l2");
+        DelimitedTextResolver resolver = buildResolver(true, true, true, true);
+
+        List<List<OneField>> records = resolver.getFieldsForBatch(chunk("1,foo,1,t\n2,foo,2,t\n,foo,3,t\n"));
+
+        assertEquals(2, records.size());
+        assertRecord(records.get(0), 1, "foo", 1.0, true);
+        assertRecord(records.get(1), null, "foo", 3.0, true);
+    }
+
+    @Test
+    public void textOutputDropsColumnsNotProjected() {
+        context.setOutputFormat(OutputFormat.TEXT);
+        // c >= 2
+        setFilter("a2c701s1d2o4");
+        DelimitedTextResolver resolver = buildResolver(true, false, false, true);
+
+        List<OneField> record = resolver.getFields(chunk("1,\"a,b\",1.5,t\n2,\"c\"\"d\",2.5,f\n3,e,3.5,t\n"));
+
+        assertEquals(1, record.size());
+        assertEquals(DataType.BYTEA.getOID(), record.get(0).type);
+        assertEquals("2,,,f\n3,,,t\n", new String((byte[]) record.get(0).val, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void textOutputKeepsProjectedQuotedFields() {
+        context.setOutputFormat(OutputFormat.TEXT);
+        context.addOption("DELIMITER", "|");
+        context.addOption("NULL", "\\N");
+        DelimitedTextResolver resolver = buildResolver(false, true, true, false);
+
+        List<List<OneField>> records = resolver.getFieldsForBatch(chunk("1|\"a|b\"|1.5|t\n"));
+
+        assertEquals(1, records.size());
+        assertEquals("\\N|\"a|b\"|1.5|\\N\n",
+                new String((byte[]) records.get(0).get(0).val, StandardCharsets.UTF_8));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void wrongNumberOfFields() {
+        DelimitedTextResolver resolver = buildResolver(true, true, true, true);
+        resolver.getFieldsForBatch(chunk("1,foo,1.5\n"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidValue() {
+        DelimitedTextResolver resolver = buildResolver(true, true, true, true);
+        resolver.getFieldsForBatch(chunk("one,foo,1.5,t\n"));
+    }
+
+    @Test
+    public void invalidValuesOfColumnsNotProjectedAreIgnored() {
+        DelimitedTextResolver resolver = buildResolver(false, true, true, true);
+
+        List<List<OneField>> records = resolver.getFieldsForBatch(chunk("one,foo,1.5,t\n"));
+
+        assertNull(records.get(0).get(0).val);
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void writingIsNotSupported() {
+        buildResolver(true, true, true, true).setFields(new ArrayList<>());
+    }
+
+    private DelimitedTextResolver buildResolver(boolean... projected) {
+        for (int i = 0; i < TYPES.length; i++) {
+            context.getTupleDescription().add(new ColumnDescriptor(String.valueOf((char) ('a' + i)),
+                    TYPES[i].getOID(), i, TYPES[i].name(), null, projected[i]));
+        }
+        DelimitedTextResolver resolver = new DelimitedTextResolver();
+        resolver.initialize(context);
+        return resolver;
+    }
+
+    private void setFilter(String filter) {
+        context.setFilterString(filter);
+        context.setFilterStringValid(true);
+    }
+
+    private static OneRow chunk(String lines) {
+        ChunkWritable chunk = new ChunkWritable();
+        chunk.box = lines.getBytes(StandardCharsets.UTF_8);
+        return new OneRow(null, chunk);
+    }
+
+    private static void assertRecord(List<OneField> record, Object... values) {
+        assertEquals(TYPES.length, record.size());
+        for (int i = 0; i < TYPES.length; i++) {
+            assertEquals(values[i], record.get(i).val);
+        }
+        assertEquals(Arrays.asList(DataType.INTEGER.getOID(), DataType.TEXT.getOID(), DataType.FLOAT8.getOID(),
+                DataType.BOOLEAN.getOID()), Arrays.asList(record.get(0).type, record.get(1).type,
+                record.get(2).type, record.get(3).type));
+    }
+}
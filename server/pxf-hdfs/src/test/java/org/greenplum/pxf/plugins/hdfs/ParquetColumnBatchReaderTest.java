@@ -0,0 +1,114 @@
+package org.greenplum.pxf.plugins.hdfs;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.parquet.column.page.PageReadStore;
+import org.apache.parquet.format.converter.ParquetMetadataConverter;
+import org.apache.parquet.hadoop.ParquetFileReader;
+import org.apache.parquet.schema.MessageType;
+import org.greenplum.pxf.api.io.ColumnBatch;
+import org.greenplum.pxf.api.io.ColumnVector;
+import org.greenplum.pxf.api.io.DataType;
+import org.greenplum.pxf.api.utilities.ColumnDescriptor;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ParquetColumnBatchReaderTest {
+
+    private ParquetFileReader fileReader;
+    private MessageType fileSchema;
+    private String createdBy;
+
+    @Before
+    public void setup() throws IOException {
+        String parquetFile = getClass().getClassLoader().getResource("parquet/primitive_types.parquet").getPath();
+        fileReader = new ParquetFileReader(new Configuration(), new Path(parquetFile), ParquetMetadataConverter.NO_FILTER);
+        fileSchema = fileReader.getFooter().getFileMetaData().getSchema();
+        createdBy = fileReader.getFooter().getFileMetaData().getCreatedBy();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        fileReader.close();
+    }
+
+    @Test
+    public void readAllColumns() throws IOException {
+        ParquetColumnBatchReader reader = new ParquetColumnBatchReader(
+                Collections.<ColumnDescriptor>emptyList(), fileSchema, createdBy, 10);
+        PageReadStore rowGroup = fileReader.readNextRowGroup();
+        assertEquals(25, rowGroup.getRowCount());
+        reader.setRowGroup(rowGroup);
+
+        ColumnBatch batch = reader.readBatch(10);
+        assertEquals(10, batch.getRowCount());
+        assertEquals(14, batch.getColumnCount());
+        assertEquals("row1", batch.getColumn(0).getString(0));
+        assertEquals("s_6", batch.getColumn(1).getString(0));
+        assertEquals(1, batch.getColumn(2).getLong(0));
+        assertEquals(6.0d, batch.getColumn(3).getDouble(0), 0);
+        assertEquals(BigDecimal.valueOf(1234560000000000000L, 18).toString(), batch.getColumn(4).getString(0));
+        assertEquals(Timestamp.from(ZonedDateTime.parse("2013-07-13T21:00:05-07:00").toInstant()).toString(),
+                batch.getColumn(5).getString(0));
+        assertEquals(7.7f, (float) batch.getColumn(6).getDouble(0), 0);
+        assertEquals(23456789L, batch.getColumn(7).getLong(0));
+        assertFalse(batch.getColumn(8).getBoolean(0));
+        assertEquals(1, batch.getColumn(9).getLong(0));
+        assertEquals(10, batch.getColumn(10).getLong(0));
+        assertEquals("abcd", batch.getColumn(11).getString(0));
+        assertEquals("abc", batch.getColumn(12).getString(0));
+        ColumnVector bin = batch.getColumn(13);
+        assertEquals(DataType.BYTEA, bin.getType());
+        assertArrayEquals(new byte[]{(byte) 49}, Arrays.copyOfRange(bin.getBytes(), bin.getStart(0), bin.getStart(0) + bin.getLength(0)));
+
+        // the second batch continues where the first one stopped
+        batch = reader.readBatch(10);
+        assertTrue(batch.getColumn(1).isNull(1));
+        assertTrue(batch.getColumn(2).isNull(2));
+        assertTrue(batch.getColumn(3).isNull(3));
+        assertTrue(batch.getColumn(4).isNull(4));
+        assertTrue(batch.getColumn(5).isNull(5));
+        assertFalse(batch.getColumn(1).isNull(0));
+
+        batch = reader.readBatch(5);
+        assertEquals(5, batch.getRowCount());
+    }
+
+    @Test
+    public void readProjectedColumns() throws IOException {
+        List<Integer> projected = Arrays.asList(2, 7, 13);
+        List<ColumnDescriptor> tupleDescription = new ArrayList<>();
+        for (int i = 0; i < fileSchema.getFieldCount(); i++) {
+            tupleDescription.add(new ColumnDescriptor(fileSchema.getFieldName(i),
+                    DataType.TEXT.getOID(), i, "text", null, projected.contains(i)));
+        }
+        MessageType readSchema = ParquetFileAccessor.getReadSchema(fileSchema, tupleDescription);
+        fileReader.setRequestedSchema(readSchema);
+        ParquetColumnBatchReader reader = new ParquetColumnBatchReader(tupleDescription, readSchema, createdBy, 25);
+        reader.setRowGroup(fileReader.readNextRowGroup());
+
+        ColumnBatch batch = reader.readBatch(25);
+        assertEquals(14, batch.getColumnCount());
+        assertTrue(batch.getColumn(0).isNull(0));
+        assertEquals(DataType.TEXT, batch.getColumn(0).getType());
+        assertEquals(1, batch.getColumn(2).getLong(0));
+        assertEquals(23456789L, batch.getColumn(7).getLong(0));
+        assertTrue(batch.getColumn(12).isNull(0));
+        assertEquals(1, batch.getColumn(13).getLength(0));
+    }
+}
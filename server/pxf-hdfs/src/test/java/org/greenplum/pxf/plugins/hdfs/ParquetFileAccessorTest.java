@@ -1,13 +1,24 @@
 package org.greenplum.pxf.plugins.hdfs;
 
 import org.apache.parquet.schema.MessageType;
+import org.apache.parquet.schema.OriginalType;
+import org.apache.parquet.schema.PrimitiveType;
+import org.apache.parquet.schema.PrimitiveType.PrimitiveTypeName;
+import org.apache.parquet.schema.Type;
+import org.greenplum.pxf.api.io.DataType;
 import org.greenplum.pxf.api.model.RequestContext;
+import org.greenplum.pxf.api.utilities.ColumnDescriptor;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.runners.MockitoJUnitRunner;
 
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 
 @RunWith(MockitoJUnitRunner.class)
 public class ParquetFileAccessorTest {
@@ -28,4 +39,56 @@ public class ParquetFileAccessorTest {
         assertNull(context.getMetadata());
     }
 
+    @Test
+    public void testGetIntOption() {
+        context.addOption("ROWGROUP_SIZE", "134217728");
+        accessor.initialize(context);
+
+        assertEquals(134217728, accessor.getIntOption("ROWGROUP_SIZE", 10));
+        assertEquals(10, accessor.getIntOption("PAGE_SIZE", 10));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testGetIntOption_Invalid() {
+        context.addOption("PAGE_SIZE", "0");
+        accessor.initialize(context);
+
+        accessor.getIntOption("PAGE_SIZE", 10);
+    }
+
+    @Test
+    public void testGetReadSchema_AllColumnsProjected() {
+        schema = buildSchema();
+        List<ColumnDescriptor> columns = buildColumns(true, true, true);
+
+        assertSame(schema, ParquetFileAccessor.getReadSchema(schema, columns));
+    }
+
+    @Test
+    public void testGetReadSchema_ProjectedColumns() {
+        schema = buildSchema();
+        List<ColumnDescriptor> columns = buildColumns(false, true, false);
+
+        MessageType readSchema = ParquetFileAccessor.getReadSchema(schema, columns);
+        assertEquals(1, readSchema.getFieldCount());
+        assertEquals("b", readSchema.getFieldName(0));
+        assertEquals(schema.getName(), readSchema.getName());
+    }
+
+    private MessageType buildSchema() {
+        List<Type> fields = new ArrayList<>();
+        fields.add(new PrimitiveType(Type.Repetition.OPTIONAL, PrimitiveTypeName.INT32, "a"));
+        fields.add(new PrimitiveType(Type.Repetition.OPTIONAL, PrimitiveTypeName.BINARY, "b", OriginalType.UTF8));
+        fields.add(new PrimitiveType(Type.Repetition.OPTIONAL, PrimitiveTypeName.DOUBLE, "c"));
+        return new MessageType("hive_schema", fields);
+    }
+
+    private List<ColumnDescriptor> buildColumns(boolean... projected) {
+        List<ColumnDescriptor> columns = new ArrayList<>();
+        for (int i = 0; i < projected.length; i++) {
+            columns.add(new ColumnDescriptor(schema.getFieldName(i), DataType.TEXT.getOID(), i, "text", null, projected[i]));
+        }
+        return columns;
+    }
+
 }
@@ -0,0 +1,121 @@
+package org.greenplum.pxf.plugins.hdfs;
+
+import org.apache.parquet.filter2.predicate.FilterPredicate;
+import org.apache.parquet.io.api.Binary;
+import org.apache.parquet.schema.MessageType;
+import org.apache.parquet.schema.OriginalType;
+import org.apache.parquet.schema.PrimitiveType;
+import org.apache.parquet.schema.PrimitiveType.PrimitiveTypeName;
+import org.apache.parquet.schema.Type;
+import org.greenplum.pxf.api.io.DataType;
+import org.greenplum.pxf.api.model.RequestContext;
+import org.greenplum.pxf.api.utilities.ColumnDescriptor;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.apache.parquet.filter2.predicate.FilterApi.and;
+import static org.apache.parquet.filter2.predicate.FilterApi.binaryColumn;
+import static org.apache.parquet.filter2.predicate.FilterApi.doubleColumn;
+import static org.apache.parquet.filter2.predicate.FilterApi.eq;
+import static org.apache.parquet.filter2.predicate.FilterApi.gt;
+import static org.apache.parquet.filter2.predicate.FilterApi.gtEq;
+import static org.apache.parquet.filter2.predicate.FilterApi.intColumn;
+import static org.apache.parquet.filter2.predicate.FilterApi.lt;
+import static org.apache.parquet.filter2.predicate.FilterApi.not;
+import static org.apache.parquet.filter2.predicate.FilterApi.notEq;
+import static org.apache.parquet.filter2.predicate.FilterApi.or;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class ParquetFilterBuilderTest {
+
+    private RequestContext context;
+    private MessageType schema;
+
+    @Before
+    public void setup() {
+        List<Type> fields = new ArrayList<>();
+        fields.add(new PrimitiveType(Type.Repetition.OPTIONAL, PrimitiveTypeName.INT32, "a"));
+        fields.add(new PrimitiveType(Type.Repetition.OPTIONAL, PrimitiveTypeName.BINARY, "b", OriginalType.UTF8));
+        fields.add(new PrimitiveType(Type.Repetition.OPTIONAL, PrimitiveTypeName.DOUBLE, "c"));
+        fields.add(new PrimitiveType(Type.Repetition.OPTIONAL, PrimitiveTypeName.INT96, "d"));
+        fields.add(new PrimitiveType(Type.Repetition.OPTIONAL, PrimitiveTypeName.INT32, "e", OriginalType.DATE));
+        fields.add(new PrimitiveType(Type.Repetition.OPTIONAL, PrimitiveTypeName.BINARY, "f", OriginalType.UTF8));
+        schema = new MessageType("hive_schema", fields);
+
+        DataType[] types = {DataType.INTEGER, DataType.TEXT, DataType.FLOAT8, DataType.TIMESTAMP,
+                DataType.DATE, DataType.BPCHAR};
+        context = new RequestContext();
+        for (int i = 0; i < types.length; i++) {
+            context.getTupleDescription().add(new ColumnDescriptor(schema.getFieldName(i),
+                    types[i].getOID(), i, types[i].name(), null));
+        }
+    }
+
+    @Test
+    public void simpleOperations() throws Exception {
+        assertEquals(lt(intColumn("a"), 5), build("a0c23s1d5o1"));
+        assertEquals(gtEq(doubleColumn("c"), 1.5d), build("a2c701s3d1.5o4"));
+        assertEquals(eq(binaryColumn("b"), Binary.fromString("foo")), build("a1c25s3dfooo5"));
+        assertEquals(notEq(intColumn("a"), 5), build("a0c23s1d5o6"));
+        assertEquals(eq(intColumn("a"), (Integer) null), build("a0o8"));
+        assertEquals(notEq(binaryColumn("b"), (Binary) null), build("a1o9"));
+    }
+
+    @Test
+    public void dateIsConvertedToDays() throws Exception {
+        int days = (int) LocalDate.of(2019, 3, 1).toEpochDay();
+        assertEquals(gt(intColumn("e"), days), build("a4c1082s10d2019-03-01o2"));
+    }
+
+    @Test
+    public void unsupportedOperationsAreNotPushedDown() throws Exception {
+        // text ordering depends on the collation
+        assertNull(build("a1c25s3dfooo1"));
+        // timestamps
+        assertNull(build("a3c1114s19d2019-03-01 00:00:00o5"));
+        // bpchar values are blank padded
+        assertNull(build("a5c1042s3dfooo5"));
+        // like
+        assertNull(build("a1c25s2df%o7"));
+    }
+
+    @Test
+    public void logicalOperations() throws Exception {
+        assertEquals(and(lt(intColumn("a"), 5), eq(binaryColumn("b"), Binary.fromString("foo"))),
+                build("a0c23s1d5o1a1c25s3dfooo5l0"));
+        assertEquals(or(lt(intColumn("a"), 5), gt(intColumn("a"), 10)),
+                build("a0c23s1d5o1a0c23s2d10o2l1"));
+        assertEquals(not(eq(intColumn("a"), 5)), build("a0c23s1d5o5l2"));
+    }
+
+    @Test
+    public void partialFilters() throws Exception {
+        // AND keeps the supported side
+        assertEquals(lt(intColumn("a"), 5), build("a0c23s1d5o1a1c25s3dfooo1l0"));
+        // OR and NOT of a partial filter are dropped
+        assertNull(build("a0c23s1d5o1a1c25s3dfooo1l1"));
+        assertNull(build("a0c23s1d5o1a1c25s3dfooo1l0l2"));
+    }
+
+    @Test
+    public void inIsTranslatedToOr() throws Exception {
+        assertEquals(or(eq(intColumn("a"), 1), eq(intColumn("a"), 2)), build("a0m1007s1d1s1d2o10"));
+    }
+
+    @Test
+    public void columnsNotReadAreNotPushedDown() throws Exception {
+        MessageType readSchema = new MessageType("hive_schema", schema.getType(1));
+        ParquetFilterBuilder builder = new ParquetFilterBuilder(context, schema, readSchema);
+
+        assertNull(builder.getFilterPredicate("a0c23s1d5o1"));
+    }
+
+    private FilterPredicate build(String filterString) throws Exception {
+        return new ParquetFilterBuilder(context, schema, schema).getFilterPredicate(filterString);
+    }
+}
@@ -19,6 +19,7 @@ import org.greenplum.pxf.api.OneField;
 import org.greenplum.pxf.api.OneRow;
 import org.greenplum.pxf.api.io.DataType;
 import org.greenplum.pxf.api.model.RequestContext;
+import org.greenplum.pxf.api.utilities.ColumnDescriptor;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
@@ -30,6 +31,7 @@ import java.io.IOException;
 import java.math.BigDecimal;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import static org.apache.parquet.schema.PrimitiveType.PrimitiveTypeName;
@@ -231,6 +233,29 @@ public class ParquetResolverTest {
         assertField(fields, 13, null, DataType.BYTEA);
     }
 
+    @Test
+    public void testGetFields_Primitive_Projected() throws IOException {
+        MessageType fileSchema = getParquetSchemaForPrimitiveTypes(Type.Repetition.OPTIONAL, true);
+        List<Integer> projected = Arrays.asList(2, 7, 13);
+        for (int i = 0; i < fileSchema.getFieldCount(); i++) {
+            context.getTupleDescription().add(new ColumnDescriptor(fileSchema.getFieldName(i),
+                    DataType.TEXT.getOID(), i, "text", null, projected.contains(i)));
+        }
+        schema = ParquetFileAccessor.getReadSchema(fileSchema, context.getTupleDescription());
+        assertEquals(3, schema.getFieldCount());
+        context.setMetadata(schema);
+        resolver.initialize(context);
+
+        List<Group> groups = readParquetFile("primitive_types.parquet", 25);
+        List<OneField> fields = assertRow(groups, 0, 14);
+        assertField(fields, 0, null, DataType.TEXT);
+        assertField(fields, 2, 1, DataType.INTEGER);
+        assertField(fields, 3, null, DataType.TEXT);
+        assertField(fields, 7, 23456789l, DataType.BIGINT);
+        assertField(fields, 12, null, DataType.TEXT);
+        assertField(fields, 13, new byte[]{(byte) 49}, DataType.BYTEA);
+    }
+
     @Test
     public void testGetFields_Primitive_RepeatedString() throws IOException {
         List<Type> columns = new ArrayList<>();
@@ -0,0 +1,183 @@
+package org.greenplum.pxf.plugins.hdfs;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.mapred.FileSplit;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class QuotedChunkRecordReaderTest {
+
+    private static final String CSV = "1,\"a\nb\",x\n" +
+            "2,\"c\"\"\nd\",y\n" +
+            "3,plain,z\n" +
+            "4,\"\",\"\n\"\n" +
+            "5,e,\"f\"";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void guessFromClosingQuote() {
+        assertEquals(Boolean.TRUE, guess("b\",x\n"));
+        assertEquals(Boolean.FALSE, guess("\",b\",x\n"));
+    }
+
+    @Test
+    public void guessFromOpeningQuote() {
+        assertEquals(Boolean.FALSE, guess("\n2,\"c"));
+        assertEquals(Boolean.TRUE, guess("\"\n\"c"));
+        // an escaped quote inside a quoted value
+        assertEquals(Boolean.TRUE, guess(",\"\"b\",x\n"));
+    }
+
+    @Test
+    public void guessFromEscapedQuote() {
+        assertEquals(Boolean.TRUE, guess("a\\\"b\",x\n", '\\'));
+        assertEquals(Boolean.TRUE, guess("a\\\\\",x\n", '\\'));
+        assertEquals(Boolean.FALSE, guess("\n2,\"\\\"c", '\\'));
+    }
+
+    @Test
+    public void guessUnknown() {
+        assertNull(guess("3,plain,z\n"));
+        assertNull(guess("\"\",\"\n\""));
+    }
+
+    @Test
+    public void guessAtEnd() {
+        QuotedChunkRecordReader.QuoteGuess guess = newGuess('"');
+        assertNull(guess.update(bytes("\"\n\"\""), 4));
+        assertEquals(Boolean.TRUE, guess.atEnd());
+        assertNull(guess.atLimit());
+
+        guess = newGuess('"');
+        assertNull(guess.update(bytes("3,plain,z\n"), 10));
+        assertEquals(Boolean.FALSE, guess.atEnd());
+        assertEquals(Boolean.FALSE, guess.atLimit());
+    }
+
+    @Test
+    public void guessAmbiguousEscape() {
+        // the first escape may be escaped itself
+        QuotedChunkRecordReader.QuoteGuess guess = newGuess('\\');
+        assertNull(guess.update(bytes("\\\",x\n"), 5));
+        assertTrue(guess.isAmbiguous());
+        assertNull(guess.atEnd());
+    }
+
+    @Test
+    public void readWholeFile() throws IOException {
+        File file = write(CSV);
+        assertEquals(CSV + "\n", read(file, true, 0, CSV.length()));
+    }
+
+    @Test
+    public void readSplits() throws IOException {
+        File file = write(CSV);
+        for (int first = 1; first < CSV.length(); first++) {
+            for (int second = first; second < CSV.length(); second++) {
+                assertEquals("splits at " + first + " and " + second, CSV + "\n",
+                        read(file, '"', 1, 0, first, second, CSV.length()));
+            }
+            assertEquals("split at " + first, CSV + "\n",
+                    read(file, '"', QuotedChunkRecordReader.ANCHOR_INTERVAL, 0, first, CSV.length()));
+        }
+    }
+
+    @Test
+    public void readAmbiguousSplits() throws IOException {
+        // the split starting at the second backslash cannot tell whether it is escaped
+        String data = "1,\"a\\\\\"\n2,\"b\\\"c\"\n3,x\n";
+        File file = write(data);
+        assertEquals(data, read(file, '\\', 1, 0, 5, data.length()));
+        for (int cut = 1; cut < data.length(); cut++) {
+            assertEquals("split at " + cut, data, read(file, '\\', 1, 0, cut, data.length()));
+        }
+    }
+
+    @Test
+    public void readNotSplittable() throws IOException {
+        File file = write(CSV);
+        assertEquals(CSV + "\n", read(file, false, 0, 12, CSV.length()));
+    }
+
+    @Test
+    public void wrongGuessFails() throws IOException {
+        // the stray quote of 5" makes the start of the second line quoted
+        String data = "1,5\" screen\n2,\"a\nb\"\n3,x\n";
+        File file = write(data);
+        try {
+            read(file, true, 0, 12, data.length());
+            fail("expected the wrong guess at offset 12 to fail");
+        } catch (IOException e) {
+            assertTrue(e.getMessage().contains("offset 12"));
+        }
+        assertEquals(data, read(file, false, 0, 12, data.length()));
+    }
+
+    private static Boolean guess(String data) {
+        return guess(data, '"');
+    }
+
+    private static Boolean guess(String data, char escape) {
+        byte[] bytes = bytes(data);
+        return newGuess(escape).update(bytes, bytes.length);
+    }
+
+    private static QuotedChunkRecordReader.QuoteGuess newGuess(char escape) {
+        return new QuotedChunkRecordReader.QuoteGuess((byte) '"', (byte) escape, (byte) ',');
+    }
+
+    private static byte[] bytes(String data) {
+        return data.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private File write(String data) throws IOException {
+        File file = folder.newFile();
+        Files.write(file.toPath(), data.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    private static String read(File file, boolean splittable, long... cuts) throws IOException {
+        return read(file, splittable, '"', 1, cuts);
+    }
+
+    private static String read(File file, char escape, long anchorInterval, long... cuts) throws IOException {
+        return read(file, true, escape, anchorInterval, cuts);
+    }
+
+    private static String read(File file, boolean splittable, char escape, long anchorInterval, long... cuts)
+            throws IOException {
+        StringBuilder result = new StringBuilder();
+        for (int i = 0; i < cuts.length - 1; i++) {
+            FileSplit split = new FileSplit(new Path(file.toURI()), cuts[i], cuts[i + 1] - cuts[i], (String[]) null);
+            QuotedChunkRecordReader reader = new QuotedChunkRecordReader(new Configuration(), split,
+                    (byte) '"', (byte) escape, (byte) ',', splittable, anchorInterval);
+            try {
+                LongWritable key = reader.createKey();
+                ChunkWritable value = reader.createValue();
+                while (reader.next(key, value)) {
+                    assertFalse(value.box.length == 0);
+                    result.append(new String(value.box, StandardCharsets.UTF_8));
+                }
+            } finally {
+                reader.close();
+            }
+        }
+        return result.toString();
+    }
+}
@@ -0,0 +1,138 @@
+package org.greenplum.pxf.plugins.hdfs.utilities;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.compress.BZip2Codec;
+import org.apache.hadoop.io.compress.DefaultCodec;
+import org.apache.hadoop.io.compress.GzipCodec;
+import org.apache.hadoop.io.compress.ZStandardCodec;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class CompressedBlockIndexTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private FileSystem fs;
+
+    @Before
+    public void setup() throws IOException {
+        fs = FileSystem.getLocal(new Configuration());
+    }
+
+    @Test
+    public void zstdSeekTable() throws IOException {
+        File file = writeSeekableZstd(false, 10, 20, 5);
+        CompressedBlockIndex index = CompressedBlockIndex.read(fs, new Path(file.toURI()), new ZStandardCodec());
+
+        assertEquals(3, index.getBlockCount());
+        assertEquals(0, index.getOffset(0));
+        assertEquals(10, index.getOffset(1));
+        assertEquals(30, index.getOffset(2));
+        assertEquals(0, index.findBlock(0));
+        assertEquals(1, index.findBlock(1));
+        assertEquals(1, index.findBlock(10));
+        assertEquals(3, index.findBlock(31));
+    }
+
+    @Test
+    public void zstdSeekTableWithChecksums() throws IOException {
+        File file = writeSeekableZstd(true, 10, 20);
+        CompressedBlockIndex index = CompressedBlockIndex.read(fs, new Path(file.toURI()), new ZStandardCodec());
+
+        assertEquals(2, index.getBlockCount());
+        assertEquals(10, index.getOffset(1));
+    }
+
+    @Test
+    public void zstdWithoutSeekTable() throws IOException {
+        File file = folder.newFile("plain.zst");
+        Files.write(file.toPath(), new byte[64]);
+
+        assertNull(CompressedBlockIndex.read(fs, new Path(file.toURI()), new ZStandardCodec()));
+    }
+
+    @Test
+    public void lzoIndex() throws IOException {
+        File file = folder.newFile("data.lzo");
+        try (DataOutputStream out = new DataOutputStream(new FileOutputStream(file.getPath() + ".index"))) {
+            out.writeLong(42);
+            out.writeLong(262186);
+        }
+        CompressedBlockIndex index = CompressedBlockIndex.read(fs, new Path(file.toURI()), new LzoCodec());
+
+        assertEquals(2, index.getBlockCount());
+        assertEquals(42, index.getOffset(0));
+        assertEquals(262186, index.getOffset(1));
+        assertEquals(0, index.findBlock(0));
+    }
+
+    @Test
+    public void lzoWithoutIndex() throws IOException {
+        File file = folder.newFile("data.lzo");
+
+        assertNull(CompressedBlockIndex.read(fs, new Path(file.toURI()), new LzoCodec()));
+    }
+
+    @Test
+    public void otherCodecs() throws IOException {
+        File file = folder.newFile("data");
+
+        assertNull(CompressedBlockIndex.read(fs, new Path(file.toURI()), null));
+        assertNull(CompressedBlockIndex.read(fs, new Path(file.toURI()), new GzipCodec()));
+        assertNull(CompressedBlockIndex.read(fs, new Path(file.toURI()), new BZip2Codec()));
+    }
+
+    /*
+     * Writes frames of zeros, followed by their seek table.
+     */
+    private File writeSeekableZstd(boolean checksums, int... frameSizes) throws IOException {
+        int entrySize = checksums ? 12 : 8;
+        int dataSize = 0;
+        for (int size : frameSizes) {
+            dataSize += size;
+        }
+        int frameSize = frameSizes.length * entrySize + CompressedBlockIndex.ZSTD_SEEK_TABLE_FOOTER_SIZE;
+        ByteBuffer buffer = ByteBuffer.allocate(dataSize + CompressedBlockIndex.ZSTD_SKIPPABLE_HEADER_SIZE + frameSize)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        buffer.position(dataSize);
+        buffer.putInt(CompressedBlockIndex.ZSTD_SKIPPABLE_MAGIC);
+        buffer.putInt(frameSize);
+        for (int size : frameSizes) {
+            buffer.putInt(size);
+            buffer.putInt(size * 10);
+            if (checksums) {
+                buffer.putInt(0);
+            }
+        }
+        buffer.putInt(frameSizes.length);
+        buffer.put((byte) (checksums ? 0x80 : 0));
+        buffer.putInt(CompressedBlockIndex.ZSTD_SEEKABLE_MAGIC);
+
+        File file = folder.newFile("data.zst");
+        Files.write(file.toPath(), buffer.array());
+        return file;
+    }
+
+    private static class LzoCodec extends DefaultCodec {
+        @Override
+        public String getDefaultExtension() {
+            return ".lzo";
+        }
+    }
+}
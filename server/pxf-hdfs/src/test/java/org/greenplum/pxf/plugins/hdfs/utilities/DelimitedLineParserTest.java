@@ -0,0 +1,81 @@
+package org.greenplum.pxf.plugins.hdfs.utilities;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class DelimitedLineParserTest {
+
+    private final DelimitedLineParser csv = new DelimitedLineParser((byte) ',', (byte) '"', (byte) '"', new byte[0]);
+
+    @Test
+    public void unquotedFields() {
+        byte[] line = bytes("xx1,,abc,");
+
+        assertEquals(4, csv.parse(line, 2, line.length));
+        assertEquals("1", csv.getString(0));
+        assertTrue(csv.isNull(1));
+        assertEquals("abc", csv.getString(2));
+        assertTrue(csv.isNull(3));
+        assertEquals(5, csv.getRawStart(2));
+        assertEquals(8, csv.getRawEnd(2));
+    }
+
+    @Test
+    public void quotedFields() {
+        byte[] line = bytes("\"a,b\",\"\",\"say \"\"hi\"\"\",x");
+
+        assertEquals(4, csv.parse(line, 0, line.length));
+        assertEquals("a,b", csv.getString(0));
+        assertFalse(csv.isNull(1));
+        assertEquals("", csv.getString(1));
+        assertEquals("say \"hi\"", csv.getString(2));
+        assertEquals("x", csv.getString(3));
+        assertEquals(0, csv.getRawStart(0));
+        assertEquals(5, csv.getRawEnd(0));
+    }
+
+    @Test
+    public void escapeOtherThanQuote() {
+        DelimitedLineParser parser = new DelimitedLineParser((byte) '|', (byte) '\'', (byte) '\\', bytes("\\N"));
+        byte[] line = bytes("'it\\'s|\\\\'|\\N|'\\N'");
+
+        assertEquals(3, parser.parse(line, 0, line.length));
+        assertEquals("it's|\\", parser.getString(0));
+        assertTrue(parser.isNull(1));
+        assertFalse(parser.isNull(2));
+        assertEquals("\\N", parser.getString(2));
+    }
+
+    @Test
+    public void manyFields() {
+        StringBuilder builder = new StringBuilder("0");
+        for (int i = 1; i < 100; i++) {
+            builder.append(',').append(i);
+        }
+        byte[] line = bytes(builder.toString());
+
+        assertEquals(100, csv.parse(line, 0, line.length));
+        assertEquals("99", csv.getString(99));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unterminatedQuote() {
+        byte[] line = bytes("1,\"abc");
+        csv.parse(line, 0, line.length);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void textAfterQuotedField() {
+        byte[] line = bytes("\"abc\"d,1");
+        csv.parse(line, 0, line.length);
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
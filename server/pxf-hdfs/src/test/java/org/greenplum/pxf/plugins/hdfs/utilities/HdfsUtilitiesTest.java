@@ -153,6 +153,27 @@ public class HdfsUtilitiesTest {
                 false);
     }
 
+    @Test
+    public void isThreadSafeBzip2ReadsWithProperty() {
+
+        System.setProperty(HdfsUtilities.PROPERTY_KEY_BZIP2_THREAD_SAFE_READS, "true");
+        try {
+            testIsThreadSafe(
+                    "readable compression, bzip2 compression with thread safe reads - thread safe",
+                    "/some/path/with/bzip2.bz2",
+                    null, new BZip2Codec(),
+                    true);
+
+            testIsThreadSafe(
+                    "writable compression, compression codec bzip2 with thread safe reads - not thread safe",
+                    "/some/path",
+                    "org.apache.hadoop.io.compress.BZip2Codec", new BZip2Codec(),
+                    false);
+        } finally {
+            System.clearProperty(HdfsUtilities.PROPERTY_KEY_BZIP2_THREAD_SAFE_READS);
+        }
+    }
+
     private void testIsThreadSafe(String testDescription, String path, String codecStr,
                                   CompressionCodec codec, boolean expectedResult) {
         prepareDataForIsThreadSafe(path, codecStr, codec);
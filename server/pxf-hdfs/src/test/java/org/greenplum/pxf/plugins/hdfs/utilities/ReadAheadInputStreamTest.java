@@ -0,0 +1,93 @@
+package org.greenplum.pxf.plugins.hdfs.utilities;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ReadAheadInputStreamTest {
+
+    @Test
+    public void readsWholeStream() throws IOException {
+        byte[] data = new byte[ReadAheadInputStream.BLOCK_SIZE * (ReadAheadInputStream.BLOCK_COUNT + 2) + 123];
+        new Random(1).nextBytes(data);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (InputStream in = new ReadAheadInputStream(new ByteArrayInputStream(data), "test")) {
+            byte[] buffer = new byte[10000];
+            int n;
+            while ((n = in.read(buffer)) >= 0) {
+                out.write(buffer, 0, n);
+            }
+            assertEquals(-1, in.read());
+        }
+        assertArrayEquals(data, out.toByteArray());
+    }
+
+    @Test
+    public void readsEmptyStream() throws IOException {
+        try (InputStream in = new ReadAheadInputStream(new ByteArrayInputStream(new byte[0]), "test")) {
+            assertEquals(-1, in.read());
+        }
+    }
+
+    @Test
+    public void reportsErrors() throws IOException {
+        InputStream failing = new InputStream() {
+            @Override
+            public int read() throws IOException {
+                throw new IOException("disk on fire");
+            }
+        };
+        try (InputStream in = new ReadAheadInputStream(failing, "test")) {
+            in.read();
+            fail("expected the read error");
+        } catch (IOException e) {
+            assertTrue(e.getMessage().contains("disk on fire"));
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void reportsThrowables() throws IOException {
+        InputStream failing = new InputStream() {
+            @Override
+            public int read() {
+                throw new NoClassDefFoundError("native codec");
+            }
+        };
+        try (InputStream in = new ReadAheadInputStream(failing, "test")) {
+            in.read();
+            fail("expected the read error");
+        } catch (IOException e) {
+            assertTrue(e.getMessage().contains("native codec"));
+            assertTrue(e.getCause() instanceof NoClassDefFoundError);
+        }
+    }
+
+    @Test
+    public void closeStopsReading() throws Exception {
+        // an endless stream fills the blocks and waits for the reader
+        InputStream endless = new InputStream() {
+            @Override
+            public int read() {
+                return 'a';
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) {
+                return len;
+            }
+        };
+        InputStream in = new ReadAheadInputStream(endless, "test");
+        assertEquals('\0', in.read());
+        in.close();
+    }
+}
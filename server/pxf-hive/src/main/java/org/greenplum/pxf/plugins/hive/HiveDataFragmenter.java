@@ -19,6 +19,7 @@ package org.greenplum.pxf.plugins.hive;
  * under the License.
  */
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.hadoop.fs.Path;
@@ -37,6 +38,7 @@ import org.apache.hadoop.mapred.InputFormat;
 import org.apache.hadoop.mapred.InputSplit;
 import org.apache.hadoop.mapred.JobConf;
 import org.apache.hadoop.mapred.TextInputFormat;
+import org.apache.hadoop.security.UserGroupInformation;
 import org.greenplum.pxf.api.BasicFilter;
 import org.greenplum.pxf.api.FilterParser;
 import org.greenplum.pxf.api.LogicalFilter;
@@ -49,15 +51,25 @@ import org.greenplum.pxf.api.model.RequestContext;
 import org.greenplum.pxf.api.utilities.ColumnDescriptor;
 import org.greenplum.pxf.plugins.hdfs.HdfsDataFragmenter;
 import org.greenplum.pxf.plugins.hdfs.utilities.HdfsUtilities;
+import org.greenplum.pxf.plugins.hive.utilities.HiveClientPool;
+import org.greenplum.pxf.plugins.hive.utilities.HiveMetadataCache;
 import org.greenplum.pxf.plugins.hive.utilities.HiveUtilities;
 import org.greenplum.pxf.plugins.hive.utilities.ProfileFactory;
 
+import java.security.PrivilegedExceptionAction;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * Fragmenter class for HIVE tables. <br>
@@ -71,10 +83,26 @@ import java.util.TreeSet;
  * <li>userData:
  * file_input_format_name_DELIM_serde_name_DELIM_serialization_properties</li>
  * </ol>
+ * The splits of the partitions of a table are listed in parallel, by batches
+ * of partitions, on a pool of threads per server, so that one slow NameNode
+ * does not hold back the queries of other servers. The number of threads per
+ * server and the number of partitions per batch can be overridden by the
+ * pxf.service.hive.split.threads and pxf.service.hive.split.batch.size system
+ * properties.
  */
 public class HiveDataFragmenter extends HdfsDataFragmenter {
     private static final Log LOG = LogFactory.getLog(HiveDataFragmenter.class);
-    private static final short ALL_PARTS = -1;
+
+    static final String PROPERTY_KEY_SPLIT_THREADS = "pxf.service.hive.split.threads";
+    static final String PROPERTY_KEY_SPLIT_BATCH_SIZE = "pxf.service.hive.split.batch.size";
+    static final int SPLIT_THREADS = 8;
+    static final int SPLIT_BATCH_SIZE = 16;
+
+    private static final int SPLIT_THREAD_COUNT = Integer.getInteger(PROPERTY_KEY_SPLIT_THREADS, SPLIT_THREADS);
+    private static final int PARTITIONS_PER_BATCH = Math.max(1,
+            Integer.getInteger(PROPERTY_KEY_SPLIT_BATCH_SIZE, SPLIT_BATCH_SIZE));
+    // executors listing the splits of partitions, per server
+    private static final ConcurrentMap<String, ExecutorService> SPLIT_EXECUTORS = new ConcurrentHashMap<>();
 
     public static final String HIVE_1_PART_DELIM = "!H1PD!";
     public static final String HIVE_PARTITIONS_DELIM = "!HPAD!";
@@ -89,6 +117,7 @@ public class HiveDataFragmenter extends HdfsDataFragmenter {
     private static final String HIVE_API_DQUOTE = "\"";
 
     private HiveMetaStoreClient client;
+    private String clientKey;
 
     protected boolean filterInFragmenter = false;
 
@@ -110,7 +139,8 @@ public class HiveDataFragmenter extends HdfsDataFragmenter {
     @Override
     public void initialize(RequestContext requestContext) {
         super.initialize(requestContext);
-        client = HiveUtilities.initHiveClient(configuration);
+        clientKey = HiveClientPool.getKey(requestContext);
+        client = HiveClientPool.getInstance().borrow(clientKey, configuration);
         // canPushDownIntegral represents hive.metastore.integral.jdo.pushdown property in hive-site.xml
         canPushDownIntegral = HiveConf.getBoolVar(
                 new HiveConf(configuration, HiveConf.class),
@@ -119,13 +149,46 @@ public class HiveDataFragmenter extends HdfsDataFragmenter {
 
     @Override
     public List<Fragment> getFragments() throws Exception {
-        Metadata.Item tblDesc = HiveUtilities.extractTableFromName(context.getDataSource());
+        boolean success = false;
+        try {
+            Metadata.Item tblDesc = HiveUtilities.extractTableFromName(context.getDataSource());
 
-        fetchTableMetaData(tblDesc);
+            fetchTableMetaData(tblDesc);
+            success = true;
+        } finally {
+            releaseClient(success);
+        }
 
         return fragments;
     }
 
+    /*
+     * Returns the MetaStore client of the request, borrowing one from the
+     * pool if it was already released.
+     */
+    private HiveMetaStoreClient getClient() {
+        if (client == null) {
+            client = HiveClientPool.getInstance().borrow(clientKey, configuration);
+        }
+        return client;
+    }
+
+    /*
+     * Returns the MetaStore client to the pool, or closes it if the MetaStore
+     * call failed, since its connection may be broken.
+     */
+    private void releaseClient(boolean reuse) {
+        if (client == null) {
+            return;
+        }
+        if (reuse) {
+            HiveClientPool.getInstance().release(clientKey, client);
+        } else {
+            HiveClientPool.getInstance().invalidate(client);
+        }
+        client = null;
+    }
+
     /**
      * Creates the partition InputFormat.
      *
@@ -155,7 +218,7 @@ public class HiveDataFragmenter extends HdfsDataFragmenter {
      */
     private void fetchTableMetaData(Metadata.Item tblDesc) throws Exception {
 
-        Table tbl = HiveUtilities.getHiveTable(client, tblDesc);
+        Table tbl = HiveMetadataCache.getInstance().getTable(getClient(), clientKey, tblDesc);
 
         Metadata metadata = new Metadata(tblDesc);
         HiveUtilities.getSchema(tbl, metadata);
@@ -193,8 +256,8 @@ public class HiveDataFragmenter extends HdfsDataFragmenter {
             // API call to Hive Metastore, will return a List of all the
             // partitions for this table, that matches the partition filters
             // Defined in filterStringForHive.
-            partitions = client.listPartitionsByFilter(tblDesc.getPath(),
-                    tblDesc.getName(), filterStringForHive, ALL_PARTS);
+            partitions = HiveMetadataCache.getInstance().getPartitions(getClient(),
+                    clientKey, tblDesc, filterStringForHive);
 
             // No matched partitions for the filter, no fragments to return.
             if (partitions == null || partitions.isEmpty()) {
@@ -217,9 +280,11 @@ public class HiveDataFragmenter extends HdfsDataFragmenter {
         } else {
             // API call to Hive Metastore, will return a List of all the
             // partitions for this table (no filtering)
-            partitions = client.listPartitions(tblDesc.getPath(),
-                    tblDesc.getName(), ALL_PARTS);
+            partitions = HiveMetadataCache.getInstance().getPartitions(getClient(),
+                    clientKey, tblDesc, "");
         }
+        // the splits are listed from the NameNode, the client is not needed anymore
+        releaseClient(true);
 
         StorageDescriptor descTable = tbl.getSd();
         Properties props;
@@ -229,6 +294,7 @@ public class HiveDataFragmenter extends HdfsDataFragmenter {
             fetchMetaDataForSimpleTable(descTable, props, hasComplexTypes);
         } else {
             List<FieldSchema> partitionKeys = tbl.getPartitionKeys();
+            List<HiveTablePartition> tablePartitions = new ArrayList<>(partitions.size());
 
             for (Partition partition : partitions) {
                 StorageDescriptor descPartition = partition.getSd();
@@ -236,9 +302,10 @@ public class HiveDataFragmenter extends HdfsDataFragmenter {
                         null,
                         tblDesc.getPath(), tblDesc.getName(),
                         partitionKeys);
-                fetchMetaDataForPartitionedTable(descPartition, props,
-                        partition, partitionKeys, tblDesc.getName(), hasComplexTypes);
+                tablePartitions.add(new HiveTablePartition(descPartition, props,
+                        partition, partitionKeys, tblDesc.getName()));
             }
+            fetchMetaDataForPartitionedTable(tablePartitions, hasComplexTypes);
         }
     }
 
@@ -260,23 +327,76 @@ public class HiveDataFragmenter extends HdfsDataFragmenter {
     private void fetchMetaDataForSimpleTable(StorageDescriptor stdsc,
                                              Properties props, String tableName, boolean hasComplexTypes)
             throws Exception {
-        fetchMetaData(new HiveTablePartition(stdsc, props, null, null,
-                tableName), hasComplexTypes);
+        fragments.addAll(fetchMetaData(new HiveTablePartition(stdsc, props, null, null,
+                tableName), hasComplexTypes));
     }
 
-    private void fetchMetaDataForPartitionedTable(StorageDescriptor stdsc,
-                                                  Properties props,
-                                                  Partition partition,
-                                                  List<FieldSchema> partitionKeys,
-                                                  String tableName,
-                                                  boolean hasComplexTypes)
+    /*
+     * Lists the fragments of the partitions by batches on the executor of the
+     * server, and adds them in the order of the partitions.
+     */
+    private void fetchMetaDataForPartitionedTable(List<HiveTablePartition> tablePartitions,
+                                                  final boolean hasComplexTypes)
             throws Exception {
-        fetchMetaData(new HiveTablePartition(stdsc, props, partition,
-                partitionKeys, tableName), hasComplexTypes);
+        if (tablePartitions.size() <= PARTITIONS_PER_BATCH) {
+            for (HiveTablePartition tablePartition : tablePartitions) {
+                fragments.addAll(fetchMetaData(tablePartition, hasComplexTypes));
+            }
+            return;
+        }
+
+        // the tasks access HDFS as the user of the request
+        final UserGroupInformation ugi = UserGroupInformation.getCurrentUser();
+        ExecutorService executor = getSplitExecutor(context.getServerName());
+        List<Future<List<Fragment>>> batches = new ArrayList<>();
+        try {
+            for (int start = 0; start < tablePartitions.size(); start += PARTITIONS_PER_BATCH) {
+                final List<HiveTablePartition> batch = tablePartitions.subList(start,
+                        Math.min(start + PARTITIONS_PER_BATCH, tablePartitions.size()));
+                batches.add(executor.submit(() -> ugi.doAs((PrivilegedExceptionAction<List<Fragment>>) () -> {
+                    List<Fragment> batchFragments = new ArrayList<>();
+                    for (HiveTablePartition tablePartition : batch) {
+                        batchFragments.addAll(fetchMetaData(tablePartition, hasComplexTypes));
+                    }
+                    return batchFragments;
+                })));
+            }
+            for (Future<List<Fragment>> batch : batches) {
+                fragments.addAll(waitForBatch(batch));
+            }
+        } finally {
+            // stop listing the remaining batches if one failed
+            for (Future<List<Fragment>> batch : batches) {
+                batch.cancel(true);
+            }
+        }
     }
 
-    /* Fills a table partition */
-    private void fetchMetaData(HiveTablePartition tablePartition, boolean hasComplexTypes)
+    private static List<Fragment> waitForBatch(Future<List<Fragment>> batch) throws Exception {
+        try {
+            return batch.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedException("Interrupted while listing the splits of the partitions");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            throw new RuntimeException("Failed to list the splits of the partitions", cause);
+        }
+    }
+
+    private static ExecutorService getSplitExecutor(String serverName) {
+        return SPLIT_EXECUTORS.computeIfAbsent(serverName, name -> Executors.newFixedThreadPool(SPLIT_THREAD_COUNT,
+                new ThreadFactoryBuilder().setNameFormat("pxf-hive-split-" + name + "-%d").setDaemon(true).build()));
+    }
+
+    /*
+     * Returns the fragments of a table partition, called concurrently for the
+     * partitions of a table.
+     */
+    private List<Fragment> fetchMetaData(HiveTablePartition tablePartition, boolean hasComplexTypes)
             throws Exception {
         InputFormat<?, ?> fformat = makeInputFormat(
                 tablePartition.storageDesc.getInputFormat(), jobConf);
@@ -294,17 +414,15 @@ public class HiveDataFragmenter extends HdfsDataFragmenter {
             fragmenterForProfile = context.getFragmenter();
         }
 
-        FileInputFormat.setInputPaths(jobConf, new Path(
-                tablePartition.storageDesc.getLocation()));
-
         InputSplit[] splits = null;
         try {
-            splits = fformat.getSplits(jobConf, 1);
+            splits = getSplits(fformat, tablePartition);
         } catch (org.apache.hadoop.mapred.InvalidInputException e) {
             LOG.debug("getSplits failed on " + e.getMessage());
-            return;
+            return new ArrayList<>();
         }
 
+        List<Fragment> partitionFragments = new ArrayList<>(splits.length);
         for (InputSplit split : splits) {
             FileSplit fsp = (FileSplit) split;
             String[] hosts = fsp.getLocations();
@@ -313,8 +431,27 @@ public class HiveDataFragmenter extends HdfsDataFragmenter {
             byte[] locationInfo = HdfsUtilities.prepareFragmentMetadata(fsp);
             Fragment fragment = new Fragment(filepath, hosts, locationInfo,
                     HiveUtilities.makeUserData(fragmenterForProfile, tablePartition, filterInFragmenter), profile);
-            fragments.add(fragment);
+            partitionFragments.add(fragment);
         }
+        return partitionFragments;
+    }
+
+    /**
+     * Divides the files of a table partition into splits, each split becomes
+     * a fragment. Called concurrently for the partitions of a table, it must
+     * not modify the state of the fragmenter.
+     *
+     * @param inputFormat    the input format of the partition
+     * @param tablePartition the table partition
+     * @return the splits of the partition files
+     * @throws Exception if the splits could not be computed
+     */
+    protected InputSplit[] getSplits(InputFormat<?, ?> inputFormat, HiveTablePartition tablePartition)
+            throws Exception {
+        JobConf partitionConf = new JobConf(jobConf);
+        FileInputFormat.setInputPaths(partitionConf, new Path(
+                tablePartition.storageDesc.getLocation()));
+        return inputFormat.getSplits(partitionConf, 1);
     }
 
     /*
@@ -472,7 +609,14 @@ public class HiveDataFragmenter extends HdfsDataFragmenter {
     @Override
     public FragmentStats getFragmentStats() throws Exception {
         Metadata.Item tblDesc = HiveUtilities.extractTableFromName(context.getDataSource());
-        Table tbl = HiveUtilities.getHiveTable(client, tblDesc);
+        Table tbl;
+        boolean success = false;
+        try {
+            tbl = HiveMetadataCache.getInstance().getTable(getClient(), clientKey, tblDesc);
+            success = true;
+        } finally {
+            releaseClient(success);
+        }
         Metadata metadata = new Metadata(tblDesc);
         HiveUtilities.getSchema(tbl, metadata);
 
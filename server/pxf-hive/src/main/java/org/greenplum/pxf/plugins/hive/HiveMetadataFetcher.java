@@ -35,6 +35,8 @@ import org.greenplum.pxf.api.model.Metadata;
 import org.greenplum.pxf.api.model.MetadataFetcher;
 import org.greenplum.pxf.api.model.OutputFormat;
 import org.greenplum.pxf.api.model.RequestContext;
+import org.greenplum.pxf.plugins.hive.utilities.HiveClientPool;
+import org.greenplum.pxf.plugins.hive.utilities.HiveMetadataCache;
 import org.greenplum.pxf.plugins.hive.utilities.HiveUtilities;
 import org.greenplum.pxf.plugins.hive.utilities.ProfileFactory;
 
@@ -54,6 +56,7 @@ public class HiveMetadataFetcher extends BasePlugin implements MetadataFetcher {
 
     private static final Log LOG = LogFactory.getLog(HiveMetadataFetcher.class);
     private HiveMetaStoreClient client;
+    private String clientKey;
     private JobConf jobConf;
 
     public HiveMetadataFetcher(RequestContext context) {
@@ -65,7 +68,8 @@ public class HiveMetadataFetcher extends BasePlugin implements MetadataFetcher {
         initialize(context);
 
         // init hive metastore client connection.
-        client = HiveUtilities.initHiveClient(configuration);
+        clientKey = HiveClientPool.getKey(context);
+        client = HiveClientPool.getInstance().borrow(clientKey, configuration);
         jobConf = new JobConf(configuration);
     }
 
@@ -82,6 +86,26 @@ public class HiveMetadataFetcher extends BasePlugin implements MetadataFetcher {
      */
     @Override
     public List<Metadata> getMetadata(String pattern) throws Exception {
+        if (client == null) {
+            client = HiveClientPool.getInstance().borrow(clientKey, configuration);
+        }
+        boolean success = false;
+        try {
+            List<Metadata> metadataList = getMetadata(client, pattern);
+            success = true;
+            return metadataList;
+        } finally {
+            // a client that failed may have a broken connection
+            if (success) {
+                HiveClientPool.getInstance().release(clientKey, client);
+            } else {
+                HiveClientPool.getInstance().invalidate(client);
+            }
+            client = null;
+        }
+    }
+
+    private List<Metadata> getMetadata(HiveMetaStoreClient client, String pattern) throws Exception {
 
         boolean ignoreErrors = false;
         List<Metadata.Item> tblsDesc = HiveUtilities.extractTablesFromPattern(client, pattern);
@@ -100,11 +124,11 @@ public class HiveMetadataFetcher extends BasePlugin implements MetadataFetcher {
         for(Metadata.Item tblDesc: tblsDesc) {
             try {
                 Metadata metadata = new Metadata(tblDesc);
-                Table tbl = HiveUtilities.getHiveTable(client, tblDesc);
+                Table tbl = HiveMetadataCache.getInstance().getTable(client, clientKey, tblDesc);
                 HiveUtilities.getSchema(tbl, metadata);
                 boolean hasComplexTypes = HiveUtilities.hasComplexTypes(metadata);
                 metadataList.add(metadata);
-                List<Partition> tablePartitions = client.listPartitionsByFilter(tblDesc.getPath(), tblDesc.getName(), "", (short) -1);
+                List<Partition> tablePartitions = HiveMetadataCache.getInstance().getPartitions(client, clientKey, tblDesc, "");
                 Set<OutputFormat> formats = new HashSet<OutputFormat>();
                 //If table has partitions - find out all formats
                 for (Partition tablePartition : tablePartitions) {
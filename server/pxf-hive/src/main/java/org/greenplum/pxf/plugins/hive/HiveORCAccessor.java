@@ -25,9 +25,11 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.hadoop.hive.ql.io.orc.OrcInputFormat;
 import org.apache.hadoop.hive.ql.io.orc.Reader;
+import org.apache.hadoop.hive.ql.io.orc.StripeInformation;
 import org.apache.hadoop.hive.ql.io.sarg.SearchArgument;
 import org.apache.hadoop.hive.ql.io.sarg.SearchArgumentFactory;
 import org.apache.hadoop.hive.serde2.io.DateWritable;
+import org.apache.hadoop.mapred.FileSplit;
 import org.greenplum.pxf.api.BasicFilter;
 import org.greenplum.pxf.api.LogicalFilter;
 import org.greenplum.pxf.api.OneRow;
@@ -35,6 +37,7 @@ import org.greenplum.pxf.api.StatsAccessor;
 import org.greenplum.pxf.api.model.RequestContext;
 import org.greenplum.pxf.api.utilities.ColumnDescriptor;
 import org.greenplum.pxf.api.utilities.Utilities;
+import org.greenplum.pxf.plugins.hdfs.utilities.HdfsUtilities;
 
 import java.sql.Date;
 import java.util.ArrayList;
@@ -44,7 +47,7 @@ import java.util.List;
 /**
  * Specialization of HiveAccessor for a Hive table that stores only ORC files.
  * This class replaces the generic HiveAccessor for a case where a table is stored entirely as ORC files.
- * Use together with {@link HiveInputFormatFragmenter}/{@link HiveColumnarSerdeResolver}
+ * Use together with {@link HiveInputFormatFragmenter} or {@link HiveORCStripeFragmenter}/{@link HiveColumnarSerdeResolver}
  */
 public class HiveORCAccessor extends HiveAccessor implements StatsAccessor {
 
@@ -231,28 +234,32 @@ public class HiveORCAccessor extends HiveAccessor implements StatsAccessor {
     }
 
     /**
-     * Fetches file-level statistics from an ORC file.
+     * Fetches the statistics of the stripes of the current split from an ORC
+     * file. A stripe belongs to the split its first byte is in, the same way
+     * the ORC record reader assigns stripes to splits, so that the stripes of
+     * a file are not counted twice.
      */
     @Override
     public void retrieveStats() throws Exception {
         if (!this.useStats) {
             throw new IllegalStateException("Accessor is not using statistics in current context.");
         }
-        /*
-         * We are using file-level stats therefore if file has multiple splits,
-         * it's enough to return count for a first split in file.
-         * In case file has multiple splits - we don't want to duplicate counts.
-         */
-        if (context.getFragmentIndex() == 0) {
-            this.count = this.orcReader.getNumberOfRows();
+        if (context.getAggType() == null) {
+            throw new UnsupportedOperationException("Aggregate opration is required");
+        }
+
+        // COUNT(*), one tuple per row
+        for (int stripe : getSplitStripes()) {
+            count += orcReader.getStripes().get(stripe).getNumberOfRows();
+        }
+        if (count > 0) {
             rowToEmitCount = readNextObject();
         }
         statsInitialized = true;
-
     }
 
     /**
-     * Emits tuple without reading from disk, currently supports COUNT
+     * Emits tuples without reading from disk, one tuple per counted row.
      */
     @Override
     public OneRow emitAggObject() {
@@ -260,20 +267,29 @@ public class HiveORCAccessor extends HiveAccessor implements StatsAccessor {
             throw new IllegalStateException("retrieveStats() should be called before calling emitAggObject()");
         }
         OneRow row = null;
-        if (context.getAggType() == null)
-            throw new UnsupportedOperationException("Aggregate opration is required");
-        switch (context.getAggType()) {
-            case COUNT:
-                if (objectsEmitted < count) {
-                    objectsEmitted++;
-                    row = rowToEmitCount;
-                }
-                break;
-            default: {
-                throw new UnsupportedOperationException("Aggregation operation is not supported.");
-            }
+        if (objectsEmitted < count) {
+            objectsEmitted++;
+            row = rowToEmitCount;
         }
         return row;
     }
 
+    /**
+     * Returns the indexes of the stripes starting in the current split.
+     */
+    private List<Integer> getSplitStripes() {
+        FileSplit fileSplit = HdfsUtilities.parseFileSplit(context);
+        long start = fileSplit.getStart();
+        long end = start + fileSplit.getLength();
+        List<StripeInformation> stripes = orcReader.getStripes();
+        List<Integer> result = new ArrayList<>();
+        for (int i = 0; i < stripes.size(); i++) {
+            long offset = stripes.get(i).getOffset();
+            if (offset >= start && offset < end) {
+                result.add(i);
+            }
+        }
+        return result;
+    }
+
 }
@@ -0,0 +1,314 @@
+package org.greenplum.pxf.plugins.hive;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.hadoop.hive.ql.exec.vector.BytesColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.ColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.DecimalColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.DoubleColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.LongColumnVector;
+import org.apache.hadoop.hive.ql.io.orc.OrcProto;
+import org.apache.hadoop.hive.serde2.io.DateWritable;
+import org.greenplum.pxf.api.UnsupportedTypeException;
+import org.greenplum.pxf.api.io.DataType;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.Timestamp;
+
+/**
+ * Copies the values of a column of an ORC {@link ColumnVector} into a PXF
+ * {@link org.greenplum.pxf.api.io.ColumnVector}, without creating an object
+ * per value for the types stored as numbers or bytes in both vectors.
+ * <p>
+ * Repeating vectors are converted once, and the null checks are skipped for
+ * vectors without nulls. Dates, timestamps and decimals are written as text,
+ * formatted the same way {@link HiveORCSerdeResolver} formats them.
+ */
+abstract class HiveORCColumnWriter {
+
+    private static final long NANOS_PER_SECOND = 1000000000L;
+
+    /**
+     * Creates the writer for a column.
+     *
+     * @param type       the ORC type of the column
+     * @param targetType the type of the table column
+     * @param columnName the name of the table column
+     * @return the writer
+     * @throws UnsupportedTypeException if the ORC type cannot be written to
+     *                                  the table column
+     */
+    static HiveORCColumnWriter create(OrcProto.Type type, DataType targetType, String columnName) {
+        HiveORCColumnWriter writer;
+        boolean supported;
+        switch (type.getKind()) {
+            case BOOLEAN:
+                writer = new LongWriter();
+                supported = targetType == DataType.BOOLEAN;
+                break;
+            case BYTE:
+            case SHORT:
+            case INT:
+            case LONG:
+                writer = new LongWriter();
+                supported = targetType == DataType.SMALLINT || targetType == DataType.INTEGER
+                        || targetType == DataType.BIGINT;
+                break;
+            case FLOAT:
+            case DOUBLE:
+                writer = new DoubleWriter();
+                supported = targetType == DataType.REAL || targetType == DataType.FLOAT8;
+                break;
+            case STRING:
+            case VARCHAR:
+            case CHAR:
+            case BINARY:
+                writer = new BytesWriter();
+                supported = isBytesType(targetType);
+                break;
+            case DECIMAL:
+                writer = new DecimalWriter();
+                supported = isBytesType(targetType);
+                break;
+            case DATE:
+                writer = new DateWriter();
+                supported = isBytesType(targetType);
+                break;
+            case TIMESTAMP:
+                writer = new TimestampWriter();
+                supported = isBytesType(targetType);
+                break;
+            default:
+                throw new UnsupportedTypeException("ORC type " + type.getKind() + " of column " + columnName
+                        + " is not supported by the vectorized ORC reader");
+        }
+        if (!supported) {
+            throw new UnsupportedTypeException("ORC type " + type.getKind() + " of column " + columnName
+                    + " cannot be read into a column of type " + targetType);
+        }
+        return writer;
+    }
+
+    /**
+     * Writes the first rows of the source vector into the target vector.
+     *
+     * @param source the ORC vector
+     * @param target the PXF vector
+     * @param size   the number of rows
+     */
+    void write(ColumnVector source, org.greenplum.pxf.api.io.ColumnVector target, int size) {
+        if (source.isRepeating) {
+            if (!source.noNulls && source.isNull[0]) {
+                writeNulls(target, size);
+            } else {
+                writeRepeating(source, target, size);
+            }
+        } else {
+            writeValues(source, target, size);
+        }
+    }
+
+    /**
+     * Writes the value of the first row to all the rows, the value is not
+     * null.
+     */
+    abstract void writeRepeating(ColumnVector source, org.greenplum.pxf.api.io.ColumnVector target, int size);
+
+    /**
+     * Writes the rows of a vector that is not repeating.
+     */
+    abstract void writeValues(ColumnVector source, org.greenplum.pxf.api.io.ColumnVector target, int size);
+
+    static void writeNulls(org.greenplum.pxf.api.io.ColumnVector target, int size) {
+        for (int row = 0; row < size; row++) {
+            target.setNull(row);
+        }
+    }
+
+    private static boolean isBytesType(DataType type) {
+        switch (type) {
+            case BOOLEAN:
+            case SMALLINT:
+            case INTEGER:
+            case BIGINT:
+            case REAL:
+            case FLOAT8:
+                return false;
+            default:
+                return true;
+        }
+    }
+
+    /**
+     * Boolean and integral columns.
+     */
+    private static class LongWriter extends HiveORCColumnWriter {
+        @Override
+        void writeRepeating(ColumnVector source, org.greenplum.pxf.api.io.ColumnVector target, int size) {
+            long value = ((LongColumnVector) source).vector[0];
+            for (int row = 0; row < size; row++) {
+                target.setLong(row, value);
+            }
+        }
+
+        @Override
+        void writeValues(ColumnVector source, org.greenplum.pxf.api.io.ColumnVector target, int size) {
+            long[] values = ((LongColumnVector) source).vector;
+            if (source.noNulls) {
+                for (int row = 0; row < size; row++) {
+                    target.setLong(row, values[row]);
+                }
+            } else {
+                boolean[] isNull = source.isNull;
+                for (int row = 0; row < size; row++) {
+                    if (isNull[row]) {
+                        target.setNull(row);
+                    } else {
+                        target.setLong(row, values[row]);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Float and double columns.
+     */
+    private static class DoubleWriter extends HiveORCColumnWriter {
+        @Override
+        void writeRepeating(ColumnVector source, org.greenplum.pxf.api.io.ColumnVector target, int size) {
+            double value = ((DoubleColumnVector) source).vector[0];
+            for (int row = 0; row < size; row++) {
+                target.setDouble(row, value);
+            }
+        }
+
+        @Override
+        void writeValues(ColumnVector source, org.greenplum.pxf.api.io.ColumnVector target, int size) {
+            double[] values = ((DoubleColumnVector) source).vector;
+            if (source.noNulls) {
+                for (int row = 0; row < size; row++) {
+                    target.setDouble(row, values[row]);
+                }
+            } else {
+                boolean[] isNull = source.isNull;
+                for (int row = 0; row < size; row++) {
+                    if (isNull[row]) {
+                        target.setNull(row);
+                    } else {
+                        target.setDouble(row, values[row]);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * String, char, varchar and binary columns.
+     */
+    private static class BytesWriter extends HiveORCColumnWriter {
+        @Override
+        void writeRepeating(ColumnVector source, org.greenplum.pxf.api.io.ColumnVector target, int size) {
+            BytesColumnVector vector = (BytesColumnVector) source;
+            for (int row = 0; row < size; row++) {
+                target.setBytes(row, vector.vector[0], vector.start[0], vector.length[0]);
+            }
+        }
+
+        @Override
+        void writeValues(ColumnVector source, org.greenplum.pxf.api.io.ColumnVector target, int size) {
+            BytesColumnVector vector = (BytesColumnVector) source;
+            byte[][] values = vector.vector;
+            int[] start = vector.start;
+            int[] length = vector.length;
+            boolean[] isNull = source.noNulls ? null : source.isNull;
+            for (int row = 0; row < size; row++) {
+                if (isNull != null && isNull[row]) {
+                    target.setNull(row);
+                } else {
+                    target.setBytes(row, values[row], start[row], length[row]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Columns written as the text of an object created per value.
+     */
+    private abstract static class TextWriter extends HiveORCColumnWriter {
+        @Override
+        void writeRepeating(ColumnVector source, org.greenplum.pxf.api.io.ColumnVector target, int size) {
+            byte[] value = toText(source, 0);
+            for (int row = 0; row < size; row++) {
+                target.setBytes(row, value, 0, value.length);
+            }
+        }
+
+        @Override
+        void writeValues(ColumnVector source, org.greenplum.pxf.api.io.ColumnVector target, int size) {
+            boolean[] isNull = source.noNulls ? null : source.isNull;
+            for (int row = 0; row < size; row++) {
+                if (isNull != null && isNull[row]) {
+                    target.setNull(row);
+                } else {
+                    byte[] value = toText(source, row);
+                    target.setBytes(row, value, 0, value.length);
+                }
+            }
+        }
+
+        abstract byte[] toText(ColumnVector source, int row);
+    }
+
+    private static class DecimalWriter extends TextWriter {
+        @Override
+        byte[] toText(ColumnVector source, int row) {
+            return ((DecimalColumnVector) source).vector[row].getHiveDecimal().toString()
+                    .getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Dates are stored as days since the epoch.
+     */
+    private static class DateWriter extends TextWriter {
+        @Override
+        byte[] toText(ColumnVector source, int row) {
+            long days = ((LongColumnVector) source).vector[row];
+            return new Date(DateWritable.daysToMillis((int) days)).toString()
+                    .getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Timestamps are stored as nanoseconds since the epoch.
+     */
+    private static class TimestampWriter extends TextWriter {
+        @Override
+        byte[] toText(ColumnVector source, int row) {
+            long nanos = ((LongColumnVector) source).vector[row];
+            long seconds = Math.floorDiv(nanos, NANOS_PER_SECOND);
+            Timestamp timestamp = new Timestamp(seconds * 1000);
+            timestamp.setNanos((int) Math.floorMod(nanos, NANOS_PER_SECOND));
+            return timestamp.toString().getBytes(StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,276 @@
+package org.greenplum.pxf.plugins.hive;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.hadoop.hive.ql.io.orc.ColumnStatistics;
+import org.apache.hadoop.hive.ql.io.orc.DateColumnStatistics;
+import org.apache.hadoop.hive.ql.io.orc.DoubleColumnStatistics;
+import org.apache.hadoop.hive.ql.io.orc.IntegerColumnStatistics;
+import org.apache.hadoop.hive.ql.io.orc.OrcProto;
+import org.apache.hadoop.hive.ql.io.orc.StringColumnStatistics;
+import org.apache.hadoop.hive.serde2.io.DateWritable;
+import org.apache.hadoop.io.Text;
+import org.greenplum.pxf.api.BasicFilter;
+import org.greenplum.pxf.api.FilterParser;
+import org.greenplum.pxf.api.LogicalFilter;
+import org.greenplum.pxf.api.io.DataType;
+import org.greenplum.pxf.api.model.RequestContext;
+
+import java.util.List;
+
+/**
+ * Decides from the statistics of an ORC stripe whether any row of the stripe
+ * can match the filter of a query, so that the stripes that cannot are never
+ * read.
+ * <p>
+ * The filter is the same filter tree {@link HiveORCAccessor} translates into
+ * the search argument of the ORC reader. The evaluation is conservative: a
+ * stripe is kept whenever the statistics are missing or the filter cannot be
+ * evaluated, since Greenplum applies the filter to the returned rows anyway.
+ * Text only supports equality, since ORC orders strings by bytes and not by
+ * the database collation, and NOT is never evaluated.
+ */
+class HiveORCStripeFilter {
+
+    private final RequestContext context;
+    private final Object filter;
+    private final int fieldCount;
+
+    /**
+     * Constructs a stripe filter.
+     *
+     * @param context    the request context
+     * @param filter     the filter tree built by {@link HiveFilterBuilder}
+     * @param fieldCount the number of table columns stored in the files, the
+     *                   columns following them are partition columns
+     */
+    HiveORCStripeFilter(RequestContext context, Object filter, int fieldCount) {
+        this.context = context;
+        this.filter = filter;
+        this.fieldCount = fieldCount;
+    }
+
+    /**
+     * Returns whether rows of a stripe can match the filter.
+     *
+     * @param types      the types of the file
+     * @param statistics the statistics of the stripe, by column id
+     * @param rowCount   the number of rows of the stripe
+     * @return false if no row of the stripe can match the filter
+     */
+    boolean canMatch(List<OrcProto.Type> types, ColumnStatistics[] statistics, long rowCount) {
+        return canMatch(filter, types, statistics, rowCount);
+    }
+
+    private boolean canMatch(Object filter, List<OrcProto.Type> types, ColumnStatistics[] statistics, long rowCount) {
+        if (filter instanceof LogicalFilter) {
+            LogicalFilter logicalFilter = (LogicalFilter) filter;
+            switch (logicalFilter.getOperator()) {
+                case HDOP_AND:
+                    return canMatchAll(logicalFilter.getFilterList(), types, statistics, rowCount);
+                case HDOP_OR:
+                    for (Object child : logicalFilter.getFilterList()) {
+                        if (canMatch(child, types, statistics, rowCount)) {
+                            return true;
+                        }
+                    }
+                    return false;
+                default:
+                    return true;
+            }
+        }
+        if (filter instanceof List) {
+            return canMatchAll((List<?>) filter, types, statistics, rowCount);
+        }
+        if (filter instanceof BasicFilter) {
+            return canMatch((BasicFilter) filter, types, statistics, rowCount);
+        }
+        return true;
+    }
+
+    private boolean canMatchAll(List<?> filters, List<OrcProto.Type> types, ColumnStatistics[] statistics, long rowCount) {
+        for (Object child : filters) {
+            if (!canMatch(child, types, statistics, rowCount)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean canMatch(BasicFilter filter, List<OrcProto.Type> types, ColumnStatistics[] statistics, long rowCount) {
+        int index = filter.getColumn().index();
+        OrcProto.Type struct = types.get(0);
+        if (index >= fieldCount || index >= struct.getSubtypesCount()) {
+            return true;
+        }
+        int columnId = struct.getSubtypes(index);
+        if (columnId >= statistics.length) {
+            return true;
+        }
+        ColumnStatistics stats = statistics[columnId];
+        long valueCount = stats.getNumberOfValues();
+
+        FilterParser.Operation operation = filter.getOperation();
+        switch (operation) {
+            case HDOP_IS_NULL:
+                return valueCount < rowCount;
+            case HDOP_IS_NOT_NULL:
+                return valueCount > 0;
+            default:
+                break;
+        }
+        // a comparison is never true for null values
+        if (valueCount == 0) {
+            return false;
+        }
+
+        // char values are blank padded by the database but not in the file
+        if (DataType.get(context.getColumn(index).columnTypeCode()) == DataType.BPCHAR) {
+            return true;
+        }
+        Comparable[] range = getRange(stats);
+        if (range == null || filter.getConstant() == null) {
+            return true;
+        }
+        Object constant = filter.getConstant().constant();
+        switch (operation) {
+            case HDOP_EQ:
+                return canEqual(range, stats, constant);
+            case HDOP_IN:
+                if (!(constant instanceof List)) {
+                    return true;
+                }
+                for (Object value : (List<?>) constant) {
+                    if (canEqual(range, stats, value)) {
+                        return true;
+                    }
+                }
+                return false;
+            case HDOP_LT:
+            case HDOP_LE:
+            case HDOP_GT:
+            case HDOP_GE:
+                return canCompare(operation, range, stats, constant);
+            default:
+                return true;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static boolean canEqual(Comparable[] range, ColumnStatistics stats, Object constant) {
+        Comparable value = toValue(stats, constant);
+        return value == null || (range[0].compareTo(value) <= 0 && range[1].compareTo(value) >= 0);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static boolean canCompare(FilterParser.Operation operation, Comparable[] range,
+                                      ColumnStatistics stats, Object constant) {
+        if (stats instanceof StringColumnStatistics) {
+            return true;
+        }
+        // NaN is greater than any other value, but is not part of the maximum
+        if (stats instanceof DoubleColumnStatistics
+                && (operation == FilterParser.Operation.HDOP_GT || operation == FilterParser.Operation.HDOP_GE)) {
+            return true;
+        }
+        Comparable value = toValue(stats, constant);
+        if (value == null) {
+            return true;
+        }
+        switch (operation) {
+            case HDOP_LT:
+                return range[0].compareTo(value) < 0;
+            case HDOP_LE:
+                return range[0].compareTo(value) <= 0;
+            case HDOP_GT:
+                return range[1].compareTo(value) > 0;
+            default:
+                return range[1].compareTo(value) >= 0;
+        }
+    }
+
+    /**
+     * Returns the minimum and the maximum of the statistics in comparable
+     * form, or null if the statistics do not have a usable range.
+     */
+    private static Comparable[] getRange(ColumnStatistics stats) {
+        if (stats instanceof IntegerColumnStatistics) {
+            IntegerColumnStatistics integerStats = (IntegerColumnStatistics) stats;
+            return new Comparable[]{integerStats.getMinimum(), integerStats.getMaximum()};
+        }
+        if (stats instanceof DoubleColumnStatistics) {
+            DoubleColumnStatistics doubleStats = (DoubleColumnStatistics) stats;
+            double min = doubleStats.getMinimum();
+            double max = doubleStats.getMaximum();
+            if (Double.isNaN(min) || Double.isNaN(max)) {
+                return null;
+            }
+            return new Comparable[]{normalize(min), normalize(max)};
+        }
+        if (stats instanceof StringColumnStatistics) {
+            StringColumnStatistics stringStats = (StringColumnStatistics) stats;
+            if (stringStats.getMinimum() == null || stringStats.getMaximum() == null) {
+                return null;
+            }
+            return new Comparable[]{new Text(stringStats.getMinimum()), new Text(stringStats.getMaximum())};
+        }
+        if (stats instanceof DateColumnStatistics) {
+            DateColumnStatistics dateStats = (DateColumnStatistics) stats;
+            if (dateStats.getMinimum() == null || dateStats.getMaximum() == null) {
+                return null;
+            }
+            return new Comparable[]{DateWritable.millisToDays(dateStats.getMinimum().getTime()),
+                    DateWritable.millisToDays(dateStats.getMaximum().getTime())};
+        }
+        return null;
+    }
+
+    /**
+     * Converts a constant of the filter to the comparable form of the
+     * statistics, or returns null if they cannot be compared exactly.
+     */
+    private static Comparable toValue(ColumnStatistics stats, Object constant) {
+        if (stats instanceof IntegerColumnStatistics) {
+            if (constant instanceof Integer || constant instanceof Long || constant instanceof Short) {
+                return ((Number) constant).longValue();
+            }
+        } else if (stats instanceof DoubleColumnStatistics) {
+            if (constant instanceof Double || constant instanceof Float) {
+                double value = ((Number) constant).doubleValue();
+                return Double.isNaN(value) ? null : normalize(value);
+            }
+        } else if (stats instanceof StringColumnStatistics) {
+            if (constant instanceof String) {
+                // ORC compares the UTF-8 bytes of strings
+                return new Text((String) constant);
+            }
+        } else if (stats instanceof DateColumnStatistics) {
+            if (constant instanceof java.sql.Date) {
+                return DateWritable.millisToDays(((java.sql.Date) constant).getTime());
+            }
+        }
+        return null;
+    }
+
+    // -0.0 and 0.0 are equal in the database
+    private static Double normalize(double value) {
+        return value == 0.0d ? 0.0d : value;
+    }
+}
@@ -0,0 +1,282 @@
+package org.greenplum.pxf.plugins.hive;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.fs.BlockLocation;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hive.ql.io.orc.ColumnStatistics;
+import org.apache.hadoop.hive.ql.io.orc.OrcFile;
+import org.apache.hadoop.hive.ql.io.orc.OrcInputFormat;
+import org.apache.hadoop.hive.ql.io.orc.OrcProto;
+import org.apache.hadoop.hive.ql.io.orc.Reader;
+import org.apache.hadoop.hive.ql.io.orc.StripeInformation;
+import org.apache.hadoop.hive.ql.io.orc.StripeStatistics;
+import org.apache.hadoop.mapred.FileSplit;
+import org.apache.hadoop.mapred.InputFormat;
+import org.apache.hadoop.mapred.InputSplit;
+import org.apache.hadoop.security.UserGroupInformation;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.security.PrivilegedExceptionAction;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Fragmenter for Hive tables stored in ORC files. Instead of one fragment per
+ * HDFS block, it reads the footers of the files and emits one fragment per
+ * group of consecutive stripes. The stripe statistics are checked against the
+ * query's filter, and stripes in which no row can match never become
+ * fragments.
+ * <p>
+ * The footers of a partition are read in parallel and cached by user, path,
+ * length and modification time, so that a file is not read again until it
+ * changes, and a user only gets the footers of files that user could read.
+ * The number of threads reading footers and the number of cached footers can
+ * be overridden by the pxf.service.orc.footer.threads and
+ * pxf.service.orc.footer.cache.size system properties. Partitions with
+ * sub-directories, such as transactional tables, are divided by the input
+ * format like {@link HiveInputFormatFragmenter} does.
+ * <p>
+ * The fragmenter is used by the opt-in HiveORC:stripes and
+ * HiveVectorizedORC:stripes profiles, the HiveORC and HiveVectorizedORC
+ * profiles keep dividing the files by HDFS blocks.
+ */
+public class HiveORCStripeFragmenter extends HiveInputFormatFragmenter {
+    private static final Log LOG = LogFactory.getLog(HiveORCStripeFragmenter.class);
+
+    static final String PROPERTY_KEY_FOOTER_THREADS = "pxf.service.orc.footer.threads";
+    static final String PROPERTY_KEY_FOOTER_CACHE_SIZE = "pxf.service.orc.footer.cache.size";
+    static final int FOOTER_THREADS = 16;
+    static final int FOOTER_CACHE_SIZE = 10000;
+
+    private static final ExecutorService FOOTER_EXECUTOR = Executors.newFixedThreadPool(
+            Integer.getInteger(PROPERTY_KEY_FOOTER_THREADS, FOOTER_THREADS),
+            new ThreadFactoryBuilder().setNameFormat("pxf-orc-footer-%d").setDaemon(true).build());
+
+    private static final Cache<String, OrcFooter> FOOTER_CACHE = CacheBuilder.newBuilder()
+            .maximumSize(Long.getLong(PROPERTY_KEY_FOOTER_CACHE_SIZE, FOOTER_CACHE_SIZE))
+            .build();
+
+    private HiveORCStripeFilter stripeFilter;
+    private boolean stripeFilterBuilt;
+
+    @Override
+    protected InputSplit[] getSplits(InputFormat<?, ?> inputFormat, HiveTablePartition tablePartition)
+            throws Exception {
+        if (!(inputFormat instanceof OrcInputFormat)) {
+            return super.getSplits(inputFormat, tablePartition);
+        }
+
+        Path location = new Path(tablePartition.storageDesc.getLocation());
+        final FileSystem fs = location.getFileSystem(jobConf);
+        List<FileStatus> files = new ArrayList<>();
+        try {
+            for (FileStatus file : fs.listStatus(location)) {
+                String name = file.getPath().getName();
+                if (name.startsWith("_") || name.startsWith(".")) {
+                    continue;
+                }
+                if (file.isDirectory()) {
+                    return super.getSplits(inputFormat, tablePartition);
+                }
+                if (file.getLen() > 0) {
+                    files.add(file);
+                }
+            }
+        } catch (FileNotFoundException e) {
+            LOG.debug("Partition location " + location + " does not exist");
+            return new InputSplit[0];
+        }
+
+        // read the footers of the partition in parallel
+        final UserGroupInformation ugi = UserGroupInformation.getCurrentUser();
+        List<Future<OrcFooter>> footers = new ArrayList<>(files.size());
+        for (final FileStatus file : files) {
+            footers.add(FOOTER_EXECUTOR.submit(() ->
+                    ugi.doAs((PrivilegedExceptionAction<OrcFooter>) () -> getFooter(fs, file, ugi))));
+        }
+
+        HiveORCStripeFilter filter = getStripeFilter(tablePartition);
+        List<InputSplit> splits = new ArrayList<>();
+        int stripeCount = 0;
+        int skippedCount = 0;
+        for (int i = 0; i < files.size(); i++) {
+            FileStatus file = files.get(i);
+            OrcFooter footer = waitForFooter(footers.get(i), file);
+            stripeCount += footer.stripes.size();
+            skippedCount += addSplits(splits, fs, file, footer, filter);
+        }
+        if (LOG.isDebugEnabled()) {
+            LOG.debug(tablePartition + ": " + files.size() + " files, " + stripeCount + " stripes, "
+                    + skippedCount + " stripes skipped, " + splits.size() + " fragments");
+        }
+        return splits.toArray(new InputSplit[splits.size()]);
+    }
+
+    /**
+     * Groups the consecutive stripes that can match the filter into splits of
+     * at most a block, and adds them to the list of splits.
+     *
+     * @return the number of stripes that cannot match the filter
+     */
+    int addSplits(List<InputSplit> splits, FileSystem fs, FileStatus file,
+                  OrcFooter footer, HiveORCStripeFilter filter) throws IOException {
+        long maxSplitSize = file.getBlockSize();
+        BlockLocation[] blocks = fs.getFileBlockLocations(file, 0, file.getLen());
+        int skipped = 0;
+        long start = -1;
+        long end = -1;
+        for (int i = 0; i < footer.stripes.size(); i++) {
+            StripeInformation stripe = footer.stripes.get(i);
+            boolean canMatch = filter == null || i >= footer.stripeStatistics.size()
+                    || filter.canMatch(footer.types, footer.stripeStatistics.get(i), stripe.getNumberOfRows());
+            if (!canMatch) {
+                skipped++;
+            }
+            long stripeEnd = stripe.getOffset() + stripe.getLength();
+            if (start >= 0 && (!canMatch || stripeEnd - start > maxSplitSize)) {
+                splits.add(new FileSplit(file.getPath(), start, end - start, getHosts(blocks, start, end)));
+                start = -1;
+            }
+            if (canMatch) {
+                if (start < 0) {
+                    start = stripe.getOffset();
+                }
+                end = stripeEnd;
+            }
+        }
+        if (start >= 0) {
+            splits.add(new FileSplit(file.getPath(), start, end - start, getHosts(blocks, start, end)));
+        }
+        return skipped;
+    }
+
+    /**
+     * Returns the hosts holding the range of a file, the hosts holding the
+     * most bytes of the range first.
+     */
+    private static String[] getHosts(BlockLocation[] blocks, long start, long end) {
+        final Map<String, Long> hostBytes = new HashMap<>();
+        for (BlockLocation block : blocks) {
+            long overlap = Math.min(end, block.getOffset() + block.getLength()) - Math.max(start, block.getOffset());
+            if (overlap <= 0) {
+                continue;
+            }
+            for (String host : block.getHosts()) {
+                Long bytes = hostBytes.get(host);
+                hostBytes.put(host, (bytes == null ? 0 : bytes) + overlap);
+            }
+        }
+        List<String> hosts = new ArrayList<>(hostBytes.keySet());
+        Collections.sort(hosts, (first, second) -> Long.compare(hostBytes.get(second), hostBytes.get(first)));
+        return hosts.toArray(new String[hosts.size()]);
+    }
+
+    /*
+     * Builds the stripe filter from the query's filter once per request,
+     * returns null if the query has no filter that can be evaluated.
+     */
+    private synchronized HiveORCStripeFilter getStripeFilter(HiveTablePartition tablePartition) {
+        if (!stripeFilterBuilt) {
+            stripeFilterBuilt = true;
+            if (context.hasFilter()) {
+                try {
+                    Object filter = new HiveFilterBuilder(context).getFilterObject(context.getFilterString());
+                    stripeFilter = new HiveORCStripeFilter(context, filter,
+                            tablePartition.storageDesc.getColsSize());
+                } catch (Exception e) {
+                    LOG.debug("Stripes are not filtered, the filter could not be parsed: " + e.getMessage());
+                }
+            }
+        }
+        return stripeFilter;
+    }
+
+    /*
+     * Returns the footer of a file read by the user from the cache, or reads it.
+     */
+    private OrcFooter getFooter(FileSystem fs, FileStatus file, UserGroupInformation ugi) throws IOException {
+        String key = ugi.getUserName() + ":" + file.getPath() + "@" + file.getLen() + "@"
+                + file.getModificationTime();
+        OrcFooter footer = FOOTER_CACHE.getIfPresent(key);
+        if (footer == null) {
+            Reader reader = OrcFile.createReader(file.getPath(), OrcFile.readerOptions(jobConf).filesystem(fs));
+            footer = new OrcFooter(reader);
+            FOOTER_CACHE.put(key, footer);
+        }
+        return footer;
+    }
+
+    private static OrcFooter waitForFooter(Future<OrcFooter> future, FileStatus file) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while reading the footer of " + file.getPath(), e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException("Failed to read the footer of " + file.getPath(), cause);
+        }
+    }
+
+    /**
+     * The parts of an ORC file footer used to divide the file.
+     */
+    static class OrcFooter {
+        private final List<StripeInformation> stripes;
+        private final List<ColumnStatistics[]> stripeStatistics;
+        private final List<OrcProto.Type> types;
+
+        OrcFooter(Reader reader) throws IOException {
+            this(new ArrayList<>(), new ArrayList<>(), reader.getTypes());
+            for (StripeInformation stripe : reader.getStripes()) {
+                stripes.add(stripe);
+            }
+            for (StripeStatistics statistics : reader.getMetadata().getStripeStatistics()) {
+                stripeStatistics.add(statistics.getColumnStatistics());
+            }
+        }
+
+        OrcFooter(List<StripeInformation> stripes, List<ColumnStatistics[]> stripeStatistics,
+                  List<OrcProto.Type> types) {
+            this.stripes = stripes;
+            this.stripeStatistics = stripeStatistics;
+            this.types = types;
+        }
+    }
+}
@@ -20,10 +20,12 @@ package org.greenplum.pxf.plugins.hive;
  */
 
 import java.io.IOException;
+import java.util.List;
+
+import org.apache.hadoop.hive.ql.io.orc.OrcProto;
 import org.apache.hadoop.mapred.*;
 import org.greenplum.pxf.api.OneRow;
 import org.greenplum.pxf.api.utilities.ColumnDescriptor;
-import org.greenplum.pxf.api.model.RequestContext;
 import org.greenplum.pxf.plugins.hdfs.utilities.HdfsUtilities;
 import org.apache.hadoop.hive.ql.exec.vector.VectorizedRowBatch;
 import org.apache.hadoop.hive.ql.io.orc.Reader.Options;
@@ -33,21 +35,44 @@ import org.apache.hadoop.io.LongWritable;
 /**
  * Accessor class which reads data in batches.
  * One batch is 1024 rows of all projected columns
- *
+ * <p>
+ * The ORC vectorized reader only reads columns of primitive types. Columns of
+ * nested types (list, map, struct, union) are read by a second reader over
+ * the same range, one row at a time, and returned with the batch.
  */
 public class HiveORCVectorizedAccessor extends HiveORCAccessor {
 
     private RecordReader vrr;
+    private RecordReader nestedReader;
     private int batchIndex;
     private VectorizedRowBatch batch;
+    private Batch result;
+
+    /**
+     * The rows read for a batch: the vectors of the primitive columns, and the
+     * rows holding the nested columns, if any are projected.
+     */
+    static class Batch {
+        VectorizedRowBatch vectors;
+        Object[] nestedRows;
+    }
 
     @Override
     public boolean openForRead() throws Exception {
+        orcReader = getOrcReader();
+        List<OrcProto.Type> types = orcReader.getTypes();
+
         Options options = new Options();
-        addColumns(options);
+        addColumns(options, types, false);
         addFragments(options);
-        orcReader = getOrcReader();
         vrr = orcReader.rowsOptions(options);
+
+        Options nestedOptions = new Options();
+        if (addColumns(nestedOptions, types, true)) {
+            addFragments(nestedOptions);
+            nestedReader = orcReader.rowsOptions(nestedOptions);
+        }
+        result = new Batch();
         return vrr.hasNext();
     }
 
@@ -63,14 +88,25 @@ public class HiveORCVectorizedAccessor extends HiveORCAccessor {
 
     /**
      * Reads next batch for current fragment.
-     * @return next batch in OneRow format, key is a batch number, data is a batch
+     * @return next batch in OneRow format, key is a batch number, data is a
+     * {@link Batch}
      */
     @Override
     public OneRow readNextObject() throws IOException {
         if (vrr.hasNext()) {
             batch = vrr.nextBatch(batch);
             batchIndex++;
-            return new OneRow(new LongWritable(batchIndex), batch);
+            result.vectors = batch;
+            if (nestedReader != null) {
+                if (result.nestedRows == null || result.nestedRows.length < batch.size) {
+                    result.nestedRows = new Object[batch.size];
+                }
+                // rows are not reused, the previous rows are still referenced
+                for (int i = 0; i < batch.size; i++) {
+                    result.nestedRows[i] = nestedReader.next(null);
+                }
+            }
+            return new OneRow(new LongWritable(batchIndex), result);
         } else {
             //All batches are exhausted
             return null;
@@ -79,17 +115,48 @@ public class HiveORCVectorizedAccessor extends HiveORCAccessor {
 
     /**
      * This method updated reader options to include projected columns only.
+     * The include flags are indexed by ORC column id, a nested column is
+     * included with all its children.
+     *
      * @param options reader options to modify
-     * @throws Exception
+     * @param types   the types of the file
+     * @param nested  whether to include the nested or the primitive columns
+     * @return true if any column was included
      */
-    private void addColumns(Options options) throws Exception {
-        boolean[] includeColumns = new boolean[context.getColumns() + 1];
+    private boolean addColumns(Options options, List<OrcProto.Type> types, boolean nested) {
+        boolean[] includeColumns = new boolean[types.size()];
+        OrcProto.Type struct = types.get(0);
+        boolean included = false;
         for (ColumnDescriptor col : context.getTupleDescription()) {
-            if (col.isProjected()) {
-                includeColumns[col.columnIndex() + 1] = true;
+            int index = col.columnIndex();
+            if (!col.isProjected() || index >= struct.getSubtypesCount()) {
+                continue;
+            }
+            int columnId = struct.getSubtypes(index);
+            if (isNested(types.get(columnId)) != nested) {
+                continue;
+            }
+            int lastColumnId = index + 1 < struct.getSubtypesCount()
+                    ? struct.getSubtypes(index + 1) - 1 : types.size() - 1;
+            for (int id = columnId; id <= lastColumnId; id++) {
+                includeColumns[id] = true;
             }
+            included = true;
         }
         options.include(includeColumns);
+        return included;
+    }
+
+    static boolean isNested(OrcProto.Type type) {
+        switch (type.getKind()) {
+            case LIST:
+            case MAP:
+            case STRUCT:
+            case UNION:
+                return true;
+            default:
+                return false;
+        }
     }
 
     @Override
@@ -97,5 +164,8 @@ public class HiveORCVectorizedAccessor extends HiveORCAccessor {
         if (vrr != null) {
             vrr.close();
         }
+        if (nestedReader != null) {
+            nestedReader.close();
+        }
     }
 }
@@ -32,6 +32,7 @@ import static org.greenplum.pxf.api.io.DataType.SMALLINT;
 import static org.greenplum.pxf.api.io.DataType.TEXT;
 import static org.greenplum.pxf.api.io.DataType.VARCHAR;
 
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
 import java.sql.Date;
@@ -42,13 +43,18 @@ import org.apache.hadoop.hive.ql.exec.vector.ColumnVector;
 import org.apache.hadoop.hive.ql.exec.vector.BytesColumnVector;
 import org.apache.hadoop.hive.ql.exec.vector.LongColumnVector;
 import org.apache.hadoop.hive.ql.exec.vector.VectorizedRowBatch;
+import org.apache.hadoop.hive.ql.io.orc.OrcProto;
+import org.apache.hadoop.hive.ql.io.orc.Reader;
 import org.apache.hadoop.io.Text;
 import org.greenplum.pxf.api.OneField;
 import org.greenplum.pxf.api.OneRow;
+import org.greenplum.pxf.api.ReadColumnarResolver;
 import org.greenplum.pxf.api.ReadVectorizedResolver;
 import org.greenplum.pxf.api.UnsupportedTypeException;
+import org.greenplum.pxf.api.io.ColumnBatch;
 import org.greenplum.pxf.api.io.DataType;
 import org.greenplum.pxf.api.model.RequestContext;
+import org.greenplum.pxf.api.utilities.ColumnDescriptor;
 import org.apache.hadoop.hive.serde2.io.DateWritable;
 import org.apache.hadoop.hive.serde2.objectinspector.*;
 import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector.Category;
@@ -58,29 +64,146 @@ import org.apache.hadoop.hive.ql.exec.vector.*;
 
 /**
  * Class which implements resolving a batch of records at once
+ * <p>
+ * As a {@link ReadColumnarResolver}, the ORC column vectors are copied
+ * straight into the vectors of a {@link ColumnBatch}, see
+ * {@link HiveORCColumnWriter}. Columns of nested types are converted to text
+ * the same way {@link HiveResolver} converts them, partition columns are
+ * filled with the partition values of the fragment.
  */
-public class HiveORCVectorizedResolver extends HiveResolver implements ReadVectorizedResolver {
+public class HiveORCVectorizedResolver extends HiveResolver implements ReadVectorizedResolver, ReadColumnarResolver {
 
     private static final Log LOG = LogFactory.getLog(HiveORCVectorizedResolver.class);
 
     private List<List<OneField>> resolvedBatch;
     private StructObjectInspector soi;
+    private List<OrcProto.Type> types;
+    private ColumnBatch columnBatch;
+    private HiveORCColumnWriter[] writers;
 
     @Override
     public void initialize(RequestContext requestContext) {
         super.initialize(requestContext);
         try {
-            soi = (StructObjectInspector) getOrcReader().getObjectInspector();
+            Reader reader = getOrcReader();
+            soi = (StructObjectInspector) reader.getObjectInspector();
+            types = reader.getTypes();
         } catch (Exception e) {
             LOG.error("Failed to create an object inspector.");
             throw new RuntimeException("Failed to initialize HiveORCVectorizedResolver", e);
         }
     }
 
+    /**
+     * Copies the rows of a batch into the column vectors.
+     *
+     * @param batch the batch read by {@link HiveORCVectorizedAccessor}
+     * @return the column vectors of the rows, reused by the next call
+     * @throws Exception if a nested value could not be converted
+     */
+    @Override
+    public ColumnBatch getColumnBatch(OneRow batch) throws Exception {
+        HiveORCVectorizedAccessor.Batch data = (HiveORCVectorizedAccessor.Batch) batch.getData();
+        VectorizedRowBatch vectorizedBatch = data.vectors;
+        int size = vectorizedBatch.size;
+        if (size == 0) {
+            return null;
+        }
+        if (columnBatch == null) {
+            initColumnBatch();
+        }
+        columnBatch.reset();
+
+        List<? extends StructField> fields = soi.getAllStructFieldRefs();
+        int fieldCount = context.getColumns() - getNumberOfPartitions();
+        for (int i = 0; i < fieldCount; i++) {
+            org.greenplum.pxf.api.io.ColumnVector target = columnBatch.getColumn(i);
+            ColumnDescriptor column = context.getColumn(i);
+            if (!column.isProjected() || i >= fields.size()) {
+                HiveORCColumnWriter.writeNulls(target, size);
+            } else if (writers[i] == null) {
+                // nested column, read one row at a time
+                StructField field = fields.get(i);
+                ObjectInspector oi = field.getFieldObjectInspector();
+                for (int row = 0; row < size; row++) {
+                    String value = complexValueToText(soi.getStructFieldData(data.nestedRows[row], field), oi);
+                    if (value == null) {
+                        target.setNull(row);
+                    } else {
+                        target.setString(row, value);
+                    }
+                }
+            } else {
+                writers[i].write(vectorizedBatch.cols[i], target, size);
+            }
+        }
+        List<OneField> partitionFields = getPartitionFields();
+        for (int i = 0; i < partitionFields.size(); i++) {
+            writePartitionValue(partitionFields.get(i).val, columnBatch.getColumn(fieldCount + i), size);
+        }
+
+        if (vectorizedBatch.selectedInUse) {
+            columnBatch.setSize(vectorizedBatch.selected[size - 1] + 1);
+            System.arraycopy(vectorizedBatch.selected, 0, columnBatch.getSelected(), 0, size);
+            columnBatch.setSelectedSize(size);
+        } else {
+            columnBatch.setSize(size);
+        }
+        return columnBatch;
+    }
+
+    /*
+     * Creates the column batch and the writers of the projected primitive
+     * columns. The writers of nested columns are left null.
+     */
+    private void initColumnBatch() {
+        columnBatch = new ColumnBatch(context.getTupleDescription());
+        OrcProto.Type struct = types.get(0);
+        int fieldCount = Math.min(context.getColumns() - getNumberOfPartitions(), struct.getSubtypesCount());
+        writers = new HiveORCColumnWriter[fieldCount];
+        for (int i = 0; i < fieldCount; i++) {
+            ColumnDescriptor column = context.getColumn(i);
+            OrcProto.Type type = types.get(struct.getSubtypes(i));
+            if (column.isProjected() && !HiveORCVectorizedAccessor.isNested(type)) {
+                writers[i] = HiveORCColumnWriter.create(type, DataType.get(column.columnTypeCode()), column.columnName());
+            }
+        }
+    }
+
+    private static void writePartitionValue(Object value, org.greenplum.pxf.api.io.ColumnVector target, int size) {
+        if (value == null) {
+            HiveORCColumnWriter.writeNulls(target, size);
+            return;
+        }
+        byte[] bytes = null;
+        for (int row = 0; row < size; row++) {
+            switch (target.getType()) {
+                case BOOLEAN:
+                    target.setBoolean(row, (Boolean) value);
+                    break;
+                case SMALLINT:
+                case INTEGER:
+                case BIGINT:
+                    target.setLong(row, ((Number) value).longValue());
+                    break;
+                case REAL:
+                case FLOAT8:
+                    target.setDouble(row, ((Number) value).doubleValue());
+                    break;
+                default:
+                    if (bytes == null) {
+                        bytes = (value instanceof byte[]) ? (byte[]) value
+                                : value.toString().getBytes(StandardCharsets.UTF_8);
+                    }
+                    target.setBytes(row, bytes, 0, bytes.length);
+            }
+        }
+    }
+
     @Override
     public List<List<OneField>> getFieldsForBatch(OneRow batch) {
 
-        VectorizedRowBatch vectorizedBatch = (VectorizedRowBatch) batch.getData();
+        VectorizedRowBatch vectorizedBatch = ((HiveORCVectorizedAccessor.Batch) batch.getData()).vectors;
 
         /* Allocate empty result set */
         int columnsNumber = context.getColumns();
@@ -354,6 +354,24 @@ public class HiveResolver extends HivePlugin implements Resolver {
         return isDefaultPartition;
     }
 
+    /**
+     * Converts a value of a complex type (list, map, struct or union) to its
+     * text representation, the same one {@link #getFields(OneRow)} returns
+     * for complex columns.
+     *
+     * @param value        the value, or null
+     * @param objInspector the object inspector of the value
+     * @return the text of the value, or null if the value is null
+     * @throws IOException        if a primitive value could not be converted
+     * @throws BadRecordException if a nested collection is null
+     */
+    String complexValueToText(Object value, ObjectInspector objInspector)
+            throws IOException, BadRecordException {
+        List<OneField> record = new LinkedList<>();
+        traverseTuple(value, objInspector, record, false);
+        return (String) record.get(0).val;
+    }
+
     /*
      * If the object representing the whole record is null or if an object
      * representing a composite sub-object (map, list,..) is null - then
@@ -0,0 +1,172 @@
+package org.greenplum.pxf.plugins.hive.utilities;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hive.metastore.HiveMetaStoreClient;
+import org.greenplum.pxf.api.model.RequestContext;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pool of Hive MetaStore clients, so that every fragmenter and metadata
+ * request does not open a new Thrift connection to the MetaStore.
+ * <p>
+ * Idle clients are kept per server and user, since the MetaStore may
+ * authorize requests by the user that opened the connection. A client that
+ * stayed idle longer than the idle timeout is closed instead of reused, the
+ * MetaStore may have closed its end of the connection. The maximum number of
+ * idle clients per server and user, and the idle timeout in seconds, can be
+ * overridden by the pxf.service.hive.client.pool.size and
+ * pxf.service.hive.client.idle.timeout system properties.
+ */
+public class HiveClientPool {
+
+    private static final Log LOG = LogFactory.getLog(HiveClientPool.class);
+
+    static final String PROPERTY_KEY_CLIENT_POOL_SIZE = "pxf.service.hive.client.pool.size";
+    static final String PROPERTY_KEY_CLIENT_IDLE_TIMEOUT = "pxf.service.hive.client.idle.timeout";
+    static final int CLIENT_POOL_SIZE = 8;
+    static final long CLIENT_IDLE_TIMEOUT = 300; // 5 minutes
+
+    private static final HiveClientPool INSTANCE = new HiveClientPool(
+            Integer.getInteger(PROPERTY_KEY_CLIENT_POOL_SIZE, CLIENT_POOL_SIZE),
+            TimeUnit.SECONDS.toNanos(Long.getLong(PROPERTY_KEY_CLIENT_IDLE_TIMEOUT, CLIENT_IDLE_TIMEOUT)));
+
+    private final int maxIdle;
+    private final long idleTimeoutNanos;
+    private final Map<String, Deque<IdleClient>> idleClients = new HashMap<>();
+
+    HiveClientPool(int maxIdle, long idleTimeoutNanos) {
+        this.maxIdle = maxIdle;
+        this.idleTimeoutNanos = idleTimeoutNanos;
+    }
+
+    public static HiveClientPool getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Returns the key of the clients of a request: the server and the user.
+     *
+     * @param context the request context
+     * @return the key
+     */
+    public static String getKey(RequestContext context) {
+        return context.getServerName() + "/" + context.getUser();
+    }
+
+    /**
+     * Takes an idle client of the given key, or creates a new one.
+     *
+     * @param key           the key of the client, see {@link #getKey(RequestContext)}
+     * @param configuration the configuration of the server
+     * @return the client
+     */
+    public HiveMetaStoreClient borrow(String key, Configuration configuration) {
+        long now = System.nanoTime();
+        while (true) {
+            IdleClient idle;
+            synchronized (this) {
+                Deque<IdleClient> clients = idleClients.get(key);
+                idle = (clients == null) ? null : clients.pollFirst();
+            }
+            if (idle == null) {
+                return HiveUtilities.initHiveClient(configuration);
+            }
+            if (now - idle.releasedAt < idleTimeoutNanos) {
+                return idle.client;
+            }
+            close(idle.client);
+        }
+    }
+
+    /**
+     * Returns a client to the pool after a successful use. Clients that failed
+     * must be closed with {@link #invalidate(HiveMetaStoreClient)} instead.
+     *
+     * @param key    the key the client was borrowed with
+     * @param client the client
+     */
+    public void release(String key, HiveMetaStoreClient client) {
+        synchronized (this) {
+            Deque<IdleClient> clients = idleClients.get(key);
+            if (clients == null) {
+                clients = new ArrayDeque<>();
+                idleClients.put(key, clients);
+            }
+            if (clients.size() < maxIdle) {
+                // the most recently used client is reused first
+                clients.addFirst(new IdleClient(client, System.nanoTime()));
+                return;
+            }
+        }
+        close(client);
+    }
+
+    /**
+     * Closes a client whose connection may be broken.
+     *
+     * @param client the client
+     */
+    public void invalidate(HiveMetaStoreClient client) {
+        close(client);
+    }
+
+    /**
+     * Closes all the idle clients.
+     */
+    public void clear() {
+        Map<String, Deque<IdleClient>> clients;
+        synchronized (this) {
+            clients = new HashMap<>(idleClients);
+            idleClients.clear();
+        }
+        for (Deque<IdleClient> deque : clients.values()) {
+            for (IdleClient idle : deque) {
+                close(idle.client);
+            }
+        }
+    }
+
+    private static void close(HiveMetaStoreClient client) {
+        try {
+            client.close();
+        } catch (Exception e) {
+            LOG.warn("Failed to close Hive MetaStore client: " + e.getMessage());
+        }
+    }
+
+    private static class IdleClient {
+        private final HiveMetaStoreClient client;
+        private final long releasedAt;
+
+        IdleClient(HiveMetaStoreClient client, long releasedAt) {
+            this.client = client;
+            this.releasedAt = releasedAt;
+        }
+    }
+}
@@ -0,0 +1,257 @@
+package org.greenplum.pxf.plugins.hive.utilities;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.hive.metastore.HiveMetaStoreClient;
+import org.apache.hadoop.hive.metastore.api.CurrentNotificationEventId;
+import org.apache.hadoop.hive.metastore.api.NotificationEvent;
+import org.apache.hadoop.hive.metastore.api.NotificationEventResponse;
+import org.apache.hadoop.hive.metastore.api.Partition;
+import org.apache.hadoop.hive.metastore.api.Table;
+import org.greenplum.pxf.api.model.Metadata;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caches the Hive tables and their partitions, so that planning a query on a
+ * table with many partitions does not list all of them from the MetaStore
+ * every time.
+ * <p>
+ * Caching is off by default. It is turned on by setting
+ * pxf.service.hive.metadata.cache.expiration to the number of seconds after
+ * which entries expire, at most pxf.service.hive.metadata.cache.size lists of
+ * partitions are kept. When the MetaStore records notification events
+ * (DbNotificationListener), the events since the previous lookup are read
+ * before every lookup, and the entries of the tables they changed are
+ * dropped. Otherwise, changes become visible once the entries expire.
+ * <p>
+ * The events of a server and user are applied one batch at a time, and an
+ * entry fetched while a batch was applied is not cached, since it may have
+ * been fetched before the change.
+ */
+public class HiveMetadataCache {
+
+    private static final Log LOG = LogFactory.getLog(HiveMetadataCache.class);
+
+    static final String PROPERTY_KEY_METADATA_CACHE_EXPIRATION = "pxf.service.hive.metadata.cache.expiration";
+    static final String PROPERTY_KEY_METADATA_CACHE_SIZE = "pxf.service.hive.metadata.cache.size";
+    static final long METADATA_CACHE_EXPIRATION = 0; // off
+    static final long METADATA_CACHE_SIZE = 1000;
+    // events read per call, more events than this drop the whole cache
+    static final int MAX_EVENTS = 1000;
+    private static final String KEY_DELIM = "\u0000";
+
+    private static final HiveMetadataCache INSTANCE = new HiveMetadataCache(Ticker.systemTicker(),
+            Long.getLong(PROPERTY_KEY_METADATA_CACHE_EXPIRATION, METADATA_CACHE_EXPIRATION),
+            Long.getLong(PROPERTY_KEY_METADATA_CACHE_SIZE, METADATA_CACHE_SIZE));
+
+    private final boolean enabled;
+    private final Cache<String, Table> tables;
+    private final Cache<String, List<Partition>> partitions;
+    // the notification events read, per server and user
+    private final Map<String, EventState> eventStates = new ConcurrentHashMap<>();
+
+    HiveMetadataCache(Ticker ticker, long expiration, long size) {
+        this.enabled = expiration > 0;
+        this.tables = CacheBuilder.newBuilder()
+                .ticker(ticker)
+                .expireAfterWrite(expiration, TimeUnit.SECONDS)
+                .maximumSize(size)
+                .build();
+        this.partitions = CacheBuilder.newBuilder()
+                .ticker(ticker)
+                .expireAfterWrite(expiration, TimeUnit.SECONDS)
+                .maximumSize(size)
+                .build();
+    }
+
+    public static HiveMetadataCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Returns a table, from the cache or from the MetaStore.
+     *
+     * @param client   the MetaStore client
+     * @param key      the server and user the table is cached for, see
+     *                 {@link HiveClientPool#getKey}
+     * @param itemName the database and the name of the table
+     * @return the table
+     * @throws Exception if the table could not be fetched, or is a view
+     */
+    public Table getTable(HiveMetaStoreClient client, String key, Metadata.Item itemName) throws Exception {
+        if (!enabled) {
+            return HiveUtilities.getHiveTable(client, itemName);
+        }
+        EventState state = eventStates.computeIfAbsent(key, k -> new EventState());
+        long generation = processEvents(client, key, state);
+        String tableKey = getTableKey(key, itemName.getPath(), itemName.getName());
+        Table table = tables.getIfPresent(tableKey);
+        if (table == null) {
+            table = HiveUtilities.getHiveTable(client, itemName);
+            synchronized (state) {
+                if (state.generation == generation) {
+                    tables.put(tableKey, table);
+                }
+            }
+        }
+        return table;
+    }
+
+    /**
+     * Returns the partitions of a table matching a MetaStore filter, from the
+     * cache or from the MetaStore. The returned list must not be modified.
+     *
+     * @param client   the MetaStore client
+     * @param key      the server and user the partitions are cached for
+     * @param itemName the database and the name of the table
+     * @param filter   the MetaStore partition filter, empty for all the
+     *                 partitions
+     * @return the partitions
+     * @throws Exception if the partitions could not be fetched
+     */
+    public List<Partition> getPartitions(HiveMetaStoreClient client, String key, Metadata.Item itemName,
+                                         String filter) throws Exception {
+        if (!enabled) {
+            return listPartitions(client, itemName, filter);
+        }
+        EventState state = eventStates.computeIfAbsent(key, k -> new EventState());
+        long generation = processEvents(client, key, state);
+        String partitionsKey = getTableKey(key, itemName.getPath(), itemName.getName()) + filter;
+        List<Partition> result = partitions.getIfPresent(partitionsKey);
+        if (result == null) {
+            result = Collections.unmodifiableList(listPartitions(client, itemName, filter));
+            synchronized (state) {
+                if (state.generation == generation) {
+                    partitions.put(partitionsKey, result);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Drops all the cached entries.
+     */
+    public void clear() {
+        for (EventState state : eventStates.values()) {
+            synchronized (state) {
+                state.generation++;
+            }
+        }
+        eventStates.clear();
+        tables.invalidateAll();
+        partitions.invalidateAll();
+    }
+
+    private static List<Partition> listPartitions(HiveMetaStoreClient client, Metadata.Item itemName,
+                                                  String filter) throws Exception {
+        if (filter.isEmpty()) {
+            return client.listPartitions(itemName.getPath(), itemName.getName(), (short) -1);
+        }
+        return client.listPartitionsByFilter(itemName.getPath(), itemName.getName(), filter, (short) -1);
+    }
+
+    /*
+     * Reads the notification events since the previous call and drops the
+     * entries of the tables they changed, returns the generation of the
+     * entries of the key once the events are applied. The first call only
+     * records the current event id, since the cache has no entries yet. A
+     * negative id marks a MetaStore that does not record events. A batch
+     * that cannot be applied entirely drops all the entries of the key.
+     */
+    private long processEvents(HiveMetaStoreClient client, String key, EventState state) {
+        synchronized (state) {
+            if (state.lastEventId != null && state.lastEventId < 0) {
+                return state.generation;
+            }
+            try {
+                if (state.lastEventId == null) {
+                    CurrentNotificationEventId current = client.getCurrentNotificationEventId();
+                    state.lastEventId = current == null ? -1L : current.getEventId();
+                    return state.generation;
+                }
+                NotificationEventResponse response = client.getNextNotification(state.lastEventId, MAX_EVENTS, null);
+                if (response == null || response.getEvents() == null || response.getEvents().isEmpty()) {
+                    return state.generation;
+                }
+                List<NotificationEvent> events = response.getEvents();
+                state.generation++;
+                if (events.size() >= MAX_EVENTS) {
+                    invalidate(key + KEY_DELIM);
+                } else {
+                    for (NotificationEvent event : events) {
+                        if (event.getDbName() == null || event.getTableName() == null) {
+                            // database events
+                            invalidate(key + KEY_DELIM);
+                        } else {
+                            invalidate(getTableKey(key, event.getDbName(), event.getTableName()));
+                        }
+                    }
+                }
+                state.lastEventId = events.get(events.size() - 1).getEventId();
+            } catch (Exception e) {
+                LOG.warn("Failed to read notification events from Hive MetaStore, " +
+                        "cached metadata is refreshed on expiration only: " + e.getMessage());
+                state.generation++;
+                invalidate(key + KEY_DELIM);
+                state.lastEventId = -1L;
+            }
+            return state.generation;
+        }
+    }
+
+    private void invalidate(String prefix) {
+        for (String cached : tables.asMap().keySet()) {
+            if (cached.startsWith(prefix)) {
+                tables.invalidate(cached);
+            }
+        }
+        for (String cached : partitions.asMap().keySet()) {
+            if (cached.startsWith(prefix)) {
+                partitions.invalidate(cached);
+            }
+        }
+    }
+
+    /*
+     * The notification events read for a server and user, guarded by the
+     * instance itself. The generation changes whenever entries are dropped.
+     */
+    private static class EventState {
+        // null until the first lookup
+        private Long lastEventId;
+        private long generation;
+    }
+
+    // database and table names are case insensitive in Hive
+    private static String getTableKey(String key, String dbName, String tableName) {
+        return key + KEY_DELIM + dbName.toLowerCase() + KEY_DELIM + tableName.toLowerCase() + KEY_DELIM;
+    }
+}
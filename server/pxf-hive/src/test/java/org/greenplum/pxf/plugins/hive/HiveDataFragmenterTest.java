@@ -21,18 +21,28 @@ package org.greenplum.pxf.plugins.hive;
 
 
 import org.greenplum.pxf.api.FilterParser;
+import org.greenplum.pxf.api.model.Fragment;
 import org.greenplum.pxf.api.model.ConfigurationFactory;
 import org.greenplum.pxf.api.model.RequestContext;
 import org.greenplum.pxf.api.BasicFilter;
 import org.greenplum.pxf.api.utilities.ColumnDescriptor;
+import org.greenplum.pxf.plugins.hive.utilities.HiveClientPool;
+import org.greenplum.pxf.plugins.hive.utilities.HiveMetadataCache;
 
 import static org.greenplum.pxf.api.FilterParser.Operation.*;
 
 import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.hive.conf.HiveConf;
 import org.apache.hadoop.hive.metastore.HiveMetaStoreClient;
 import org.apache.hadoop.hive.metastore.api.MetaException;
+import org.apache.hadoop.hive.metastore.api.SerDeInfo;
+import org.apache.hadoop.hive.metastore.api.StorageDescriptor;
+import org.apache.hadoop.mapred.FileSplit;
+import org.apache.hadoop.mapred.InputFormat;
+import org.apache.hadoop.mapred.InputSplit;
 import org.apache.hadoop.mapred.JobConf;
+import org.apache.hadoop.security.UserGroupInformation;
 
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -46,9 +56,14 @@ import org.powermock.core.classloader.annotations.SuppressStaticInitializationFo
 import org.powermock.modules.junit4.PowerMockRunner;
 import org.powermock.reflect.Whitebox;
 
+import java.io.IOException;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
+import java.security.PrivilegedExceptionAction;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 @RunWith(PowerMockRunner.class)
 @PrepareForTest({HiveDataFragmenter.class}) // Enables mocking 'new' calls
@@ -66,6 +81,10 @@ public class HiveDataFragmenterTest {
 
 
     private void prepareConstruction() throws Exception {
+        // pooled clients and cached tables are mocks of the previous tests
+        HiveClientPool.getInstance().clear();
+        HiveMetadataCache.getInstance().clear();
+
         configurationFactory = mock(ConfigurationFactory.class);
         requestContext = mock(RequestContext.class);
         hadoopConfiguration = mock(Configuration.class);
@@ -219,6 +238,119 @@ public class HiveDataFragmenterTest {
         }
     }
 
+    @Test
+    public void partitionBatchesKeepThePartitionOrder() throws Exception {
+        prepareConstruction();
+        final List<HiveTablePartition> partitions = makePartitions(50);
+        fragmenter = new HiveDataFragmenter(configurationFactory) {
+            @Override
+            protected InputSplit[] getSplits(InputFormat<?, ?> inputFormat, HiveTablePartition tablePartition)
+                    throws Exception {
+                // the first batches finish last
+                int index = partitions.indexOf(tablePartition);
+                Thread.sleep(index < 16 ? 50 : 0);
+                return makeSplits(index);
+            }
+        };
+        fragmenter.initialize(requestContext);
+
+        List<Fragment> fragments = fetchPartitionedTable(partitions);
+
+        assertEquals(100, fragments.size());
+        for (int i = 0; i < fragments.size(); i++) {
+            assertEquals("/warehouse/t/p" + (i / 2) + "/" + (i % 2), fragments.get(i).getSourceName());
+        }
+    }
+
+    @Test
+    public void failedPartitionBatchCancelsTheOtherBatches() throws Exception {
+        prepareConstruction();
+        final List<HiveTablePartition> partitions = makePartitions(64);
+        final CountDownLatch interrupted = new CountDownLatch(2);
+        final Set<Integer> listed = Collections.newSetFromMap(new ConcurrentHashMap<Integer, Boolean>());
+        fragmenter = new HiveDataFragmenter(configurationFactory) {
+            @Override
+            protected InputSplit[] getSplits(InputFormat<?, ?> inputFormat, HiveTablePartition tablePartition)
+                    throws Exception {
+                int index = partitions.indexOf(tablePartition);
+                listed.add(index);
+                if (index == 20) {
+                    throw new IOException("listing p20 failed");
+                }
+                if (index >= 32) {
+                    // the last two batches wait until they are cancelled
+                    try {
+                        Thread.sleep(TimeUnit.MINUTES.toMillis(1));
+                    } catch (InterruptedException e) {
+                        interrupted.countDown();
+                        throw e;
+                    }
+                }
+                return makeSplits(index);
+            }
+        };
+        fragmenter.initialize(requestContext);
+
+        try {
+            fetchPartitionedTable(partitions);
+            fail("Expected an IOException");
+        } catch (IOException e) {
+            assertEquals("listing p20 failed", e.getMessage());
+        }
+        assertTrue(interrupted.await(10, TimeUnit.SECONDS));
+        assertFalse(listed.contains(33));
+        assertFalse(listed.contains(49));
+    }
+
+    @Test
+    public void partitionBatchesRunAsTheRequestUser() throws Exception {
+        prepareConstruction();
+        final List<HiveTablePartition> partitions = makePartitions(40);
+        final Set<String> users = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+        fragmenter = new HiveDataFragmenter(configurationFactory) {
+            @Override
+            protected InputSplit[] getSplits(InputFormat<?, ?> inputFormat, HiveTablePartition tablePartition)
+                    throws Exception {
+                users.add(UserGroupInformation.getCurrentUser().getUserName());
+                return makeSplits(partitions.indexOf(tablePartition));
+            }
+        };
+        fragmenter.initialize(requestContext);
+
+        List<Fragment> fragments = UserGroupInformation.createRemoteUser("alice").doAs(
+                (PrivilegedExceptionAction<List<Fragment>>) () -> fetchPartitionedTable(partitions));
+
+        assertEquals(80, fragments.size());
+        assertEquals(Collections.singleton("alice"), users);
+    }
+
+    private List<HiveTablePartition> makePartitions(int count) {
+        when(requestContext.getFragmenter()).thenReturn(HiveDataFragmenter.class.getName());
+        List<HiveTablePartition> partitions = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            StorageDescriptor storageDesc = new StorageDescriptor();
+            storageDesc.setLocation("hdfs:///warehouse/t/p" + i);
+            storageDesc.setInputFormat("org.apache.hadoop.mapred.SequenceFileInputFormat");
+            storageDesc.setSerdeInfo(new SerDeInfo(null, "org.apache.hadoop.hive.serde2.lazy.LazySimpleSerDe",
+                    new HashMap<String, String>()));
+            partitions.add(new HiveTablePartition(storageDesc, new Properties(), null, null, "t"));
+        }
+        return partitions;
+    }
+
+    // two splits per partition
+    private static InputSplit[] makeSplits(int index) {
+        return new InputSplit[]{
+                new FileSplit(new Path("/warehouse/t/p" + index + "/0"), 0, 10, new String[]{"host"}),
+                new FileSplit(new Path("/warehouse/t/p" + index + "/1"), 0, 10, new String[]{"host"})};
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Fragment> fetchPartitionedTable(List<HiveTablePartition> partitions) throws Exception {
+        Whitebox.invokeMethod(fragmenter, "fetchMetaDataForPartitionedTable", partitions, false);
+        return (List<Fragment>) Whitebox.getInternalState(fragmenter, "fragments");
+    }
+
     private void checkPushDownFilter(HiveDataFragmenter fragmenter, ColumnDescriptor columnDescriptor, Method method,
                                      Field partitionkeyTypes, Field setPartitions) throws Exception {
         String filterColumnName = columnDescriptor.columnName();
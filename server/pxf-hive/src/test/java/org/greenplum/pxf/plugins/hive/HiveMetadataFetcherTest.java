@@ -33,6 +33,8 @@ import org.greenplum.pxf.api.model.ConfigurationFactory;
 import org.greenplum.pxf.api.model.Metadata;
 import org.greenplum.pxf.api.model.PluginConf;
 import org.greenplum.pxf.api.model.RequestContext;
+import org.greenplum.pxf.plugins.hive.utilities.HiveClientPool;
+import org.greenplum.pxf.plugins.hive.utilities.HiveMetadataCache;
 import org.greenplum.pxf.plugins.hive.utilities.HiveUtilities;
 import org.junit.Before;
 import org.junit.Test;
@@ -69,6 +71,10 @@ public class HiveMetadataFetcherTest {
 
     @Before
     public void setupCompressionFactory() throws Exception {
+        // pooled clients and cached tables are mocks of the previous tests
+        HiveClientPool.getInstance().clear();
+        HiveMetadataCache.getInstance().clear();
+
         LOG = mock(Log.class);
         Whitebox.setInternalState(HiveUtilities.class, LOG);
 
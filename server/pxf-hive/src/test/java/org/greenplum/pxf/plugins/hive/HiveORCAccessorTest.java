@@ -19,13 +19,17 @@ package org.greenplum.pxf.plugins.hive;
  * under the License.
  */
 
+import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.hive.ql.io.orc.OrcInputFormat;
 import org.apache.hadoop.hive.ql.io.orc.Reader;
+import org.apache.hadoop.hive.ql.io.orc.StripeInformation;
 import org.apache.hadoop.hive.ql.io.sarg.SearchArgument;
 import org.apache.hadoop.hive.ql.io.sarg.SearchArgumentFactory;
 import org.apache.hadoop.mapred.*;
+import org.greenplum.pxf.api.OneRow;
 import org.greenplum.pxf.api.model.RequestContext;
 import org.greenplum.pxf.api.utilities.ColumnDescriptor;
+import org.greenplum.pxf.api.utilities.EnumAggregationType;
 import org.greenplum.pxf.plugins.hdfs.utilities.HdfsUtilities;
 import org.greenplum.pxf.plugins.hive.utilities.HiveUtilities;
 import org.junit.Before;
@@ -37,8 +41,14 @@ import org.powermock.core.classloader.annotations.PrepareForTest;
 import org.powermock.core.classloader.annotations.SuppressStaticInitializationFor;
 import org.powermock.modules.junit4.PowerMockRunner;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import static org.apache.hadoop.hive.ql.io.sarg.SearchArgumentFactory.SARG_PUSHDOWN;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
@@ -132,4 +142,48 @@ public class HiveORCAccessorTest {
         accessor.emitAggObject();
     }
 
+    @Test
+    @SuppressWarnings("unchecked")
+    public void emitAggObjectCountUsesStripesOfSplit() throws Exception {
+        useStats();
+        RecordReader recordReader = mock(RecordReader.class);
+        when(recordReader.next(any(), any())).thenReturn(true);
+        PowerMockito.when(orcInputFormat.getRecordReader(any(InputSplit.class), any(JobConf.class), any(Reporter.class))).thenReturn(recordReader);
+
+        accessor.openForRead();
+        accessor.retrieveStats();
+
+        // the stripe at offset 100 belongs to the next split
+        OneRow row = accessor.emitAggObject();
+        assertNotNull(row);
+        assertSame(row, accessor.emitAggObject());
+        assertSame(row, accessor.emitAggObject());
+        assertNull(accessor.emitAggObject());
+    }
+
+    /*
+     * Sets up a COUNT(*) query over a split of the first 100 bytes of a
+     * file with three stripes of 2, 1 and 5 rows
+     */
+    private void useStats() throws Exception {
+        when(requestContext.getAggType()).thenReturn(EnumAggregationType.COUNT);
+        when(requestContext.getNumAttrsProjected()).thenReturn(0);
+        PowerMockito.when(HdfsUtilities.parseFileSplit(any(RequestContext.class)))
+                .thenReturn(new FileSplit(new Path("/tmp/file.orc"), 0, 100, new String[0]));
+
+        List<StripeInformation> stripes = new ArrayList<>();
+        long[][] stripeInfo = {{3, 2}, {50, 1}, {100, 5}};
+        for (long[] info : stripeInfo) {
+            StripeInformation stripe = mock(StripeInformation.class);
+            when(stripe.getOffset()).thenReturn(info[0]);
+            when(stripe.getNumberOfRows()).thenReturn(info[1]);
+            stripes.add(stripe);
+        }
+        when(orcReader.getStripes()).thenReturn(stripes);
+
+        accessor = new HiveORCAccessor();
+        accessor.initialize(requestContext);
+        PowerMockito.when(accessor.getOrcReader()).thenReturn(orcReader);
+    }
+
 }
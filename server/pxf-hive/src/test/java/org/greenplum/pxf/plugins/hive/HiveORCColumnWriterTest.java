@@ -0,0 +1,101 @@
+package org.greenplum.pxf.plugins.hive;
+
+import org.apache.hadoop.hive.common.type.HiveDecimal;
+import org.apache.hadoop.hive.ql.exec.vector.BytesColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.DecimalColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.DoubleColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.LongColumnVector;
+import org.apache.hadoop.hive.ql.io.orc.OrcProto;
+import org.apache.hadoop.hive.serde2.io.DateWritable;
+import org.greenplum.pxf.api.UnsupportedTypeException;
+import org.greenplum.pxf.api.io.ColumnVector;
+import org.greenplum.pxf.api.io.DataType;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.Timestamp;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class HiveORCColumnWriterTest {
+
+    @Test
+    public void longValuesAndNulls() {
+        LongColumnVector source = new LongColumnVector(3);
+        source.vector[0] = 1;
+        source.vector[2] = 3;
+        source.noNulls = false;
+        source.isNull[1] = true;
+
+        ColumnVector target = write(OrcProto.Type.Kind.INT, DataType.INTEGER, source, 3);
+        assertEquals(1, target.getLong(0));
+        assertTrue(target.isNull(1));
+        assertEquals(3, target.getLong(2));
+    }
+
+    @Test
+    public void repeatingValues() {
+        DoubleColumnVector source = new DoubleColumnVector(3);
+        source.isRepeating = true;
+        source.vector[0] = 1.5d;
+
+        ColumnVector target = write(OrcProto.Type.Kind.DOUBLE, DataType.FLOAT8, source, 3);
+        assertFalse(target.hasNulls());
+        assertEquals(1.5d, target.getDouble(2), 0);
+
+        BytesColumnVector bytes = new BytesColumnVector(3);
+        bytes.initBuffer();
+        bytes.setVal(0, "abc".getBytes(StandardCharsets.UTF_8), 0, 3);
+        bytes.isRepeating = true;
+        target = write(OrcProto.Type.Kind.STRING, DataType.TEXT, bytes, 3);
+        assertEquals("abc", target.getString(0));
+        assertEquals("abc", target.getString(2));
+    }
+
+    @Test
+    public void repeatingNull() {
+        LongColumnVector source = new LongColumnVector(3);
+        source.isRepeating = true;
+        source.noNulls = false;
+        source.isNull[0] = true;
+
+        ColumnVector target = write(OrcProto.Type.Kind.BOOLEAN, DataType.BOOLEAN, source, 3);
+        assertTrue(target.isNull(0));
+        assertTrue(target.isNull(2));
+    }
+
+    @Test
+    public void valuesWrittenAsText() {
+        DecimalColumnVector decimals = new DecimalColumnVector(1, 10, 2);
+        decimals.vector[0].set(HiveDecimal.create("12.34"));
+        assertEquals("12.34", write(OrcProto.Type.Kind.DECIMAL, DataType.NUMERIC, decimals, 1).getString(0));
+
+        LongColumnVector dates = new LongColumnVector(1);
+        dates.vector[0] = DateWritable.dateToDays(Date.valueOf("2019-03-01"));
+        assertEquals("2019-03-01", write(OrcProto.Type.Kind.DATE, DataType.DATE, dates, 1).getString(0));
+
+        Timestamp timestamp = Timestamp.valueOf("1969-12-31 23:59:59.123456789");
+        LongColumnVector timestamps = new LongColumnVector(1);
+        timestamps.vector[0] = Math.floorDiv(timestamp.getTime(), 1000) * 1000000000L + timestamp.getNanos();
+        assertEquals(timestamp.toString(),
+                write(OrcProto.Type.Kind.TIMESTAMP, DataType.TIMESTAMP, timestamps, 1).getString(0));
+    }
+
+    @Test(expected = UnsupportedTypeException.class)
+    public void incompatibleType() {
+        HiveORCColumnWriter.create(OrcProto.Type.newBuilder().setKind(OrcProto.Type.Kind.LONG).build(),
+                DataType.TEXT, "col");
+    }
+
+    private ColumnVector write(OrcProto.Type.Kind kind, DataType targetType,
+                               org.apache.hadoop.hive.ql.exec.vector.ColumnVector source, int size) {
+        HiveORCColumnWriter writer = HiveORCColumnWriter.create(
+                OrcProto.Type.newBuilder().setKind(kind).build(), targetType, "col");
+        ColumnVector target = new ColumnVector(targetType, size);
+        writer.write(source, target, size);
+        return target;
+    }
+}
@@ -0,0 +1,111 @@
+package org.greenplum.pxf.plugins.hive;
+
+import org.apache.hadoop.hive.ql.io.orc.ColumnStatistics;
+import org.apache.hadoop.hive.ql.io.orc.DoubleColumnStatistics;
+import org.apache.hadoop.hive.ql.io.orc.IntegerColumnStatistics;
+import org.apache.hadoop.hive.ql.io.orc.OrcProto;
+import org.apache.hadoop.hive.ql.io.orc.StringColumnStatistics;
+import org.greenplum.pxf.api.io.DataType;
+import org.greenplum.pxf.api.model.RequestContext;
+import org.greenplum.pxf.api.utilities.ColumnDescriptor;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class HiveORCStripeFilterTest {
+
+    private RequestContext context;
+    private List<OrcProto.Type> types;
+    private ColumnStatistics[] statistics;
+
+    @Before
+    public void setup() {
+        context = new RequestContext();
+        DataType[] columnTypes = {DataType.INTEGER, DataType.TEXT, DataType.FLOAT8, DataType.TEXT};
+        for (int i = 0; i < columnTypes.length; i++) {
+            context.getTupleDescription().add(new ColumnDescriptor("col" + i, columnTypes[i].getOID(), i,
+                    columnTypes[i].name(), null));
+        }
+
+        types = Arrays.asList(
+                OrcProto.Type.newBuilder().setKind(OrcProto.Type.Kind.STRUCT)
+                        .addSubtypes(1).addSubtypes(2).addSubtypes(3).build(),
+                OrcProto.Type.newBuilder().setKind(OrcProto.Type.Kind.INT).build(),
+                OrcProto.Type.newBuilder().setKind(OrcProto.Type.Kind.STRING).build(),
+                OrcProto.Type.newBuilder().setKind(OrcProto.Type.Kind.DOUBLE).build());
+
+        // 100 rows, col0 in [10, 20], col1 in ["b", "d"] with nulls, col2 in [1.5, 2.5]
+        IntegerColumnStatistics integerStats = mock(IntegerColumnStatistics.class);
+        when(integerStats.getNumberOfValues()).thenReturn(100L);
+        when(integerStats.getMinimum()).thenReturn(10L);
+        when(integerStats.getMaximum()).thenReturn(20L);
+        StringColumnStatistics stringStats = mock(StringColumnStatistics.class);
+        when(stringStats.getNumberOfValues()).thenReturn(90L);
+        when(stringStats.getMinimum()).thenReturn("b");
+        when(stringStats.getMaximum()).thenReturn("d");
+        DoubleColumnStatistics doubleStats = mock(DoubleColumnStatistics.class);
+        when(doubleStats.getNumberOfValues()).thenReturn(100L);
+        when(doubleStats.getMinimum()).thenReturn(1.5d);
+        when(doubleStats.getMaximum()).thenReturn(2.5d);
+        statistics = new ColumnStatistics[]{mock(ColumnStatistics.class), integerStats, stringStats, doubleStats};
+    }
+
+    @Test
+    public void comparisons() throws Exception {
+        assertTrue(canMatch("a0c23s2d15o5"));
+        assertFalse(canMatch("a0c23s2d25o5"));
+        assertFalse(canMatch("a0c23s2d10o1"));
+        assertTrue(canMatch("a0c23s2d10o3"));
+        assertFalse(canMatch("a0c23s2d20o2"));
+        assertTrue(canMatch("a0c23s2d20o4"));
+        assertTrue(canMatch("a2c701s3d2.0o5"));
+        assertFalse(canMatch("a2c701s3d3.0o5"));
+    }
+
+    @Test
+    public void textOnlySupportsEquality() throws Exception {
+        assertTrue(canMatch("a1c25s1dco5"));
+        assertFalse(canMatch("a1c25s1dao5"));
+        // ordering depends on the collation
+        assertTrue(canMatch("a1c25s1dao1"));
+    }
+
+    @Test
+    public void nullChecks() throws Exception {
+        assertTrue(canMatch("a1o8"));
+        assertFalse(canMatch("a0o8"));
+        assertTrue(canMatch("a0o9"));
+    }
+
+    @Test
+    public void logicalOperations() throws Exception {
+        assertFalse(canMatch("a0c23s2d15o5a0c23s2d25o5l0"));
+        assertTrue(canMatch("a0c23s2d15o5a0c23s2d25o5l1"));
+        assertFalse(canMatch("a0c23s2d25o5a0c23s2d30o5l1"));
+        // NOT is never evaluated
+        assertTrue(canMatch("a0c23s2d15o5l2"));
+    }
+
+    @Test
+    public void in() throws Exception {
+        assertTrue(canMatch("a0m1007s1d1s2d12o10"));
+        assertFalse(canMatch("a0m1007s1d1s1d2o10"));
+    }
+
+    @Test
+    public void partitionColumnsAreNotEvaluated() throws Exception {
+        assertTrue(canMatch("a3c25s1dao5"));
+    }
+
+    private boolean canMatch(String filterString) throws Exception {
+        Object filter = new HiveFilterBuilder(context).getFilterObject(filterString);
+        return new HiveORCStripeFilter(context, filter, 3).canMatch(types, statistics, 100);
+    }
+}
@@ -0,0 +1,207 @@
+package org.greenplum.pxf.plugins.hive;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.hadoop.fs.BlockLocation;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hive.metastore.api.StorageDescriptor;
+import org.apache.hadoop.hive.ql.io.orc.ColumnStatistics;
+import org.apache.hadoop.hive.ql.io.orc.OrcInputFormat;
+import org.apache.hadoop.hive.ql.io.orc.OrcProto;
+import org.apache.hadoop.hive.ql.io.orc.StripeInformation;
+import org.apache.hadoop.mapred.FileSplit;
+import org.apache.hadoop.mapred.InputSplit;
+import org.apache.hadoop.mapred.JobConf;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.powermock.reflect.Whitebox;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Matchers.same;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class HiveORCStripeFragmenterTest {
+
+    private static final Path FILE_PATH = new Path("hdfs:///warehouse/t/000000_0");
+    private static final long STRIPE_LENGTH = 100;
+    private static final long FILE_LENGTH = 500;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private HiveORCStripeFragmenter fragmenter;
+    private FileSystem fs;
+    private List<StripeInformation> stripes;
+    private List<ColumnStatistics[]> stripeStatistics;
+    private List<OrcProto.Type> types;
+
+    @Before
+    public void setup() throws Exception {
+        fragmenter = new HiveORCStripeFragmenter();
+        fs = mock(FileSystem.class);
+
+        // 4 stripes of 100 bytes after the 3 bytes of the ORC header
+        stripes = new ArrayList<>();
+        stripeStatistics = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            StripeInformation stripe = mock(StripeInformation.class);
+            when(stripe.getOffset()).thenReturn(3 + i * STRIPE_LENGTH);
+            when(stripe.getLength()).thenReturn(STRIPE_LENGTH);
+            when(stripe.getNumberOfRows()).thenReturn(1000L);
+            stripes.add(stripe);
+            stripeStatistics.add(new ColumnStatistics[]{mock(ColumnStatistics.class)});
+        }
+        types = Collections.singletonList(OrcProto.Type.newBuilder().setKind(OrcProto.Type.Kind.STRUCT).build());
+    }
+
+    @Test
+    public void consecutiveStripesAreGroupedInOneSplit() throws Exception {
+        FileStatus file = fileWithBlocks(1000, new BlockLocation(null, new String[]{"h1"}, 0, FILE_LENGTH));
+
+        List<InputSplit> splits = new ArrayList<>();
+        int skipped = fragmenter.addSplits(splits, fs, file, footer(), null);
+
+        assertEquals(0, skipped);
+        assertEquals(1, splits.size());
+        assertSplit(splits.get(0), 3, 400);
+    }
+
+    @Test
+    public void splitsAreAtMostABlock() throws Exception {
+        FileStatus file = fileWithBlocks(250,
+                new BlockLocation(null, new String[]{"h1"}, 0, 250),
+                new BlockLocation(null, new String[]{"h1"}, 250, 250));
+
+        List<InputSplit> splits = new ArrayList<>();
+        fragmenter.addSplits(splits, fs, file, footer(), null);
+
+        assertEquals(2, splits.size());
+        assertSplit(splits.get(0), 3, 200);
+        assertSplit(splits.get(1), 203, 200);
+    }
+
+    @Test
+    public void stripesThatCannotMatchAreSkipped() throws Exception {
+        FileStatus file = fileWithBlocks(1000, new BlockLocation(null, new String[]{"h1"}, 0, FILE_LENGTH));
+        HiveORCStripeFilter filter = mock(HiveORCStripeFilter.class);
+        when(filter.canMatch(anyListOf(OrcProto.Type.class), any(ColumnStatistics[].class), anyLong())).thenReturn(true);
+        when(filter.canMatch(anyListOf(OrcProto.Type.class), same(stripeStatistics.get(1)), anyLong())).thenReturn(false);
+
+        List<InputSplit> splits = new ArrayList<>();
+        int skipped = fragmenter.addSplits(splits, fs, file, footer(), filter);
+
+        assertEquals(1, skipped);
+        assertEquals(2, splits.size());
+        assertSplit(splits.get(0), 3, 100);
+        assertSplit(splits.get(1), 203, 200);
+    }
+
+    @Test
+    public void stripesWithoutStatisticsAreKept() throws Exception {
+        FileStatus file = fileWithBlocks(1000, new BlockLocation(null, new String[]{"h1"}, 0, FILE_LENGTH));
+        HiveORCStripeFilter filter = mock(HiveORCStripeFilter.class);
+        stripeStatistics.clear();
+
+        List<InputSplit> splits = new ArrayList<>();
+        int skipped = fragmenter.addSplits(splits, fs, file, footer(), filter);
+
+        assertEquals(0, skipped);
+        assertEquals(1, splits.size());
+        assertSplit(splits.get(0), 3, 400);
+    }
+
+    @Test
+    public void hostsHoldingMostBytesComeFirst() throws Exception {
+        FileStatus file = fileWithBlocks(1000,
+                new BlockLocation(null, new String[]{"h1", "h2"}, 0, 250),
+                new BlockLocation(null, new String[]{"h2", "h3"}, 250, 250));
+
+        List<InputSplit> splits = new ArrayList<>();
+        fragmenter.addSplits(splits, fs, file, footer(), null);
+
+        // h2 holds the whole split, h1 the 247 bytes of the first block, h3 the 153 bytes of the second one
+        assertEquals(1, splits.size());
+        assertArrayEquals(new String[]{"h2", "h1", "h3"}, splits.get(0).getLocations());
+    }
+
+    @Test
+    public void partitionsWithDirectoriesAreSplitByTheInputFormat() throws Exception {
+        File location = folder.newFolder("partition");
+        assertTrue(new File(location, "delta_0000001_0000001").mkdir());
+        assertTrue(new File(location, "000000_0").createNewFile());
+        Whitebox.setInternalState(fragmenter, "jobConf", new JobConf());
+
+        StorageDescriptor storageDesc = new StorageDescriptor();
+        storageDesc.setLocation(location.toURI().toString());
+        HiveTablePartition tablePartition = new HiveTablePartition(storageDesc, new Properties(), null, null, "t");
+        OrcInputFormat inputFormat = mock(OrcInputFormat.class);
+        InputSplit[] inputFormatSplits = new InputSplit[]{mock(InputSplit.class)};
+        when(inputFormat.getSplits(any(JobConf.class), eq(1))).thenReturn(inputFormatSplits);
+
+        assertSame(inputFormatSplits, fragmenter.getSplits(inputFormat, tablePartition));
+    }
+
+    @Test
+    public void missingPartitionHasNoSplits() throws Exception {
+        Whitebox.setInternalState(fragmenter, "jobConf", new JobConf());
+
+        StorageDescriptor storageDesc = new StorageDescriptor();
+        storageDesc.setLocation(new File(folder.getRoot(), "missing").toURI().toString());
+        HiveTablePartition tablePartition = new HiveTablePartition(storageDesc, new Properties(), null, null, "t");
+
+        assertEquals(0, fragmenter.getSplits(mock(OrcInputFormat.class), tablePartition).length);
+    }
+
+    private FileStatus fileWithBlocks(long blockSize, BlockLocation... blocks) throws Exception {
+        FileStatus file = new FileStatus(FILE_LENGTH, false, 3, blockSize, 0, FILE_PATH);
+        when(fs.getFileBlockLocations(file, 0, FILE_LENGTH)).thenReturn(blocks);
+        return file;
+    }
+
+    private HiveORCStripeFragmenter.OrcFooter footer() {
+        return new HiveORCStripeFragmenter.OrcFooter(stripes, stripeStatistics, types);
+    }
+
+    private static void assertSplit(InputSplit split, long start, long length) {
+        FileSplit fileSplit = (FileSplit) split;
+        assertEquals(FILE_PATH, fileSplit.getPath());
+        assertEquals(start, fileSplit.getStart());
+        assertEquals(length, fileSplit.getLength());
+        assertArrayEquals(new String[]{"h1"}, fileSplit.getLocations());
+    }
+}
@@ -0,0 +1,151 @@
+package org.greenplum.pxf.plugins.hive.utilities;
+
+import com.google.common.base.Ticker;
+import org.apache.hadoop.hive.metastore.HiveMetaStoreClient;
+import org.apache.hadoop.hive.metastore.IMetaStoreClient;
+import org.apache.hadoop.hive.metastore.api.CurrentNotificationEventId;
+import org.apache.hadoop.hive.metastore.api.NotificationEvent;
+import org.apache.hadoop.hive.metastore.api.NotificationEventResponse;
+import org.apache.hadoop.hive.metastore.api.Partition;
+import org.greenplum.pxf.api.model.Metadata;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class HiveMetadataCacheTest {
+
+    private static final Metadata.Item TABLE = new Metadata.Item("default", "sales");
+
+    private FakeTicker ticker;
+    private HiveMetaStoreClient client;
+    private HiveMetadataCache cache;
+
+    @Before
+    public void setup() throws Exception {
+        ticker = new FakeTicker();
+        client = mock(HiveMetaStoreClient.class);
+        List<Partition> partitions = Collections.singletonList(new Partition());
+        when(client.listPartitions("default", "sales", (short) -1)).thenReturn(partitions);
+        when(client.listPartitionsByFilter("default", "sales", "year = \"2019\"", (short) -1))
+                .thenReturn(partitions);
+        cache = new HiveMetadataCache(ticker, 60, 100);
+    }
+
+    @Test
+    public void partitionsExpire() throws Exception {
+        assertEquals(1, cache.getPartitions(client, "default/gpadmin", TABLE, "").size());
+        cache.getPartitions(client, "default/gpadmin", TABLE, "");
+        verify(client, times(1)).listPartitions("default", "sales", (short) -1);
+
+        ticker.advanceTime(61, TimeUnit.SECONDS);
+        cache.getPartitions(client, "default/gpadmin", TABLE, "");
+        verify(client, times(2)).listPartitions("default", "sales", (short) -1);
+    }
+
+    @Test
+    public void partitionsCachedPerFilterAndKey() throws Exception {
+        cache.getPartitions(client, "default/gpadmin", TABLE, "");
+        cache.getPartitions(client, "default/gpadmin", TABLE, "year = \"2019\"");
+        cache.getPartitions(client, "default/other", TABLE, "");
+        verify(client, times(2)).listPartitions("default", "sales", (short) -1);
+        verify(client, times(1)).listPartitionsByFilter("default", "sales", "year = \"2019\"", (short) -1);
+    }
+
+    @Test
+    public void disabledCache() throws Exception {
+        cache = new HiveMetadataCache(ticker, 0, 100);
+        cache.getPartitions(client, "default/gpadmin", TABLE, "");
+        cache.getPartitions(client, "default/gpadmin", TABLE, "");
+        verify(client, times(2)).listPartitions("default", "sales", (short) -1);
+    }
+
+    @Test
+    public void eventsInvalidateTables() throws Exception {
+        when(client.getCurrentNotificationEventId()).thenReturn(new CurrentNotificationEventId(10));
+        NotificationEvent otherTable = new NotificationEvent(11, 0, "ADD_PARTITION", "");
+        otherTable.setDbName("default");
+        otherTable.setTableName("customers");
+        NotificationEvent salesTable = new NotificationEvent(12, 0, "ADD_PARTITION", "");
+        salesTable.setDbName("DEFAULT");
+        salesTable.setTableName("Sales");
+        when(client.getNextNotification(anyLong(), anyInt(), any(IMetaStoreClient.NotificationFilter.class)))
+                .thenReturn(new NotificationEventResponse(Collections.singletonList(otherTable)))
+                .thenReturn(new NotificationEventResponse(Collections.singletonList(salesTable)))
+                .thenReturn(new NotificationEventResponse(Collections.<NotificationEvent>emptyList()));
+
+        cache.getPartitions(client, "default/gpadmin", TABLE, "");
+        cache.getPartitions(client, "default/gpadmin", TABLE, "");
+        verify(client, times(1)).listPartitions("default", "sales", (short) -1);
+
+        cache.getPartitions(client, "default/gpadmin", TABLE, "");
+        cache.getPartitions(client, "default/gpadmin", TABLE, "");
+        verify(client, times(2)).listPartitions("default", "sales", (short) -1);
+        verify(client).getNextNotification(11, HiveMetadataCache.MAX_EVENTS, null);
+    }
+
+    @Test
+    public void partitionsFetchedWhileEventsAreAppliedAreNotCached() throws Exception {
+        when(client.getCurrentNotificationEventId()).thenReturn(new CurrentNotificationEventId(10));
+        NotificationEvent salesTable = new NotificationEvent(11, 0, "ADD_PARTITION", "");
+        salesTable.setDbName("default");
+        salesTable.setTableName("sales");
+        when(client.getNextNotification(anyLong(), anyInt(), any(IMetaStoreClient.NotificationFilter.class)))
+                .thenReturn(new NotificationEventResponse(Collections.singletonList(salesTable)))
+                .thenReturn(new NotificationEventResponse(Collections.<NotificationEvent>emptyList()));
+        List<Partition> partitions = Collections.singletonList(new Partition());
+        // another lookup applies the event while the partitions are listed
+        when(client.listPartitions("default", "sales", (short) -1))
+                .thenAnswer(invocation -> {
+                    cache.getPartitions(client, "default/gpadmin", TABLE, "year = \"2019\"");
+                    return partitions;
+                })
+                .thenReturn(partitions);
+
+        cache.getPartitions(client, "default/gpadmin", TABLE, "");
+        cache.getPartitions(client, "default/gpadmin", TABLE, "");
+        cache.getPartitions(client, "default/gpadmin", TABLE, "");
+        verify(client, times(2)).listPartitions("default", "sales", (short) -1);
+        verify(client, times(1)).listPartitionsByFilter("default", "sales", "year = \"2019\"", (short) -1);
+    }
+
+    @Test
+    public void failedEventsDropEntries() throws Exception {
+        when(client.getCurrentNotificationEventId()).thenReturn(new CurrentNotificationEventId(10));
+        when(client.getNextNotification(anyLong(), anyInt(), any(IMetaStoreClient.NotificationFilter.class)))
+                .thenThrow(new RuntimeException("connection reset"));
+
+        cache.getPartitions(client, "default/gpadmin", TABLE, "");
+        cache.getPartitions(client, "default/gpadmin", TABLE, "");
+        verify(client, times(2)).listPartitions("default", "sales", (short) -1);
+
+        // events are no longer read, entries expire
+        cache.getPartitions(client, "default/gpadmin", TABLE, "");
+        verify(client, times(2)).listPartitions("default", "sales", (short) -1);
+        verify(client, times(1)).getNextNotification(anyLong(), anyInt(), any(IMetaStoreClient.NotificationFilter.class));
+    }
+
+    private static class FakeTicker extends Ticker {
+        private long nanos = 0;
+
+        @Override
+        public long read() {
+            return nanos;
+        }
+
+        void advanceTime(long duration, TimeUnit unit) {
+            nanos += unit.toNanos(duration);
+        }
+    }
+}
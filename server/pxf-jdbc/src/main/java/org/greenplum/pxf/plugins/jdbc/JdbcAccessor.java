@@ -24,6 +24,8 @@ import org.apache.commons.logging.LogFactory;
 import org.greenplum.pxf.api.OneRow;
 import org.greenplum.pxf.api.model.Accessor;
 import org.greenplum.pxf.api.utilities.ColumnDescriptor;
+import org.greenplum.pxf.plugins.jdbc.utils.DbProduct;
+import org.greenplum.pxf.plugins.jdbc.writercallable.WriteMode;
 import org.greenplum.pxf.plugins.jdbc.writercallable.WriterCallable;
 import org.greenplum.pxf.plugins.jdbc.writercallable.WriterCallableFactory;
 
@@ -45,10 +47,13 @@ import java.util.concurrent.Future;
 /**
  * JDBC tables accessor
  *
- * The SELECT queries are processed by {@link java.sql.Statement}
+ * The SELECT queries are processed by {@link java.sql.Statement}, which fetches
+ * rows by batches of FETCH_SIZE in the way required by the database product
+ * (see {@link DbProduct#createReadStatement})
  *
  * The INSERT queries are processed by {@link java.sql.PreparedStatement} and
- * built-in JDBC batches of arbitrary size
+ * built-in JDBC batches of arbitrary size, by multi-row INSERT queries, or by
+ * COPY queries when WRITE_MODE=copy is set (see {@link WriteMode})
  */
 public class JdbcAccessor extends JdbcBasePlugin implements Accessor {
 
@@ -70,24 +75,41 @@ public class JdbcAccessor extends JdbcBasePlugin implements Accessor {
 
         Connection connection = super.getConnection();
 
-        queryRead = buildSelectQuery(connection.getMetaData());
-        statementRead = connection.createStatement();
-        resultSetRead = statementRead.executeQuery(queryRead);
+        try {
+            DatabaseMetaData databaseMetaData = connection.getMetaData();
+            queryRead = buildSelectQuery(databaseMetaData);
+            statementRead = DbProduct.getDbProduct(databaseMetaData.getDatabaseProductName())
+                    .createReadStatement(connection, fetchSize);
+            if (queryTimeout > 0) {
+                statementRead.setQueryTimeout(queryTimeout);
+            }
+            resultSetRead = statementRead.executeQuery(queryRead);
+            // the same row is returned for every row of the result set, a
+            // resolver reading rows by batches moves the cursor too
+            cursorRead = new ResultSetCursor(resultSetRead);
+            rowRead = new OneRow(cursorRead, resultSetRead);
+        }
+        catch (SQLException | ParseException | RuntimeException e) {
+            // return the connection to the pool
+            JdbcBasePlugin.closeConnection(connection);
+            throw e;
+        }
 
         return true;
     }
 
     /**
      * readNextObject() implementation
-     * Retreive the next tuple from resultSet and return it
+     * Retreive the next tuple from resultSet and return it. The returned
+     * OneRow object is reused for all the tuples
      *
      * @return row
      * @throws SQLException if a problem in resultSet occurs
      */
     @Override
     public OneRow readNextObject() throws SQLException {
-        if (resultSetRead.next()) {
-            return new OneRow(resultSetRead);
+        if (cursorRead.next()) {
+            return rowRead;
         }
         return null;
     }
@@ -116,13 +138,32 @@ public class JdbcAccessor extends JdbcBasePlugin implements Accessor {
             throw new SQLException("The connection to an external database is already open.");
         }
 
-        Connection connection = super.getConnection();
+        // Enable the settings of the driver that speed up writes. The JDBC
+        // URLs of the supported products contain the names of the products
+        writeUrl = DbProduct.getDbProduct(dbUrl).getWriteUrl(dbUrl);
 
-        queryWrite = buildInsertQuery();
-        statementWrite = super.getPreparedStatement(connection, queryWrite);
+        Connection connection = getConnection();
+        DbProduct dbProduct;
+
+        try {
+            dbProduct = DbProduct.getDbProduct(connection.getMetaData().getDatabaseProductName());
+            if (writeMode == WriteMode.COPY && !dbProduct.supportsCopy(connection)) {
+                throw new SQLException("WRITE_MODE=copy is not supported by the external database or its JDBC driver");
+            }
+            LOG.debug("Rows are written in " + writeMode + " mode");
+
+            queryWrite = (writeMode == WriteMode.COPY) ? buildCopyQuery() : buildInsertQuery();
+            // The statement also holds the connection of writers that are not pooled
+            statementWrite = super.getPreparedStatement(connection, buildInsertQuery());
+        }
+        catch (SQLException | RuntimeException e) {
+            // return the connection to the pool
+            JdbcBasePlugin.closeConnection(connection);
+            throw e;
+        }
 
         // Process batchSize
-        if (!connection.getMetaData().supportsBatchUpdates()) {
+        if (writeMode == WriteMode.BATCH && !connection.getMetaData().supportsBatchUpdates()) {
             if ((batchSizeIsSetByUser) && (batchSize > 1)) {
                 throw new SQLException("The external database does not support batch updates");
             }
@@ -148,6 +189,8 @@ public class JdbcAccessor extends JdbcBasePlugin implements Accessor {
         writerCallableFactory.setPlugin(this);
         writerCallableFactory.setQuery(queryWrite);
         writerCallableFactory.setBatchSize(batchSize);
+        writerCallableFactory.setWriteMode(writeMode);
+        writerCallableFactory.setDbProduct(dbProduct);
         if (poolSize == 1) {
             writerCallableFactory.setStatement(statementWrite);
         }
@@ -157,13 +200,32 @@ public class JdbcAccessor extends JdbcBasePlugin implements Accessor {
         return true;
     }
 
+    /**
+     * Open a JDBC connection. Once {@link #openForWrite()} was called, the
+     * connections, including those of the writers of the thread pool, are
+     * opened with the settings of the driver that speed up writes
+     *
+     * @return connection
+     */
+    @Override
+    public Connection getConnection() throws ClassNotFoundException, SQLException, SQLTimeoutException {
+        if (writeUrl == null) {
+            return super.getConnection();
+        }
+        return getConnection(writeUrl);
+    }
+
 	/**
      * writeNextObject() implementation
      *
      * If batchSize is not 0 or 1, add a tuple to the batch of statementWrite
      * Otherwise, execute an INSERT query immediately
      *
-     * In both cases, a {@link java.sql.PreparedStatement} is used
+     * In both cases, a {@link java.sql.PreparedStatement} is used. In COPY
+     * mode, the tuples are sent once they fill the buffer of the writer
+     *
+     * Without thread pool, the transaction is committed every COMMIT_SIZE
+     * tuples, rounded up to whole batches
      *
      * @param row one row
      * @return true if successful
@@ -179,18 +241,36 @@ public class JdbcAccessor extends JdbcBasePlugin implements Accessor {
             throw new IllegalStateException("The JDBC connection was not properly initialized (writerCallable is null)");
         }
 
-        writerCallable.supply(row);
-        if (writerCallable.isCallRequired()) {
-            if (poolSize > 1) {
-                // Pooling is used. Create new writerCallable
-                poolTasks.add(executorServiceWrite.submit(writerCallable));
-                writerCallable = writerCallableFactory.get();
-            }
-            else {
-                // Pooling is not used
-                writerCallable.call();
+        try {
+            writerCallable.supply(row);
+            rowsSinceCommit++;
+            if (writerCallable.isCallRequired()) {
+                if (poolSize > 1) {
+                    // Pooling is used. Create new writerCallable
+                    poolTasks.add(executorServiceWrite.submit(writerCallable));
+                    writerCallable = writerCallableFactory.get();
+                }
+                else {
+                    // Pooling is not used
+                    SQLException e = writerCallable.call();
+                    if (e != null) {
+                        throw e;
+                    }
+                    if (commitSize > 0 && rowsSinceCommit >= commitSize) {
+                        Connection connection = statementWrite.getConnection();
+                        if (!connection.getAutoCommit()) {
+                            connection.commit();
+                        }
+                        rowsSinceCommit = 0;
+                    }
+                }
             }
         }
+        catch (Exception e) {
+            // the rows not committed yet are rolled back by closeForWrite()
+            writeFailed = true;
+            throw e;
+        }
 
         return true;
     }
@@ -246,14 +326,43 @@ public class JdbcAccessor extends JdbcBasePlugin implements Accessor {
                 }
             }
 
-            // Send data that is left
-            writerCallable.call();
+            if (!writeFailed) {
+                // Send data that is left
+                SQLException e = writerCallable.call();
+                if (e != null) {
+                    throw e;
+                }
+            }
+        }
+        catch (Exception e) {
+            writeFailed = true;
+            throw e;
         }
         finally {
+            if (writeFailed) {
+                rollback(statementWrite);
+            }
             JdbcBasePlugin.closeStatement(statementWrite);
         }
     }
 
+    /**
+     * Roll back the rows written by a statement that were not committed yet
+     *
+     * @param statement statement whose connection to roll back
+     */
+    private static void rollback(Statement statement) {
+        try {
+            Connection connection = statement.getConnection();
+            if (!connection.getAutoCommit()) {
+                connection.rollback();
+            }
+        }
+        catch (SQLException e) {
+            LOG.error("Failed to roll back the INSERT query: " + e.getMessage());
+        }
+    }
+
 
     /**
      * Build SELECT query (with "WHERE" and partition constraints)
@@ -328,18 +437,52 @@ public class JdbcAccessor extends JdbcBasePlugin implements Accessor {
         return sb.toString();
     }
 
+    /**
+     * Build COPY query that reads rows from the client
+     *
+     * @return SQL query
+     */
+    private String buildCopyQuery() {
+        StringBuilder sb = new StringBuilder();
+
+        sb.append("COPY ");
+
+        // Insert the table name
+        sb.append(tableName);
+
+        // Insert columns' names
+        sb.append("(");
+        String fieldDivisor = "";
+        for (ColumnDescriptor column : columns) {
+            sb.append(fieldDivisor);
+            fieldDivisor = ", ";
+            sb.append(column.columnName());
+        }
+        sb.append(")");
+
+        sb.append(" FROM STDIN");
+
+        return sb.toString();
+    }
+
     // Read variables
     private String queryRead = null;
     private Statement statementRead = null;
     private ResultSet resultSetRead = null;
+    private ResultSetCursor cursorRead = null;
+    private OneRow rowRead = null;
 
     // Write variables
     private String queryWrite = null;
+    // The URL with the settings of the driver that speed up writes, null when reading
+    private String writeUrl = null;
     private PreparedStatement statementWrite = null;
     private WriterCallableFactory writerCallableFactory = null;
     private WriterCallable writerCallable = null;
     private ExecutorService executorServiceWrite = null;
     private List<Future<SQLException> > poolTasks = null;
+    private long rowsSinceCommit = 0;
+    private boolean writeFailed = false;
 
     // Static variables
     private static final Log LOG = LogFactory.getLog(JdbcAccessor.class);
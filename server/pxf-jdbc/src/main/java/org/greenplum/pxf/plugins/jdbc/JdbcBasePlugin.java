@@ -22,6 +22,9 @@ package org.greenplum.pxf.plugins.jdbc;
 import org.greenplum.pxf.api.model.BasePlugin;
 import org.greenplum.pxf.api.model.RequestContext;
 import org.greenplum.pxf.api.utilities.ColumnDescriptor;
+import org.greenplum.pxf.plugins.jdbc.utils.ConnectionManager;
+import org.greenplum.pxf.plugins.jdbc.utils.PoolDescriptor;
+import org.greenplum.pxf.plugins.jdbc.writercallable.WriteMode;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -110,10 +113,75 @@ public class JdbcBasePlugin extends BasePlugin {
                 throw new IllegalArgumentException("POOL_SIZE is incorrect: must be an integer");
             }
         }
+
+        // This parameter is not required. By default, rows are written by JDBC batches
+        String writeModeRaw = context.getOption("WRITE_MODE");
+        if (writeModeRaw != null) {
+            try {
+                writeMode = WriteMode.typeOf(writeModeRaw);
+            }
+            catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("WRITE_MODE is incorrect: must be 'batch', 'values' or 'copy'");
+            }
+        }
+
+        // This parameter is not required. By default, rows are committed at the end of the query
+        commitSize = parseNonNegative(context, "COMMIT_SIZE", commitSize);
+
+        // These parameters are not required. By default, rows are fetched by
+        // DEFAULT_FETCH_SIZE and queries do not time out
+        fetchSize = (int) parseNonNegative(context, "FETCH_SIZE", fetchSize);
+        queryTimeout = (int) parseNonNegative(context, "QUERY_TIMEOUT", queryTimeout);
+
+        // These parameters are not required. Connections are pooled only if CONNECTION_POOL=true
+        connectionPoolEnabled = "true".equalsIgnoreCase(context.getOption("CONNECTION_POOL"));
+        connectionPoolMinIdle = (int) parseNonNegative(context, "CONNECTION_POOL_MIN_IDLE", connectionPoolMinIdle);
+        // An INSERT query with a thread pool takes a connection per thread, and one more
+        int writers = (poolSize < 1) ? Runtime.getRuntime().availableProcessors() : poolSize;
+        if (context.getOption("CONNECTION_POOL_MAX_SIZE") == null) {
+            connectionPoolMaxSize = Math.max(connectionPoolMaxSize, writers + 1);
+        }
+        else {
+            connectionPoolMaxSize = (int) parseNonNegative(context, "CONNECTION_POOL_MAX_SIZE", connectionPoolMaxSize);
+            if (connectionPoolMaxSize < 1) {
+                throw new IllegalArgumentException("CONNECTION_POOL_MAX_SIZE is incorrect: must be a positive integer");
+            }
+            if (connectionPoolEnabled && writers > 1 && connectionPoolMaxSize <= writers) {
+                throw new IllegalArgumentException("CONNECTION_POOL_MAX_SIZE is incorrect: must be greater than POOL_SIZE");
+            }
+        }
+        connectionPoolConnectionTimeout = parseNonNegative(context, "CONNECTION_POOL_CONNECTION_TIMEOUT",
+                connectionPoolConnectionTimeout);
+        if (connectionPoolConnectionTimeout < MIN_CONNECTION_POOL_CONNECTION_TIMEOUT) {
+            throw new IllegalArgumentException("CONNECTION_POOL_CONNECTION_TIMEOUT is incorrect: must be at least "
+                    + MIN_CONNECTION_POOL_CONNECTION_TIMEOUT);
+        }
+        connectionPoolIdleTimeout = parseNonNegative(context, "CONNECTION_POOL_IDLE_TIMEOUT", connectionPoolIdleTimeout);
+        connectionPoolValidationQuery = context.getOption("CONNECTION_POOL_VALIDATION_QUERY");
+        connectionPoolLeakDetection = parseNonNegative(context, "CONNECTION_POOL_LEAK_DETECTION", connectionPoolLeakDetection);
+    }
+
+    private static long parseNonNegative(RequestContext context, String option, long defaultValue) {
+        String valueRaw = context.getOption(option);
+        if (valueRaw == null) {
+            return defaultValue;
+        }
+        try {
+            long value = Long.parseLong(valueRaw);
+            if (value < 0 || value > Integer.MAX_VALUE) {
+                throw new NumberFormatException();
+            }
+            return value;
+        }
+        catch (NumberFormatException e) {
+            throw new IllegalArgumentException(option + " is incorrect: must be a non-negative integer");
+        }
     }
 
     /**
-     * Open a new JDBC connection
+     * Open a JDBC connection, taken from the connection pool of the database
+     * and user if pooling is enabled by CONNECTION_POOL=true. Closing the
+     * connection returns it to the pool.
      *
      * @throws ClassNotFoundException if the JDBC driver was not found
      * @throws SQLException if a database access error occurs
@@ -122,6 +190,21 @@ public class JdbcBasePlugin extends BasePlugin {
      * @return connection
      */
     public Connection getConnection() throws ClassNotFoundException, SQLException, SQLTimeoutException {
+        return getConnection(dbUrl);
+    }
+
+    /**
+     * Open a JDBC connection to the given URL of the external database, see
+     * {@link #getConnection()}
+     *
+     * @param dbUrl the URL of the external database
+     * @throws ClassNotFoundException if the JDBC driver was not found
+     * @throws SQLException if a database access error occurs
+     * @throws SQLTimeoutException if a connection problem occurs
+     *
+     * @return connection
+     */
+    protected Connection getConnection(String dbUrl) throws ClassNotFoundException, SQLException, SQLTimeoutException {
         Connection connection;
         if (user != null) {
             LOG.debug("Open JDBC connection: driver={}, url={}, user={}, pass={}, table={}",
@@ -131,7 +214,13 @@ public class JdbcBasePlugin extends BasePlugin {
                     jdbcDriver, dbUrl, tableName);
         }
         Class.forName(jdbcDriver);
-        if (user != null) {
+        if (connectionPoolEnabled) {
+            connection = ConnectionManager.getInstance().getConnection(new PoolDescriptor(
+                    jdbcDriver, dbUrl, user, pass,
+                    connectionPoolMinIdle, connectionPoolMaxSize, connectionPoolConnectionTimeout,
+                    connectionPoolIdleTimeout, connectionPoolValidationQuery, connectionPoolLeakDetection));
+        }
+        else if (user != null) {
             connection = DriverManager.getConnection(dbUrl, user, pass);
         }
         else {
@@ -178,7 +267,11 @@ public class JdbcBasePlugin extends BasePlugin {
         if (connection.getMetaData().supportsTransactions()) {
             connection.setAutoCommit(false);
         }
-        return connection.prepareStatement(query);
+        PreparedStatement statement = connection.prepareStatement(query);
+        if (queryTimeout > 0) {
+            statement.setQueryTimeout(queryTimeout);
+        }
+        return statement;
     }
 
     /**
@@ -217,6 +310,32 @@ public class JdbcBasePlugin extends BasePlugin {
 
     protected int poolSize = 1;
 
+    // The way rows are written
+    protected WriteMode writeMode = WriteMode.BATCH;
+    // Rows are committed every commitSize rows, 0 to commit at the end of the query
+    protected long commitSize = 0;
+
+    // Rows are read from the external database by batches of this size, 0 for the driver default
+    public static final int DEFAULT_FETCH_SIZE = 1000;
+    protected int fetchSize = DEFAULT_FETCH_SIZE;
+    // Timeout of a query in seconds, 0 for no timeout
+    protected int queryTimeout = 0;
+
+    // Connection pool parameters
+    protected boolean connectionPoolEnabled = false;
+    protected int connectionPoolMinIdle = 0;
+    // The maximum number of connections, raised to POOL_SIZE + 1 if it is not set
+    public static final int DEFAULT_CONNECTION_POOL_MAX_SIZE = 10;
+    protected int connectionPoolMaxSize = DEFAULT_CONNECTION_POOL_MAX_SIZE;
+    // Queries wait for a connection up to 30 seconds, the pool does not accept less than 250 milliseconds
+    public static final long MIN_CONNECTION_POOL_CONNECTION_TIMEOUT = 250;
+    protected long connectionPoolConnectionTimeout = 30000;
+    // Idle connections are closed after 30 seconds
+    protected long connectionPoolIdleTimeout = 30000;
+    protected String connectionPoolValidationQuery = null;
+    // Leak detection is disabled by default
+    protected long connectionPoolLeakDetection = 0;
+
     // Columns description
     protected List<ColumnDescriptor> columns = null;
 
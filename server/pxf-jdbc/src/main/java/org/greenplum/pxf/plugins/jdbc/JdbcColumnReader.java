@@ -0,0 +1,277 @@
+package org.greenplum.pxf.plugins.jdbc;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+import org.greenplum.pxf.api.io.ColumnVector;
+import org.greenplum.pxf.api.io.DataType;
+import org.greenplum.pxf.api.utilities.ColumnDescriptor;
+
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.temporal.ChronoField;
+
+/**
+ * Reads one column of a result set with the getter of its type, by index.
+ * The readers of a query are created once, before the first row is read, so
+ * that the type of the columns is not looked up for every value.
+ * <p>
+ * A reader either returns the value as the object {@link JdbcResolver} puts in
+ * a {@link org.greenplum.pxf.api.OneField}, or writes it straight into a
+ * {@link ColumnVector}: integral and floating point values as primitives,
+ * dates and timestamps as text formatted with java.time formatters, and the
+ * other values as text or bytes.
+ */
+abstract class JdbcColumnReader {
+
+    static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ISO_LOCAL_DATE;
+
+    // the format of Timestamp.toString(), without the trailing zeros of the fraction
+    static final DateTimeFormatter TIMESTAMP_FORMATTER = new DateTimeFormatterBuilder()
+            .appendPattern("uuuu-MM-dd HH:mm:ss")
+            .appendFraction(ChronoField.NANO_OF_SECOND, 0, 9, true)
+            .toFormatter();
+
+    /**
+     * Creates the reader of a column.
+     *
+     * @param column the column
+     * @return the reader
+     * @throws UnsupportedOperationException if the type of the column is not
+     *                                       supported
+     */
+    static JdbcColumnReader create(ColumnDescriptor column) {
+        DataType type = DataType.get(column.columnTypeCode());
+        switch (type) {
+            case BOOLEAN:
+                return new BooleanReader();
+            case SMALLINT:
+                return new ShortReader();
+            case INTEGER:
+                return new IntReader();
+            case BIGINT:
+                return new LongReader();
+            case REAL:
+                return new FloatReader();
+            case FLOAT8:
+                return new DoubleReader();
+            case BYTEA:
+                return new BytesReader();
+            case VARCHAR:
+            case BPCHAR:
+            case TEXT:
+            case NUMERIC:
+                return new StringReader();
+            case DATE:
+                return new DateReader();
+            case TIMESTAMP:
+                return new TimestampReader();
+            default:
+                throw new UnsupportedOperationException("Field type '" + type.toString() + "' (column '" + column.toString() + "') is not supported");
+        }
+    }
+
+    /**
+     * Reads the value of the current row.
+     *
+     * @param result the result set
+     * @param index  the index of the column in the result set, from 1
+     * @return the value, null if the value is NULL
+     * @throws SQLException if the value cannot be read
+     */
+    abstract Object read(ResultSet result, int index) throws SQLException;
+
+    /**
+     * Reads the value of the current row into a vector.
+     *
+     * @param result the result set
+     * @param index  the index of the column in the result set, from 1
+     * @param vector the vector of the column
+     * @param row    the row of the vector
+     * @throws SQLException if the value cannot be read
+     */
+    abstract void read(ResultSet result, int index, ColumnVector vector, int row) throws SQLException;
+
+    private static class BooleanReader extends JdbcColumnReader {
+        @Override
+        Object read(ResultSet result, int index) throws SQLException {
+            boolean value = result.getBoolean(index);
+            return result.wasNull() ? null : value;
+        }
+
+        @Override
+        void read(ResultSet result, int index, ColumnVector vector, int row) throws SQLException {
+            boolean value = result.getBoolean(index);
+            if (result.wasNull()) {
+                vector.setNull(row);
+            } else {
+                vector.setBoolean(row, value);
+            }
+        }
+    }
+
+    /**
+     * Integral columns, read into vectors as longs.
+     */
+    private abstract static class IntegralReader extends JdbcColumnReader {
+        @Override
+        void read(ResultSet result, int index, ColumnVector vector, int row) throws SQLException {
+            long value = result.getLong(index);
+            if (result.wasNull()) {
+                vector.setNull(row);
+            } else {
+                vector.setLong(row, value);
+            }
+        }
+    }
+
+    private static class ShortReader extends IntegralReader {
+        @Override
+        Object read(ResultSet result, int index) throws SQLException {
+            short value = result.getShort(index);
+            return result.wasNull() ? null : value;
+        }
+    }
+
+    private static class IntReader extends IntegralReader {
+        @Override
+        Object read(ResultSet result, int index) throws SQLException {
+            int value = result.getInt(index);
+            return result.wasNull() ? null : value;
+        }
+    }
+
+    private static class LongReader extends IntegralReader {
+        @Override
+        Object read(ResultSet result, int index) throws SQLException {
+            long value = result.getLong(index);
+            return result.wasNull() ? null : value;
+        }
+    }
+
+    private static class FloatReader extends JdbcColumnReader {
+        @Override
+        Object read(ResultSet result, int index) throws SQLException {
+            float value = result.getFloat(index);
+            return result.wasNull() ? null : value;
+        }
+
+        @Override
+        void read(ResultSet result, int index, ColumnVector vector, int row) throws SQLException {
+            // read as float, so that the value is not widened from the float the database returns
+            float value = result.getFloat(index);
+            if (result.wasNull()) {
+                vector.setNull(row);
+            } else {
+                vector.setDouble(row, value);
+            }
+        }
+    }
+
+    private static class DoubleReader extends JdbcColumnReader {
+        @Override
+        Object read(ResultSet result, int index) throws SQLException {
+            double value = result.getDouble(index);
+            return result.wasNull() ? null : value;
+        }
+
+        @Override
+        void read(ResultSet result, int index, ColumnVector vector, int row) throws SQLException {
+            double value = result.getDouble(index);
+            if (result.wasNull()) {
+                vector.setNull(row);
+            } else {
+                vector.setDouble(row, value);
+            }
+        }
+    }
+
+    private static class BytesReader extends JdbcColumnReader {
+        @Override
+        Object read(ResultSet result, int index) throws SQLException {
+            return result.getBytes(index);
+        }
+
+        @Override
+        void read(ResultSet result, int index, ColumnVector vector, int row) throws SQLException {
+            byte[] value = result.getBytes(index);
+            if (value == null) {
+                vector.setNull(row);
+            } else {
+                vector.setBytes(row, value, 0, value.length);
+            }
+        }
+    }
+
+    private static class StringReader extends JdbcColumnReader {
+        @Override
+        Object read(ResultSet result, int index) throws SQLException {
+            return result.getString(index);
+        }
+
+        @Override
+        void read(ResultSet result, int index, ColumnVector vector, int row) throws SQLException {
+            String value = result.getString(index);
+            if (value == null) {
+                vector.setNull(row);
+            } else {
+                vector.setString(row, value);
+            }
+        }
+    }
+
+    private static class DateReader extends JdbcColumnReader {
+        @Override
+        Object read(ResultSet result, int index) throws SQLException {
+            return result.getDate(index);
+        }
+
+        @Override
+        void read(ResultSet result, int index, ColumnVector vector, int row) throws SQLException {
+            Date value = result.getDate(index);
+            if (value == null) {
+                vector.setNull(row);
+            } else {
+                vector.setString(row, DATE_FORMATTER.format(value.toLocalDate()));
+            }
+        }
+    }
+
+    private static class TimestampReader extends JdbcColumnReader {
+        @Override
+        Object read(ResultSet result, int index) throws SQLException {
+            return result.getTimestamp(index);
+        }
+
+        @Override
+        void read(ResultSet result, int index, ColumnVector vector, int row) throws SQLException {
+            Timestamp value = result.getTimestamp(index);
+            if (value == null) {
+                vector.setNull(row);
+            } else {
+                vector.setString(row, TIMESTAMP_FORMATTER.format(value.toLocalDateTime()));
+            }
+        }
+    }
+}
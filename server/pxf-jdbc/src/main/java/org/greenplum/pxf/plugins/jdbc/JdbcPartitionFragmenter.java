@@ -19,25 +19,46 @@ package org.greenplum.pxf.plugins.jdbc;
  * under the License.
  */
 
+import org.greenplum.pxf.api.io.DataType;
 import org.greenplum.pxf.api.model.BaseFragmenter;
 import org.greenplum.pxf.api.model.Fragment;
 import org.greenplum.pxf.api.model.FragmentStats;
 import org.greenplum.pxf.api.model.RequestContext;
+import org.greenplum.pxf.api.utilities.ColumnDescriptor;
 import org.greenplum.pxf.plugins.jdbc.utils.ByteUtil;
 import org.greenplum.pxf.plugins.jdbc.utils.DbProduct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.net.InetAddress;
 import java.net.UnknownHostException;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.Collections;
 import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.LongFunction;
 
 /**
  * JDBC fragmenter
  *
  * Splits the query to allow multiple simultaneous SELECTs
+ *
+ * With PARTITION_BY=auto, or RANGE=auto, the partition column (unless given)
+ * and the ranges are chosen from the statistics of the external table, so
+ * that every fragment holds about the same number of rows.
  */
 public class JdbcPartitionFragmenter extends BaseFragmenter {
     /**
@@ -56,7 +77,9 @@ public class JdbcPartitionFragmenter extends BaseFragmenter {
         if (meta == null) {
             return;
         }
-        String[] partitionBy = context.getOption("PARTITION_BY").split(":");
+        // The automatic partitioning passes the column it chose in the fragment user data
+        byte[] userData = context.getFragmentUserData();
+        String[] partitionBy = (userData != null ? new String(userData) : context.getOption("PARTITION_BY")).split(":");
         String partitionColumn = partitionBy[0];
         PartitionType partitionType = PartitionType.typeOf(partitionBy[1]);
         DbProduct dbProduct = DbProduct.getDbProduct(dbName);
@@ -71,13 +94,12 @@ public class JdbcPartitionFragmenter extends BaseFragmenter {
         switch (partitionType) {
             case DATE: {
                 byte[][] newb = ByteUtil.splitBytes(meta);
-                Date fragStart = new Date(ByteUtil.toLong(newb[0]));
-                Date fragEnd = new Date(ByteUtil.toLong(newb[1]));
+                long fragStart = ByteUtil.toLong(newb[0]);
+                long fragEnd = ByteUtil.toLong(newb[1]);
 
                 SimpleDateFormat df = new SimpleDateFormat("yyyy-MM-dd");
-                query.append(partitionColumn).append(" >= ").append(dbProduct.wrapDate(df.format(fragStart)));
-                query.append(" AND ");
-                query.append(partitionColumn).append(" < ").append(dbProduct.wrapDate(df.format(fragEnd)));
+                appendRange(query, partitionColumn, fragStart, fragEnd,
+                        ms -> dbProduct.wrapDate(df.format(new Date(ms))));
 
                 break;
             }
@@ -86,9 +108,7 @@ public class JdbcPartitionFragmenter extends BaseFragmenter {
                 long fragStart = ByteUtil.toLong(newb[0]);
                 long fragEnd = ByteUtil.toLong(newb[1]);
 
-                query.append(partitionColumn).append(" >= ").append(fragStart);
-                query.append(" AND ");
-                query.append(partitionColumn).append(" < ").append(fragEnd);
+                appendRange(query, partitionColumn, fragStart, fragEnd, String::valueOf);
                 break;
             }
             case ENUM: {
@@ -98,6 +118,29 @@ public class JdbcPartitionFragmenter extends BaseFragmenter {
         }
     }
 
+    /*
+     * Appends "column >= start AND column < end". The automatic partitioning
+     * leaves the first range open at its start and the last one open at its
+     * end, and a range open at both ends selects the rows where the column is
+     * NULL.
+     */
+    private static void appendRange(StringBuilder query, String column, long start, long end,
+                                    LongFunction<String> formatter) {
+        if (start == OPEN_START && end == OPEN_END) {
+            query.append(column).append(" IS NULL");
+            return;
+        }
+        if (start != OPEN_START) {
+            query.append(column).append(" >= ").append(formatter.apply(start));
+            if (end != OPEN_END) {
+                query.append(" AND ");
+            }
+        }
+        if (end != OPEN_END) {
+            query.append(column).append(" < ").append(formatter.apply(end));
+        }
+    }
+
     @Override
     public void initialize(RequestContext context) {
         super.initialize(context);
@@ -106,6 +149,11 @@ public class JdbcPartitionFragmenter extends BaseFragmenter {
             return;
         }
 
+        if (AUTO.equalsIgnoreCase(context.getOption("PARTITION_BY")) || AUTO.equalsIgnoreCase(context.getOption("RANGE"))) {
+            initializeAutoPartitioning();
+            return;
+        }
+
         // PARTITION_BY
         try {
             partitionType = PartitionType.typeOf(
@@ -181,6 +229,47 @@ public class JdbcPartitionFragmenter extends BaseFragmenter {
         }
     }
 
+    private void initializeAutoPartitioning() {
+        autoPartitioning = true;
+
+        // PARTITION_BY: the column is chosen when getting the fragments unless given
+        String partitionByStr = context.getOption("PARTITION_BY");
+        if (!AUTO.equalsIgnoreCase(partitionByStr)) {
+            String[] partitionBy = partitionByStr.split(":");
+            try {
+                partitionType = PartitionType.typeOf(partitionBy[1]);
+            }
+            catch (IllegalArgumentException | ArrayIndexOutOfBoundsException ex) {
+                throw new IllegalArgumentException("The parameter 'PARTITION_BY' is invalid. The pattern is '<column_name>:date|int|enum'");
+            }
+            if (partitionType == PartitionType.ENUM) {
+                throw new IllegalArgumentException("The parameter 'RANGE' cannot be 'auto' for the PARTITION_TYPE = 'ENUM'");
+            }
+            partitionColumn = partitionBy[0];
+        }
+
+        // PARTITIONS: one fragment per segment by default
+        String partitionsStr = context.getOption("PARTITIONS");
+        if (partitionsStr != null) {
+            try {
+                partitionCount = Integer.parseInt(partitionsStr);
+            }
+            catch (NumberFormatException ex) {
+                throw new IllegalArgumentException("The parameter 'PARTITIONS' must be an integer");
+            }
+            if (partitionCount < 1) {
+                throw new IllegalArgumentException("The parameter 'PARTITIONS' must be at least 1, but actual is " + partitionCount);
+            }
+        }
+        else {
+            partitionCount = Math.max(context.getTotalSegments(), 1);
+        }
+
+        // The statistics are read with the connection parameters of the accessor
+        plugin = new JdbcBasePlugin();
+        plugin.initialize(context);
+    }
+
     /**
      * @throws UnsupportedOperationException ANALYZE for Jdbc plugin is not supported
      *
@@ -197,7 +286,11 @@ public class JdbcPartitionFragmenter extends BaseFragmenter {
      * @return a list of fragments to be passed to PXF segments
      */
     @Override
-    public List<Fragment> getFragments() {
+    public List<Fragment> getFragments() throws Exception {
+        if (autoPartitioning) {
+            return getAutoFragments();
+        }
+
         if (partitionType == null) {
             // No partition case
             Fragment fragment = new Fragment(context.getDataSource(), pxfHosts, null);
@@ -277,6 +370,246 @@ public class JdbcPartitionFragmenter extends BaseFragmenter {
         return fragments;
     }
 
+    /*
+     * Splits the table in ranges of the partition column holding about the
+     * same number of rows each. The ranges are separated by the values of the
+     * histogram the database keeps for the column if any. Otherwise, for INT
+     * columns, the rows are counted in PARTITION_BUCKETS buckets of equal
+     * width per partition, and for DATE columns the range between the MIN and
+     * MAX values is split in equal intervals. The first and the last ranges
+     * are open, so that rows added since are not missed, and an extra
+     * fragment reads the rows where the column is NULL.
+     */
+    private List<Fragment> getAutoFragments() throws Exception {
+        List<Long> bounds = Collections.emptyList();
+        Connection connection = plugin.getConnection();
+        try {
+            DatabaseMetaData metaData = connection.getMetaData();
+            if (partitionColumn == null) {
+                choosePartitionColumn(metaData);
+            }
+            if (partitionColumn != null && partitionCount > 1) {
+                bounds = getAutoBounds(connection, metaData.getDatabaseProductName());
+            }
+        }
+        finally {
+            JdbcBasePlugin.closeConnection(connection);
+        }
+
+        if (bounds.isEmpty()) {
+            LOG.debug("Table {} is read as a single fragment", context.getDataSource());
+            fragments.add(new Fragment(context.getDataSource(), pxfHosts, null));
+            return fragments;
+        }
+        LOG.debug("Table {} is partitioned by {} at {}", context.getDataSource(), partitionColumn, bounds);
+
+        byte[] userData = (partitionColumn + ":" + partitionType).getBytes();
+        long fragStart = OPEN_START;
+        for (long bound : bounds) {
+            addAutoFragment(fragStart, bound, userData);
+            fragStart = bound;
+        }
+        addAutoFragment(fragStart, OPEN_END, userData);
+        addAutoFragment(OPEN_START, OPEN_END, userData);
+        return fragments;
+    }
+
+    private void addAutoFragment(long start, long end, byte[] userData) {
+        if (partitionType == PartitionType.DATE) {
+            // the bounds of DATE columns are days since the epoch
+            start = (start == OPEN_START) ? start : java.sql.Date.valueOf(LocalDate.ofEpochDay(start)).getTime();
+            end = (end == OPEN_END) ? end : java.sql.Date.valueOf(LocalDate.ofEpochDay(end)).getTime();
+        }
+        byte[] fragmentMetadata = ByteUtil.mergeBytes(ByteUtil.getBytes(start), ByteUtil.getBytes(end));
+        fragments.add(new Fragment(context.getDataSource(), pxfHosts, fragmentMetadata, userData));
+    }
+
+    /*
+     * Chooses the first column of the primary key if it is an INT or DATE
+     * column, since it is usually indexed and unique, or else the first INT or
+     * DATE column of the table.
+     */
+    private void choosePartitionColumn(DatabaseMetaData metaData) {
+        Map<String, ColumnDescriptor> candidates = new LinkedHashMap<>();
+        for (ColumnDescriptor column : context.getTupleDescription()) {
+            if (getPartitionType(column) != null) {
+                candidates.put(column.columnName().toLowerCase(), column);
+            }
+        }
+        if (candidates.isEmpty()) {
+            LOG.debug("Table {} has no INT or DATE column to partition by", context.getDataSource());
+            return;
+        }
+
+        ColumnDescriptor chosen = null;
+        String tableName = context.getDataSource();
+        String schemaName = null;
+        int dot = tableName.lastIndexOf('.');
+        if (dot >= 0) {
+            schemaName = tableName.substring(0, dot);
+            tableName = tableName.substring(dot + 1);
+        }
+        try {
+            if (metaData.storesUpperCaseIdentifiers()) {
+                schemaName = (schemaName == null) ? null : schemaName.toUpperCase();
+                tableName = tableName.toUpperCase();
+            }
+            else if (metaData.storesLowerCaseIdentifiers()) {
+                schemaName = (schemaName == null) ? null : schemaName.toLowerCase();
+                tableName = tableName.toLowerCase();
+            }
+            try (ResultSet primaryKeys = metaData.getPrimaryKeys(null, schemaName, tableName)) {
+                while (primaryKeys.next()) {
+                    if (primaryKeys.getInt("KEY_SEQ") == 1) {
+                        chosen = candidates.get(primaryKeys.getString("COLUMN_NAME").toLowerCase());
+                    }
+                }
+            }
+        }
+        catch (SQLException e) {
+            LOG.debug("Failed to read the primary key of table {}: {}", context.getDataSource(), e.getMessage());
+        }
+        if (chosen == null) {
+            chosen = candidates.values().iterator().next();
+        }
+        partitionColumn = chosen.columnName();
+        partitionType = getPartitionType(chosen);
+    }
+
+    private static PartitionType getPartitionType(ColumnDescriptor column) {
+        switch (DataType.get(column.columnTypeCode())) {
+            case BIGINT:
+            case INTEGER:
+            case SMALLINT:
+                return PartitionType.INT;
+            case DATE:
+                return PartitionType.DATE;
+            default:
+                return null;
+        }
+    }
+
+    private List<Long> getAutoBounds(Connection connection, String dbName) throws SQLException, ParseException {
+        DbProduct dbProduct = DbProduct.getDbProduct(dbName);
+        try {
+            List<String> histogram = dbProduct.getHistogramBounds(connection, context.getDataSource(), partitionColumn);
+            if (histogram != null && histogram.size() > 1) {
+                long[] starts = new long[histogram.size() - 1];
+                long[] counts = new long[starts.length];
+                for (int i = 0; i < starts.length; i++) {
+                    starts[i] = parseBound(histogram.get(i));
+                    counts[i] = 1;
+                }
+                return getPartitionBounds(starts, counts, partitionCount);
+            }
+        }
+        catch (SQLException | NumberFormatException | DateTimeParseException e) {
+            LOG.debug("Failed to read the histogram of column {}: {}", partitionColumn, e.getMessage());
+        }
+
+        // Only the rows matching the filter of the query are counted
+        StringBuilder where = new StringBuilder(" WHERE ").append(partitionColumn).append(" IS NOT NULL");
+        new WhereSQLBuilder(context).buildWhereSQL(dbName, where);
+
+        long min;
+        long max;
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT MIN(" + partitionColumn + "), MAX(" + partitionColumn +
+                     ") FROM " + context.getDataSource() + where)) {
+            if (!resultSet.next() || resultSet.getObject(1) == null) {
+                return Collections.emptyList();
+            }
+            if (partitionType == PartitionType.DATE) {
+                min = resultSet.getDate(1).toLocalDate().toEpochDay();
+                max = resultSet.getDate(2).toLocalDate().toEpochDay();
+            }
+            else {
+                min = resultSet.getLong(1);
+                max = resultSet.getLong(2);
+            }
+        }
+
+        long span;
+        try {
+            span = Math.addExact(Math.subtractExact(max, min), 1);
+        }
+        catch (ArithmeticException e) {
+            return Collections.emptyList();
+        }
+
+        if (partitionType == PartitionType.DATE) {
+            long width = (span + partitionCount - 1) / partitionCount;
+            long[] starts = new long[(int) ((span + width - 1) / width)];
+            long[] counts = new long[starts.length];
+            for (int i = 0; i < starts.length; i++) {
+                starts[i] = min + i * width;
+                counts[i] = 1;
+            }
+            return getPartitionBounds(starts, counts, partitionCount);
+        }
+
+        long bucketCount = (long) partitionCount * PARTITION_BUCKETS;
+        long width = span / bucketCount + (span % bucketCount == 0 ? 0 : 1);
+        String bucket = "FLOOR((" + partitionColumn + " - (" + min + ")) / " + width + ")";
+        TreeMap<Long, Long> buckets = new TreeMap<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT " + bucket + ", COUNT(*) FROM " +
+                     context.getDataSource() + where + " GROUP BY " + bucket)) {
+            while (resultSet.next()) {
+                buckets.put(min + resultSet.getLong(1) * width, resultSet.getLong(2));
+            }
+        }
+        long[] starts = new long[buckets.size()];
+        long[] counts = new long[buckets.size()];
+        int i = 0;
+        for (Map.Entry<Long, Long> entry : buckets.entrySet()) {
+            starts[i] = entry.getKey();
+            counts[i++] = entry.getValue();
+        }
+        return getPartitionBounds(starts, counts, partitionCount);
+    }
+
+    private long parseBound(String value) {
+        if (value.startsWith("\"")) {
+            value = value.substring(1, value.length() - 1);
+        }
+        if (partitionType == PartitionType.DATE) {
+            // timestamps start with the date
+            return LocalDate.parse(value.length() > 10 ? value.substring(0, 10) : value).toEpochDay();
+        }
+        return Long.parseLong(value);
+    }
+
+    /**
+     * Splits buckets of rows into partitions holding about the same number
+     * of rows each, without splitting a bucket.
+     *
+     * @param starts the ascending first values of the buckets
+     * @param counts the number of rows in each bucket
+     * @param partitionCount the number of partitions to split the rows into
+     * @return the ascending values at which partitions start, except the first one
+     */
+    static List<Long> getPartitionBounds(long[] starts, long[] counts, int partitionCount) {
+        long total = 0;
+        for (long count : counts) {
+            total += count;
+        }
+        List<Long> bounds = new ArrayList<>();
+        long cumulative = 0;
+        int next = 1;
+        for (int i = 0; i < starts.length; i++) {
+            if (i > 0 && next < partitionCount && cumulative >= (double) total * next / partitionCount
+                    && (bounds.isEmpty() || bounds.get(bounds.size() - 1) < starts[i])) {
+                bounds.add(starts[i]);
+                while (next < partitionCount && cumulative >= (double) total * next / partitionCount) {
+                    next++;
+                }
+            }
+            cumulative += counts[i];
+        }
+        return bounds;
+    }
+
     // Partition parameters (filled by class constructor)
     private String[] range = null;
     private PartitionType partitionType = null;
@@ -291,6 +624,21 @@ public class JdbcPartitionFragmenter extends BaseFragmenter {
     private Calendar rangeDateStart;
     private Calendar rangeDateEnd;
 
+    // Automatic partition parameters (filled by class constructor)
+    private boolean autoPartitioning = false;
+    private String partitionColumn = null;
+    private int partitionCount;
+    private JdbcBasePlugin plugin;
+
+    private static final String AUTO = "auto";
+    // Number of buckets the rows are counted in per partition, for INT columns without a histogram
+    static final int PARTITION_BUCKETS = 16;
+    // Bounds of the automatic ranges that are open
+    static final long OPEN_START = Long.MIN_VALUE;
+    static final long OPEN_END = Long.MAX_VALUE;
+
+    private static final Logger LOG = LoggerFactory.getLogger(JdbcPartitionFragmenter.class);
+
     private static enum PartitionType {
         DATE,
         INT,
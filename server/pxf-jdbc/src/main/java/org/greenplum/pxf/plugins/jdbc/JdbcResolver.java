@@ -23,6 +23,8 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.greenplum.pxf.api.OneField;
 import org.greenplum.pxf.api.OneRow;
+import org.greenplum.pxf.api.ReadColumnarResolver;
+import org.greenplum.pxf.api.io.ColumnBatch;
 import org.greenplum.pxf.api.io.DataType;
 import org.greenplum.pxf.api.model.Resolver;
 import org.greenplum.pxf.api.utilities.ColumnDescriptor;
@@ -36,14 +38,26 @@ import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.sql.Types;
 import java.text.ParseException;
-import java.text.SimpleDateFormat;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoField;
+import java.time.temporal.TemporalQuery;
+import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
 
 /**
  * JDBC tables resolver
+ *
+ * The columns are read by index with the {@link java.sql.ResultSet} getter of
+ * their type. When reading, rows are resolved by batches into column vectors
+ * (see {@link ReadColumnarResolver}), without an intermediate {@link OneField}
+ * per value
  */
-public class JdbcResolver extends JdbcBasePlugin implements Resolver {
+public class JdbcResolver extends JdbcBasePlugin implements Resolver, ReadColumnarResolver {
 
     /**
      * getFields() implementation
@@ -55,57 +69,61 @@ public class JdbcResolver extends JdbcBasePlugin implements Resolver {
     @Override
     public List<OneField> getFields(OneRow row) throws SQLException {
         ResultSet result = (ResultSet) row.getData();
-        LinkedList<OneField> fields = new LinkedList<>();
+        JdbcColumnReader[] readers = getReaders();
+        List<OneField> fields = new ArrayList<>(readers.length);
 
-        for (ColumnDescriptor column : columns) {
-            String colName = column.columnName();
-            Object value = null;
+        for (int i = 0; i < readers.length; i++) {
+            fields.add(new OneField(columns.get(i).columnTypeCode(), readers[i].read(result, i + 1)));
+        }
+        return fields;
+    }
 
-            OneField oneField = new OneField();
-            oneField.type = column.columnTypeCode();
+    /**
+     * getColumnBatch() implementation
+     *
+     * Reads the current row of the accessor and the following rows, up to
+     * the capacity of the batch, straight into the column vectors
+     *
+     * @param row one row
+     * @return the batch
+     *
+     * @throws SQLException if the provided {@link OneRow} object is invalid
+     */
+    @Override
+    public ColumnBatch getColumnBatch(OneRow row) throws SQLException {
+        ResultSet result = (ResultSet) row.getData();
+        // the cursor is null if the row does not come from JdbcAccessor, the batch then has one row
+        ResultSetCursor cursor = (row.getKey() instanceof ResultSetCursor) ? (ResultSetCursor) row.getKey() : null;
+        JdbcColumnReader[] readers = getReaders();
+        if (batch == null) {
+            batch = new ColumnBatch(columns);
+        }
+        batch.reset();
 
-            switch (DataType.get(oneField.type)) {
-                case INTEGER:
-                    value = result.getInt(colName);
-                    break;
-                case FLOAT8:
-                    value = result.getDouble(colName);
-                    break;
-                case REAL:
-                    value = result.getFloat(colName);
-                    break;
-                case BIGINT:
-                    value = result.getLong(colName);
-                    break;
-                case SMALLINT:
-                    value = result.getShort(colName);
-                    break;
-                case BOOLEAN:
-                    value = result.getBoolean(colName);
-                    break;
-                case BYTEA:
-                    value = result.getBytes(colName);
-                    break;
-                case VARCHAR:
-                case BPCHAR:
-                case TEXT:
-                case NUMERIC:
-                    value = result.getString(colName);
-                    break;
-                case DATE:
-                    value = result.getDate(colName);
-                    break;
-                case TIMESTAMP:
-                    value = result.getTimestamp(colName);
-                    break;
-                default:
-                    throw new UnsupportedOperationException("Field type '" + DataType.get(oneField.type).toString() + "' (column '" + column.toString() + "') is not supported");
+        int size = 0;
+        do {
+            for (int i = 0; i < readers.length; i++) {
+                readers[i].read(result, i + 1, batch.getColumn(i), size);
             }
+            size++;
+        } while (size < batch.getCapacity() && cursor != null && cursor.next());
+        batch.setSize(size);
+        return batch;
+    }
 
-            oneField.val = value;
-            fields.add(oneField);
+    /*
+     * Returns the readers of the columns, created for the first row. The
+     * columns of the query are in the order of the tuple description.
+     */
+    private JdbcColumnReader[] getReaders() {
+        if (readers == null) {
+            JdbcColumnReader[] columnReaders = new JdbcColumnReader[columns.size()];
+            for (int i = 0; i < columnReaders.length; i++) {
+                columnReaders[i] = JdbcColumnReader.create(columns.get(i));
+            }
+            readers = columnReaders;
         }
-        return fields;
+        return readers;
     }
 
     /**
@@ -196,24 +214,10 @@ public class JdbcResolver extends JdbcBasePlugin implements Resolver {
                             oneField.val = (Object)new BigDecimal(rawVal);
                             break;
                         case TIMESTAMP:
-                            boolean isConversionSuccessful = false;
-                            for (SimpleDateFormat sdf : timestampSDFs.get()) {
-                                try {
-                                    java.util.Date parsedTimestamp = sdf.parse(rawVal);
-                                    oneField.val = (Object)new Timestamp(parsedTimestamp.getTime());
-                                    isConversionSuccessful = true;
-                                    break;
-                                }
-                                catch (ParseException e) {
-                                    // pass
-                                }
-                            }
-                            if (!isConversionSuccessful) {
-                                throw new ParseException(rawVal, 0);
-                            }
+                            oneField.val = (Object)Timestamp.valueOf(parse(rawVal, TIMESTAMP_PARSER, LocalDateTime::from));
                             break;
                         case DATE:
-                            oneField.val = (Object)new Date(dateSDF.get().parse(rawVal).getTime());
+                            oneField.val = (Object)Date.valueOf(parse(rawVal, DateTimeFormatter.ISO_LOCAL_DATE, LocalDate::from));
                             break;
                         default:
                             throw new UnsupportedOperationException("Field type '" + DataType.get(oneField.type).toString() + "' (column '" + column.toString() + "') is not supported");
@@ -226,6 +230,15 @@ public class JdbcResolver extends JdbcBasePlugin implements Resolver {
         return new OneRow(new LinkedList<OneField>(record));
     }
 
+    private static <T> T parse(String rawVal, DateTimeFormatter formatter, TemporalQuery<T> query) throws ParseException {
+        try {
+            return formatter.parse(rawVal, query);
+        }
+        catch (DateTimeParseException e) {
+            throw new ParseException(rawVal, e.getErrorIndex());
+        }
+    }
+
     /**
      * Decode OneRow object and pass all its contents to a PreparedStatement
      *
@@ -235,12 +248,28 @@ public class JdbcResolver extends JdbcBasePlugin implements Resolver {
      * @throws IOException if data in a OneRow is corrupted
      * @throws SQLException if the given statement is broken
      */
-    @SuppressWarnings("unchecked")
     public static void decodeOneRowToPreparedStatement(OneRow row, PreparedStatement statement) throws IOException, SQLException {
+        decodeOneRowToPreparedStatement(row, statement, 0);
+    }
+
+    /**
+     * Decode OneRow object and pass its contents to the parameters of a
+     * PreparedStatement that follow the given offset, for statements that
+     * insert multiple rows
+     *
+     * @param row one row
+     * @param statement PreparedStatement
+     * @param offset number of parameters before the first field of the row
+     *
+     * @throws IOException if data in a OneRow is corrupted
+     * @throws SQLException if the given statement is broken
+     */
+    @SuppressWarnings("unchecked")
+    public static void decodeOneRowToPreparedStatement(OneRow row, PreparedStatement statement, int offset) throws IOException, SQLException {
         // This is safe: OneRow comes from JdbcResolver
         List<OneField> tuple = (List<OneField>)row.getData();
-        for (int i = 1; i <= tuple.size(); i++) {
-            OneField field = tuple.get(i - 1);
+        for (int i = offset + 1; i <= offset + tuple.size(); i++) {
+            OneField field = tuple.get(i - offset - 1);
             switch (DataType.get(field.type)) {
                 case INTEGER:
                     if (field.val == null) {
@@ -338,28 +367,107 @@ public class JdbcResolver extends JdbcBasePlugin implements Resolver {
         }
     }
 
-    private static final Log LOG = LogFactory.getLog(JdbcResolver.class);
-
-    // SimpleDateFormat to parse TEXT into DATE
-    private static ThreadLocal<SimpleDateFormat> dateSDF = new ThreadLocal<SimpleDateFormat>() {
-        @Override protected SimpleDateFormat initialValue() {
-            return new SimpleDateFormat("yyyy-MM-dd");
+    /**
+     * Decode OneRow object and append it to a text in the format of a
+     * PostgreSQL COPY ... FROM STDIN query: the fields are separated by tabs
+     * and escaped with backslashes, NULL is \N
+     *
+     * @param row one row
+     * @param text text to append the row to, followed by a newline
+     *
+     * @throws IOException if data in a OneRow is corrupted
+     */
+    @SuppressWarnings("unchecked")
+    public static void decodeOneRowToCopyText(OneRow row, StringBuilder text) throws IOException {
+        // This is safe: OneRow comes from JdbcResolver
+        List<OneField> tuple = (List<OneField>)row.getData();
+        for (int i = 0; i < tuple.size(); i++) {
+            OneField field = tuple.get(i);
+            if (i > 0) {
+                text.append('\t');
+            }
+            if (field.val == null) {
+                text.append("\\N");
+                continue;
+            }
+            switch (DataType.get(field.type)) {
+                case INTEGER:
+                case BIGINT:
+                case SMALLINT:
+                case REAL:
+                case FLOAT8:
+                case DATE:
+                case TIMESTAMP:
+                    text.append(field.val);
+                    break;
+                case BOOLEAN:
+                    text.append((boolean)field.val ? 't' : 'f');
+                    break;
+                case NUMERIC:
+                    text.append(((BigDecimal)field.val).toPlainString());
+                    break;
+                case VARCHAR:
+                case BPCHAR:
+                case TEXT:
+                    appendCopyEscaped((String)field.val, text);
+                    break;
+                case BYTEA:
+                    // the escape format of bytea, with the backslashes escaped for COPY
+                    for (byte b : (byte[])field.val) {
+                        text.append("\\\\")
+                                .append((char) ('0' + ((b >> 6) & 3)))
+                                .append((char) ('0' + ((b >> 3) & 7)))
+                                .append((char) ('0' + (b & 7)));
+                    }
+                    break;
+                default:
+                    throw new IOException("The data tuple from JdbcResolver is corrupted");
+            }
         }
-    };
-    // SimpleDateFormat to parse TEXT into TIMESTAMP (with microseconds)
-    private static ThreadLocal<SimpleDateFormat[]> timestampSDFs = new ThreadLocal<SimpleDateFormat[]>() {
-        @Override protected SimpleDateFormat[] initialValue() {
-            SimpleDateFormat[] retRes = {
-                    new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSSSSS"),
-                    new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSSSS"),
-                    new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSSS"),
-                    new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS"),
-                    new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SS"),
-                    new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.S"),
-                    new SimpleDateFormat("yyyy-MM-dd HH:mm:ss"),
-                    new SimpleDateFormat("yyyy-MM-dd")
-            };
-            return retRes;
+        text.append('\n');
+    }
+
+    private static void appendCopyEscaped(String value, StringBuilder text) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\\':
+                    text.append("\\\\");
+                    break;
+                case '\n':
+                    text.append("\\n");
+                    break;
+                case '\r':
+                    text.append("\\r");
+                    break;
+                case '\t':
+                    text.append("\\t");
+                    break;
+                default:
+                    text.append(c);
+            }
         }
-    };
+    }
+
+    private static final Log LOG = LogFactory.getLog(JdbcResolver.class);
+
+    // Parses TEXT into TIMESTAMP, the time and the fraction of a second (up to nanoseconds) are optional
+    private static final DateTimeFormatter TIMESTAMP_PARSER = new DateTimeFormatterBuilder()
+            .appendPattern("uuuu-MM-dd")
+            .optionalStart()
+            .appendLiteral(' ')
+            .appendPattern("HH:mm:ss")
+            .optionalStart()
+            .appendFraction(ChronoField.NANO_OF_SECOND, 0, 9, true)
+            .optionalEnd()
+            .optionalEnd()
+            .parseDefaulting(ChronoField.HOUR_OF_DAY, 0)
+            .parseDefaulting(ChronoField.MINUTE_OF_HOUR, 0)
+            .parseDefaulting(ChronoField.SECOND_OF_MINUTE, 0)
+            .toFormatter();
+
+    // Readers of the columns, created for the first row
+    private JdbcColumnReader[] readers;
+    // Batch reused for every call of getColumnBatch()
+    private ColumnBatch batch;
 }
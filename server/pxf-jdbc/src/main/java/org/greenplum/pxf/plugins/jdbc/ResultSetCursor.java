@@ -0,0 +1,61 @@
+package org.greenplum.pxf.plugins.jdbc;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Moves through the rows of a result set on behalf of both the accessor,
+ * which returns one row at a time, and a resolver that reads the following
+ * rows into a batch. Once the result set is exhausted, next() is not called
+ * on it again, since some drivers throw in that case.
+ */
+class ResultSetCursor {
+
+    private final ResultSet resultSet;
+    private boolean exhausted;
+
+    ResultSetCursor(ResultSet resultSet) {
+        this.resultSet = resultSet;
+    }
+
+    ResultSet getResultSet() {
+        return resultSet;
+    }
+
+    /**
+     * Moves to the next row.
+     *
+     * @return false if there are no more rows
+     * @throws SQLException if a database access error occurs
+     */
+    boolean next() throws SQLException {
+        if (exhausted) {
+            return false;
+        }
+        if (!resultSet.next()) {
+            exhausted = true;
+            return false;
+        }
+        return true;
+    }
+}
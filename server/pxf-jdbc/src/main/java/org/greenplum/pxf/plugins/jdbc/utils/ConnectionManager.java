@@ -0,0 +1,227 @@
+package org.greenplum.pxf.plugins.jdbc.utils;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import com.zaxxer.hikari.pool.HikariPool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Keeps a pool of JDBC connections per {@link PoolDescriptor}, so that the
+ * fragments of a query, and the following queries, reuse the connections to
+ * an external database instead of opening a physical connection each.
+ * <p>
+ * The metrics of every pool are registered in the platform MBean server as
+ * org.greenplum.pxf:type=JdbcConnectionPool,name=&lt;pool name&gt;, see
+ * {@link ConnectionPoolMetricsMXBean}.
+ * <p>
+ * A pool that was not used for 10 minutes, and has no connection in use, is
+ * closed, so that the pools of changed passwords or settings do not stay
+ * open. The time can be overridden by the pxf.service.jdbc.pool.expiration
+ * system property, in milliseconds.
+ */
+public class ConnectionManager {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ConnectionManager.class);
+
+    static final String PROPERTY_KEY_POOL_EXPIRATION = "pxf.service.jdbc.pool.expiration";
+    static final long POOL_EXPIRATION = TimeUnit.MINUTES.toMillis(10);
+
+    private static final String MBEAN_NAME_PREFIX = "org.greenplum.pxf:type=JdbcConnectionPool,name=";
+    private static final ConnectionManager INSTANCE = new ConnectionManager(
+            Long.getLong(PROPERTY_KEY_POOL_EXPIRATION, POOL_EXPIRATION));
+
+    static {
+        // look for expired pools every minute
+        Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "pxf-jdbc-pool-expiration");
+            thread.setDaemon(true);
+            return thread;
+        }).scheduleWithFixedDelay(INSTANCE::closeExpiredPools, 1, 1, TimeUnit.MINUTES);
+    }
+
+    private final ConcurrentMap<PoolDescriptor, Pool> pools = new ConcurrentHashMap<>();
+    private final AtomicInteger poolCount = new AtomicInteger();
+    private final long expiration;
+
+    /**
+     * @param expiration the time in milliseconds after which a pool that is
+     *                   not used is closed
+     */
+    ConnectionManager(long expiration) {
+        this.expiration = expiration;
+    }
+
+    public static ConnectionManager getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Takes a connection from the pool of the descriptor, creating the pool
+     * on first use. Closing the connection returns it to the pool.
+     *
+     * @param descriptor the database, user and pool settings
+     * @return the connection
+     * @throws SQLException if no connection could be opened, or none became
+     *                      available in time
+     */
+    public Connection getConnection(PoolDescriptor descriptor) throws SQLException {
+        while (true) {
+            Pool pool;
+            try {
+                pool = pools.computeIfAbsent(descriptor, key -> new Pool(createDataSource(key)));
+            } catch (HikariPool.PoolInitializationException e) {
+                // the pool opens a first connection to fail fast on wrong settings
+                if (e.getCause() instanceof SQLException) {
+                    throw (SQLException) e.getCause();
+                }
+                throw new SQLException("Failed to create the connection pool: " + e.getMessage(), e);
+            }
+            pool.lock.readLock().lock();
+            try {
+                if (!pool.dataSource.isClosed()) {
+                    pool.lastUsed = System.currentTimeMillis();
+                    return pool.dataSource.getConnection();
+                }
+            } finally {
+                pool.lock.readLock().unlock();
+            }
+            // the pool expired meanwhile and was removed, take the next one
+        }
+    }
+
+    /**
+     * Closes the pools that were not used for the expiration time, unless
+     * one of their connections is still in use.
+     */
+    void closeExpiredPools() {
+        for (Map.Entry<PoolDescriptor, Pool> entry : pools.entrySet()) {
+            Pool pool = entry.getValue();
+            // skip the pools a query is taking a connection from
+            if (!pool.lock.writeLock().tryLock()) {
+                continue;
+            }
+            try {
+                HikariPoolMXBean poolBean = pool.dataSource.getHikariPoolMXBean();
+                if (System.currentTimeMillis() - pool.lastUsed < expiration
+                        || (poolBean != null && poolBean.getActiveConnections() > 0)) {
+                    continue;
+                }
+                LOG.debug("Closing JDBC connection pool {}, not used for {} ms",
+                        pool.dataSource.getPoolName(), expiration);
+                pools.remove(entry.getKey(), pool);
+                pool.dataSource.close();
+                unregisterMetrics(pool.dataSource.getPoolName());
+            } finally {
+                pool.lock.writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * @return the number of open pools
+     */
+    int getPoolCount() {
+        return pools.size();
+    }
+
+    private HikariDataSource createDataSource(PoolDescriptor descriptor) {
+        String poolName = "pxf-jdbc-" + poolCount.incrementAndGet();
+        LOG.debug("Creating JDBC connection pool {} for {}", poolName, descriptor);
+
+        HikariConfig config = new HikariConfig();
+        config.setPoolName(poolName);
+        config.setDriverClassName(descriptor.getJdbcDriver());
+        config.setJdbcUrl(descriptor.getDbUrl());
+        if (descriptor.getUser() != null) {
+            config.setUsername(descriptor.getUser());
+            config.setPassword(descriptor.getPass());
+        }
+        config.setMinimumIdle(descriptor.getMinIdle());
+        config.setMaximumPoolSize(descriptor.getMaxSize());
+        config.setConnectionTimeout(descriptor.getConnectionTimeout());
+        config.setIdleTimeout(descriptor.getIdleTimeout());
+        if (descriptor.getValidationQuery() != null) {
+            config.setConnectionTestQuery(descriptor.getValidationQuery());
+        }
+        config.setLeakDetectionThreshold(descriptor.getLeakDetectionThreshold());
+        config.setMetricsTrackerFactory((name, poolStats) -> {
+            ConnectionPoolMetrics metrics = new ConnectionPoolMetrics(descriptor.toString(), poolStats);
+            registerMetrics(name, metrics);
+            return metrics;
+        });
+        try {
+            return new HikariDataSource(config);
+        } catch (HikariPool.PoolInitializationException e) {
+            unregisterMetrics(poolName);
+            throw e;
+        }
+    }
+
+    private static void registerMetrics(String poolName, ConnectionPoolMetrics metrics) {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(metrics,
+                    new ObjectName(MBEAN_NAME_PREFIX + poolName));
+        } catch (Exception e) {
+            LOG.warn("Failed to register the metrics of JDBC connection pool {}: {}", poolName, e.getMessage());
+        }
+    }
+
+    private static void unregisterMetrics(String poolName) {
+        try {
+            ObjectName name = new ObjectName(MBEAN_NAME_PREFIX + poolName);
+            if (ManagementFactory.getPlatformMBeanServer().isRegistered(name)) {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+            }
+        } catch (Exception e) {
+            LOG.debug("Failed to unregister the metrics of JDBC connection pool {}: {}", poolName, e.getMessage());
+        }
+    }
+
+    /**
+     * A data source and the time it last gave a connection. Connections are
+     * taken under the read lock, the pool is closed under the write lock.
+     */
+    private static class Pool {
+        private final HikariDataSource dataSource;
+        private final ReadWriteLock lock = new ReentrantReadWriteLock();
+        private volatile long lastUsed = System.currentTimeMillis();
+
+        Pool(HikariDataSource dataSource) {
+            this.dataSource = dataSource;
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package org.greenplum.pxf.plugins.jdbc.utils;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.PoolStats;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Records the metrics of a JDBC connection pool, the pool reports its events
+ * through the {@link IMetricsTracker} methods.
+ */
+public class ConnectionPoolMetrics implements IMetricsTracker, ConnectionPoolMetricsMXBean {
+
+    private final String description;
+    private final PoolStats poolStats;
+    private final AtomicLong acquiredCount = new AtomicLong();
+    private final AtomicLong waitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final AtomicLong timeoutCount = new AtomicLong();
+    private final AtomicLong createdCount = new AtomicLong();
+    private final AtomicLong usageCount = new AtomicLong();
+    private final AtomicLong usageMillis = new AtomicLong();
+
+    ConnectionPoolMetrics(String description, PoolStats poolStats) {
+        this.description = description;
+        this.poolStats = poolStats;
+    }
+
+    @Override
+    public void recordConnectionCreatedMillis(long connectionCreatedMillis) {
+        createdCount.incrementAndGet();
+    }
+
+    @Override
+    public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+        acquiredCount.incrementAndGet();
+        waitNanos.addAndGet(elapsedAcquiredNanos);
+        long max = maxWaitNanos.get();
+        while (elapsedAcquiredNanos > max && !maxWaitNanos.compareAndSet(max, elapsedAcquiredNanos)) {
+            max = maxWaitNanos.get();
+        }
+    }
+
+    @Override
+    public void recordConnectionUsageMillis(long elapsedBorrowedMillis) {
+        usageCount.incrementAndGet();
+        usageMillis.addAndGet(elapsedBorrowedMillis);
+    }
+
+    @Override
+    public void recordConnectionTimeout() {
+        timeoutCount.incrementAndGet();
+    }
+
+    @Override
+    public String getDescription() {
+        return description;
+    }
+
+    @Override
+    public int getActiveConnections() {
+        return poolStats.getActiveConnections();
+    }
+
+    @Override
+    public int getIdleConnections() {
+        return poolStats.getIdleConnections();
+    }
+
+    @Override
+    public int getTotalConnections() {
+        return poolStats.getTotalConnections();
+    }
+
+    @Override
+    public int getMaxConnections() {
+        return poolStats.getMaxConnections();
+    }
+
+    @Override
+    public int getPendingThreads() {
+        return poolStats.getPendingThreads();
+    }
+
+    @Override
+    public long getAcquiredCount() {
+        return acquiredCount.get();
+    }
+
+    @Override
+    public long getAverageWaitMicros() {
+        long count = acquiredCount.get();
+        return count == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(waitNanos.get() / count);
+    }
+
+    @Override
+    public long getMaxWaitMicros() {
+        return TimeUnit.NANOSECONDS.toMicros(maxWaitNanos.get());
+    }
+
+    @Override
+    public long getTimeoutCount() {
+        return timeoutCount.get();
+    }
+
+    @Override
+    public long getCreatedCount() {
+        return createdCount.get();
+    }
+
+    @Override
+    public long getAverageUsageMillis() {
+        long count = usageCount.get();
+        return count == 0 ? 0 : usageMillis.get() / count;
+    }
+}
@@ -0,0 +1,75 @@
+package org.greenplum.pxf.plugins.jdbc.utils;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+/**
+ * Utilization and wait time of a JDBC connection pool, exposed through JMX.
+ */
+public interface ConnectionPoolMetricsMXBean {
+
+    /**
+     * @return the description of the pool, without the password
+     */
+    String getDescription();
+
+    int getActiveConnections();
+
+    int getIdleConnections();
+
+    int getTotalConnections();
+
+    int getMaxConnections();
+
+    /**
+     * @return the number of threads waiting for a connection
+     */
+    int getPendingThreads();
+
+    /**
+     * @return the number of connections handed out by the pool
+     */
+    long getAcquiredCount();
+
+    /**
+     * @return the average time in microseconds spent waiting for a connection
+     */
+    long getAverageWaitMicros();
+
+    /**
+     * @return the longest time in microseconds spent waiting for a connection
+     */
+    long getMaxWaitMicros();
+
+    /**
+     * @return the number of requests that got no connection in time
+     */
+    long getTimeoutCount();
+
+    /**
+     * @return the number of physical connections opened
+     */
+    long getCreatedCount();
+
+    /**
+     * @return the average time in milliseconds a connection was used before
+     * it was returned to the pool
+     */
+    long getAverageUsageMillis();
+}
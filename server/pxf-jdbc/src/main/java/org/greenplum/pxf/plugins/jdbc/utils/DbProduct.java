@@ -19,6 +19,13 @@ package org.greenplum.pxf.plugins.jdbc.utils;
  * under the License.
  */
 
+import java.io.Reader;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
 /**
  * A tool class to process data types that must have different form in different databases.
  * Such processing is required to create correct constraints (WHERE statements).
@@ -58,6 +65,88 @@ public abstract class DbProduct {
      * @return a string with a properly wrapped timestamp object
      */
     public abstract String wrapTimestamp(Object val);
+
+    /**
+     * Creates a statement that reads the rows of a SELECT query from the
+     * database in batches of the given size, instead of buffering the whole
+     * result set in memory. Products whose drivers ignore the fetch size
+     * unless the connection is set up in a specific way override this method.
+     *
+     * @param connection connection to create the statement for
+     * @param fetchSize number of rows fetched at a time, 0 keeps the driver default
+     * @return a forward-only, read-only statement
+     * @throws SQLException if a database access error occurs
+     */
+    public Statement createReadStatement(Connection connection, int fetchSize) throws SQLException {
+        Statement statement = connection.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        if (fetchSize > 0) {
+            statement.setFetchSize(fetchSize);
+        }
+        return statement;
+    }
+
+    /**
+     * Returns the histogram the database keeps in its statistics for a
+     * column: ascending values such that about the same number of rows lies
+     * between every two adjacent values. The automatic partitioning of
+     * {@link org.greenplum.pxf.plugins.jdbc.JdbcPartitionFragmenter} splits
+     * the table at these values, so that skewed data still gives fragments of
+     * similar sizes.
+     *
+     * @param connection connection to the database
+     * @param tableName name of the table, optionally qualified by its schema
+     * @param columnName name of the column
+     * @return the values of the histogram as text, or null if the database keeps none
+     * @throws SQLException if a database access error occurs
+     */
+    public List<String> getHistogramBounds(Connection connection, String tableName, String columnName) throws SQLException {
+        return null;
+    }
+
+    /**
+     * Returns the URL to open the connections writing rows with, enabling the
+     * settings of the JDBC driver that speed up batches of INSERT queries.
+     * Settings present in the URL are kept.
+     *
+     * @param dbUrl the database URL
+     * @return the URL for writes
+     */
+    public String getWriteUrl(String dbUrl) {
+        return dbUrl;
+    }
+
+    /**
+     * Checks whether rows can be written to the database with
+     * {@link #copyIn(Connection, String, Reader)}.
+     *
+     * @param connection connection to the database
+     * @return true if the JDBC driver provides a COPY API
+     */
+    public boolean supportsCopy(Connection connection) {
+        return false;
+    }
+
+    /**
+     * Writes rows with a COPY ... FROM STDIN query.
+     *
+     * @param connection connection to the database
+     * @param query the COPY query
+     * @param data the rows, in the text format of the COPY query
+     * @return the number of rows written
+     * @throws SQLException if a database access error occurs
+     * @throws UnsupportedOperationException if the database does not support COPY
+     */
+    public long copyIn(Connection connection, String query, Reader data) throws SQLException {
+        throw new UnsupportedOperationException("COPY is not supported by the external database");
+    }
+
+    // Adds a parameter to a URL of the form jdbc:<product>://<host>/<database>[?<parameters>]
+    static String addUrlParameter(String dbUrl, String name, String value) {
+        if (dbUrl.toLowerCase().contains(name.toLowerCase() + "=")) {
+            return dbUrl;
+        }
+        return dbUrl + (dbUrl.contains("?") ? "&" : "?") + name + "=" + value;
+    }
 }
 
 /**
@@ -19,6 +19,10 @@ package org.greenplum.pxf.plugins.jdbc.utils;
  * under the License.
  */
 
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
 /**
  * Implements methods for the MySQL Database.
  */
@@ -32,4 +36,29 @@ public class MysqlProduct extends DbProduct {
     public String wrapTimestamp(Object val) {
         return "'" + val + "'";
     }
+
+    /**
+     * The MySQL driver reads the whole result set at once, unless the fetch
+     * size is Integer.MIN_VALUE, which streams the rows one by one, or the
+     * URL enables server-side cursors with useCursorFetch=true.
+     */
+    @Override
+    public Statement createReadStatement(Connection connection, int fetchSize) throws SQLException {
+        Statement statement = super.createReadStatement(connection, 0);
+        if (fetchSize > 0) {
+            String url = connection.getMetaData().getURL();
+            boolean cursorFetch = url != null && url.toLowerCase().contains("usecursorfetch=true");
+            statement.setFetchSize(cursorFetch ? fetchSize : Integer.MIN_VALUE);
+        }
+        return statement;
+    }
+
+    /**
+     * The MySQL driver sends a batch as a single multi-row INSERT with
+     * rewriteBatchedStatements=true, instead of a query per row.
+     */
+    @Override
+    public String getWriteUrl(String dbUrl) {
+        return addUrlParameter(dbUrl, "rewriteBatchedStatements", "true");
+    }
 }
@@ -0,0 +1,159 @@
+package org.greenplum.pxf.plugins.jdbc.utils;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.Objects;
+
+/**
+ * Identifies a JDBC connection pool: the database and user the connections
+ * are opened for, and the settings of the pool. Requests with equal
+ * descriptors share a pool.
+ */
+public class PoolDescriptor {
+
+    private final String jdbcDriver;
+    private final String dbUrl;
+    private final String user;
+    private final String pass;
+    private final int minIdle;
+    private final int maxSize;
+    private final long connectionTimeout;
+    private final long idleTimeout;
+    private final String validationQuery;
+    private final long leakDetectionThreshold;
+
+    /**
+     * @param jdbcDriver             the JDBC driver class name
+     * @param dbUrl                  the database URL
+     * @param user                   the database user, null if the URL
+     *                               identifies the user
+     * @param pass                   the password of the user
+     * @param minIdle                the number of idle connections kept open
+     * @param maxSize                the maximum number of connections
+     * @param connectionTimeout      the time in milliseconds a request waits
+     *                               for a connection
+     * @param idleTimeout            the time in milliseconds after which idle
+     *                               connections above minIdle are closed
+     * @param validationQuery        the query validating connections, null to
+     *                               use {@link java.sql.Connection#isValid}
+     * @param leakDetectionThreshold the time in milliseconds after which a
+     *                               connection not returned to the pool is
+     *                               logged as leaked, 0 disables the detection
+     */
+    public PoolDescriptor(String jdbcDriver, String dbUrl, String user, String pass,
+                          int minIdle, int maxSize, long connectionTimeout, long idleTimeout,
+                          String validationQuery, long leakDetectionThreshold) {
+        this.jdbcDriver = jdbcDriver;
+        this.dbUrl = dbUrl;
+        this.user = user;
+        this.pass = pass;
+        this.minIdle = minIdle;
+        this.maxSize = maxSize;
+        this.connectionTimeout = connectionTimeout;
+        this.idleTimeout = idleTimeout;
+        this.validationQuery = validationQuery;
+        this.leakDetectionThreshold = leakDetectionThreshold;
+    }
+
+    public String getJdbcDriver() {
+        return jdbcDriver;
+    }
+
+    public String getDbUrl() {
+        return dbUrl;
+    }
+
+    public String getUser() {
+        return user;
+    }
+
+    public String getPass() {
+        return pass;
+    }
+
+    public int getMinIdle() {
+        return minIdle;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public long getConnectionTimeout() {
+        return connectionTimeout;
+    }
+
+    public long getIdleTimeout() {
+        return idleTimeout;
+    }
+
+    public String getValidationQuery() {
+        return validationQuery;
+    }
+
+    public long getLeakDetectionThreshold() {
+        return leakDetectionThreshold;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        PoolDescriptor that = (PoolDescriptor) o;
+        return minIdle == that.minIdle &&
+                maxSize == that.maxSize &&
+                connectionTimeout == that.connectionTimeout &&
+                idleTimeout == that.idleTimeout &&
+                leakDetectionThreshold == that.leakDetectionThreshold &&
+                Objects.equals(jdbcDriver, that.jdbcDriver) &&
+                Objects.equals(dbUrl, that.dbUrl) &&
+                Objects.equals(user, that.user) &&
+                Objects.equals(pass, that.pass) &&
+                Objects.equals(validationQuery, that.validationQuery);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(jdbcDriver, dbUrl, user, pass, minIdle, maxSize, connectionTimeout,
+                idleTimeout, validationQuery, leakDetectionThreshold);
+    }
+
+    /**
+     * @return the descriptor without the password
+     */
+    @Override
+    public String toString() {
+        return "PoolDescriptor{" +
+                "jdbcDriver=" + jdbcDriver +
+                ", dbUrl=" + dbUrl +
+                ", user=" + user +
+                ", minIdle=" + minIdle +
+                ", maxSize=" + maxSize +
+                ", connectionTimeout=" + connectionTimeout +
+                ", idleTimeout=" + idleTimeout +
+                ", validationQuery=" + validationQuery +
+                ", leakDetectionThreshold=" + leakDetectionThreshold +
+                '}';
+    }
+}
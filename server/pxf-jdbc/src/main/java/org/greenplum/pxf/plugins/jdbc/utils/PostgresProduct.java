@@ -19,10 +19,26 @@ package org.greenplum.pxf.plugins.jdbc.utils;
  * under the License.
  */
 
+import java.io.IOException;
+import java.io.Reader;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.List;
+
 /**
  * Implements methods for the PostgreSQL.
  */
 public class PostgresProduct extends DbProduct {
+    // The COPY API of the driver is called by reflection, PXF is not built
+    // against a specific version of the driver
+    private static final String PG_CONNECTION_CLASS = "org.postgresql.PGConnection";
+
     @Override
     public String wrapDate(Object val) {
         return "date'" + val + "'";
@@ -32,4 +48,105 @@ public class PostgresProduct extends DbProduct {
     public String wrapTimestamp(Object val) {
         return "'" + val + "'";
     }
+
+    /**
+     * The PostgreSQL driver only reads rows through a cursor when auto-commit
+     * is off, otherwise it reads the whole result set at once.
+     */
+    @Override
+    public Statement createReadStatement(Connection connection, int fetchSize) throws SQLException {
+        if (fetchSize > 0) {
+            connection.setAutoCommit(false);
+        }
+        return super.createReadStatement(connection, fetchSize);
+    }
+
+    /**
+     * Reads the histogram ANALYZE keeps in pg_stats. The histogram leaves out
+     * the most common values of the column, so it only approximates the
+     * distribution of columns where a few values hold most of the rows.
+     */
+    @Override
+    public List<String> getHistogramBounds(Connection connection, String tableName, String columnName) throws SQLException {
+        String schemaName = null;
+        int dot = tableName.lastIndexOf('.');
+        if (dot >= 0) {
+            schemaName = tableName.substring(0, dot);
+            tableName = tableName.substring(dot + 1);
+        }
+        String query = "SELECT histogram_bounds::text FROM pg_stats WHERE tablename = ? AND attname = ? AND " +
+                (schemaName == null ? "schemaname = ANY (current_schemas(false))" : "schemaname = ?") +
+                " AND histogram_bounds IS NOT NULL ORDER BY inherited";
+        try (PreparedStatement statement = connection.prepareStatement(query)) {
+            statement.setString(1, toIdentifier(tableName));
+            statement.setString(2, toIdentifier(columnName));
+            if (schemaName != null) {
+                statement.setString(3, toIdentifier(schemaName));
+            }
+            try (ResultSet resultSet = statement.executeQuery()) {
+                if (!resultSet.next()) {
+                    return null;
+                }
+                // the array is formatted as {value,value,...}
+                String bounds = resultSet.getString(1);
+                return Arrays.asList(bounds.substring(1, bounds.length() - 1).split(","));
+            }
+        }
+    }
+
+    /**
+     * The PostgreSQL driver (9.4.1209 and later) sends a batch as multi-row
+     * INSERT queries with reWriteBatchedInserts=true. Older drivers ignore
+     * the parameter.
+     */
+    @Override
+    public String getWriteUrl(String dbUrl) {
+        return addUrlParameter(dbUrl, "reWriteBatchedInserts", "true");
+    }
+
+    @Override
+    public boolean supportsCopy(Connection connection) {
+        try {
+            return connection.isWrapperFor(Class.forName(PG_CONNECTION_CLASS));
+        }
+        catch (ClassNotFoundException | SQLException | AbstractMethodError e) {
+            // the driver is missing, or does not implement JDBC 4
+            return false;
+        }
+    }
+
+    /**
+     * Writes rows through the CopyManager of the PostgreSQL driver.
+     */
+    @Override
+    public long copyIn(Connection connection, String query, Reader data) throws SQLException {
+        try {
+            Class<?> pgConnectionClass = Class.forName(PG_CONNECTION_CLASS);
+            Object pgConnection = connection.unwrap(pgConnectionClass);
+            Object copyManager = pgConnectionClass.getMethod("getCopyAPI").invoke(pgConnection);
+            Method copyIn = copyManager.getClass().getMethod("copyIn", String.class, Reader.class);
+            return ((Number) copyIn.invoke(copyManager, query, data)).longValue();
+        }
+        catch (InvocationTargetException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof SQLException) {
+                throw (SQLException) cause;
+            }
+            if (cause instanceof IOException) {
+                throw new SQLException("Failed to send the rows to COPY: " + cause.getMessage(), cause);
+            }
+            throw new SQLException("COPY failed: " + cause, cause);
+        }
+        catch (ReflectiveOperationException e) {
+            throw new UnsupportedOperationException("The PostgreSQL driver does not provide the COPY API", e);
+        }
+    }
+
+    // unquoted identifiers are folded to lower case by PostgreSQL
+    private static String toIdentifier(String name) {
+        if (name.length() > 1 && name.startsWith("\"") && name.endsWith("\"")) {
+            return name.substring(1, name.length() - 1);
+        }
+        return name.toLowerCase();
+    }
 }
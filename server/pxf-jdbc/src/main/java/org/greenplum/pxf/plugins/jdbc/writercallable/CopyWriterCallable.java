@@ -0,0 +1,124 @@
+package org.greenplum.pxf.plugins.jdbc.writercallable;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.greenplum.pxf.api.OneRow;
+import org.greenplum.pxf.plugins.jdbc.JdbcBasePlugin;
+import org.greenplum.pxf.plugins.jdbc.JdbcResolver;
+import org.greenplum.pxf.plugins.jdbc.utils.DbProduct;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * This writer sends rows with COPY ... FROM STDIN queries, which PostgreSQL
+ * processes much faster than INSERTs.
+ *
+ * The rows are kept in the text format of COPY, a call() is required once
+ * they take BUFFER_SIZE characters
+ */
+class CopyWriterCallable implements WriterCallable {
+    @Override
+    public void supply(OneRow row) throws IllegalStateException {
+        if (isCallRequired()) {
+            throw new IllegalStateException("Trying to supply() a OneRow object to a full WriterCallable");
+        }
+        if (row == null) {
+            throw new IllegalArgumentException("Trying to supply() a null OneRow object");
+        }
+        try {
+            JdbcResolver.decodeOneRowToCopyText(row, text);
+        }
+        catch (IOException e) {
+            throw new IllegalArgumentException(e.getMessage(), e);
+        }
+        rowCount++;
+    }
+
+    @Override
+    public boolean isCallRequired() {
+        return text.length() >= BUFFER_SIZE;
+    }
+
+    @Override
+    public SQLException call() throws IOException, SQLException, ClassNotFoundException {
+        if (rowCount == 0) {
+            return null;
+        }
+
+        boolean connectionMustBeClosed = false;
+        Connection connection;
+        if (statement == null) {
+            connection = plugin.getConnection();
+            connectionMustBeClosed = true;
+        }
+        else {
+            connection = statement.getConnection();
+        }
+
+        try {
+            if (dbProduct.copyIn(connection, query, new StringReader(text.toString())) != rowCount) {
+                throw new SQLException("The number of rows affected by COPY query is not equal to the number of rows provided");
+            }
+        }
+        catch (SQLException e) {
+            return e;
+        }
+        finally {
+            text.setLength(0);
+            rowCount = 0;
+            if (connectionMustBeClosed) {
+                JdbcBasePlugin.closeConnection(connection);
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Construct a new COPY writer
+     *
+     * @param query COPY ... FROM STDIN query
+     */
+    CopyWriterCallable(JdbcBasePlugin plugin, String query, PreparedStatement statement, DbProduct dbProduct) {
+        if (plugin == null || query == null || dbProduct == null) {
+            throw new IllegalArgumentException("The provided JdbcBasePlugin, SQL query or DbProduct is null");
+        }
+
+        this.plugin = plugin;
+        this.query = query;
+        this.statement = statement;
+        this.dbProduct = dbProduct;
+
+        text = new StringBuilder();
+    }
+
+    static final int BUFFER_SIZE = 1 << 20;
+
+    private final JdbcBasePlugin plugin;
+    private final String query;
+    private final PreparedStatement statement;
+    private final DbProduct dbProduct;
+    private final StringBuilder text;
+    private long rowCount = 0;
+}
@@ -0,0 +1,152 @@
+package org.greenplum.pxf.plugins.jdbc.writercallable;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.greenplum.pxf.api.OneRow;
+import org.greenplum.pxf.plugins.jdbc.JdbcBasePlugin;
+import org.greenplum.pxf.plugins.jdbc.JdbcResolver;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This writer makes INSERTs of multiple rows: INSERT ... VALUES (...), (...)
+ *
+ * A call() is required after a certain number of supply() calls. The rows are
+ * sent by statements of at most MAX_ROWS rows and MAX_PARAMETERS parameters,
+ * the limits of SQL Server, which has the lowest ones
+ */
+class ValuesWriterCallable implements WriterCallable {
+    @Override
+    public void supply(OneRow row) throws IllegalStateException {
+        if (rows.size() >= batchSize) {
+            throw new IllegalStateException("Trying to supply() a OneRow object to a full WriterCallable");
+        }
+        if (row == null) {
+            throw new IllegalArgumentException("Trying to supply() a null OneRow object");
+        }
+        rows.add(row);
+    }
+
+    @Override
+    public boolean isCallRequired() {
+        return rows.size() >= batchSize;
+    }
+
+    @Override
+    public SQLException call() throws IOException, SQLException, ClassNotFoundException {
+        if (rows.isEmpty()) {
+            return null;
+        }
+
+        boolean connectionMustBeClosed = false;
+        Connection connection;
+        if (statement == null) {
+            connection = plugin.getConnection();
+            connectionMustBeClosed = true;
+        }
+        else {
+            connection = statement.getConnection();
+        }
+
+        try {
+            for (int first = 0; first < rows.size(); first += rowsPerStatement) {
+                int count = Math.min(rowsPerStatement, rows.size() - first);
+                try (PreparedStatement multiRowStatement = plugin.getPreparedStatement(connection, buildQuery(count))) {
+                    for (int i = 0; i < count; i++) {
+                        JdbcResolver.decodeOneRowToPreparedStatement(rows.get(first + i), multiRowStatement, i * columnCount);
+                    }
+                    if (multiRowStatement.executeUpdate() != count) {
+                        throw new SQLException("The number of rows affected by INSERT query is not equal to the number of rows provided");
+                    }
+                }
+            }
+        }
+        catch (SQLException e) {
+            return e;
+        }
+        finally {
+            rows.clear();
+            if (connectionMustBeClosed) {
+                JdbcBasePlugin.closeConnection(connection);
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Build an INSERT query of the given number of rows from the single-row query
+     *
+     * @param count number of rows
+     * @return the query
+     */
+    String buildQuery(int count) {
+        StringBuilder sb = new StringBuilder(query);
+        for (int i = 1; i < count; i++) {
+            sb.append(", ").append(placeholders);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Construct a new multi-row writer
+     *
+     * @param query single-row INSERT query ending with "VALUES (?, ...)"
+     */
+    ValuesWriterCallable(JdbcBasePlugin plugin, String query, PreparedStatement statement, int batchSize) {
+        if (plugin == null || query == null) {
+            throw new IllegalArgumentException("The provided JdbcBasePlugin or SQL query is null");
+        }
+
+        this.plugin = plugin;
+        this.query = query;
+        this.statement = statement;
+        this.batchSize = Math.max(batchSize, 1);
+
+        placeholders = query.substring(query.lastIndexOf(" VALUES ") + " VALUES ".length());
+        int parameters = 0;
+        for (int i = 0; i < placeholders.length(); i++) {
+            if (placeholders.charAt(i) == '?') {
+                parameters++;
+            }
+        }
+        columnCount = parameters;
+        rowsPerStatement = Math.max(Math.min(MAX_ROWS, MAX_PARAMETERS / Math.max(columnCount, 1)), 1);
+
+        rows = new ArrayList<>(this.batchSize);
+    }
+
+    static final int MAX_ROWS = 1000;
+    static final int MAX_PARAMETERS = 2000;
+
+    private final JdbcBasePlugin plugin;
+    private final String query;
+    private final String placeholders;
+    private final int columnCount;
+    private final int rowsPerStatement;
+    private PreparedStatement statement;
+    private List<OneRow> rows;
+    private final int batchSize;
+}
@@ -21,6 +21,7 @@ package org.greenplum.pxf.plugins.jdbc.writercallable;
 
 import org.greenplum.pxf.api.OneRow;
 import org.greenplum.pxf.plugins.jdbc.JdbcBasePlugin;
+import org.greenplum.pxf.plugins.jdbc.utils.DbProduct;
 
 import java.sql.PreparedStatement;
 
@@ -33,13 +34,15 @@ public class WriterCallableFactory {
      *
      * Note that 'setPlugin' and 'setQuery' must be called before construction of a {@link WriterCallable}.
      *
-     * By default, 'statement' is null
+     * By default, 'statement' is null and rows are written by batches
      */
     public WriterCallableFactory() {
         batchSize = JdbcBasePlugin.DEFAULT_BATCH_SIZE;
         plugin = null;
         query = null;
         statement = null;
+        writeMode = WriteMode.BATCH;
+        dbProduct = null;
     }
 
     /**
@@ -48,6 +51,12 @@ public class WriterCallableFactory {
      * @return an implementation of WriterCallable, chosen based on parameters that were set for this factory
      */
     public WriterCallable get() {
+        if (writeMode == WriteMode.COPY) {
+            return new CopyWriterCallable(plugin, query, statement, dbProduct);
+        }
+        if (writeMode == WriteMode.VALUES) {
+            return new ValuesWriterCallable(plugin, query, statement, batchSize);
+        }
         if (batchSize > 1) {
             return new BatchWriterCallable(plugin, query, statement, batchSize);
         }
@@ -64,6 +73,25 @@ public class WriterCallableFactory {
         this.plugin = plugin;
     }
 
+    /**
+     * Set the way rows are written.
+     *
+     * @param writeMode If COPY, 'query' must be a COPY ... FROM STDIN query and 'dbProduct' must be set;
+     *                  Otherwise, 'query' must be a single-row INSERT query
+     */
+    public void setWriteMode(WriteMode writeMode) {
+        this.writeMode = writeMode;
+    }
+
+    /**
+     * Set the database product, which sends the rows of COPY queries.
+     *
+     * @param dbProduct the database product
+     */
+    public void setDbProduct(DbProduct dbProduct) {
+        this.dbProduct = dbProduct;
+    }
+
     /**
      * Set SQL query to use.
      * @param query
@@ -97,4 +125,6 @@ public class WriterCallableFactory {
     private JdbcBasePlugin plugin;
     private String query;
     private PreparedStatement statement;
+    private WriteMode writeMode;
+    private DbProduct dbProduct;
 }
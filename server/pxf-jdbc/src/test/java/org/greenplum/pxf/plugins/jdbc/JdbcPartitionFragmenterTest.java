@@ -25,6 +25,7 @@ import org.greenplum.pxf.plugins.jdbc.utils.ByteUtil;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.Arrays;
 import java.util.Calendar;
 import java.util.List;
 
@@ -280,6 +281,73 @@ public class JdbcPartitionFragmenterTest {
         assertEquals(1, fragments.size());
     }
 
+    @Test
+    public void testAutoPartitionBoundsUniform() throws Exception {
+        long[] starts = {0, 10, 20, 30, 40, 50, 60, 70};
+        long[] counts = {1, 1, 1, 1, 1, 1, 1, 1};
+
+        assertEquals(Arrays.asList(20L, 40L, 60L), JdbcPartitionFragmenter.getPartitionBounds(starts, counts, 4));
+        assertEquals(0, JdbcPartitionFragmenter.getPartitionBounds(starts, counts, 1).size());
+    }
+
+    @Test
+    public void testAutoPartitionBoundsSkewed() throws Exception {
+        // most of the rows are in the first buckets
+        long[] starts = {0, 10, 20, 30, 40, 50, 60, 70, 80, 90, 100, 110};
+        long[] counts = {100, 100, 100, 100, 1, 1, 1, 1, 1, 1, 1, 1};
+
+        assertEquals(Arrays.asList(20L, 30L, 40L), JdbcPartitionFragmenter.getPartitionBounds(starts, counts, 4));
+    }
+
+    @Test
+    public void testAutoPartitionBoundsFewBuckets() throws Exception {
+        long[] starts = {0, 10};
+        long[] counts = {5, 5};
+
+        assertEquals(Arrays.asList(10L), JdbcPartitionFragmenter.getPartitionBounds(starts, counts, 8));
+    }
+
+    @Test
+    public void testAutoPartitionSql() throws Exception {
+        when(context.getOption("PARTITION_BY")).thenReturn("auto");
+        when(context.getFragmentUserData()).thenReturn("id:INT".getBytes());
+
+        assertEquals("SELECT * FROM sales WHERE id < 100",
+                buildAutoPartitionSql(JdbcPartitionFragmenter.OPEN_START, 100));
+        assertEquals("SELECT * FROM sales WHERE id >= 100 AND id < 200",
+                buildAutoPartitionSql(100, 200));
+        assertEquals("SELECT * FROM sales WHERE id >= 200",
+                buildAutoPartitionSql(200, JdbcPartitionFragmenter.OPEN_END));
+        assertEquals("SELECT * FROM sales WHERE id IS NULL",
+                buildAutoPartitionSql(JdbcPartitionFragmenter.OPEN_START, JdbcPartitionFragmenter.OPEN_END));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testAutoRangeEnum() throws Exception {
+
+        when(context.getOption("PARTITION_BY")).thenReturn("level:enum");
+        when(context.getOption("RANGE")).thenReturn("auto");
+
+        new JdbcPartitionFragmenter().initialize(context);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testAutoInvalidPartitions() throws Exception {
+
+        when(context.getOption("PARTITION_BY")).thenReturn("auto");
+        when(context.getOption("PARTITIONS")).thenReturn("0");
+
+        new JdbcPartitionFragmenter().initialize(context);
+    }
+
+    private String buildAutoPartitionSql(long start, long end) {
+        when(context.getFragmentMetadata()).thenReturn(
+                ByteUtil.mergeBytes(ByteUtil.getBytes(start), ByteUtil.getBytes(end)));
+        StringBuilder query = new StringBuilder("SELECT * FROM sales");
+        JdbcPartitionFragmenter.buildFragmenterSql(context, "POSTGRESQL", query);
+        return query.toString();
+    }
+
     private void assertDateEquals(long date, int year, int month, int day) {
         Calendar calendar = Calendar.getInstance();
         calendar.setTimeInMillis(date);
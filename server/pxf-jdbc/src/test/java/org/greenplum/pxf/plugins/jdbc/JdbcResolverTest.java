@@ -0,0 +1,118 @@
+package org.greenplum.pxf.plugins.jdbc;
+
+import org.greenplum.pxf.api.OneField;
+import org.greenplum.pxf.api.OneRow;
+import org.greenplum.pxf.api.io.ColumnBatch;
+import org.greenplum.pxf.api.io.DataType;
+import org.greenplum.pxf.api.utilities.ColumnDescriptor;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.text.ParseException;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class JdbcResolverTest {
+
+    private JdbcResolver resolver;
+    private ResultSet result;
+
+    @Before
+    public void setup() throws Exception {
+        resolver = new JdbcResolver();
+        resolver.columns = Arrays.asList(
+                new ColumnDescriptor("id", DataType.INTEGER.getOID(), 0, "int4", null),
+                new ColumnDescriptor("amount", DataType.REAL.getOID(), 1, "float4", null),
+                new ColumnDescriptor("created", DataType.TIMESTAMP.getOID(), 2, "timestamp", null));
+
+        // two rows: (1, 1.5, 2019-03-01 10:00:00.123456), (NULL, NULL, NULL)
+        result = mock(ResultSet.class);
+        when(result.next()).thenReturn(true, false);
+        when(result.getInt(1)).thenReturn(1, 0);
+        when(result.getLong(1)).thenReturn(1L, 0L);
+        when(result.getFloat(2)).thenReturn(1.5f, 0f);
+        when(result.wasNull()).thenReturn(false, false, true, true);
+        when(result.getTimestamp(3)).thenReturn(Timestamp.valueOf("2019-03-01 10:00:00.123456"), null);
+    }
+
+    @Test
+    public void getFields() throws Exception {
+        List<OneField> fields = resolver.getFields(new OneRow(result));
+        assertEquals(1, fields.get(0).val);
+        assertEquals(1.5f, fields.get(1).val);
+        assertEquals(Timestamp.valueOf("2019-03-01 10:00:00.123456"), fields.get(2).val);
+
+        fields = resolver.getFields(new OneRow(result));
+        assertNull(fields.get(0).val);
+        assertNull(fields.get(1).val);
+        assertNull(fields.get(2).val);
+    }
+
+    @Test
+    public void getColumnBatch() throws Exception {
+        ResultSetCursor cursor = new ResultSetCursor(result);
+
+        ColumnBatch batch = resolver.getColumnBatch(new OneRow(cursor, result));
+        assertEquals(2, batch.getSize());
+        assertEquals(1, batch.getColumn(0).getLong(0));
+        assertEquals(1.5, batch.getColumn(1).getDouble(0), 0);
+        assertEquals("2019-03-01 10:00:00.123456", batch.getColumn(2).getString(0));
+        assertTrue(batch.getColumn(0).isNull(1));
+        assertTrue(batch.getColumn(1).isNull(1));
+        assertTrue(batch.getColumn(2).isNull(1));
+
+        // the result set is not moved past its end again
+        assertFalse(cursor.next());
+    }
+
+    @Test
+    public void setFieldsParsesDatesAndTimestamps() throws Exception {
+        resolver.columns = Arrays.asList(
+                new ColumnDescriptor("created", DataType.TIMESTAMP.getOID(), 0, "timestamp", null),
+                new ColumnDescriptor("updated", DataType.TIMESTAMP.getOID(), 1, "timestamp", null),
+                new ColumnDescriptor("day", DataType.DATE.getOID(), 2, "date", null));
+        List<OneField> record = Arrays.asList(
+                new OneField(DataType.TEXT.getOID(), "2019-03-01 10:00:00.123456"),
+                new OneField(DataType.TEXT.getOID(), "2019-03-01"),
+                new OneField(DataType.TEXT.getOID(), "2019-03-02"));
+
+        resolver.setFields(record);
+        assertEquals(Timestamp.valueOf("2019-03-01 10:00:00.123456"), record.get(0).val);
+        assertEquals(Timestamp.valueOf("2019-03-01 00:00:00"), record.get(1).val);
+        assertEquals(Date.valueOf("2019-03-02"), record.get(2).val);
+    }
+
+    @Test(expected = ParseException.class)
+    public void setFieldsInvalidTimestamp() throws Exception {
+        resolver.columns = Arrays.asList(
+                new ColumnDescriptor("created", DataType.TIMESTAMP.getOID(), 0, "timestamp", null));
+        resolver.setFields(Arrays.asList(new OneField(DataType.TEXT.getOID(), "March 1st")));
+    }
+
+    @Test
+    public void decodeOneRowToCopyText() throws Exception {
+        OneRow row = new OneRow(Arrays.asList(
+                new OneField(DataType.INTEGER.getOID(), 1),
+                new OneField(DataType.TEXT.getOID(), "a\tb\\c\n"),
+                new OneField(DataType.TEXT.getOID(), null),
+                new OneField(DataType.BOOLEAN.getOID(), true),
+                new OneField(DataType.BYTEA.getOID(), new byte[]{0, (byte) 255}),
+                new OneField(DataType.NUMERIC.getOID(), new BigDecimal("1E+3")),
+                new OneField(DataType.DATE.getOID(), Date.valueOf("2019-03-02"))));
+
+        StringBuilder text = new StringBuilder();
+        JdbcResolver.decodeOneRowToCopyText(row, text);
+        assertEquals("1\ta\\tb\\\\c\\n\t\\N\tt\t\\\\000\\\\377\t1000\t2019-03-02\n", text.toString());
+    }
+}
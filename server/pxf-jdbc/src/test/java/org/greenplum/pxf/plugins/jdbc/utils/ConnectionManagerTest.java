@@ -0,0 +1,164 @@
+package org.greenplum.pxf.plugins.jdbc.utils;
+
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.DriverPropertyInfo;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ConnectionManagerTest {
+
+    private static final int CONCURRENT_QUERIES = 12;
+
+    @Test(timeout = 20000)
+    public void poolServesConcurrentQueriesUpToItsSize() throws Exception {
+        PoolDescriptor descriptor = getDescriptor("jdbc:fake:concurrent", CONCURRENT_QUERIES, 30000);
+        ExecutorService executor = Executors.newFixedThreadPool(CONCURRENT_QUERIES);
+        CountDownLatch allConnected = new CountDownLatch(CONCURRENT_QUERIES);
+        try {
+            // every query holds its connection until all of them got one
+            List<Future<Connection>> connections = new ArrayList<>();
+            for (int i = 0; i < CONCURRENT_QUERIES; i++) {
+                connections.add(executor.submit(() -> {
+                    Connection connection = ConnectionManager.getInstance().getConnection(descriptor);
+                    allConnected.countDown();
+                    assertTrue(allConnected.await(10, TimeUnit.SECONDS));
+                    connection.close();
+                    return connection;
+                }));
+            }
+            for (Future<Connection> connection : connections) {
+                assertNotNull(connection.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(0, allConnected.getCount());
+    }
+
+    @Test(timeout = 20000)
+    public void boundedPoolTimesOut() throws Exception {
+        PoolDescriptor descriptor = getDescriptor("jdbc:fake:bounded", 2, 250);
+        Connection first = ConnectionManager.getInstance().getConnection(descriptor);
+        Connection second = ConnectionManager.getInstance().getConnection(descriptor);
+        try {
+            ConnectionManager.getInstance().getConnection(descriptor);
+            fail("expected SQLException");
+        } catch (SQLException e) {
+            // no connection became available within the connection timeout
+        }
+
+        second.close();
+        ConnectionManager.getInstance().getConnection(descriptor).close();
+        first.close();
+    }
+
+    @Test
+    public void expiredPoolIsClosed() throws Exception {
+        ConnectionManager manager = new ConnectionManager(0);
+        PoolDescriptor descriptor = getDescriptor("jdbc:fake:expired", 2, 30000);
+        manager.getConnection(descriptor).close();
+        assertEquals(1, manager.getPoolCount());
+
+        manager.closeExpiredPools();
+        assertEquals(0, manager.getPoolCount());
+
+        // the next query opens a new pool
+        manager.getConnection(descriptor).close();
+        assertEquals(1, manager.getPoolCount());
+        manager.closeExpiredPools();
+    }
+
+    @Test
+    public void poolInUseIsNotClosed() throws Exception {
+        ConnectionManager manager = new ConnectionManager(0);
+        Connection connection = manager.getConnection(getDescriptor("jdbc:fake:inuse", 2, 30000));
+
+        manager.closeExpiredPools();
+        assertEquals(1, manager.getPoolCount());
+
+        connection.close();
+        manager.closeExpiredPools();
+        assertEquals(0, manager.getPoolCount());
+    }
+
+    @Test
+    public void recentlyUsedPoolIsNotClosed() throws Exception {
+        ConnectionManager manager = new ConnectionManager(TimeUnit.MINUTES.toMillis(1));
+        manager.getConnection(getDescriptor("jdbc:fake:recent", 2, 30000)).close();
+
+        manager.closeExpiredPools();
+        assertEquals(1, manager.getPoolCount());
+    }
+
+    private static PoolDescriptor getDescriptor(String dbUrl, int maxSize, long connectionTimeout) {
+        return new PoolDescriptor(FakeDriver.class.getName(), dbUrl, null, null,
+                0, maxSize, connectionTimeout, 30000, null, 0);
+    }
+
+    /**
+     * A JDBC driver opening mock connections.
+     */
+    public static class FakeDriver implements Driver {
+
+        @Override
+        public Connection connect(String url, Properties info) throws SQLException {
+            if (!acceptsURL(url)) {
+                return null;
+            }
+            Connection connection = mock(Connection.class);
+            when(connection.isValid(anyInt())).thenReturn(true);
+            when(connection.getAutoCommit()).thenReturn(true);
+            return connection;
+        }
+
+        @Override
+        public boolean acceptsURL(String url) {
+            return url.startsWith("jdbc:fake:");
+        }
+
+        @Override
+        public DriverPropertyInfo[] getPropertyInfo(String url, Properties info) {
+            return new DriverPropertyInfo[0];
+        }
+
+        @Override
+        public int getMajorVersion() {
+            return 1;
+        }
+
+        @Override
+        public int getMinorVersion() {
+            return 0;
+        }
+
+        @Override
+        public boolean jdbcCompliant() {
+            return false;
+        }
+
+        @Override
+        public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+            throw new SQLFeatureNotSupportedException();
+        }
+    }
+}
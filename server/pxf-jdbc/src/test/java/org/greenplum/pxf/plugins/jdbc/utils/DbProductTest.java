@@ -0,0 +1,80 @@
+package org.greenplum.pxf.plugins.jdbc.utils;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class DbProductTest {
+
+    private Connection connection;
+    private DatabaseMetaData metaData;
+    private Statement statement;
+
+    @Before
+    public void setup() throws Exception {
+        connection = mock(Connection.class);
+        metaData = mock(DatabaseMetaData.class);
+        statement = mock(Statement.class);
+        when(connection.getMetaData()).thenReturn(metaData);
+        when(connection.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY))
+                .thenReturn(statement);
+    }
+
+    @Test
+    public void commonProductSetsFetchSize() throws Exception {
+        assertSame(statement, DbProduct.getDbProduct("Apache Derby").createReadStatement(connection, 500));
+        verify(statement).setFetchSize(500);
+    }
+
+    @Test
+    public void zeroFetchSizeKeepsDriverDefault() throws Exception {
+        DbProduct.getDbProduct("PostgreSQL").createReadStatement(connection, 0);
+        verify(statement, never()).setFetchSize(anyInt());
+        verify(connection, never()).setAutoCommit(false);
+    }
+
+    @Test
+    public void postgresReadsThroughCursor() throws Exception {
+        DbProduct.getDbProduct("PostgreSQL").createReadStatement(connection, 500);
+        verify(connection).setAutoCommit(false);
+        verify(statement).setFetchSize(500);
+    }
+
+    @Test
+    public void mysqlStreamsRows() throws Exception {
+        when(metaData.getURL()).thenReturn("jdbc:mysql://localhost/db");
+        DbProduct.getDbProduct("MySQL").createReadStatement(connection, 500);
+        verify(statement).setFetchSize(Integer.MIN_VALUE);
+    }
+
+    @Test
+    public void mysqlCursorFetch() throws Exception {
+        when(metaData.getURL()).thenReturn("jdbc:mysql://localhost/db?useCursorFetch=true");
+        DbProduct.getDbProduct("MySQL").createReadStatement(connection, 500);
+        verify(statement).setFetchSize(500);
+    }
+
+    @Test
+    public void writeUrlEnablesBatchRewrite() throws Exception {
+        assertEquals("jdbc:mysql://localhost/db?rewriteBatchedStatements=true",
+                DbProduct.getDbProduct("MySQL").getWriteUrl("jdbc:mysql://localhost/db"));
+        assertEquals("jdbc:mysql://localhost/db?rewriteBatchedStatements=false",
+                DbProduct.getDbProduct("MySQL").getWriteUrl("jdbc:mysql://localhost/db?rewriteBatchedStatements=false"));
+        assertEquals("jdbc:postgresql://localhost/db?ssl=true&reWriteBatchedInserts=true",
+                DbProduct.getDbProduct("PostgreSQL").getWriteUrl("jdbc:postgresql://localhost/db?ssl=true"));
+        assertEquals("jdbc:oracle:thin:@localhost:1521:db",
+                DbProduct.getDbProduct("Oracle").getWriteUrl("jdbc:oracle:thin:@localhost:1521:db"));
+    }
+}
@@ -0,0 +1,74 @@
+package org.greenplum.pxf.plugins.jdbc.writercallable;
+
+import org.greenplum.pxf.api.OneField;
+import org.greenplum.pxf.api.OneRow;
+import org.greenplum.pxf.api.io.DataType;
+import org.greenplum.pxf.plugins.jdbc.JdbcBasePlugin;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ValuesWriterCallableTest {
+
+    private static final String QUERY = "INSERT INTO sales(id, amount, grade) VALUES (?, ?, ?)";
+
+    private JdbcBasePlugin plugin;
+    private Connection connection;
+    private PreparedStatement statement;
+    private PreparedStatement multiRowStatement;
+
+    @Before
+    public void setup() throws Exception {
+        plugin = mock(JdbcBasePlugin.class);
+        connection = mock(Connection.class);
+        statement = mock(PreparedStatement.class);
+        multiRowStatement = mock(PreparedStatement.class);
+        when(statement.getConnection()).thenReturn(connection);
+    }
+
+    @Test
+    public void buildQuery() {
+        ValuesWriterCallable writer = new ValuesWriterCallable(plugin, QUERY, statement, 10);
+        assertEquals(QUERY, writer.buildQuery(1));
+        assertEquals(QUERY + ", (?, ?, ?), (?, ?, ?)", writer.buildQuery(3));
+    }
+
+    @Test
+    public void rowsAreSplitByParameterLimit() throws Exception {
+        // 3 columns: at most 666 rows per statement
+        int rowsPerStatement = ValuesWriterCallable.MAX_PARAMETERS / 3;
+        ValuesWriterCallable writer = new ValuesWriterCallable(plugin, QUERY, statement, 700);
+        when(plugin.getPreparedStatement(connection, writer.buildQuery(rowsPerStatement))).thenReturn(multiRowStatement);
+        when(plugin.getPreparedStatement(connection, writer.buildQuery(700 - rowsPerStatement))).thenReturn(multiRowStatement);
+        when(multiRowStatement.executeUpdate()).thenReturn(rowsPerStatement, 700 - rowsPerStatement);
+
+        for (int i = 0; i < 700; i++) {
+            assertFalse(writer.isCallRequired());
+            writer.supply(new OneRow(Arrays.asList(
+                    new OneField(DataType.INTEGER.getOID(), i),
+                    new OneField(DataType.FLOAT8.getOID(), 1.5),
+                    new OneField(DataType.TEXT.getOID(), "good"))));
+        }
+        assertTrue(writer.isCallRequired());
+
+        assertNull(writer.call());
+        verify(multiRowStatement, times(2)).executeUpdate();
+        // the last field of the last row of the first statement
+        verify(multiRowStatement).setString(rowsPerStatement * 3, "good");
+        verify(multiRowStatement, times(700)).setInt(anyInt(), anyInt());
+        assertFalse(writer.isCallRequired());
+    }
+}
@@ -0,0 +1,228 @@
+package org.greenplum.pxf.service;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.greenplum.pxf.api.model.RequestContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Striped locks used to serialize access to non-thread-safe plugins.
+ * <p>
+ * Each plugin class is mapped to a lock, and a request with non-thread-safe
+ * plugins takes the locks of both its accessor and its resolver, so that a
+ * non-thread-safe plugin is serialized whatever the other plugin it is used
+ * with. When the plugins are thread-safe but the request itself asked for
+ * synchronization (THREAD-SAFE=false), a single lock keyed by the plugins and
+ * the data source is taken, so only requests to the same data source are
+ * serialized.
+ * <p>
+ * The number of locks is bounded, unrelated keys may share a stripe. The locks
+ * of a request are always taken in the order of their stripes, so requests
+ * taking two locks cannot deadlock.
+ * <p>
+ * The time spent waiting for every stripe is registered in the platform MBean
+ * server as org.greenplum.pxf:type=BridgeLocks, see {@link BridgeLocksMXBean}.
+ */
+public class BridgeLocks implements BridgeLocksMXBean {
+
+    static final String PROPERTY_KEY_BRIDGE_LOCK_STRIPES = "pxf.service.bridge.lock.stripes";
+    static final int BRIDGE_LOCK_STRIPES = 64;
+
+    private static final Logger LOG = LoggerFactory.getLogger(BridgeLocks.class);
+    private static final String MBEAN_NAME = "org.greenplum.pxf:type=BridgeLocks";
+    private static final BridgeLocks instance =
+            new BridgeLocks(Integer.getInteger(PROPERTY_KEY_BRIDGE_LOCK_STRIPES, BRIDGE_LOCK_STRIPES));
+
+    static {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(instance, new ObjectName(MBEAN_NAME));
+        } catch (Exception e) {
+            LOG.warn("Failed to register the metrics of the bridge locks: {}", e.getMessage());
+        }
+    }
+
+    private final StripeLock[] locks;
+    // the waits for every stripe
+    private final AtomicLongArray waitCounts;
+    private final AtomicLongArray waitNanos;
+    private final AtomicLongArray maxWaitNanos;
+
+    /**
+     * Creates a set of striped locks.
+     *
+     * @param stripes the number of locks
+     */
+    BridgeLocks(int stripes) {
+        if (stripes <= 0) {
+            throw new IllegalArgumentException("Number of lock stripes must be positive, got " + stripes);
+        }
+        locks = new StripeLock[stripes];
+        for (int i = 0; i < stripes; i++) {
+            locks[i] = new StripeLock(i);
+        }
+        waitCounts = new AtomicLongArray(stripes);
+        waitNanos = new AtomicLongArray(stripes);
+        maxWaitNanos = new AtomicLongArray(stripes);
+    }
+
+    public static BridgeLocks getInstance() {
+        return instance;
+    }
+
+    /**
+     * Returns the locks guarding the plugins of the given request, in the
+     * order they must be taken.
+     *
+     * @param context    the request context
+     * @param pluginSafe whether the bridge plugins declare themselves thread-safe
+     * @return the locks for the request
+     */
+    public List<ReentrantLock> getLocks(RequestContext context, boolean pluginSafe) {
+        List<ReentrantLock> result = new ArrayList<>(2);
+        List<String> keys = getKeys(context, pluginSafe);
+        int first = stripe(keys.get(0));
+        result.add(locks[first]);
+        if (keys.size() > 1) {
+            int second = stripe(keys.get(1));
+            if (second < first) {
+                result.add(0, locks[second]);
+            } else if (second > first) {
+                result.add(locks[second]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Acquires the given locks in order, and records the time spent waiting
+     * for the locks held by other requests.
+     *
+     * @param locks the locks to acquire, from {@link #getLocks}
+     * @param path  path for the request, used for logging.
+     */
+    public void lock(List<ReentrantLock> locks, String path) {
+        LOG.trace("Locking bridge for {}", path);
+        long waited = 0;
+        for (ReentrantLock lock : locks) {
+            if (!lock.tryLock()) {
+                long start = System.nanoTime();
+                lock.lock();
+                long elapsed = System.nanoTime() - start;
+                recordWait(((StripeLock) lock).stripe, elapsed);
+                waited += elapsed;
+            }
+        }
+        if (waited > 0) {
+            LOG.debug("Locked bridge for {} after waiting {} ms", path, TimeUnit.NANOSECONDS.toMillis(waited));
+        } else {
+            LOG.trace("Locked bridge for {}", path);
+        }
+    }
+
+    /**
+     * Releases the given locks, in the reverse order.
+     *
+     * @param locks the locks to release
+     * @param path  path for the request, used for logging.
+     */
+    public void unlock(List<ReentrantLock> locks, String path) {
+        LOG.trace("Unlocking bridge for {}", path);
+        for (int i = locks.size() - 1; i >= 0; i--) {
+            locks.get(i).unlock();
+        }
+        LOG.trace("Unlocked bridge for {}", path);
+    }
+
+    /**
+     * Builds the keys identifying the resources that need to be serialized.
+     *
+     * @param context    the request context
+     * @param pluginSafe whether the bridge plugins declare themselves thread-safe
+     * @return the keys
+     */
+    static List<String> getKeys(RequestContext context, boolean pluginSafe) {
+        List<String> keys = new ArrayList<>(2);
+        if (pluginSafe) {
+            keys.add(context.getAccessor() + ":" + context.getResolver() + ":" +
+                    context.getServerName() + ":" + context.getDataSource());
+        } else {
+            // the bridge does not tell which of its plugins is not thread-safe
+            keys.add(context.getAccessor());
+            keys.add(context.getResolver());
+        }
+        return keys;
+    }
+
+    @Override
+    public long[] getWaitCounts() {
+        return toArray(waitCounts, false);
+    }
+
+    @Override
+    public long[] getWaitMicros() {
+        return toArray(waitNanos, true);
+    }
+
+    @Override
+    public long[] getMaxWaitMicros() {
+        return toArray(maxWaitNanos, true);
+    }
+
+    private int stripe(String key) {
+        return (String.valueOf(key).hashCode() & Integer.MAX_VALUE) % locks.length;
+    }
+
+    private void recordWait(int stripe, long nanos) {
+        waitCounts.incrementAndGet(stripe);
+        waitNanos.addAndGet(stripe, nanos);
+        long max = maxWaitNanos.get(stripe);
+        while (nanos > max && !maxWaitNanos.compareAndSet(stripe, max, nanos)) {
+            max = maxWaitNanos.get(stripe);
+        }
+    }
+
+    private static long[] toArray(AtomicLongArray values, boolean nanosToMicros) {
+        long[] result = new long[values.length()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = nanosToMicros ? TimeUnit.NANOSECONDS.toMicros(values.get(i)) : values.get(i);
+        }
+        return result;
+    }
+
+    /*
+     * A lock knowing its stripe, to record the waits for it.
+     */
+    private static class StripeLock extends ReentrantLock {
+        private final int stripe;
+
+        StripeLock(int stripe) {
+            this.stripe = stripe;
+        }
+    }
+}
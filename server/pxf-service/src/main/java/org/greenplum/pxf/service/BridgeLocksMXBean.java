@@ -0,0 +1,43 @@
+package org.greenplum.pxf.service;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+/**
+ * Time spent waiting for the bridge locks, exposed through JMX. The arrays
+ * hold one element per lock stripe.
+ */
+public interface BridgeLocksMXBean {
+
+    /**
+     * @return the number of times a request waited for a stripe held by
+     * another request
+     */
+    long[] getWaitCounts();
+
+    /**
+     * @return the total time in microseconds requests waited for a stripe
+     */
+    long[] getWaitMicros();
+
+    /**
+     * @return the longest time in microseconds a request waited for a stripe
+     */
+    long[] getMaxWaitMicros();
+}
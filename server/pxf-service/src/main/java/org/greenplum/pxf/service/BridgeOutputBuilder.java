@@ -19,19 +19,21 @@ package org.greenplum.pxf.service;
  * under the License.
  */
 
-import org.apache.commons.lang.ArrayUtils;
 import org.apache.commons.lang.ObjectUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.greenplum.pxf.api.BadRecordException;
 import org.greenplum.pxf.api.OneField;
 import org.greenplum.pxf.api.io.BufferWritable;
+import org.greenplum.pxf.api.io.ColumnBatch;
+import org.greenplum.pxf.api.io.ColumnBatchWritable;
 import org.greenplum.pxf.api.io.DataType;
 import org.greenplum.pxf.api.io.GPDBWritable;
 import org.greenplum.pxf.api.io.Text;
 import org.greenplum.pxf.api.io.Writable;
 import org.greenplum.pxf.api.model.OutputFormat;
 import org.greenplum.pxf.api.model.RequestContext;
+import org.greenplum.pxf.api.utilities.ByteScanner;
 
 import java.lang.reflect.Array;
 import java.util.Arrays;
@@ -56,6 +58,7 @@ public class BridgeOutputBuilder {
     private LinkedList<Writable> outputList;
     private Writable partialLine = null;
     private GPDBWritable errorRecord = null;
+    private ColumnBatchWritable batchOutput = null;
     private int[] schema;
     private String[] colNames;
     private boolean samplingEnabled;
@@ -138,7 +141,13 @@ public class BridgeOutputBuilder {
         if (recordsBatch != null) {
             for (List<OneField> record : recordsBatch) {
                 if (context.getOutputFormat() == OutputFormat.GPDBWritable) {
-                    makeGPDBWritableOutput();
+                    // each record of the batch needs its own writable, they
+                    // share the schema and serialization state of the first one
+                    if (output == null) {
+                        makeGPDBWritableOutput();
+                    } else {
+                        output = new GPDBWritable((GPDBWritable) output);
+                    }
                 }
                 fillOutputRecord(record);
             }
@@ -146,6 +155,29 @@ public class BridgeOutputBuilder {
         return outputList;
     }
 
+    /**
+     * Translates a batch of columns (obtained from the Resolver) into an
+     * output record holding all the rows of the batch. The values are
+     * serialized straight from the column vectors.
+     *
+     * @param batch column batch to be serialized, may be null
+     * @return list of Writable objects with the serialized batch
+     * @throws BadRecordException if the batch doesn't match the schema
+     */
+    public LinkedList<Writable> makeColumnarOutput(ColumnBatch batch) throws BadRecordException {
+        outputList.clear();
+        if (batch == null || batch.getRowCount() == 0) {
+            return outputList;
+        }
+        if (batchOutput == null) {
+            batchOutput = makeColumnBatchOutput();
+        }
+        validateColumnBatch(batch);
+        batchOutput.setBatch(batch);
+        outputList.add(batchOutput);
+        return outputList;
+    }
+
     /**
      * Returns whether or not this is a partial line.
      *
@@ -176,6 +208,58 @@ public class BridgeOutputBuilder {
         return (GPDBWritable) output;
     }
 
+    /**
+     * Creates the writable serializing column batches. For the TEXT format,
+     * the DELIMITER option must be a single ASCII character or a hexadecimal
+     * sequence such as \x01.
+     *
+     * @return writable for column batches
+     */
+    ColumnBatchWritable makeColumnBatchOutput() {
+        if (context.getOutputFormat() == OutputFormat.GPDBWritable) {
+            return new ColumnBatchWritable();
+        }
+
+        String delimiter = context.getOption(RequestContext.DELIMITER_KEY);
+        if (delimiter == null) {
+            throw new IllegalArgumentException(RequestContext.DELIMITER_KEY + " is a required option");
+        }
+        if (delimiter.length() == 4 && delimiter.startsWith("\\x")) {
+            return new ColumnBatchWritable((char) Integer.parseInt(delimiter.substring(2), 16));
+        }
+        if (delimiter.length() != 1) {
+            throw new IllegalArgumentException(
+                    "Invalid delimiter value. Must be a single ASCII character, or a hexadecimal sequence (got "
+                            + delimiter + ")");
+        }
+        return new ColumnBatchWritable(delimiter.charAt(0));
+    }
+
+    /**
+     * Checks that the columns of the batch correspond to the schema.
+     *
+     * @param batch column batch
+     * @throws BadRecordException if the batch doesn't match the schema
+     */
+    void validateColumnBatch(ColumnBatch batch) throws BadRecordException {
+        int size = batch.getColumnCount();
+        if (size != context.getColumns()) {
+            throw new BadRecordException("Batch has " + size
+                    + " columns but the schema size is " + context.getColumns());
+        }
+        for (int i = 0; i < size; i++) {
+            int schemaType = context.getColumn(i).columnTypeCode();
+            DataType batchType = batch.getColumn(i).getType();
+            if (!isTypeInSchema(batchType.getOID(), schemaType)) {
+                throw new BadRecordException("For field " + context.getColumn(i).columnName()
+                        + " schema requires type "
+                        + DataType.get(schemaType).toString()
+                        + " but input batch has type "
+                        + batchType.toString());
+            }
+        }
+    }
+
     /**
      * Fills the output record based on the fields in recFields.
      *
@@ -307,8 +391,8 @@ public class BridgeOutputBuilder {
         BufferWritable writable;
 
         while (start < len) {
-            end = ArrayUtils.indexOf(val, DELIM, start);
-            if (end == ArrayUtils.INDEX_NOT_FOUND) {
+            end = ByteScanner.indexOf(val, DELIM, start);
+            if (end < 0) {
                 // data finished in the middle of the line
                 end = len;
                 isPartialLine = true;
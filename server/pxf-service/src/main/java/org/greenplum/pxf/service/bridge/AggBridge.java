@@ -19,7 +19,6 @@
 
 package org.greenplum.pxf.service.bridge;
 
-import org.apache.commons.collections.map.LRUMap;
 import org.greenplum.pxf.api.OneRow;
 import org.greenplum.pxf.api.StatsAccessor;
 import org.greenplum.pxf.api.io.Writable;
@@ -35,8 +34,9 @@ import java.util.LinkedList;
  */
 public class AggBridge extends ReadBridge implements Bridge {
 
-    /* Avoid resolving rows with the same key twice */
-    private LRUMap outputCache;
+    /* Avoid resolving the same row twice when it is emitted repeatedly */
+    private OneRow lastRow;
+    private LinkedList<Writable> lastOutput;
 
     public AggBridge(RequestContext context) {
         this(context, AccessorFactory.getInstance(), ResolverFactory.getInstance());
@@ -48,18 +48,14 @@ public class AggBridge extends ReadBridge implements Bridge {
 
     @Override
     public boolean beginIteration() throws Exception {
-        /* Initialize LRU cache with 100 items*/
-        outputCache = new LRUMap();
         boolean openForReadStatus = accessor.openForRead();
         ((StatsAccessor) accessor).retrieveStats();
         return openForReadStatus;
     }
 
     @Override
-    @SuppressWarnings("unchecked")
     public Writable getNext() throws Exception {
         Writable output = null;
-        LinkedList<Writable> cachedOutput = null;
         OneRow onerow = null;
 
         if (!outputQueue.isEmpty()) {
@@ -72,12 +68,11 @@ public class AggBridge extends ReadBridge implements Bridge {
                 if (onerow == null) {
                     break;
                 }
-                cachedOutput = (LinkedList<Writable>) outputCache.get(onerow.getKey());
-                if (cachedOutput == null) {
-                    cachedOutput = outputBuilder.makeOutput(resolver.getFields(onerow));
-                    outputCache.put(onerow.getKey(), cachedOutput);
+                if (onerow != lastRow) {
+                    lastOutput = outputBuilder.makeOutput(resolver.getFields(onerow));
+                    lastRow = onerow;
                 }
-                outputQueue.addAll(cachedOutput);
+                outputQueue.addAll(lastOutput);
                 if (!outputQueue.isEmpty()) {
                     output = outputQueue.pop();
                     break;
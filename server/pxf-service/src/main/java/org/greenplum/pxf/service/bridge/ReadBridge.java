@@ -72,6 +72,16 @@ public class ReadBridge extends BaseBridge {
         return accessor.openForRead();
     }
 
+    /**
+     * Reads the next row from the accessor.
+     *
+     * @return the next row, null if there are no more rows
+     * @throws Exception if reading from the accessor failed
+     */
+    protected OneRow readNextObject() throws Exception {
+        return accessor.readNextObject();
+    }
+
     protected Deque<Writable> makeOutput(OneRow oneRow) throws Exception {
         return outputBuilder.makeOutput(resolver.getFields(oneRow));
     }
@@ -91,7 +101,7 @@ public class ReadBridge extends BaseBridge {
 
         try {
             while (outputQueue.isEmpty()) {
-                onerow = accessor.readNextObject();
+                onerow = readNextObject();
                 if (onerow == null) {
                     output = outputBuilder.getPartialLine();
                     if (output != null) {
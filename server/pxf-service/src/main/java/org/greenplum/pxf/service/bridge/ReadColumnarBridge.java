@@ -0,0 +1,51 @@
+package org.greenplum.pxf.service.bridge;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.greenplum.pxf.api.OneRow;
+import org.greenplum.pxf.api.ReadColumnarResolver;
+import org.greenplum.pxf.api.io.ColumnBatch;
+import org.greenplum.pxf.api.io.Writable;
+import org.greenplum.pxf.api.model.RequestContext;
+import org.greenplum.pxf.api.utilities.AccessorFactory;
+import org.greenplum.pxf.api.utilities.ResolverFactory;
+
+import java.util.Deque;
+
+/**
+ * Read bridge for resolvers that produce column batches. Each batch is
+ * serialized as a single output record.
+ */
+public class ReadColumnarBridge extends ReadBridge {
+
+    public ReadColumnarBridge(RequestContext context) {
+        this(context, AccessorFactory.getInstance(), ResolverFactory.getInstance());
+    }
+
+    ReadColumnarBridge(RequestContext context, AccessorFactory accessorFactory, ResolverFactory resolverFactory) {
+        super(context, accessorFactory, resolverFactory);
+    }
+
+    @Override
+    protected Deque<Writable> makeOutput(OneRow oneRow) throws Exception {
+        ColumnBatch batch = ((ReadColumnarResolver) resolver).getColumnBatch(oneRow);
+        return outputBuilder.makeColumnarOutput(batch);
+    }
+}
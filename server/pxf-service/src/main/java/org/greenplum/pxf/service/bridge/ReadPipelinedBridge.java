@@ -0,0 +1,213 @@
+package org.greenplum.pxf.service.bridge;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.apache.commons.lang.StringUtils;
+import org.apache.hadoop.security.UserGroupInformation;
+import org.greenplum.pxf.api.OneRow;
+import org.greenplum.pxf.api.model.RequestContext;
+import org.greenplum.pxf.api.utilities.AccessorFactory;
+import org.greenplum.pxf.api.utilities.ResolverFactory;
+
+import java.security.PrivilegedExceptionAction;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Read bridge that reads rows from the accessor on a separate thread, so that
+ * I/O overlaps with resolving and serializing the rows on the request thread.
+ * <p>
+ * The accessor thread fills a bounded queue with batches of rows and blocks
+ * when the queue is full. The accessor class must be annotated with
+ * {@link org.greenplum.pxf.api.ReadAhead}. The mode is enabled with the
+ * PIPELINE option, the PIPELINE_QUEUE_SIZE option sets the maximum number of
+ * rows read ahead.
+ */
+public class ReadPipelinedBridge extends ReadBridge {
+
+    static final String PIPELINE_OPTION = "PIPELINE";
+    static final String PIPELINE_QUEUE_SIZE_OPTION = "PIPELINE_QUEUE_SIZE";
+    static final int DEFAULT_QUEUE_SIZE = 8192;
+    static final int BATCH_SIZE = 128;
+
+    private static final long OFFER_TIMEOUT_MILLIS = 100;
+    private static final OneRow[] END_OF_DATA = new OneRow[0];
+    private static final ExecutorService EXECUTOR = Executors.newCachedThreadPool(
+            new ThreadFactoryBuilder().setNameFormat("pxf-read-ahead-%d").setDaemon(true).build());
+
+    private final BlockingQueue<OneRow[]> queue;
+    private final int batchSize;
+    private volatile boolean stopped;
+    private volatile Throwable readError;
+    private Future<?> reader;
+    private OneRow[] currentBatch;
+    private int currentIndex;
+    private boolean finished;
+
+    public ReadPipelinedBridge(RequestContext context) {
+        this(context, AccessorFactory.getInstance(), ResolverFactory.getInstance());
+    }
+
+    ReadPipelinedBridge(RequestContext context, AccessorFactory accessorFactory, ResolverFactory resolverFactory) {
+        super(context, accessorFactory, resolverFactory);
+        int queueSize = getQueueSize(context);
+        batchSize = Math.min(BATCH_SIZE, queueSize);
+        queue = new ArrayBlockingQueue<>(Math.max(1, queueSize / batchSize));
+    }
+
+    /**
+     * Determines whether the request asked for the pipelined mode.
+     *
+     * @param context request context
+     * @return true if the PIPELINE option is set to true
+     */
+    static boolean isPipelineRequested(RequestContext context) {
+        return StringUtils.equalsIgnoreCase(context.getOption(PIPELINE_OPTION), "true");
+    }
+
+    /**
+     * Opens the accessor and starts reading rows ahead on a separate thread.
+     * The thread reads as the user of the current request.
+     */
+    @Override
+    public boolean beginIteration() throws Exception {
+        if (!super.beginIteration()) {
+            return false;
+        }
+        final UserGroupInformation ugi = UserGroupInformation.getCurrentUser();
+        reader = EXECUTOR.submit(() -> ugi.doAs((PrivilegedExceptionAction<Void>) () -> {
+            readAhead();
+            return null;
+        }));
+        return true;
+    }
+
+    /**
+     * Returns the next row read ahead by the reader thread. Errors raised by
+     * the accessor are thrown once all the rows read before the error have
+     * been returned.
+     */
+    @Override
+    protected OneRow readNextObject() throws Exception {
+        if (finished) {
+            return null;
+        }
+        if (currentBatch == null || currentIndex == currentBatch.length) {
+            currentBatch = queue.take();
+            currentIndex = 0;
+            if (currentBatch == END_OF_DATA) {
+                finished = true;
+                if (readError instanceof Error) {
+                    throw (Error) readError;
+                }
+                if (readError != null) {
+                    throw (Exception) readError;
+                }
+                return null;
+            }
+        }
+        return currentBatch[currentIndex++];
+    }
+
+    /**
+     * Stops the reader thread, waits for it to finish and closes the accessor.
+     */
+    @Override
+    public void endIteration() throws Exception {
+        stopped = true;
+        if (reader != null) {
+            queue.clear();
+            try {
+                reader.get();
+            } catch (ExecutionException e) {
+                LOG.debug("Read ahead thread failed: {}", e.getCause().getMessage());
+            }
+        }
+        super.endIteration();
+    }
+
+    /**
+     * Reads rows from the accessor until the data is exhausted or the bridge
+     * is stopped, and queues them in batches. The end of data is always
+     * queued, even if the accessor failed with an error, so the request
+     * thread never waits for rows that will not come.
+     */
+    private void readAhead() throws InterruptedException {
+        long rowCount = 0;
+        try {
+            OneRow[] batch = new OneRow[batchSize];
+            int count = 0;
+            OneRow row;
+            while (!stopped && (row = accessor.readNextObject()) != null) {
+                batch[count++] = row;
+                rowCount++;
+                if (count == batchSize) {
+                    if (!put(batch)) {
+                        return;
+                    }
+                    batch = new OneRow[batchSize];
+                    count = 0;
+                }
+            }
+            if (count > 0 && !put(Arrays.copyOf(batch, count))) {
+                return;
+            }
+        } catch (Throwable t) {
+            readError = t;
+        } finally {
+            LOG.debug("Read ahead {} rows", rowCount);
+            put(END_OF_DATA);
+        }
+    }
+
+    /**
+     * Queues a batch of rows, waiting for space in the queue while the
+     * bridge is not stopped.
+     *
+     * @return true if the batch was queued
+     */
+    private boolean put(OneRow[] batch) throws InterruptedException {
+        while (!stopped) {
+            if (queue.offer(batch, OFFER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int getQueueSize(RequestContext context) {
+        String queueSize = context.getOption(PIPELINE_QUEUE_SIZE_OPTION);
+        if (StringUtils.isBlank(queueSize)) {
+            return DEFAULT_QUEUE_SIZE;
+        }
+        int size = Integer.parseInt(queueSize);
+        if (size <= 0) {
+            throw new IllegalArgumentException("Property " + PIPELINE_QUEUE_SIZE_OPTION + " must be a positive integer");
+        }
+        return size;
+    }
+}
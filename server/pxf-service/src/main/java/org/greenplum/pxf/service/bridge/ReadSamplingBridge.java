@@ -19,13 +19,22 @@ package org.greenplum.pxf.service.bridge;
  * under the License.
  */
 
+import org.greenplum.pxf.api.OneField;
+import org.greenplum.pxf.api.OneRow;
+import org.greenplum.pxf.api.ReadColumnarResolver;
+import org.greenplum.pxf.api.ReadVectorizedResolver;
+import org.greenplum.pxf.api.io.ColumnBatch;
+import org.greenplum.pxf.api.io.ColumnVector;
 import org.greenplum.pxf.api.io.Writable;
 import org.greenplum.pxf.api.model.RequestContext;
 import org.greenplum.pxf.api.utilities.AccessorFactory;
 import org.greenplum.pxf.api.utilities.ResolverFactory;
 import org.greenplum.pxf.service.utilities.AnalyzeUtils;
 
+import java.util.ArrayList;
 import java.util.BitSet;
+import java.util.Deque;
+import java.util.List;
 
 /**
  * ReadSamplingBridge wraps a ReadBridge, and returns only some of the output
@@ -73,6 +82,44 @@ public class ReadSamplingBridge extends ReadBridge {
         sampleBitSet = AnalyzeUtils.generateSamplingBitSet(bitSetSize, sampleSize);
     }
 
+    /**
+     * Resolves the rows of vectorized and columnar resolvers in batches, each
+     * record of the batch is sampled. Column batches are split into records,
+     * since a batch is serialized as a single output record.
+     */
+    @Override
+    protected Deque<Writable> makeOutput(OneRow oneRow) throws Exception {
+        List<List<OneField>> resolvedBatch;
+        if (resolver instanceof ReadColumnarResolver) {
+            resolvedBatch = getRecords(((ReadColumnarResolver) resolver).getColumnBatch(oneRow));
+        } else if (resolver instanceof ReadVectorizedResolver) {
+            resolvedBatch = ((ReadVectorizedResolver) resolver).getFieldsForBatch(oneRow);
+        } else {
+            return super.makeOutput(oneRow);
+        }
+        return outputBuilder.makeVectorizedOutput(resolvedBatch);
+    }
+
+    /*
+     * Copies the rows of a column batch into records of fields.
+     */
+    private static List<List<OneField>> getRecords(ColumnBatch batch) {
+        if (batch == null) {
+            return null;
+        }
+        List<List<OneField>> records = new ArrayList<>(batch.getRowCount());
+        for (int i = 0; i < batch.getRowCount(); i++) {
+            int row = batch.getRow(i);
+            List<OneField> record = new ArrayList<>(batch.getColumnCount());
+            for (int j = 0; j < batch.getColumnCount(); j++) {
+                ColumnVector column = batch.getColumn(j);
+                record.add(new OneField(column.getType().getOID(), column.getValue(row)));
+            }
+            records.add(record);
+        }
+        return records;
+    }
+
     /**
      * Fetches next sample, according to the sampling ratio.
      */
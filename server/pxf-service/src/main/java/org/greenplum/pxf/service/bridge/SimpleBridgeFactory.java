@@ -1,5 +1,7 @@
 package org.greenplum.pxf.service.bridge;
 
+import org.greenplum.pxf.api.ReadAhead;
+import org.greenplum.pxf.api.ReadColumnarResolver;
 import org.greenplum.pxf.api.ReadVectorizedResolver;
 import org.greenplum.pxf.api.model.RequestContext;
 import org.greenplum.pxf.api.utilities.Utilities;
@@ -28,8 +30,12 @@ public class SimpleBridgeFactory implements BridgeFactory {
             bridge = new ReadSamplingBridge(context);
         } else if (Utilities.aggregateOptimizationsSupported(context)) {
             bridge = new AggBridge(context);
+        } else if (useColumnarBatches(context)) {
+            bridge = new ReadColumnarBridge(context);
         } else if (useVectorization(context)) {
             bridge = new ReadVectorizedBridge(context);
+        } else if (usePipelining(context)) {
+            bridge = new ReadPipelinedBridge(context);
         } else {
             bridge = new ReadBridge(context);
         }
@@ -41,6 +47,16 @@ public class SimpleBridgeFactory implements BridgeFactory {
         return new WriteBridge(context);
     }
 
+    /**
+     * Determines whether the resolver produces column batches
+     *
+     * @param requestContext input protocol data
+     * @return true if the resolver implements {@link ReadColumnarResolver}
+     */
+    private boolean useColumnarBatches(RequestContext requestContext) {
+        return Utilities.implementsInterface(requestContext.getResolver(), ReadColumnarResolver.class);
+    }
+
     /**
      * Determines whether use vectorization
      *
@@ -51,4 +67,36 @@ public class SimpleBridgeFactory implements BridgeFactory {
         return Utilities.implementsInterface(requestContext.getResolver(), ReadVectorizedResolver.class);
     }
 
+    /**
+     * Determines whether to read rows ahead on a separate thread
+     *
+     * @param requestContext input protocol data
+     * @return true if pipelining was requested and the accessor supports it
+     */
+    private boolean usePipelining(RequestContext requestContext) {
+        if (!ReadPipelinedBridge.isPipelineRequested(requestContext)) {
+            return false;
+        }
+        if (!isReadAhead(requestContext.getAccessor())) {
+            LOG.warn("Accessor {} does not support reading ahead, PIPELINE option is ignored", requestContext.getAccessor());
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Determines whether an accessor class is annotated with
+     * {@link ReadAhead}, the annotation is not inherited by subclasses.
+     *
+     * @param className the accessor class name
+     * @return true if the class is annotated
+     */
+    static boolean isReadAhead(String className) {
+        try {
+            return Class.forName(className).isAnnotationPresent(ReadAhead.class);
+        } catch (ClassNotFoundException e) {
+            LOG.error("Unable to load class: {}", e.getMessage());
+            return false;
+        }
+    }
 }
@@ -21,11 +21,13 @@ package org.greenplum.pxf.service.rest;
 
 import org.apache.catalina.connector.ClientAbortException;
 import org.greenplum.pxf.api.model.RequestContext;
+import org.greenplum.pxf.service.BridgeLocks;
 import org.greenplum.pxf.service.bridge.Bridge;
 import org.greenplum.pxf.service.bridge.BridgeFactory;
 import org.greenplum.pxf.service.bridge.SimpleBridgeFactory;
 import org.greenplum.pxf.service.HttpRequestParser;
 import org.greenplum.pxf.service.RequestParser;
+import org.greenplum.pxf.service.utilities.ChunkedOutputStream;
 import org.greenplum.pxf.api.io.Writable;
 
 import javax.servlet.ServletContext;
@@ -41,6 +43,7 @@ import javax.ws.rs.core.StreamingOutput;
 import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.List;
 import java.util.concurrent.locks.ReentrantLock;
 
 /*
@@ -53,15 +56,17 @@ public class BridgeResource extends BaseResource {
     private BridgeFactory bridgeFactory;
 
     /**
-     * Lock is needed here in the case of a non-thread-safe plugin. Using
+     * Locks are needed here in the case of a non-thread-safe plugin. Using
      * synchronized methods is not enough because the bridge work is called by
      * jetty ({@link StreamingOutput}), after we are getting out of this class's
      * context.
      * <p/>
-     * BRIDGE_LOCK is accessed through lock() and unlock() functions, based on
-     * the isThreadSafe parameter that is determined by the bridge.
+     * The locks of a request are striped by its plugins (see {@link BridgeLocks}),
+     * so that unrelated non-thread-safe tables can stream concurrently. It is
+     * accessed through lock() and unlock() functions, based on the isThreadSafe
+     * parameter that is determined by the bridge.
      */
-    private static final ReentrantLock BRIDGE_LOCK = new ReentrantLock();
+    private BridgeLocks bridgeLocks;
 
     /**
      * Creates an instance of the resource with the default singletons of RequestParser and BridgeFactory.
@@ -78,6 +83,7 @@ public class BridgeResource extends BaseResource {
     BridgeResource(RequestParser<HttpHeaders> parser, BridgeFactory bridgeFactory) {
         super(parser);
         this.bridgeFactory = bridgeFactory;
+        this.bridgeLocks = BridgeLocks.getInstance();
     }
 
     /**
@@ -103,17 +109,18 @@ public class BridgeResource extends BaseResource {
         boolean isThreadSafe = context.isThreadSafe() && bridge.isThreadSafe();
         LOG.debug("Request for {} will be handled {} synchronization", context.getDataSource(), (isThreadSafe ? "without" : "with"));
 
-        return readResponse(bridge, context, isThreadSafe);
+        List<ReentrantLock> locks = isThreadSafe ? null : bridgeLocks.getLocks(context, bridge.isThreadSafe());
+        return readResponse(bridge, context, locks);
     }
 
     /**
      * Produces streaming Response used by the container to read data from the bridge.
      * @param bridge bridge to use to read data
      * @param context request context
-     * @param threadSafe whether streaming can proceed in parallel
+     * @param locks the locks guarding a non-thread-safe bridge, null if streaming can proceed in parallel
      * @return response object to be used by the container
      */
-    private Response readResponse(final Bridge bridge, RequestContext context, final boolean threadSafe) {
+    private Response readResponse(final Bridge bridge, RequestContext context, final List<ReentrantLock> locks) {
         final int fragment = context.getDataFragment();
         final String dataDir = context.getDataSource();
 
@@ -125,22 +132,25 @@ public class BridgeResource extends BaseResource {
                     WebApplicationException {
                 long recordCount = 0;
 
-                if (!threadSafe) {
-                    lock(dataDir);
+                if (locks != null) {
+                    bridgeLocks.lock(locks, dataDir);
                 }
                 try {
                     if (!bridge.beginIteration()) {
                         return;
                     }
                     Writable record;
-                    DataOutputStream dos = new DataOutputStream(out);
+                    ChunkedOutputStream chunkedStream = new ChunkedOutputStream(out);
+                    DataOutputStream dos = new DataOutputStream(chunkedStream);
 
                     LOG.debug("Starting streaming fragment {} of resource {}", fragment, dataDir);
                     while ((record = bridge.getNext()) != null) {
                         record.write(dos);
                         ++recordCount;
                     }
-                    LOG.debug("Finished streaming fragment {} of resource {}, {} records.", fragment, dataDir, recordCount);
+                    dos.flush();
+                    LOG.debug("Finished streaming fragment {} of resource {}, {} records, {} bytes in {} chunks.",
+                            fragment, dataDir, recordCount, chunkedStream.getBytesWritten(), chunkedStream.getFlushCount());
                 } catch (ClientAbortException e) {
                     // Occurs whenever client (GPDB) decides the end the connection
                     LOG.error("Remote connection closed by GPDB", e);
@@ -154,8 +164,8 @@ public class BridgeResource extends BaseResource {
                     } catch (Exception e) {
                         // ignore ... any significant errors should already have been handled
                     }
-                    if (!threadSafe) {
-                        unlock(dataDir);
+                    if (locks != null) {
+                        bridgeLocks.unlock(locks, dataDir);
                     }
                 }
             }
@@ -163,26 +173,4 @@ public class BridgeResource extends BaseResource {
 
         return Response.ok(streaming, MediaType.APPLICATION_OCTET_STREAM).build();
     }
-
-    /**
-     * Locks BRIDGE_LOCK
-     *
-     * @param path path for the request, used for logging.
-     */
-    private void lock(String path) {
-        LOG.trace("Locking BridgeResource for {}", path);
-        BRIDGE_LOCK.lock();
-        LOG.trace("Locked BridgeResource for {}", path);
-    }
-
-    /**
-     * Unlocks BRIDGE_LOCK
-     *
-     * @param path path for the request, used for logging.
-     */
-    private void unlock(String path) {
-        LOG.trace("Unlocking BridgeResource for {}", path);
-        BRIDGE_LOCK.unlock();
-        LOG.trace("Unlocked BridgeResource for {}", path);
-    }
 }
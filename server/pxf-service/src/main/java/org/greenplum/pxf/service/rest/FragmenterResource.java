@@ -19,10 +19,14 @@ package org.greenplum.pxf.service.rest;
  * under the License.
  */
 
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import org.greenplum.pxf.api.model.Fragment;
 import org.greenplum.pxf.api.model.FragmentStats;
 import org.greenplum.pxf.api.model.Fragmenter;
 import org.greenplum.pxf.api.model.RequestContext;
+import org.greenplum.pxf.api.utilities.ColumnDescriptor;
 import org.greenplum.pxf.api.utilities.FragmenterFactory;
 import org.greenplum.pxf.api.utilities.FragmentsResponse;
 import org.greenplum.pxf.api.utilities.FragmentsResponseFormatter;
@@ -40,6 +44,9 @@ import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Class enhances the API of the WEBHDFS REST server. Returns the data fragments
@@ -52,15 +59,51 @@ import java.util.List;
 @Path("/" + Version.PXF_PROTOCOL_VERSION + "/Fragmenter/")
 public class FragmenterResource extends BaseResource {
 
+    static final String PROPERTY_KEY_FRAGMENTER_CACHE_EXPIRATION = "pxf.service.fragmenter.cache.expiration";
+    static final String PROPERTY_KEY_FRAGMENTER_CACHE_SIZE = "pxf.service.fragmenter.cache.size";
+    static final long FRAGMENTER_CACHE_EXPIRATION = 10; // 10 Seconds
+    static final long FRAGMENTER_CACHE_SIZE = 1000;
+
+    /*
+     * All segments of a query request the fragments of the same table at
+     * roughly the same time. The listing is computed once and shared by all of
+     * them, the cache is shared by all resource instances.
+     */
+    private static final Cache<String, FragmentsResponse> FRAGMENT_CACHE =
+            buildCache(Ticker.systemTicker());
+
     private FragmenterFactory fragmenterFactory;
+    private Cache<String, FragmentsResponse> fragmentCache;
 
     public FragmenterResource() {
-        this(HttpRequestParser.getInstance(), FragmenterFactory.getInstance());
+        this(HttpRequestParser.getInstance(), FragmenterFactory.getInstance(), FRAGMENT_CACHE);
     }
 
-    FragmenterResource(RequestParser<HttpHeaders> parser, FragmenterFactory fragmenterFactory) {
+    FragmenterResource(RequestParser<HttpHeaders> parser,
+                       FragmenterFactory fragmenterFactory,
+                       Cache<String, FragmentsResponse> fragmentCache) {
         super(parser);
         this.fragmenterFactory = fragmenterFactory;
+        this.fragmentCache = fragmentCache;
+    }
+
+    /**
+     * Builds the fragment cache. The expiration (in seconds) and the maximum
+     * number of cached fragment lists can be overridden by the
+     * pxf.service.fragmenter.cache.expiration and pxf.service.fragmenter.cache.size
+     * system properties, an expiration of 0 disables caching.
+     *
+     * @param ticker the ticker used to determine the expiration of entries
+     * @return the fragment cache
+     */
+    static Cache<String, FragmentsResponse> buildCache(Ticker ticker) {
+        long expiration = Long.getLong(PROPERTY_KEY_FRAGMENTER_CACHE_EXPIRATION, FRAGMENTER_CACHE_EXPIRATION);
+        long size = Long.getLong(PROPERTY_KEY_FRAGMENTER_CACHE_SIZE, FRAGMENTER_CACHE_SIZE);
+        return CacheBuilder.newBuilder()
+                .ticker(ticker)
+                .expireAfterWrite(expiration, TimeUnit.SECONDS)
+                .maximumSize(size)
+                .build();
     }
 
     /**
@@ -84,14 +127,23 @@ public class FragmenterResource extends BaseResource {
 
         LOG.debug("FRAGMENTER started for path \"{}\"", path);
 
-        RequestContext context = parseRequest(headers);
-
-        /* Create a fragmenter instance with API level parameters */
-        final Fragmenter fragmenter = fragmenterFactory.getPlugin(context);
-
-        List<Fragment> fragments = fragmenter.getFragments();
-        fragments = AnalyzeUtils.getSampleFragments(fragments, context);
-        FragmentsResponse fragmentsResponse = FragmentsResponseFormatter.formatResponse(fragments, path);
+        final RequestContext context = parseRequest(headers);
+
+        FragmentsResponse fragmentsResponse;
+        if (context.getStatsMaxFragments() > 0 || context.getTransactionId() == null) {
+            /*
+             * ANALYZE samples the fragments, the sample is not shared. Without
+             * a transaction id, requests cannot be told apart.
+             */
+            fragmentsResponse = getFragmentsResponse(context, path);
+        } else {
+            try {
+                fragmentsResponse = fragmentCache.get(getCacheKey(context, path),
+                        () -> getFragmentsResponse(context, path));
+            } catch (ExecutionException e) {
+                throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+            }
+        }
 
         return Response.ok(fragmentsResponse, MediaType.APPLICATION_JSON_TYPE).build();
     }
@@ -130,4 +182,53 @@ public class FragmenterResource extends BaseResource {
         return Response.ok(response, MediaType.APPLICATION_JSON_TYPE).build();
     }
 
+    /**
+     * Calls the fragmenter and formats its fragments for the response.
+     *
+     * @param context the request context
+     * @param path    the URI path option used in this request
+     * @return the fragments response
+     * @throws Exception if getting fragments info failed
+     */
+    private FragmentsResponse getFragmentsResponse(RequestContext context, String path) throws Exception {
+        /* Create a fragmenter instance with API level parameters */
+        final Fragmenter fragmenter = fragmenterFactory.getPlugin(context);
+
+        List<Fragment> fragments = fragmenter.getFragments();
+        fragments = AnalyzeUtils.getSampleFragments(fragments, context);
+        return FragmentsResponseFormatter.formatResponse(fragments, path);
+    }
+
+    /**
+     * Returns the key identifying the fragments of a data source within a
+     * transaction. Requests with the same key are answered from the cache.
+     * The key holds everything a fragmenter may read from the request: the
+     * plugins, the options, the filter and the columns of the table.
+     *
+     * @param context the request context
+     * @param path    the URI path option used in this request
+     * @return the cache key
+     */
+    static String getCacheKey(RequestContext context, String path) {
+        StringBuilder key = new StringBuilder()
+                .append(context.getServerName()).append(':')
+                .append(context.getProfile()).append(':')
+                .append(context.getFragmenter()).append(':')
+                .append(context.getAccessor()).append(':')
+                .append(context.getResolver()).append(':')
+                .append(context.getDataSource()).append(':')
+                .append(path).append(':')
+                .append(context.getFilterString()).append(':')
+                .append(context.getUser()).append(':')
+                .append(context.getTransactionId()).append(':')
+                // the options are sorted by name
+                .append(context.getOptions()).append(':')
+                .append(context.getAdditionalConfigProps() == null ? null
+                        : new TreeMap<>(context.getAdditionalConfigProps())).append(':');
+        for (ColumnDescriptor column : context.getTupleDescription()) {
+            key.append(column.columnName()).append(' ')
+                    .append(column.columnTypeCode()).append(',');
+        }
+        return key.toString();
+    }
 }
@@ -24,6 +24,7 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.greenplum.pxf.api.model.RequestContext;
 import org.greenplum.pxf.api.utilities.Utilities;
+import org.greenplum.pxf.service.BridgeLocks;
 import org.greenplum.pxf.service.bridge.Bridge;
 import org.greenplum.pxf.service.HttpRequestParser;
 import org.greenplum.pxf.service.RequestParser;
@@ -42,6 +43,8 @@ import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import java.io.DataInputStream;
 import java.io.InputStream;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
 
 
 /*
@@ -88,6 +91,7 @@ import java.io.InputStream;
 public class WritableResource extends BaseResource {
 
     private BridgeFactory bridgeFactory;
+    private BridgeLocks bridgeLocks;
 
     /**
      * Creates an instance of the resource with the default singletons of RequestParser and BridgeFactory.
@@ -104,6 +108,7 @@ public class WritableResource extends BaseResource {
     WritableResource(RequestParser<HttpHeaders> parser, BridgeFactory bridgeFactory) {
         super(parser);
         this.bridgeFactory = bridgeFactory;
+        this.bridgeLocks = BridgeLocks.getInstance();
     }
 
     /**
@@ -136,18 +141,19 @@ public class WritableResource extends BaseResource {
 
         return isThreadSafe ?
                 writeResponse(bridge, path, inputStream) :
-                synchronizedWriteResponse(bridge, path, inputStream);
+                synchronizedWriteResponse(bridgeLocks.getLocks(context, bridge.isThreadSafe()), bridge, path, inputStream);
     }
 
-    private Response synchronizedWriteResponse(Bridge bridge, String path, InputStream inputStream)
+    private Response synchronizedWriteResponse(List<ReentrantLock> locks, Bridge bridge, String path, InputStream inputStream)
             throws Exception {
 
-        // non tread-safe access will be synchronized on the class level
-        Response result;
-        synchronized (WritableResource.class) {
-            result = writeResponse(bridge, path, inputStream);
+        // non tread-safe access will be serialized by the locks of the plugins
+        bridgeLocks.lock(locks, path);
+        try {
+            return writeResponse(bridge, path, inputStream);
+        } finally {
+            bridgeLocks.unlock(locks, path);
         }
-        return result;
     }
 
     private Response writeResponse(Bridge bridge, String path, InputStream inputStream)
@@ -0,0 +1,137 @@
+package org.greenplum.pxf.service.utilities;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Output stream that collects the serialized records of a bridge in a
+ * reusable buffer, and writes them to the underlying stream in large chunks.
+ * Keeps track of the number of bytes and chunks written.
+ * <p>
+ * Closing this stream flushes the buffer but does not close the underlying
+ * stream, which is owned by the container.
+ */
+public class ChunkedOutputStream extends OutputStream {
+
+    public static final String PROPERTY_KEY_OUTPUT_BUFFER_SIZE = "pxf.service.output.buffer.size";
+    public static final int DEFAULT_BUFFER_SIZE = 64 * 1024; // 64 KB
+    static final int MIN_BUFFER_SIZE = 1024;
+    static final int MAX_BUFFER_SIZE = 16 * 1024 * 1024;
+
+    private final OutputStream out;
+    private final byte[] buffer;
+    private int count;
+    private long bytesWritten;
+    private long flushCount;
+
+    /**
+     * Creates a stream with the buffer size configured by the
+     * pxf.service.output.buffer.size system property.
+     *
+     * @param out the underlying output stream
+     */
+    public ChunkedOutputStream(OutputStream out) {
+        this(out, Integer.getInteger(PROPERTY_KEY_OUTPUT_BUFFER_SIZE, DEFAULT_BUFFER_SIZE));
+    }
+
+    /**
+     * Creates a stream with the given buffer size. The size is bounded to
+     * the range of 1KB to 16MB.
+     *
+     * @param out        the underlying output stream
+     * @param bufferSize the size of the buffer in bytes
+     */
+    public ChunkedOutputStream(OutputStream out, int bufferSize) {
+        this.out = out;
+        this.buffer = new byte[Math.min(Math.max(bufferSize, MIN_BUFFER_SIZE), MAX_BUFFER_SIZE)];
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        if (count == buffer.length) {
+            flushBuffer();
+        }
+        buffer[count++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (len > buffer.length - count) {
+            flushBuffer();
+            if (len >= buffer.length) {
+                // do not copy data that would fill the buffer anyway
+                out.write(b, off, len);
+                bytesWritten += len;
+                flushCount++;
+                return;
+            }
+        }
+        System.arraycopy(b, off, buffer, count, len);
+        count += len;
+    }
+
+    /**
+     * Writes the buffered bytes to the underlying stream and flushes it.
+     *
+     * @throws IOException if writing to the underlying stream failed
+     */
+    @Override
+    public void flush() throws IOException {
+        flushBuffer();
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+    }
+
+    /**
+     * @return the number of bytes written to the underlying stream
+     */
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    /**
+     * @return the number of chunks written to the underlying stream
+     */
+    public long getFlushCount() {
+        return flushCount;
+    }
+
+    /**
+     * @return the size of the buffer in bytes
+     */
+    public int getBufferSize() {
+        return buffer.length;
+    }
+
+    private void flushBuffer() throws IOException {
+        if (count > 0) {
+            out.write(buffer, 0, count);
+            bytesWritten += count;
+            flushCount++;
+            count = 0;
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package org.greenplum.pxf.service;
+
+import org.greenplum.pxf.api.model.RequestContext;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class BridgeLocksTest {
+
+    private BridgeLocks bridgeLocks;
+    private RequestContext context;
+
+    @Before
+    public void setup() {
+        bridgeLocks = new BridgeLocks(BridgeLocks.BRIDGE_LOCK_STRIPES);
+
+        context = new RequestContext();
+        context.setAccessor("org.greenplum.pxf.plugins.jdbc.JdbcAccessor");
+        context.setResolver("org.greenplum.pxf.plugins.jdbc.JdbcResolver");
+        context.setDataSource("public.table_a");
+    }
+
+    @Test
+    public void nonThreadSafePluginsAreKeyedByClass() {
+        List<String> keys = BridgeLocks.getKeys(context, false);
+        context.setDataSource("public.table_b");
+
+        assertEquals(2, keys.size());
+        assertEquals(context.getAccessor(), keys.get(0));
+        assertEquals(context.getResolver(), keys.get(1));
+        assertEquals(keys, BridgeLocks.getKeys(context, false));
+        assertEquals(bridgeLocks.getLocks(context, false), bridgeLocks.getLocks(context, false));
+    }
+
+    @Test
+    public void threadSafePluginIsKeyedByDataSource() {
+        List<String> keys = BridgeLocks.getKeys(context, true);
+        context.setDataSource("public.table_b");
+
+        assertEquals(1, keys.size());
+        assertNotEquals(keys, BridgeLocks.getKeys(context, true));
+    }
+
+    @Test
+    public void locksAreOrdered() {
+        // whatever the order of the plugins, the locks are taken in the same order
+        List<ReentrantLock> locks = bridgeLocks.getLocks(context, false);
+        String accessor = context.getAccessor();
+        context.setAccessor(context.getResolver());
+        context.setResolver(accessor);
+
+        assertEquals(locks, bridgeLocks.getLocks(context, false));
+    }
+
+    @Test
+    public void pluginsOnTheSameStripeTakeOneLock() {
+        bridgeLocks = new BridgeLocks(1);
+
+        assertEquals(1, bridgeLocks.getLocks(context, false).size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidNumberOfStripes() {
+        new BridgeLocks(0);
+    }
+
+    @Test
+    public void sameAccessorIsSerializedAcrossResolvers() throws Exception {
+        final List<ReentrantLock> locks = bridgeLocks.getLocks(context, false);
+        context.setResolver("org.greenplum.pxf.plugins.hdfs.StringPassResolver");
+        final List<ReentrantLock> otherLocks = bridgeLocks.getLocks(context, false);
+        final CountDownLatch locked = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+
+        Thread holder = new Thread(() -> {
+            bridgeLocks.lock(locks, "holder");
+            locked.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                bridgeLocks.unlock(locks, "holder");
+            }
+        });
+        holder.start();
+        locked.await();
+
+        Thread waiter = new Thread(() -> {
+            bridgeLocks.lock(otherLocks, "waiter");
+            bridgeLocks.unlock(otherLocks, "waiter");
+        });
+        waiter.start();
+        while (otherLocks.stream().noneMatch(lock -> lock.hasQueuedThread(waiter))) {
+            Thread.sleep(1);
+        }
+        release.countDown();
+        holder.join();
+        waiter.join();
+
+        for (ReentrantLock lock : otherLocks) {
+            assertFalse(lock.isLocked());
+        }
+        // the wait of the waiter is recorded
+        assertTrue(Arrays.stream(bridgeLocks.getWaitCounts()).sum() >= 1);
+        assertTrue(Arrays.stream(bridgeLocks.getMaxWaitMicros()).max().getAsLong() > 0);
+        assertTrue(Arrays.stream(bridgeLocks.getWaitMicros()).sum()
+                >= Arrays.stream(bridgeLocks.getMaxWaitMicros()).max().getAsLong());
+    }
+
+    @Test
+    public void uncontendedLocksRecordNoWait() {
+        List<ReentrantLock> locks = bridgeLocks.getLocks(context, false);
+        bridgeLocks.lock(locks, "path");
+        bridgeLocks.unlock(locks, "path");
+
+        assertEquals(BridgeLocks.BRIDGE_LOCK_STRIPES, bridgeLocks.getWaitCounts().length);
+        assertEquals(0, Arrays.stream(bridgeLocks.getWaitCounts()).sum());
+        assertEquals(0, Arrays.stream(bridgeLocks.getMaxWaitMicros()).sum());
+    }
+}
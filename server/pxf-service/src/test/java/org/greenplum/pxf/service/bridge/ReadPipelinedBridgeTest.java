@@ -0,0 +1,180 @@
+package org.greenplum.pxf.service.bridge;
+
+import org.greenplum.pxf.api.OneField;
+import org.greenplum.pxf.api.OneRow;
+import org.greenplum.pxf.api.io.DataType;
+import org.greenplum.pxf.api.io.Writable;
+import org.greenplum.pxf.api.model.Accessor;
+import org.greenplum.pxf.api.model.OutputFormat;
+import org.greenplum.pxf.api.model.RequestContext;
+import org.greenplum.pxf.api.model.Resolver;
+import org.greenplum.pxf.api.utilities.AccessorFactory;
+import org.greenplum.pxf.api.utilities.ResolverFactory;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.mockito.stubbing.Answer;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ReadPipelinedBridgeTest {
+
+    private RequestContext context;
+
+    @Mock private AccessorFactory mockAccessorFactory;
+    @Mock private ResolverFactory mockResolverFactory;
+    @Mock private Accessor mockAccessor;
+    @Mock private Resolver mockResolver;
+
+    @Before
+    public void setup() throws Exception {
+        context = new RequestContext();
+        context.setOutputFormat(OutputFormat.TEXT);
+
+        when(mockAccessorFactory.getPlugin(context)).thenReturn(mockAccessor);
+        when(mockResolverFactory.getPlugin(context)).thenReturn(mockResolver);
+        when(mockAccessor.openForRead()).thenReturn(true);
+        when(mockResolver.getFields(any(OneRow.class))).thenAnswer(new Answer<Object>() {
+            @Override
+            public Object answer(InvocationOnMock invocation) {
+                OneRow row = (OneRow) invocation.getArguments()[0];
+                return Collections.singletonList(new OneField(DataType.TEXT.getOID(), row.getData().toString()));
+            }
+        });
+    }
+
+    @Test
+    public void isPipelineRequested() {
+        assertFalse(ReadPipelinedBridge.isPipelineRequested(context));
+        context.addOption("pipeline", "TRUE");
+        assertTrue(ReadPipelinedBridge.isPipelineRequested(context));
+    }
+
+    @Test
+    public void readsAllRowsInOrder() throws Exception {
+        context.addOption(ReadPipelinedBridge.PIPELINE_QUEUE_SIZE_OPTION, "16");
+        when(mockAccessor.readNextObject()).thenAnswer(new RowsAnswer(1000, null));
+
+        ReadPipelinedBridge bridge = new ReadPipelinedBridge(context, mockAccessorFactory, mockResolverFactory);
+        assertTrue(bridge.beginIteration());
+        for (int i = 0; i < 1000; i++) {
+            Writable record = bridge.getNext();
+            assertEquals(i + "\n", record.toString());
+        }
+        assertNull(bridge.getNext());
+        assertNull(bridge.getNext());
+        bridge.endIteration();
+
+        verify(mockAccessor).closeForRead();
+    }
+
+    @Test
+    public void accessorErrorIsThrownAfterRows() throws Exception {
+        when(mockAccessor.readNextObject()).thenAnswer(new RowsAnswer(10, new IOException("disk failure")));
+
+        ReadPipelinedBridge bridge = new ReadPipelinedBridge(context, mockAccessorFactory, mockResolverFactory);
+        assertTrue(bridge.beginIteration());
+        for (int i = 0; i < 10; i++) {
+            assertEquals(i + "\n", bridge.getNext().toString());
+        }
+        try {
+            bridge.getNext();
+            fail("expected IOException");
+        } catch (IOException e) {
+            assertEquals("disk failure", e.getMessage());
+        }
+        bridge.endIteration();
+    }
+
+    @Test(timeout = 10000)
+    public void accessorFatalErrorIsThrownAfterRows() throws Exception {
+        when(mockAccessor.readNextObject()).thenAnswer(new RowsAnswer(10, new NoClassDefFoundError("codec")));
+
+        ReadPipelinedBridge bridge = new ReadPipelinedBridge(context, mockAccessorFactory, mockResolverFactory);
+        assertTrue(bridge.beginIteration());
+        for (int i = 0; i < 10; i++) {
+            assertEquals(i + "\n", bridge.getNext().toString());
+        }
+        try {
+            bridge.getNext();
+            fail("expected NoClassDefFoundError");
+        } catch (NoClassDefFoundError e) {
+            assertEquals("codec", e.getMessage());
+        }
+        bridge.endIteration();
+
+        verify(mockAccessor).closeForRead();
+    }
+
+    @Test
+    public void accessorDataErrorIsReturnedAsErrorRecord() throws Exception {
+        context.setOutputFormat(OutputFormat.GPDBWritable);
+        when(mockAccessor.readNextObject()).thenAnswer(new RowsAnswer(0, new EOFException("bad record")));
+
+        ReadPipelinedBridge bridge = new ReadPipelinedBridge(context, mockAccessorFactory, mockResolverFactory);
+        assertTrue(bridge.beginIteration());
+        assertTrue(bridge.getNext().toString().contains("bad record"));
+        assertNull(bridge.getNext());
+        bridge.endIteration();
+    }
+
+    @Test
+    public void endIterationStopsReader() throws Exception {
+        context.addOption(ReadPipelinedBridge.PIPELINE_QUEUE_SIZE_OPTION, "1");
+        when(mockAccessor.readNextObject()).thenAnswer(new RowsAnswer(Integer.MAX_VALUE, null));
+
+        ReadPipelinedBridge bridge = new ReadPipelinedBridge(context, mockAccessorFactory, mockResolverFactory);
+        assertTrue(bridge.beginIteration());
+        assertEquals("0\n", bridge.getNext().toString());
+        bridge.endIteration();
+
+        verify(mockAccessor).closeForRead();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidQueueSize() {
+        context.addOption(ReadPipelinedBridge.PIPELINE_QUEUE_SIZE_OPTION, "0");
+        new ReadPipelinedBridge(context, mockAccessorFactory, mockResolverFactory);
+    }
+
+    /**
+     * Returns the given number of rows, then throws the given exception or
+     * returns null.
+     */
+    private static class RowsAnswer implements Answer<OneRow> {
+        private final int rows;
+        private final Throwable error;
+        private int count;
+
+        RowsAnswer(int rows, Throwable error) {
+            this.rows = rows;
+            this.error = error;
+        }
+
+        @Override
+        public OneRow answer(InvocationOnMock invocation) throws Throwable {
+            if (count < rows) {
+                return new OneRow(null, count++);
+            }
+            if (error != null) {
+                throw error;
+            }
+            return null;
+        }
+    }
+}
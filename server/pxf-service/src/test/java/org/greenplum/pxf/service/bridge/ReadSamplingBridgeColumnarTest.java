@@ -0,0 +1,94 @@
+package org.greenplum.pxf.service.bridge;
+
+import org.greenplum.pxf.api.OneRow;
+import org.greenplum.pxf.api.ReadColumnarResolver;
+import org.greenplum.pxf.api.io.ColumnBatch;
+import org.greenplum.pxf.api.io.DataType;
+import org.greenplum.pxf.api.io.GPDBWritable;
+import org.greenplum.pxf.api.model.Accessor;
+import org.greenplum.pxf.api.model.OutputFormat;
+import org.greenplum.pxf.api.model.RequestContext;
+import org.greenplum.pxf.api.model.Resolver;
+import org.greenplum.pxf.api.utilities.AccessorFactory;
+import org.greenplum.pxf.api.utilities.ColumnDescriptor;
+import org.greenplum.pxf.api.utilities.ResolverFactory;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * Samples rows resolved in column batches, the way the vectorized Parquet
+ * profile returns them.
+ */
+public class ReadSamplingBridgeColumnarTest {
+
+    private RequestContext context;
+    private AccessorFactory mockAccessorFactory;
+    private ResolverFactory mockResolverFactory;
+    private Accessor mockAccessor;
+    private Resolver mockResolver;
+
+    @Before
+    public void setup() throws Exception {
+        context = new RequestContext();
+        context.setOutputFormat(OutputFormat.GPDBWritable);
+        context.setStatsSampleRatio(1.0f);
+        context.getTupleDescription().add(new ColumnDescriptor("id", DataType.INTEGER.getOID(), 0, "int4", null));
+        context.getTupleDescription().add(new ColumnDescriptor("name", DataType.TEXT.getOID(), 1, "text", null));
+
+        mockAccessorFactory = mock(AccessorFactory.class);
+        mockResolverFactory = mock(ResolverFactory.class);
+        mockAccessor = mock(Accessor.class);
+        mockResolver = mock(Resolver.class, withSettings().extraInterfaces(ReadColumnarResolver.class));
+        when(mockAccessorFactory.getPlugin(context)).thenReturn(mockAccessor);
+        when(mockResolverFactory.getPlugin(context)).thenReturn(mockResolver);
+        when(mockAccessor.openForRead()).thenReturn(true);
+    }
+
+    @Test
+    public void samplesEachRowOfColumnBatches() throws Exception {
+        OneRow first = new OneRow(3, "first");
+        OneRow second = new OneRow(2, "second");
+        when(mockAccessor.readNextObject()).thenReturn(first, second, null);
+        ColumnBatch firstBatch = new ColumnBatch(context.getTupleDescription());
+        fill(firstBatch, 0, 3);
+        // the second row of the batch is filtered out
+        firstBatch.getSelected()[0] = 0;
+        firstBatch.getSelected()[1] = 2;
+        firstBatch.setSelectedSize(2);
+        ColumnBatch secondBatch = new ColumnBatch(context.getTupleDescription());
+        fill(secondBatch, 3, 2);
+        secondBatch.getColumn(1).setNull(1);
+        when(((ReadColumnarResolver) mockResolver).getColumnBatch(first)).thenReturn(firstBatch);
+        when(((ReadColumnarResolver) mockResolver).getColumnBatch(second)).thenReturn(secondBatch);
+
+        ReadSamplingBridge bridge = new ReadSamplingBridge(context, mockAccessorFactory, mockResolverFactory);
+        assertTrue(bridge.beginIteration());
+
+        assertRow((GPDBWritable) bridge.getNext(), 0, "row 0");
+        assertRow((GPDBWritable) bridge.getNext(), 2, "row 2");
+        assertRow((GPDBWritable) bridge.getNext(), 3, "row 3");
+        assertRow((GPDBWritable) bridge.getNext(), 4, null);
+        assertNull(bridge.getNext());
+    }
+
+    private static void fill(ColumnBatch batch, int firstId, int rows) {
+        for (int i = 0; i < rows; i++) {
+            batch.getColumn(0).setLong(i, firstId + i);
+            batch.getColumn(1).setString(i, "row " + (firstId + i));
+        }
+        batch.setSize(rows);
+    }
+
+    private static void assertRow(GPDBWritable record, int id, String name) throws Exception {
+        assertEquals(Integer.valueOf(id), record.getInt(0));
+        // text values are null terminated
+        assertEquals(name == null ? null : name + "\0", record.getString(1));
+    }
+}
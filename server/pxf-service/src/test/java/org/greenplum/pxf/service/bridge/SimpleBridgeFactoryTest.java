@@ -0,0 +1,42 @@
+package org.greenplum.pxf.service.bridge;
+
+import org.greenplum.pxf.api.ReadAhead;
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SimpleBridgeFactoryTest {
+
+    @Test
+    public void annotatedAccessorIsReadAhead() {
+        assertTrue(SimpleBridgeFactory.isReadAhead(ReadAheadTestAccessor.class.getName()));
+    }
+
+    @Test
+    public void subclassOfReadAheadAccessorIsNotReadAhead() {
+        assertFalse(SimpleBridgeFactory.isReadAhead(ReusingTestAccessor.class.getName()));
+    }
+
+    @Test
+    public void subclassCanBeAnnotatedAgain() {
+        assertTrue(SimpleBridgeFactory.isReadAhead(AnnotatedAgainTestAccessor.class.getName()));
+    }
+
+    @Test
+    public void otherAccessorsAreNotReadAhead() {
+        assertFalse(SimpleBridgeFactory.isReadAhead(TestAccessor.class.getName()));
+        assertFalse(SimpleBridgeFactory.isReadAhead("org.greenplum.pxf.NoSuchAccessor"));
+    }
+
+    @ReadAhead
+    public static class ReadAheadTestAccessor extends TestAccessor {
+    }
+
+    public static class ReusingTestAccessor extends ReadAheadTestAccessor {
+    }
+
+    @ReadAhead
+    public static class AnnotatedAgainTestAccessor extends ReusingTestAccessor {
+    }
+}
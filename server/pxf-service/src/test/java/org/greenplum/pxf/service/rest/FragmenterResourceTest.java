@@ -0,0 +1,151 @@
+package org.greenplum.pxf.service.rest;
+
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import org.greenplum.pxf.api.io.DataType;
+import org.greenplum.pxf.api.model.Fragment;
+import org.greenplum.pxf.api.model.Fragmenter;
+import org.greenplum.pxf.api.model.RequestContext;
+import org.greenplum.pxf.api.utilities.ColumnDescriptor;
+import org.greenplum.pxf.api.utilities.FragmenterFactory;
+import org.greenplum.pxf.api.utilities.FragmentsResponse;
+import org.greenplum.pxf.service.HttpRequestParser;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import javax.servlet.ServletContext;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class FragmenterResourceTest {
+
+    private FragmenterResource fragmenterResource;
+    private FakeTicker fakeTicker;
+
+    // constructor dependencies
+    @Mock private HttpRequestParser mockParser;
+    @Mock private FragmenterFactory mockFactory;
+
+    // input parameters
+    @Mock private ServletContext mockServletContext;
+    @Mock private HttpHeaders mockHeaders;
+
+    @Mock private Fragmenter mockFragmenter;
+
+    private RequestContext context;
+
+    @Before
+    public void before() throws Exception {
+        fakeTicker = new FakeTicker();
+        Cache<String, FragmentsResponse> cache = FragmenterResource.buildCache(fakeTicker);
+        fragmenterResource = new FragmenterResource(mockParser, mockFactory, cache);
+
+        context = new RequestContext();
+        context.setServerName("default");
+        context.setProfile("HdfsTextSimple");
+        context.setFragmenter("org.greenplum.pxf.plugins.hdfs.HdfsDataFragmenter");
+        context.setDataSource("/tmp/data");
+        context.setUser("alex");
+        context.setTransactionId("XID-1");
+
+        List<Fragment> fragments = new ArrayList<>();
+        fragments.add(new Fragment("/tmp/data", new String[]{"127.0.0.1"}, new byte[0]));
+
+        when(mockParser.parseRequest(mockHeaders)).thenReturn(context);
+        when(mockFactory.getPlugin(context)).thenReturn(mockFragmenter);
+        when(mockFragmenter.getFragments()).thenReturn(fragments);
+    }
+
+    @Test
+    public void getFragmentsIsCachedWithinTransaction() throws Exception {
+        Response first = fragmenterResource.getFragments(mockServletContext, mockHeaders, "/tmp/data");
+        Response second = fragmenterResource.getFragments(mockServletContext, mockHeaders, "/tmp/data");
+
+        assertEquals(Response.Status.OK, Response.Status.fromStatusCode(first.getStatus()));
+        assertSame(first.getEntity(), second.getEntity());
+        verify(mockFragmenter, times(1)).getFragments();
+    }
+
+    @Test
+    public void getFragmentsExpires() throws Exception {
+        fragmenterResource.getFragments(mockServletContext, mockHeaders, "/tmp/data");
+        fakeTicker.advanceTime(FragmenterResource.FRAGMENTER_CACHE_EXPIRATION + 1, TimeUnit.SECONDS);
+        fragmenterResource.getFragments(mockServletContext, mockHeaders, "/tmp/data");
+
+        verify(mockFragmenter, times(2)).getFragments();
+    }
+
+    @Test
+    public void getFragmentsNotCachedForAnalyze() throws Exception {
+        context.setStatsMaxFragments(10);
+        fragmenterResource.getFragments(mockServletContext, mockHeaders, "/tmp/data");
+        fragmenterResource.getFragments(mockServletContext, mockHeaders, "/tmp/data");
+
+        verify(mockFragmenter, times(2)).getFragments();
+    }
+
+    @Test
+    public void getFragmentsNotCachedWithoutTransaction() throws Exception {
+        context.setTransactionId(null);
+        fragmenterResource.getFragments(mockServletContext, mockHeaders, "/tmp/data");
+        fragmenterResource.getFragments(mockServletContext, mockHeaders, "/tmp/data");
+
+        verify(mockFragmenter, times(2)).getFragments();
+    }
+
+    @Test
+    public void cacheKeyDependsOnTransactionAndFilter() {
+        String key = FragmenterResource.getCacheKey(context, "/tmp/data");
+
+        context.setTransactionId("XID-2");
+        assertNotEquals(key, FragmenterResource.getCacheKey(context, "/tmp/data"));
+
+        context.setTransactionId("XID-1");
+        context.setFilterString("a1c20s1d5o5");
+        assertNotEquals(key, FragmenterResource.getCacheKey(context, "/tmp/data"));
+
+        context.setFilterString(null);
+        assertEquals(key, FragmenterResource.getCacheKey(context, "/tmp/data"));
+    }
+
+    @Test
+    public void cacheKeyDependsOnOptionsAndColumns() {
+        String key = FragmenterResource.getCacheKey(context, "/tmp/data");
+
+        assertNotEquals(key, FragmenterResource.getCacheKey(context, "/tmp/other"));
+
+        context.addOption("PARTITION_BY", "id:int");
+        String keyWithOption = FragmenterResource.getCacheKey(context, "/tmp/data");
+        assertNotEquals(key, keyWithOption);
+
+        context.getTupleDescription().add(new ColumnDescriptor("id", DataType.INTEGER.getOID(), 0, "int4", null));
+        assertNotEquals(keyWithOption, FragmenterResource.getCacheKey(context, "/tmp/data"));
+    }
+
+    private static class FakeTicker extends Ticker {
+        private long nanos = 0;
+
+        @Override
+        public long read() {
+            return nanos;
+        }
+
+        void advanceTime(long duration, TimeUnit unit) {
+            nanos += unit.toNanos(duration);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package org.greenplum.pxf.service.utilities;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class ChunkedOutputStreamTest {
+
+    private CountingStream target;
+    private ChunkedOutputStream stream;
+
+    @Before
+    public void setup() {
+        target = new CountingStream();
+        stream = new ChunkedOutputStream(target, ChunkedOutputStream.MIN_BUFFER_SIZE);
+    }
+
+    @Test
+    public void smallWritesAreBuffered() throws IOException {
+        byte[] record = new byte[100];
+        Arrays.fill(record, (byte) 'a');
+        for (int i = 0; i < 10; i++) {
+            stream.write(record);
+        }
+
+        assertEquals(0, target.writes);
+
+        stream.flush();
+
+        assertEquals(1, target.writes);
+        assertEquals(1000, target.size());
+        assertEquals(1000, stream.getBytesWritten());
+        assertEquals(1, stream.getFlushCount());
+    }
+
+    @Test
+    public void bufferIsFlushedWhenFull() throws IOException {
+        byte[] record = new byte[300];
+        for (int i = 0; i < 4; i++) {
+            Arrays.fill(record, (byte) i);
+            stream.write(record);
+        }
+        stream.write(7);
+
+        assertEquals(1, target.writes);
+        assertEquals(900, target.size());
+
+        stream.close();
+
+        assertEquals(2, target.writes);
+        assertEquals(1201, stream.getBytesWritten());
+        byte[] expected = new byte[1201];
+        for (int i = 0; i < 4; i++) {
+            Arrays.fill(expected, i * 300, (i + 1) * 300, (byte) i);
+        }
+        expected[1200] = 7;
+        assertArrayEquals(expected, target.toByteArray());
+    }
+
+    @Test
+    public void largeWritesBypassBuffer() throws IOException {
+        stream.write(new byte[10]);
+        stream.write(new byte[5000]);
+
+        assertEquals(2, target.writes);
+        assertEquals(5010, stream.getBytesWritten());
+        assertEquals(2, stream.getFlushCount());
+    }
+
+    @Test
+    public void bufferSizeIsBounded() {
+        assertEquals(ChunkedOutputStream.MIN_BUFFER_SIZE, new ChunkedOutputStream(target, 1).getBufferSize());
+        assertEquals(ChunkedOutputStream.MAX_BUFFER_SIZE,
+                new ChunkedOutputStream(target, Integer.MAX_VALUE).getBufferSize());
+        assertEquals(ChunkedOutputStream.DEFAULT_BUFFER_SIZE, new ChunkedOutputStream(target).getBufferSize());
+    }
+
+    @Test
+    public void closeDoesNotCloseUnderlyingStream() throws IOException {
+        OutputStream closeFails = new OutputStream() {
+            @Override
+            public void write(int b) {
+            }
+
+            @Override
+            public void close() throws IOException {
+                throw new IOException("should not be closed");
+            }
+        };
+        ChunkedOutputStream chunked = new ChunkedOutputStream(closeFails);
+        chunked.write(1);
+        chunked.close();
+    }
+
+    private static class CountingStream extends ByteArrayOutputStream {
+        private int writes;
+
+        @Override
+        public synchronized void write(byte[] b, int off, int len) {
+            writes++;
+            super.write(b, off, len);
+        }
+    }
+}